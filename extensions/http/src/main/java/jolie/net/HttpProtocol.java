@@ -23,6 +23,8 @@ import java.io.*;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
@@ -35,30 +37,18 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import jolie.tracer.DummyTracer;
 import jolie.tracer.ProtocolTraceAction;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 import jolie.Interpreter;
 import jolie.js.JsUtils;
 import jolie.lang.Constants;
 import jolie.lang.NativeType;
+import jolie.net.http.ChunkedOutputStream;
 import jolie.net.http.HttpMessage;
 import jolie.net.http.HttpParser;
 import jolie.net.http.HttpUtils;
@@ -76,7 +66,8 @@ import jolie.runtime.typing.RequestResponseTypeDescription;
 import jolie.runtime.typing.Type;
 import jolie.runtime.typing.TypeCastingException;
 import jolie.util.LocationParser;
-import jolie.xml.XmlUtils;
+import jolie.xml.XmlStreamUtils;
+import jolie.xml.XmlWriter;
 
 /**
  * HTTP protocol implementation
@@ -89,6 +80,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	private static final int DEFAULT_REDIRECTION_STATUS_CODE = 303;
 	private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream"; // default content type per RFC 2616#7.2.1
 	private static final String DEFAULT_FORMAT = "xml";
+	private static final int CHUNK_SIZE = 0x10000; // 64K
 	private static final Map< Integer, String > statusCodeDescriptions = new HashMap<>();
 	private static final Set< Integer > locationRequiredStatusCodes = new HashSet<>();
 
@@ -195,6 +187,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		private static final String DROP_URI_PATH = "dropURIPath";
 		private static final String CACHE_CONTROL = "cacheControl";
 		private static final String FORCE_CONTENT_DECODING = "forceContentDecoding";
+		private static final String CHUNKED = "chunked";
 
 		private static class MultiPartHeaders {
 			private static final String FILENAME = "filename";
@@ -212,9 +205,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	}
 
 	private String inputId = null;
-	private final Transformer transformer;
-	private final DocumentBuilderFactory docBuilderFactory;
-	private final DocumentBuilder docBuilder;
+	private final XMLInputFactory xmlInputFactory;
 	private final URI uri;
 	private final boolean inInputPort;
 	private MultiPartFormDataParser multiPartFormDataParser = null;
@@ -231,25 +222,24 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		return checkBooleanParameter( Parameters.CONCURRENT );
 	}
 
+	@Override
+	public boolean isMessageComplete( ByteBuffer data )
+	{
+		// Responses are read by the threads waiting for them
+		return !inInputPort || HttpParser.isMessageComplete( data );
+	}
+
 	public HttpProtocol(
 		VariablePath configurationPath,
 		URI uri,
 		boolean inInputPort,
-		TransformerFactory transformerFactory,
-		DocumentBuilderFactory docBuilderFactory,
-		DocumentBuilder docBuilder
+		XMLInputFactory xmlInputFactory
 	)
-		throws TransformerConfigurationException
 	{
 		super( configurationPath );
 		this.uri = uri;
 		this.inInputPort = inInputPort;
-		this.transformer = transformerFactory.newTransformer();
-		this.docBuilderFactory = docBuilderFactory;
-		this.docBuilder = docBuilder;
-
-		transformer.setOutputProperty( OutputKeys.OMIT_XML_DECLARATION, "yes" );
-		transformer.setOutputProperty( OutputKeys.INDENT, "no" );
+		this.xmlInputFactory = xmlInputFactory;
 	}
 
 	public String getMultipartHeaderForPart( String operationName, String partName )
@@ -338,6 +328,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	private String encoding = null;
 	private String responseFormat = null;
 	private boolean headRequest = false;
+	private boolean http10Request = false;
 
 	private static void send_appendQuerystring( Value value, StringBuilder headerBuilder )
 		throws IOException
@@ -433,6 +424,8 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		private ByteArray content = null;
 		private String contentType = DEFAULT_CONTENT_TYPE;
 		private String contentDisposition = "";
+		private boolean chunked = false;
+		private String contentCoding = null; // Applied while sending chunked contents
 	}
 
 	private EncodedContent send_encodeContent( CommMessage message, Method method, String charset, String format )
@@ -446,25 +439,22 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 
 		if ( "xml".equals( format ) ) {
 			ret.contentType = "text/xml";
-			Document doc = docBuilder.newDocument();
-			Element root = doc.createElement( message.operationName() + (( inInputPort ) ? "Response" : "") );
-			doc.appendChild( root );
-			if ( message.isFault() ) {
-				Element faultElement = doc.createElement( message.fault().faultName() );
-				root.appendChild( faultElement );
-				XmlUtils.valueToDocument( message.fault().value(), faultElement, doc );
-			} else {
-				XmlUtils.valueToDocument( message.value(), root, doc );
-			}
-			Source src = new DOMSource( doc );
+			String rootName = message.operationName() + (( inInputPort ) ? "Response" : "");
 			ByteArrayOutputStream tmpStream = new ByteArrayOutputStream();
-			Result dest = new StreamResult( tmpStream );
-			transformer.setOutputProperty( OutputKeys.ENCODING, charset );
+			XmlWriter writer;
 			try {
-				transformer.transform( src, dest );
-			} catch( TransformerException e ) {
-				throw new IOException( e );
+				writer = new XmlWriter( tmpStream, Charset.forName( charset ) );
+			} catch( IllegalArgumentException e ) {
+				throw new UnsupportedEncodingException( charset );
+			}
+			if ( message.isFault() ) {
+				writer.startElement( rootName );
+				XmlStreamUtils.valueToStream( message.fault().value(), message.fault().faultName(), writer );
+				writer.endElement();
+			} else {
+				XmlStreamUtils.valueToStream( message.value(), rootName, writer );
 			}
+			writer.flush();
 			ret.content = new ByteArray( tmpStream.toByteArray() );
 		} else if ( "binary".equals( format ) ) {
 			ret.contentType = "application/octet-stream";
@@ -862,10 +852,21 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 					}
 
 				} );
-				encodedContent.content = HttpUtils.encode( encoding, encodedContent.content, headerBuilder );
+				if ( encodedContent.chunked ) {
+					encodedContent.contentCoding = HttpUtils.getContentCoding( encoding );
+					if ( encodedContent.contentCoding != null ) {
+						headerBuilder.append( "Content-Encoding: " + encodedContent.contentCoding + HttpUtils.CRLF );
+					}
+				} else {
+					encodedContent.content = HttpUtils.encode( encoding, encodedContent.content, headerBuilder );
+				}
 			}
 
-			headerBuilder.append( "Content-Length: " + encodedContent.content.size() + HttpUtils.CRLF );
+			if ( encodedContent.chunked ) {
+				headerBuilder.append( "Transfer-Encoding: chunked" + HttpUtils.CRLF );
+			} else {
+				headerBuilder.append( "Content-Length: " + encodedContent.content.size() + HttpUtils.CRLF );
+			}
 		} else {
 			headerBuilder.append( "Content-Length: 0" + HttpUtils.CRLF );
 		}
@@ -895,6 +896,19 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		}
 	}
 
+	// Compresses the content while it is sent, instead of building a compressed copy first
+	private static void send_writeChunkedContent( OutputStream ostream, EncodedContent encodedContent )
+		throws IOException
+	{
+		final ChunkedOutputStream chunkedStream = new ChunkedOutputStream( ostream, CHUNK_SIZE );
+		try( OutputStream stream = encodedContent.contentCoding == null
+			? chunkedStream
+			: HttpUtils.encodingStream( encodedContent.contentCoding, chunkedStream )
+		) {
+			stream.write( encodedContent.content.getBytes() );
+		}
+	}
+
 	@Override
 	public void send_internal( OutputStream ostream, CommMessage message, InputStream istream )
 		throws IOException
@@ -927,6 +941,10 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		if ( contentType != null ) {
 			encodedContent.contentType = contentType;
 		}
+		// HTTP/1.0 clients do not understand chunked contents
+		encodedContent.chunked = encodedContent.content != null
+			&& checkBooleanParameter( Parameters.CHUNKED )
+			&& !(inInputPort && http10Request);
 		send_appendGenericHeaders( message, encodedContent, charset, headerBuilder );
 		headerBuilder.append( HttpUtils.CRLF );
 
@@ -945,7 +963,11 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 
 		ostream.write( headerBuilder.toString().getBytes( HttpUtils.URL_DECODER_ENC ) );
 		if ( encodedContent.content != null && !headRequest ) {
-			ostream.write( encodedContent.content.getBytes() );
+			if ( encodedContent.chunked ) {
+				send_writeChunkedContent( ostream, encodedContent );
+			} else {
+				ostream.write( encodedContent.content.getBytes() );
+			}
 		}
 		headRequest = false;
 	}
@@ -962,16 +984,12 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	{
 		try {
 			if ( message.size() > 0 ) {
-				DocumentBuilder builder = docBuilderFactory.newDocumentBuilder();
-				InputSource src = new InputSource( new ByteArrayInputStream( message.content() ) );
-				src.setEncoding( charset );
-				Document doc = builder.parse( src );
-				XmlUtils.documentToValue( doc, value, false );
+				XMLStreamReader reader = xmlInputFactory.createXMLStreamReader( new ByteArrayInputStream( message.content() ), charset );
+				XmlStreamUtils.documentToValue( reader, value, true, false );
+				reader.close();
 			}
-		} catch( ParserConfigurationException pce ) {
-			throw new IOException( pce );
-		} catch( SAXException saxe ) {
-			throw new IOException( saxe );
+		} catch( XMLStreamException e ) {
+			throw new IOException( e );
 		}
 	}
 
@@ -1376,6 +1394,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 
 		encoding = message.getProperty( "accept-encoding" );
 		headRequest = inInputPort && message.isHead();
+		http10Request = inInputPort && message.version() == HttpMessage.Version.HTTP_1_0;
 
 		String contentType = DEFAULT_CONTENT_TYPE;
 		if ( message.getProperty( "content-type" ) != null ) {
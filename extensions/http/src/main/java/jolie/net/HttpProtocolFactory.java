@@ -23,11 +23,7 @@ package jolie.net;
 
 import java.io.IOException;
 import java.net.URI;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerFactory;
+import javax.xml.stream.XMLInputFactory;
 import jolie.net.ext.CommProtocolFactory;
 import jolie.net.protocols.CommProtocol;
 import jolie.runtime.AndJarDeps;
@@ -36,53 +32,36 @@ import jolie.runtime.VariablePath;
 @AndJarDeps({"jolie-xml.jar","jolie-js.jar","json_simple.jar"})
 public class HttpProtocolFactory extends CommProtocolFactory
 {
-	private final TransformerFactory transformerFactory;
-	private final DocumentBuilderFactory docBuilderFactory;
-	private final DocumentBuilder docBuilder;
+	// StAX factories are thread-safe once configured, so the protocol instances share one
+	private final XMLInputFactory xmlInputFactory;
 
 	public HttpProtocolFactory( CommCore commCore )
-		throws ParserConfigurationException, TransformerConfigurationException
 	{
 		super( commCore );
-		docBuilderFactory = DocumentBuilderFactory.newInstance();
-		docBuilderFactory.setNamespaceAware( true );
-		docBuilder = docBuilderFactory.newDocumentBuilder();
-		transformerFactory = TransformerFactory.newInstance();
+		xmlInputFactory = XMLInputFactory.newInstance();
 	}
 
 	@Override
 	public CommProtocol createInputProtocol( VariablePath configurationPath, URI location )
 		throws IOException
 	{
-		try {
-			return new HttpProtocol(
-				configurationPath,
-				location,
-				true,
-				transformerFactory,
-				docBuilderFactory,
-				docBuilder
-			);
-		} catch( TransformerConfigurationException e ) {
-			throw new IOException( e );
-		}
+		return new HttpProtocol(
+			configurationPath,
+			location,
+			true,
+			xmlInputFactory
+		);
 	}
 
 	@Override
 	public CommProtocol createOutputProtocol( VariablePath configurationPath, URI location )
 		throws IOException
 	{
-		try {
-			return new HttpProtocol(
-				configurationPath,
-				location,
-				false,
-				transformerFactory,
-				docBuilderFactory,
-				docBuilder
-			);
-		} catch( TransformerConfigurationException e ) {
-			throw new IOException( e );
-		}
+		return new HttpProtocol(
+			configurationPath,
+			location,
+			false,
+			xmlInputFactory
+		);
 	}
 }
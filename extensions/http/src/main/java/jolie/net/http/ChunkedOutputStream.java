@@ -0,0 +1,147 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An output stream that sends the data written to it with the chunked
+ * transfer coding (RFC 7230, Section 4.1).
+ *
+ * Closing this stream sends the last chunk, but does not close the
+ * underlying stream.
+ * @author agent
+ */
+public class ChunkedOutputStream extends OutputStream
+{
+	private static final byte[] CRLF = { '\r', '\n' };
+	private static final byte[] LAST_CHUNK = { '0', '\r', '\n', '\r', '\n' };
+
+	private final OutputStream stream;
+	private final byte[] buffer;
+	private int count = 0;
+	private boolean finished = false;
+
+	/**
+	 * Creates a chunked stream.
+	 * @param stream the stream to send the chunks to
+	 * @param chunkSize the maximum size of the chunks
+	 */
+	public ChunkedOutputStream( OutputStream stream, int chunkSize )
+	{
+		this.stream = stream;
+		this.buffer = new byte[ chunkSize ];
+	}
+
+	private void writeChunk( byte[] b, int off, int len )
+		throws IOException
+	{
+		if ( len > 0 ) {
+			stream.write( Integer.toHexString( len ).getBytes( StandardCharsets.US_ASCII ) );
+			stream.write( CRLF );
+			stream.write( b, off, len );
+			stream.write( CRLF );
+		}
+	}
+
+	private void flushBuffer()
+		throws IOException
+	{
+		writeChunk( buffer, 0, count );
+		count = 0;
+	}
+
+	private void ensureOpen()
+		throws IOException
+	{
+		if ( finished ) {
+			throw new IOException( "Stream closed" );
+		}
+	}
+
+	@Override
+	public void write( int b )
+		throws IOException
+	{
+		ensureOpen();
+		if ( count == buffer.length ) {
+			flushBuffer();
+		}
+		buffer[ count++ ] = (byte)b;
+	}
+
+	@Override
+	public void write( byte[] b, int off, int len )
+		throws IOException
+	{
+		ensureOpen();
+		if ( (off | len | (off + len) | (b.length - (off + len))) < 0 ) {
+			throw new IndexOutOfBoundsException();
+		}
+		if ( count + len <= buffer.length ) {
+			System.arraycopy( b, off, buffer, count, len );
+			count += len;
+			return;
+		}
+		// Large writes are sent directly, without copying them into the buffer
+		flushBuffer();
+		while( len > buffer.length ) {
+			writeChunk( b, off, buffer.length );
+			off += buffer.length;
+			len -= buffer.length;
+		}
+		System.arraycopy( b, off, buffer, 0, len );
+		count = len;
+	}
+
+	@Override
+	public void flush()
+		throws IOException
+	{
+		ensureOpen();
+		flushBuffer();
+		stream.flush();
+	}
+
+	/**
+	 * Sends the buffered data and the last chunk.
+	 * @throws IOException if writing to the underlying stream failed
+	 */
+	public void finish()
+		throws IOException
+	{
+		if ( !finished ) {
+			flushBuffer();
+			stream.write( LAST_CHUNK );
+			finished = true;
+		}
+	}
+
+	@Override
+	public void close()
+		throws IOException
+	{
+		finish();
+	}
+}
@@ -23,7 +23,6 @@
 package jolie.net.http;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -244,18 +243,146 @@ public class HttpParser
 	}
 
 	private static final int BLOCK_SIZE = 0x1000; // 4K
+	private static final int MAX_BUFFERED_CONTENT = 0x100000; // 1M
+	private static final int MAX_HEADERS_SIZE = 0x10000; // 64K, for the start line and the headers
 
+	// Smaller than the humongous object threshold of G1, so that blocks do not waste heap regions
+	private static final int MAX_BLOCK_SIZE = 0x40000; // 256K
+
+	/*
+	 * Reads a stream of unknown length into blocks of increasing size, which
+	 * are copied only once into the returned array.
+	 */
 	private static byte[] readAll( InputStream stream )
 		throws IOException
 	{
-		int r;
-		ByteArrayOutputStream c = new ByteArrayOutputStream();
-		byte[] tmp = new byte[ BLOCK_SIZE ];
-		while( (r=stream.read( tmp, 0, BLOCK_SIZE )) != -1 ) {
-			c.write( tmp, 0, r );
-			tmp = new byte[ BLOCK_SIZE ];
+		final List< byte[] > blocks = new ArrayList<>();
+		byte[] block = new byte[ BLOCK_SIZE ];
+		int count = 0, total = 0, r;
+		while( (r=stream.read( block, count, block.length - count )) != -1 ) {
+			count += r;
+			if ( count == block.length ) {
+				blocks.add( block );
+				total += count;
+				block = new byte[ Math.min( block.length * 2, MAX_BLOCK_SIZE ) ];
+				count = 0;
+			}
+		}
+		final byte[] ret = new byte[ total + count ];
+		int offset = 0;
+		for( byte[] b : blocks ) {
+			System.arraycopy( b, 0, ret, offset, b.length );
+			offset += b.length;
 		}
-		return c.toByteArray();
+		System.arraycopy( block, 0, ret, offset, count );
+		return ret;
+	}
+
+	/*
+	 * Decodes a chunked content (RFC 2616, Section 3.6.1) while it is read,
+	 * so that its chunks do not need to be collected and copied.
+	 * The optional trailer is parsed into the message when the last chunk is reached.
+	 */
+	private class ChunkedInputStream extends InputStream
+	{
+		private final HttpMessage message;
+		private final InputStream stream;
+		private int chunkLeft = 0;
+		private boolean first = true;
+		private boolean eof = false;
+
+		private ChunkedInputStream( HttpMessage message, InputStream stream )
+		{
+			this.message = message;
+			this.stream = stream;
+		}
+
+		private boolean nextChunk()
+			throws IOException
+		{
+			if ( first ) {
+				first = false;
+				scanner.readChar();
+			} else {
+				// Skip the CR-LF that ends the previous chunk
+				scanner.readChar();
+				scanner.eatSeparators();
+			}
+			// the chunk header contains the size in hex format
+			// and could contain additional parameters which we ignore atm
+			String chunkHeader = scanner.readLine( false );
+			String chunkSize = chunkHeader.split( ";", 2 )[0];
+			try {
+				chunkLeft = Integer.parseInt( chunkSize, 16 );
+			} catch ( NumberFormatException e ) {
+				throw new IOException( "Illegal chunk size " + chunkSize );
+			}
+			if ( chunkLeft <= 0 ) {
+				eof = true;
+				// parse optional trailer (additional HTTP headers)
+				parseHeaderProperties( message );
+			}
+			return !eof;
+		}
+
+		@Override
+		public int read()
+			throws IOException
+		{
+			final byte[] b = new byte[ 1 ];
+			return read( b, 0, 1 ) == -1 ? -1 : b[ 0 ] & 0xff;
+		}
+
+		@Override
+		public int read( byte[] b, int off, int len )
+			throws IOException
+		{
+			if ( len == 0 ) {
+				return 0;
+			}
+			if ( eof || (chunkLeft == 0 && !nextChunk()) ) {
+				return -1;
+			}
+			final int r = stream.read( b, off, Math.min( len, chunkLeft ) );
+			if ( r == -1 ) {
+				throw new EOFException();
+			}
+			chunkLeft -= r;
+			return r;
+		}
+	}
+
+	// The maximum compression ratio of deflate
+	private static final int MAX_DEFLATE_RATIO = 1032;
+
+	/*
+	 * Single-member gzip data ends with the size of the uncompressed data
+	 * (RFC 1952), which allows for decompressing it directly into an array
+	 * of the right size.
+	 */
+	private static byte[] gunzip( byte[] data )
+		throws IOException
+	{
+		final int n = data.length;
+		if ( n >= 18 ) {
+			final long size = (data[n-4] & 0xffL)
+				| (data[n-3] & 0xffL) << 8
+				| (data[n-2] & 0xffL) << 16
+				| (data[n-1] & 0xffL) << 24;
+			if ( size <= Math.min( Integer.MAX_VALUE - 8, (long)n * MAX_DEFLATE_RATIO ) ) {
+				try( InputStream stream = new GZIPInputStream( new ByteArrayInputStream( data ) ) ) {
+					final byte[] ret = new byte[ (int)size ];
+					int s = 0, r;
+					while( s < ret.length && (r=stream.read( ret, s, ret.length - s )) != -1 ) {
+						s += r;
+					}
+					if ( s == ret.length && stream.read() == -1 ) {
+						return ret;
+					}
+				}
+			}
+		}
+		return readAll( new GZIPInputStream( new ByteArrayInputStream( data ) ) );
 	}
 
 	private void readContent( HttpMessage message )
@@ -287,35 +414,7 @@ public class HttpParser
 		byte buffer[] = null;
 		InputStream stream = scanner.inputStream();
 		if ( chunked ) {
-			// Link: http://tools.ietf.org/html/rfc2616#section-3.6.1
-			List< byte[] > chunks = new ArrayList<> ();
-			int l = -1, totalLen = 0;
-			scanner.readChar();
-			do {
-				// the chunk header contains the size in hex format
-				// and could contain additional parameters which we ignore atm
-				String chunkHeader = scanner.readLine( false );
-				String chunkSize = chunkHeader.split( ";", 2 )[0];
-				try {
-					l = Integer.parseInt( chunkSize, 16 );
-				} catch ( NumberFormatException e ) {
-					throw new IOException( "Illegal chunk size " + chunkSize );
-				}
-				// parses the real chunk with the specified size, follwed by CR-LF
-				if ( l > 0 ) {
-					totalLen += l;
-					byte[] chunk = new byte[ l ];
-					blockingRead( stream, chunk, 0, l );
-					chunks.add( chunk );
-					scanner.readChar();
-					scanner.eatSeparators();
-				}
-			} while ( l > 0 );
-			// parse optional trailer (additional HTTP headers)
-			parseHeaderProperties( message );
-			ByteBuffer b = ByteBuffer.allocate( totalLen );
-			chunks.forEach( b::put );
-			buffer = b.array();
+			buffer = readAll( new ChunkedInputStream( message, stream ) );
 		} else if ( contentLength > 0 ) {
 			buffer = new byte[ contentLength ];
 			blockingRead( stream, buffer, 0, contentLength );
@@ -345,7 +444,7 @@ public class HttpParser
 				if ( p.contains( "deflate" ) ) {
 					buffer = readAll( new InflaterInputStream( new ByteArrayInputStream( buffer ) ) );
 				} else if ( p.contains( "gzip" ) ) {
-					buffer = readAll( new GZIPInputStream( new ByteArrayInputStream( buffer ) ) );
+					buffer = gunzip( buffer );
 				} else if ( !p.equals( "identity" ) ) {
 					throw new UnsupportedEncodingException( "Unrecognized Content-Encoding: " + p );
 				}
@@ -355,14 +454,142 @@ public class HttpParser
 		}
 	}
 
+	/**
+	 * Returns {@code true} if the passed data starts with a complete HTTP message,
+	 * following the same framing rules used by {@link #parse()}.
+	 * Messages whose content ends when the connection is closed are considered
+	 * complete as soon as their headers are, since their end cannot be known in advance.
+	 * So are messages with large contents, which are better read by the
+	 * receiving thread without being buffered first, and messages whose
+	 * headers are too long, for which {@link #parse()} reports an error.
+	 * @param data the received data, which is not consumed
+	 * @return {@code true} if the data starts with a complete message,
+	 * {@code false} if more data is needed
+	 */
+	public static boolean isMessageComplete( ByteBuffer data )
+	{
+		final int limit = data.limit();
+		int i = data.position();
+		while( i < limit && Scanner.isSeparator( (char)data.get( i ) ) ) {
+			i++;
+		}
+		final int start = i;
+		final int headersEnd = Math.min( limit, start + MAX_HEADERS_SIZE );
+
+		boolean first = true;
+		boolean chunked = false;
+		int contentLength = -1;
+		int lineEnd;
+		while( (lineEnd = lineEnd( data, i, headersEnd )) >= 0 ) {
+			final String line = line( data, i, lineEnd );
+			i = lineEnd + 1;
+			if ( first ) {
+				first = false;
+			} else if ( line.isEmpty() ) {
+				if ( limit - i >= MAX_BUFFERED_CONTENT ) {
+					return true;
+				}
+				if ( chunked ) {
+					return isChunkedContentComplete( data, i );
+				}
+				return contentLength <= 0 || contentLength > MAX_BUFFERED_CONTENT || limit - i >= contentLength;
+			} else {
+				final int colon = line.indexOf( ':' );
+				if ( colon > 0 ) {
+					final String name = line.substring( 0, colon ).trim().toLowerCase();
+					final String value = line.substring( colon + 1 ).trim();
+					if ( "transfer-encoding".equals( name ) ) {
+						chunked = value.startsWith( "chunked" );
+					} else if ( "content-length".equals( name ) && !value.isEmpty() ) {
+						try {
+							contentLength = Integer.parseInt( value );
+						} catch( NumberFormatException e ) {
+							// Let the parser report the error
+							return true;
+						}
+					}
+				}
+			}
+		}
+		return limit - start >= MAX_HEADERS_SIZE;
+	}
+
+	private static boolean isChunkedContentComplete( ByteBuffer data, int i )
+	{
+		final int limit = data.limit();
+		int lineEnd;
+		while( (lineEnd = lineEnd( data, i )) >= 0 ) {
+			final String chunkSize = line( data, i, lineEnd ).split( ";", 2 )[0].trim();
+			i = lineEnd + 1;
+			final int l;
+			try {
+				l = Integer.parseInt( chunkSize, 16 );
+			} catch( NumberFormatException e ) {
+				return true;
+			}
+			if ( l <= 0 ) {
+				// The trailer ends with an empty line
+				while( (lineEnd = lineEnd( data, i )) >= 0 ) {
+					if ( lineEnd == i || (lineEnd == i + 1 && data.get( i ) == '\r') ) {
+						return true;
+					}
+					i = lineEnd + 1;
+				}
+				return false;
+			}
+			if ( limit - i < l ) {
+				return false;
+			}
+			i += l;
+			while( i < limit && Scanner.isNewLineChar( (char)data.get( i ) ) ) {
+				i++;
+			}
+		}
+		return false;
+	}
+
+	// Returns the index of the next \n, or -1 if there is none
+	private static int lineEnd( ByteBuffer data, int from )
+	{
+		return lineEnd( data, from, data.limit() );
+	}
+
+	private static int lineEnd( ByteBuffer data, int from, int to )
+	{
+		for( int i = from; i < to; i++ ) {
+			if ( data.get( i ) == '\n' ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static String line( ByteBuffer data, int from, int lineEnd )
+	{
+		int end = lineEnd;
+		if ( end > from && data.get( end - 1 ) == '\r' ) {
+			end--;
+		}
+		final StringBuilder builder = new StringBuilder( end - from );
+		for( int i = from; i < end; i++ ) {
+			builder.append( (char)(data.get( i ) & 0xff) );
+		}
+		return builder.toString();
+	}
+
 	public HttpMessage parse()
 		throws IOException
 	{
+		// Skip the empty lines that may precede a message (RFC 7230, Section 3.5).
+		// They are not eaten after the previous message, since that would consume
+		// the first character of a pipelined one.
+		scanner.eatSeparators();
+		scanner.setReadLimit( MAX_HEADERS_SIZE );
 		getToken();
 		HttpMessage message = parseMessageType();
 		parseHeaderProperties( message );
+		scanner.setReadLimit( -1 );
 		readContent( message );
-		scanner.eatSeparatorsUntilEOF();
 		return message;
 	}
 }
@@ -35,6 +35,8 @@ public class HttpScanner
 	private int currInt;
 	private char ch;
 	private static final int OVERFLOW_NET = 8192;
+	private int readLimit = -1;
+	private int readCount = 0;
 	
 	
 	public HttpScanner( InputStream stream, URI source )
@@ -124,9 +126,23 @@ public class HttpScanner
 		return stream;
 	}
 	
+	/**
+	 * Makes the following reads fail with an {@link IOException} after
+	 * more than limit characters have been read.
+	 * @param limit the number of characters that can be read, or a negative number for no limit
+	 */
+	public void setReadLimit( int limit )
+	{
+		readLimit = limit;
+		readCount = 0;
+	}
+
 	public final void readChar()
 		throws IOException
 	{
+		if ( readLimit >= 0 && ++readCount > readLimit ) {
+			throw new IOException( "HTTP headers longer than " + readLimit + " bytes" );
+		}
 		currInt = stream.read();
 		ch = (char)currInt;            
 	}
@@ -111,6 +111,8 @@ public class HttpUtils
 		String message = e.getMessage() != null ? e.getMessage() : e.toString();
 		ByteArray content = new ByteArray( message.getBytes( "utf-8" ) );
 		httpMessage.append( "Server: Jolie" + CRLF );
+		// The channel is closed after the error, so clients must not reuse it
+		httpMessage.append( "Connection: close" + CRLF );
 		httpMessage.append( "Content-Type: text/plain; charset=utf-8" + CRLF );
 		httpMessage.append( "Content-Length: " + content.size() + CRLF + CRLF );
 		ostream.write( httpMessage.toString().getBytes( "utf-8" ) );
@@ -169,23 +171,48 @@ public class HttpUtils
 		return "iso-8859-1"; // this follows RFC 2616 3.4.1 Missing Charset
 	}
 
-	public static ByteArray encode( String encoding, ByteArray content, StringBuilder headerBuilder ) throws IOException
+	/**
+	 * Returns the content coding to use for a message, given the Accept-Encoding
+	 * header received from the other party.
+	 * @param encoding the value of the Accept-Encoding header
+	 * @return "gzip", "deflate", or {@code null} if the content must not be compressed
+	 */
+	public static String getContentCoding( String encoding )
 	{
 		// RFC 7231 section-5.3.4 introduced the "*" (any) option, we opt for gzip as a sane default
 		if ( encoding.contains( "gzip" ) || encoding.contains( "*" ) ) {
-			ByteArrayOutputStream baOutStream = new ByteArrayOutputStream();
-			GZIPOutputStream outStream = new GZIPOutputStream( baOutStream );
-			outStream.write( content.getBytes() );
-			outStream.close();
-			content = new ByteArray( baOutStream.toByteArray() );
-			headerBuilder.append( "Content-Encoding: gzip" + HttpUtils.CRLF );
+			return "gzip";
 		} else if ( encoding.contains( "deflate" ) ) {
+			return "deflate";
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a stream that compresses the data written to it with a content coding.
+	 * @param contentCoding "gzip" or "deflate", see {@link #getContentCoding(java.lang.String)}
+	 * @param stream the stream to write the compressed data to
+	 * @return a stream that compresses the data written to it
+	 * @throws IOException if writing to the passed stream failed
+	 */
+	public static DeflaterOutputStream encodingStream( String contentCoding, OutputStream stream ) throws IOException
+	{
+		if ( "gzip".equals( contentCoding ) ) {
+			return new GZIPOutputStream( stream );
+		}
+		return new DeflaterOutputStream( stream );
+	}
+
+	public static ByteArray encode( String encoding, ByteArray content, StringBuilder headerBuilder ) throws IOException
+	{
+		final String contentCoding = getContentCoding( encoding );
+		if ( contentCoding != null ) {
 			ByteArrayOutputStream baOutStream = new ByteArrayOutputStream();
-			DeflaterOutputStream outStream = new DeflaterOutputStream( baOutStream );
-			outStream.write( content.getBytes() );
-			outStream.close();
+			try( DeflaterOutputStream outStream = encodingStream( contentCoding, baOutStream ) ) {
+				outStream.write( content.getBytes() );
+			}
 			content = new ByteArray( baOutStream.toByteArray() );
-			headerBuilder.append( "Content-Encoding: deflate" + HttpUtils.CRLF );
+			headerBuilder.append( "Content-Encoding: " + contentCoding + HttpUtils.CRLF );
 		}
 		return content;
 	}
@@ -37,11 +37,11 @@ import com.sun.xml.xsom.parser.XSOMParser;
 
 import java.io.*;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -78,16 +78,13 @@ import javax.xml.soap.SOAPHeader;
 import javax.xml.soap.SOAPHeaderElement;
 import javax.xml.soap.SOAPMessage;
 import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.net.http.HttpMessage;
@@ -97,6 +94,7 @@ import jolie.net.http.Method;
 import jolie.net.http.UnsupportedMethodException;
 import jolie.net.ports.Interface;
 import jolie.net.protocols.SequentialCommProtocol;
+import jolie.net.soap.SchemaCache;
 import jolie.net.soap.WSDLCache;
 import jolie.runtime.ByteArray;
 import jolie.runtime.FaultException;
@@ -136,11 +134,20 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 	private final boolean inInputPort;
 	private Definition wsdlDefinition = null;
 	private Port wsdlPort = null;
-	private final TransformerFactory transformerFactory;
 	private final Map< String, String> namespacePrefixMap = new HashMap< String, String>();
 	private boolean received = false;
 	private String encoding;
 
+	private static final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+	private static final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+	// Neither document builders nor transformers are thread-safe, but they can be reused after a reset
+	private static final ThreadLocal< DocumentBuilder > documentBuilders = new ThreadLocal<>();
+	private static final ThreadLocal< Transformer > transformers = new ThreadLocal<>();
+
+	static {
+		documentBuilderFactory.setNamespaceAware( true );
+	}
+
 	private static class Parameters
 	{
 		private static final String WRAPPED = "wrapped";
@@ -186,7 +193,6 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 		super( configurationPath );
 		this.uri = uri;
 		this.inInputPort = inInputPort;
-		this.transformerFactory = TransformerFactory.newInstance();
 		this.interpreter = interpreter;
 		this.messageFactory = MessageFactory.newInstance( SOAPConstants.SOAP_1_1_PROTOCOL );
 	}
@@ -195,7 +201,7 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 		throws IOException
 	{
 		try {
-			Transformer transformer = transformerFactory.newTransformer();
+			Transformer transformer = getTransformer();
 			transformer.setOutputProperty( OutputKeys.INDENT, "yes" );
 			StringWriter sw = new StringWriter();
 			StreamResult result = new StreamResult( sw );
@@ -213,6 +219,36 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 		}
 	}
 
+	private static DocumentBuilder getDocumentBuilder()
+		throws ParserConfigurationException
+	{
+		DocumentBuilder builder = documentBuilders.get();
+		if ( builder == null ) {
+			synchronized( documentBuilderFactory ) {
+				builder = documentBuilderFactory.newDocumentBuilder();
+			}
+			documentBuilders.set( builder );
+		} else {
+			builder.reset();
+		}
+		return builder;
+	}
+
+	private static Transformer getTransformer()
+		throws TransformerConfigurationException
+	{
+		Transformer transformer = transformers.get();
+		if ( transformer == null ) {
+			synchronized( transformerFactory ) {
+				transformer = transformerFactory.newTransformer();
+			}
+			transformers.set( transformer );
+		} else {
+			transformer.reset();
+		}
+		return transformer;
+	}
+
 	private void parseWSDLTypes( XSOMParser schemaParser )
 		throws IOException
 	{
@@ -244,15 +280,19 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 		throws IOException, SAXException
 	{
 		if ( schemaSet == null ) {
-			XSOMParser schemaParser = new XSOMParser();
-			ValueVector vec = getParameterVector( "schema" );
-			if ( vec.size() > 0 ) {
-				for( Value v : vec ) {
-					schemaParser.parse( new File( v.strValue() ) );
-				}
+			final List< String > schemaFiles = new ArrayList<>();
+			for( Value v : getParameterVector( "schema" ) ) {
+				schemaFiles.add( v.strValue() );
 			}
-			parseWSDLTypes( schemaParser );
-			schemaSet = schemaParser.getResult();
+			final String wsdlUrl = hasParameter( "wsdl" ) ? getStringParameter( "wsdl" ) : null;
+			schemaSet = SchemaCache.getSchemaSet( schemaFiles, wsdlUrl, () -> {
+				XSOMParser schemaParser = new XSOMParser();
+				for( String schemaFile : schemaFiles ) {
+					schemaParser.parse( new File( schemaFile ) );
+				}
+				parseWSDLTypes( schemaParser );
+				return schemaParser.getResult();
+			} );
 			String nsPrefix = "jolie";
 			int i = 1;
 			for( XSSchema schema : schemaSet.getSchemas() ) {
@@ -1196,15 +1236,13 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 
 
 				SOAPMessage soapMessage = messageFactory.createMessage();
-				DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 				/*
 				* Schema messageSchema = getRecvMessageValidationSchema(); if (
 				* messageSchema != null ) {
 				* factory.setIgnoringElementContentWhitespace( true );
 				* factory.setSchema( messageSchema ); }
 				 */
-				factory.setNamespaceAware( true );
-				DocumentBuilder builder = factory.newDocumentBuilder();
+				DocumentBuilder builder = getDocumentBuilder();
 				InputSource src = new InputSource( new ByteArrayInputStream( message.content() ) );
 				src.setEncoding( charset );
 				Document doc = builder.parse( src );
@@ -1236,18 +1274,17 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 
 					ValueVector schemaPaths = getParameterVector( "schema" );
 					if ( schemaPaths.size() > 0 ) {
-						List<Source> sources = new LinkedList<Source>();
+						List<String> validationFiles = new ArrayList<String>();
 						Value schemaPath;
 						for( int i = 0; i < schemaPaths.size(); i++ ) {
 							schemaPath = schemaPaths.get( i );
 							if ( schemaPath.getChildren( "validate" ).first().intValue() > 0 ) {
-								sources.add( new StreamSource( new File( schemaPaths.get( i ).strValue() ) ) );
+								validationFiles.add( schemaPath.strValue() );
 							}
 						}
 
-						if ( !sources.isEmpty() ) {
-							Schema schema
-								= SchemaFactory.newInstance( XMLConstants.W3C_XML_SCHEMA_NS_URI ).newSchema( sources.toArray( new Source[ 0 ] ) );
+						if ( !validationFiles.isEmpty() ) {
+							Schema schema = SchemaCache.getValidationSchema( validationFiles );
 							schema.newValidator().validate( new DOMSource( soapMessage.getSOAPBody().getFirstChild() ) );
 						}
 					}
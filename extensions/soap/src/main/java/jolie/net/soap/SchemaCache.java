@@ -0,0 +1,226 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net.soap;
+
+import com.sun.xml.xsom.XSSchemaSet;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.xml.XMLConstants;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * Process-wide cache of the XML schemas used by the SOAP protocol.
+ *
+ * Compiled validation schemas and parsed schema sets are shared by all the
+ * SOAP channels configured with the same schema files, instead of being
+ * rebuilt for every connection or message. An entry is reloaded when one of
+ * its schema files is modified.
+ * Both {@link Schema} and {@link XSSchemaSet} objects are immutable once
+ * built, so they can be used by many threads at the same time.
+ * @author agent
+ */
+public class SchemaCache
+{
+	/**
+	 * Parses the schema set of a SOAP port.
+	 */
+	@FunctionalInterface
+	public interface SchemaSetParser
+	{
+		public XSSchemaSet parse()
+			throws IOException, SAXException;
+	}
+
+	/**
+	 * Counters of the schema cache.
+	 */
+	public static class Statistics
+	{
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder loads = new LongAdder();
+
+		/**
+		 * Returns the number of requests served with an already built schema.
+		 * @return the number of requests served with an already built schema
+		 */
+		public long hits()
+		{
+			return hits.sum();
+		}
+
+		/**
+		 * Returns the number of schemas built, including reloads.
+		 * @return the number of schemas built
+		 */
+		public long loads()
+		{
+			return loads.sum();
+		}
+	}
+
+	private static class Entry< T >
+	{
+		private final T value;
+		private final List< String > files;
+		private final long[] modified;
+
+		private Entry( T value, List< String > files )
+		{
+			this.value = value;
+			this.files = files;
+			this.modified = new long[ files.size() ];
+			for( int i = 0; i < modified.length; i++ ) {
+				modified[ i ] = lastModified( files.get( i ) );
+			}
+		}
+
+		private boolean isCurrent()
+		{
+			for( int i = 0; i < modified.length; i++ ) {
+				if ( modified[ i ] != lastModified( files.get( i ) ) ) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	// Carries the checked exceptions of a loader out of ConcurrentHashMap.compute
+	private static class LoadException extends RuntimeException
+	{
+		private static final long serialVersionUID = 1L;
+
+		private LoadException( Exception cause )
+		{
+			super( cause );
+		}
+	}
+
+	@FunctionalInterface
+	private interface Loader< T >
+	{
+		public T load()
+			throws IOException, SAXException;
+	}
+
+	private static final Map< List< String >, Entry< Schema > > validationSchemas = new ConcurrentHashMap<>();
+	private static final Map< List< String >, Entry< XSSchemaSet > > schemaSets = new ConcurrentHashMap<>();
+	private static final Statistics statistics = new Statistics();
+
+	private SchemaCache() {}
+
+	/**
+	 * Returns the counters of this cache.
+	 * @return the counters of this cache
+	 */
+	public static Statistics statistics()
+	{
+		return statistics;
+	}
+
+	/**
+	 * Returns the compiled schema for validating messages against the passed
+	 * XSD files, compiling it if necessary.
+	 * @param files the paths of the XSD files
+	 * @return the compiled schema
+	 * @throws SAXException if the schema could not be compiled
+	 */
+	public static Schema getValidationSchema( List< String > files )
+		throws SAXException
+	{
+		try {
+			return get( validationSchemas, files, files, () -> {
+				final Source[] sources = new Source[ files.size() ];
+				for( int i = 0; i < sources.length; i++ ) {
+					sources[ i ] = new StreamSource( new File( files.get( i ) ) );
+				}
+				// SchemaFactory instances are not thread-safe
+				return SchemaFactory.newInstance( XMLConstants.W3C_XML_SCHEMA_NS_URI ).newSchema( sources );
+			} );
+		} catch( IOException e ) {
+			throw new SAXException( e );
+		}
+	}
+
+	/**
+	 * Returns the schema set for the passed XSD files and WSDL document,
+	 * invoking parser if it is not cached yet.
+	 * @param files the paths of the XSD files
+	 * @param wsdlUrl the URL of the WSDL document, {@code null} if there is none
+	 * @param parser parses the schema set
+	 * @return the schema set
+	 * @throws IOException if parser fails with an {@link IOException}
+	 * @throws SAXException if parser fails with a {@link SAXException}
+	 */
+	public static XSSchemaSet getSchemaSet( List< String > files, String wsdlUrl, SchemaSetParser parser )
+		throws IOException, SAXException
+	{
+		final List< String > key = new ArrayList<>( files );
+		key.add( wsdlUrl );
+		return get( schemaSets, key, files, parser::parse );
+	}
+
+	private static < T > T get( Map< List< String >, Entry< T > > cache, List< String > key, List< String > files, Loader< T > loader )
+		throws IOException, SAXException
+	{
+		Entry< T > entry = cache.get( key );
+		if ( entry != null && entry.isCurrent() ) {
+			statistics.hits.increment();
+			return entry.value;
+		}
+		try {
+			entry = cache.compute( key, ( k, current ) -> {
+				if ( current != null && current.isCurrent() ) {
+					statistics.hits.increment();
+					return current;
+				}
+				try {
+					final Entry< T > newEntry = new Entry<>( loader.load(), new ArrayList<>( files ) );
+					statistics.loads.increment();
+					return newEntry;
+				} catch( IOException | SAXException e ) {
+					throw new LoadException( e );
+				}
+			} );
+		} catch( LoadException e ) {
+			if ( e.getCause() instanceof IOException ) {
+				throw (IOException) e.getCause();
+			}
+			throw (SAXException) e.getCause();
+		}
+		return entry.value;
+	}
+
+	private static long lastModified( String file )
+	{
+		return new File( file ).lastModified();
+	}
+}
@@ -0,0 +1,257 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import jolie.net.SodepProtocol.DataTypeHeaderId;
+import jolie.runtime.ByteArray;
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/**
+ * Decodes SODEP messages.
+ *
+ * Fixed-size fields are read with a single call to the input stream,
+ * and strings are decoded from a buffer that is reused for the following reads.
+ * Child names, operation names, resource paths and fault names are interned
+ * in a small cache, so that the names repeated in every message of a
+ * connection do not allocate new strings.
+ * Instances are not thread safe.
+ * @author agent
+ */
+final class SodepDecoder
+{
+	private static final int INITIAL_CAPACITY = 256;
+	// Buffers grown beyond this size by a large string are not kept around
+	private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+	private static final int NAME_CACHE_SIZE = 256; // Must be a power of 2
+	private static final int MAX_CACHED_NAME_LENGTH = 64;
+
+	private static class CachedName
+	{
+		private final byte[] bytes;
+		private final String name;
+
+		private CachedName( byte[] bytes, String name )
+		{
+			this.bytes = bytes;
+			this.name = name;
+		}
+	}
+
+	private final byte[] scratch = new byte[ 8 ];
+	private byte[] buffer = new byte[ INITIAL_CAPACITY ];
+	private final CachedName[] nameCache = new CachedName[ NAME_CACHE_SIZE ];
+	private Charset charset = StandardCharsets.UTF_8;
+
+	void setCharset( Charset charset )
+	{
+		if ( !charset.equals( this.charset ) ) {
+			this.charset = charset;
+			Arrays.fill( nameCache, null );
+		}
+	}
+
+	CommMessage readMessage( InputStream istream )
+		throws IOException
+	{
+		final long id = readLong( istream );
+		final String resourcePath = readName( istream );
+		final String operationName = readName( istream );
+		FaultException fault = null;
+		if ( readByte( istream ) != 0 ) {
+			final String faultName = readName( istream );
+			fault = new FaultException( faultName, readValue( istream ) );
+		}
+		final Value value = readValue( istream );
+		if ( buffer.length > MAX_RETAINED_CAPACITY ) {
+			buffer = new byte[ INITIAL_CAPACITY ];
+		}
+		return new CommMessage( id, operationName, resourcePath, value, fault );
+	}
+
+	private Value readValue( InputStream istream )
+		throws IOException
+	{
+		final Value value;
+		switch( readByte( istream ) ) {
+			case DataTypeHeaderId.STRING:
+				value = Value.create( readString( istream ) );
+				break;
+			case DataTypeHeaderId.INT:
+				value = Value.create( readInt( istream ) );
+				break;
+			case DataTypeHeaderId.LONG:
+				value = Value.create( readLong( istream ) );
+				break;
+			case DataTypeHeaderId.DOUBLE:
+				value = Value.create( Double.longBitsToDouble( readLong( istream ) ) );
+				break;
+			case DataTypeHeaderId.BYTE_ARRAY:
+				value = Value.create( readByteArray( istream ) );
+				break;
+			case DataTypeHeaderId.BOOL:
+				value = Value.create( readByte( istream ) != 0 );
+				break;
+			case DataTypeHeaderId.NULL:
+			default:
+				value = Value.create();
+				break;
+		}
+
+		final int n = readInt( istream ); // How many children?
+		if ( n > 0 ) {
+			final Map< String, ValueVector > children = value.children();
+			for( int i = 0; i < n; i++ ) {
+				final String name = readName( istream );
+				final ValueVector vec = ValueVector.create();
+				final int size = readInt( istream );
+				for( int k = 0; k < size; k++ ) {
+					vec.add( readValue( istream ) );
+				}
+				children.put( name, vec );
+			}
+		}
+		return value;
+	}
+
+	private ByteArray readByteArray( InputStream istream )
+		throws IOException
+	{
+		final int size = readInt( istream );
+		final byte[] bytes = new byte[ Math.max( size, 0 ) ];
+		readFully( istream, bytes, bytes.length );
+		return new ByteArray( bytes );
+	}
+
+	private String readString( InputStream istream )
+		throws IOException
+	{
+		final int length = readInt( istream );
+		if ( length <= 0 ) {
+			return "";
+		}
+		return new String( readBytes( istream, length ), 0, length, charset );
+	}
+
+	private String readName( InputStream istream )
+		throws IOException
+	{
+		final int length = readInt( istream );
+		if ( length <= 0 ) {
+			return "";
+		}
+		final byte[] bytes = readBytes( istream, length );
+		if ( length > MAX_CACHED_NAME_LENGTH ) {
+			return new String( bytes, 0, length, charset );
+		}
+
+		int hash = length;
+		for( int i = 0; i < length; i++ ) {
+			hash = 31 * hash + bytes[ i ];
+		}
+		final int slot = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+		final CachedName cached = nameCache[ slot ];
+		if ( cached != null && sameBytes( cached.bytes, bytes, length ) ) {
+			return cached.name;
+		}
+		final String name = new String( bytes, 0, length, charset );
+		nameCache[ slot ] = new CachedName( Arrays.copyOf( bytes, length ), name );
+		return name;
+	}
+
+	private static boolean sameBytes( byte[] cached, byte[] bytes, int length )
+	{
+		if ( cached.length != length ) {
+			return false;
+		}
+		for( int i = 0; i < length; i++ ) {
+			if ( cached[ i ] != bytes[ i ] ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private byte[] readBytes( InputStream istream, int length )
+		throws IOException
+	{
+		if ( length > buffer.length ) {
+			buffer = new byte[ Math.max( length, 2 * buffer.length ) ];
+		}
+		readFully( istream, buffer, length );
+		return buffer;
+	}
+
+	private int readByte( InputStream istream )
+		throws IOException
+	{
+		final int b = istream.read();
+		if ( b < 0 ) {
+			throw new EOFException();
+		}
+		return (byte)b;
+	}
+
+	private int readInt( InputStream istream )
+		throws IOException
+	{
+		readFully( istream, scratch, 4 );
+		return getInt( 0 );
+	}
+
+	private long readLong( InputStream istream )
+		throws IOException
+	{
+		readFully( istream, scratch, 8 );
+		return ((long)getInt( 0 ) << 32) | (getInt( 4 ) & 0xFFFFFFFFL);
+	}
+
+	private int getInt( int position )
+	{
+		return ((scratch[ position ] & 0xFF) << 24)
+			| ((scratch[ position + 1 ] & 0xFF) << 16)
+			| ((scratch[ position + 2 ] & 0xFF) << 8)
+			| (scratch[ position + 3 ] & 0xFF);
+	}
+
+	private static void readFully( InputStream istream, byte[] bytes, int length )
+		throws IOException
+	{
+		int offset = 0;
+		while( offset < length ) {
+			final int read = istream.read( bytes, offset, length - offset );
+			if ( read < 0 ) {
+				throw new EOFException();
+			}
+			offset += read;
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.net;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Map.Entry;
+import jolie.net.SodepProtocol.DataTypeHeaderId;
+import jolie.runtime.ByteArray;
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/**
+ * Encodes SODEP messages.
+ *
+ * A message is encoded into a buffer that is reused for the following messages,
+ * and then written to the output stream with a single call.
+ * UTF-8 strings are encoded directly into the buffer, without intermediate copies.
+ * Instances are not thread safe.
+ * @author agent
+ */
+final class SodepEncoder
+{
+	private static final int INITIAL_CAPACITY = 1024;
+	// Buffers grown beyond this size by a large message are not kept around
+	private static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+	private byte[] buffer = new byte[ INITIAL_CAPACITY ];
+	private int count = 0;
+	private Charset charset = StandardCharsets.UTF_8;
+	private boolean isUTF8 = true;
+
+	void setCharset( Charset charset )
+	{
+		this.charset = charset;
+		this.isUTF8 = StandardCharsets.UTF_8.equals( charset );
+	}
+
+	void writeMessage( OutputStream ostream, CommMessage message )
+		throws IOException
+	{
+		count = 0;
+		writeLong( message.id() );
+		writeString( message.resourcePath() );
+		writeString( message.operationName() );
+		final FaultException fault = message.fault();
+		if ( fault == null ) {
+			writeByte( 0 );
+		} else {
+			writeByte( 1 );
+			writeString( fault.faultName() );
+			writeValue( fault.value() );
+		}
+		writeValue( message.value() );
+		ostream.write( buffer, 0, count );
+
+		if ( buffer.length > MAX_RETAINED_CAPACITY ) {
+			buffer = new byte[ INITIAL_CAPACITY ];
+		}
+	}
+
+	private void writeValue( Value value )
+	{
+		final Object valueObject = value.valueObject();
+		if ( valueObject == null ) {
+			writeByte( DataTypeHeaderId.NULL );
+		} else if ( valueObject instanceof String ) {
+			writeByte( DataTypeHeaderId.STRING );
+			writeString( (String)valueObject );
+		} else if ( valueObject instanceof Integer ) {
+			writeByte( DataTypeHeaderId.INT );
+			writeInt( (Integer)valueObject );
+		} else if ( valueObject instanceof Double ) {
+			writeByte( DataTypeHeaderId.DOUBLE );
+			writeLong( Double.doubleToLongBits( (Double)valueObject ) );
+		} else if ( valueObject instanceof ByteArray ) {
+			writeByte( DataTypeHeaderId.BYTE_ARRAY );
+			final ByteArray byteArray = (ByteArray)valueObject;
+			writeInt( byteArray.size() );
+			writeBytes( byteArray.getBytes(), byteArray.size() );
+		} else if ( valueObject instanceof Boolean ) {
+			writeByte( DataTypeHeaderId.BOOL );
+			writeByte( (Boolean)valueObject ? 1 : 0 );
+		} else if ( valueObject instanceof Long ) {
+			writeByte( DataTypeHeaderId.LONG );
+			writeLong( (Long)valueObject );
+		} else {
+			writeByte( DataTypeHeaderId.NULL );
+		}
+
+		if ( value.hasChildren() == false ) {
+			writeInt( 0 );
+			return;
+		}
+
+		final Map< String, ValueVector > children = value.children();
+		// The number of children is written once we know it, as the map may be concurrently modified
+		final int sizePosition = reserve( 4 );
+		int size = 0;
+		for( Entry< String, ValueVector > entry : children.entrySet() ) {
+			final ValueVector vector = entry.getValue();
+			writeString( entry.getKey() );
+			final int vectorSizePosition = reserve( 4 );
+			int vectorSize = 0;
+			for( Value v : vector ) {
+				writeValue( v );
+				vectorSize++;
+			}
+			putInt( vectorSizePosition, vectorSize );
+			size++;
+		}
+		putInt( sizePosition, size );
+	}
+
+	private void writeString( String str )
+	{
+		final int length = str.length();
+		if ( length == 0 ) {
+			writeInt( 0 );
+		} else if ( isUTF8 == false ) {
+			final byte[] bytes = str.getBytes( charset );
+			writeInt( bytes.length );
+			writeBytes( bytes, bytes.length );
+		} else {
+			// A char takes at most three bytes in UTF-8 (surrogate pairs take four bytes for two chars)
+			ensureCapacity( 4 + length * 3 );
+			final byte[] buf = buffer;
+			final int start = count + 4;
+			int p = start;
+			for( int i = 0; i < length; i++ ) {
+				final char c = str.charAt( i );
+				if ( c < 0x80 ) {
+					buf[ p++ ] = (byte)c;
+				} else if ( c < 0x800 ) {
+					buf[ p++ ] = (byte)(0xC0 | (c >> 6));
+					buf[ p++ ] = (byte)(0x80 | (c & 0x3F));
+				} else if ( Character.isSurrogate( c ) ) {
+					if ( Character.isHighSurrogate( c ) && i + 1 < length && Character.isLowSurrogate( str.charAt( i + 1 ) ) ) {
+						final int codePoint = Character.toCodePoint( c, str.charAt( ++i ) );
+						buf[ p++ ] = (byte)(0xF0 | (codePoint >> 18));
+						buf[ p++ ] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+						buf[ p++ ] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+						buf[ p++ ] = (byte)(0x80 | (codePoint & 0x3F));
+					} else {
+						// Malformed surrogate, replaced as the JDK encoder does
+						buf[ p++ ] = '?';
+					}
+				} else {
+					buf[ p++ ] = (byte)(0xE0 | (c >> 12));
+					buf[ p++ ] = (byte)(0x80 | ((c >> 6) & 0x3F));
+					buf[ p++ ] = (byte)(0x80 | (c & 0x3F));
+				}
+			}
+			putInt( count, p - start );
+			count = p;
+		}
+	}
+
+	private void ensureCapacity( int toBeWritten )
+	{
+		if ( count + toBeWritten > buffer.length ) {
+			final long required = (long)count + toBeWritten;
+			if ( required > Integer.MAX_VALUE - 8 ) {
+				throw new OutOfMemoryError( "Required array size too large" );
+			}
+			final byte[] newBuffer = new byte[ (int)Math.min( Math.max( required, 2L * buffer.length ), Integer.MAX_VALUE - 8 ) ];
+			System.arraycopy( buffer, 0, newBuffer, 0, count );
+			buffer = newBuffer;
+		}
+	}
+
+	private int reserve( int size )
+	{
+		ensureCapacity( size );
+		final int position = count;
+		count += size;
+		return position;
+	}
+
+	private void writeByte( int b )
+	{
+		ensureCapacity( 1 );
+		buffer[ count++ ] = (byte)b;
+	}
+
+	private void writeBytes( byte[] bytes, int length )
+	{
+		ensureCapacity( length );
+		System.arraycopy( bytes, 0, buffer, count, length );
+		count += length;
+	}
+
+	private void writeInt( int i )
+	{
+		putInt( reserve( 4 ), i );
+	}
+
+	private void putInt( int position, int i )
+	{
+		buffer[ position ] = (byte)(i >>> 24);
+		buffer[ position + 1 ] = (byte)(i >>> 16);
+		buffer[ position + 2 ] = (byte)(i >>> 8);
+		buffer[ position + 3 ] = (byte)i;
+	}
+
+	private void writeLong( long l )
+	{
+		final int position = reserve( 8 );
+		putInt( position, (int)(l >>> 32) );
+		putInt( position + 4, (int)l );
+	}
+}
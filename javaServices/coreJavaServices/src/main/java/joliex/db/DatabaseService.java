@@ -28,6 +28,9 @@ import java.sql.*;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import jolie.runtime.ByteArray;
 import jolie.runtime.CanUseJars;
 import jolie.runtime.FaultException;
@@ -35,6 +38,7 @@ import jolie.runtime.JavaService;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
 import jolie.runtime.embedding.RequestResponse;
+import joliex.db.impl.ConnectionPool;
 import joliex.db.impl.NamedStatementParser;
 
 /**
@@ -42,6 +46,11 @@ import joliex.db.impl.NamedStatementParser;
  * - Marco Montesi: connection string fix for Microsoft SQL Server (2009)
  * - Claudio Guidi: added support for SQLite (2013)
  * - Matthias Dieter Wallnöfer: added support for HSQLDB (2013)
+ *
+ * Statements are executed on connections taken from a {@link ConnectionPool}.
+ * By default the pool holds a single connection, so statements are executed
+ * one at a time; with a larger pool they run in parallel.
+ * Query results can also be read incrementally, with cursors.
  */
 @CanUseJars( {
 	"derby.jar", // Java DB - Embedded
@@ -56,28 +65,25 @@ import joliex.db.impl.NamedStatementParser;
 } )
 public class DatabaseService extends JavaService
 {
-	private Connection connection = null;
+	private volatile ConnectionPool pool = null;
+	private long poolTimeout = 0;
 	private String connectionString = null;
 	private String username = null;
 	private String password = null;
 	private String driver = null;
 	private static boolean toLowerCase = false;
 	private static boolean toUpperCase = false;
-	private boolean mustCheckConnection = false;
-	private final Object transactionMutex = new Object();
 	private final static String templateField = "_template";
+	private final static String fetchSizeField = "_fetchSize";
+	private final static String maxRowsField = "_maxRows";
+	private final Map< String, Cursor > cursors = new ConcurrentHashMap<>();
 
 	@Override
 	protected void finalize()
 		throws Throwable
 	{
 		try {
-			if ( connection != null ) {
-				try {
-					connection.close();
-				} catch( SQLException e ) {
-				}
-			}
+			close();
 		} finally {
 			super.finalize();
 		}
@@ -86,14 +92,15 @@ public class DatabaseService extends JavaService
 	@RequestResponse
 	public void close()
 	{
-		if ( connection != null ) {
-			try {
-				connectionString = null;
-				username = null;
-				password = null;
-				connection.close();
-			} catch( SQLException e ) {
-			}
+		cursors.values().forEach( Cursor::close );
+		cursors.clear();
+		final ConnectionPool p = pool;
+		if ( p != null ) {
+			pool = null;
+			connectionString = null;
+			username = null;
+			password = null;
+			p.close();
 		}
 	}
 	
@@ -103,7 +110,10 @@ public class DatabaseService extends JavaService
 	{
 		close();
 
-		mustCheckConnection = request.getFirstChild( "checkConnection" ).intValue() > 0;
+		final boolean mustCheckConnection = request.getFirstChild( "checkConnection" ).intValue() > 0;
+		final int poolSize = request.hasChildren( "poolSize" ) ? request.getFirstChild( "poolSize" ).intValue() : 1;
+		final int statementCacheSize = request.getFirstChild( "statementCacheSize" ).intValue();
+		poolTimeout = request.getFirstChild( "poolTimeout" ).longValue();
 
 		toLowerCase = request.getFirstChild( "toLowerCase" ).isDefined() && request.getFirstChild( "toLowerCase" ).boolValue();
 
@@ -154,34 +164,43 @@ public class DatabaseService extends JavaService
 				throw new FaultException( "InvalidDriver", "Unknown type of driver: " + driver );
 			}
 
+			final boolean useCredentials;
 			if ( isEmbedded ) {
 				connectionString = "jdbc:" + driver + ":" + databaseName;
 				if ( !attributes.isEmpty() ) {
 					connectionString += ";" + attributes;
 				}
-				if ( "hsqldb".equals( driver ) ) {
-					connection = DriverManager.getConnection(
-						connectionString,
-						username,
-						password );
-				} else {
-					connection = DriverManager.getConnection( connectionString );
-				}
+				useCredentials = "hsqldb".equals( driver );
 			} else {
 				if ( driver.startsWith( "hsqldb" ) ) {
 					connectionString = "jdbc:" + driver + ":" + driver.substring( driver.indexOf( '_' ) + 1 ) + "//" + host + (port.isEmpty() ? "" : ":" + port) + separator + databaseName;
 				} else {
 					connectionString = "jdbc:" + driver + "://" + host + (port.isEmpty() ? "" : ":" + port) + separator + databaseName;
 				}
-				connection = DriverManager.getConnection(
-					connectionString,
-					username,
-					password );
+				useCredentials = true;
 			}
 
-			if ( connection == null ) {
-				throw new FaultException( "ConnectionError" );
-			}
+			final String cString = connectionString;
+			final String cUsername = username;
+			final String cPassword = password;
+			final String cDriver = driver;
+			final ConnectionPool p = new ConnectionPool(
+				() -> {
+					final Connection connection = useCredentials
+						? DriverManager.getConnection( cString, cUsername, cPassword )
+						: DriverManager.getConnection( cString );
+					if ( connection == null ) {
+						throw new SQLException( "Could not connect to " + cString );
+					}
+					return connection;
+				},
+				mustCheckConnection ? connection -> isValid( cDriver, connection ) : null,
+				poolSize,
+				statementCacheSize
+			);
+			// Open the first connection now, to report connection errors immediately
+			p.borrow( poolTimeout ).release( false );
+			pool = p;
 		} catch( ClassNotFoundException e ) {
 			throw new FaultException( "DriverClassNotFound", e );
 		} catch( SQLException e ) {
@@ -189,36 +208,34 @@ public class DatabaseService extends JavaService
 		}
 	}
 
-	private void _checkConnection()
+	private static boolean isValid( String driver, Connection connection )
+		throws SQLException
+	{
+		if ( "postgresql".equals( driver ) ) {
+			/* The JDBC4 driver for postgresql does not implemented isValid().
+			 * We fallback to isClosed().
+			 */
+			return !connection.isClosed();
+		} else {
+			return connection.isValid( 0 );
+		}
+	}
+
+	/*
+	 * Takes a connection from the pool, validating it if checkConnection was requested.
+	 * The connection must be given back with release.
+	 */
+	private ConnectionPool.PooledConnection borrowConnection()
 		throws FaultException
 	{
-		if ( connection == null ) {
+		final ConnectionPool p = pool;
+		if ( p == null ) {
 			throw new FaultException( "ConnectionError" );
 		}
-		if ( mustCheckConnection ) {
-			try {
-				if ( "postgresql".equals( driver ) ) {
-					/* The JDBC4 driver for postgresql does not implemented isValid().
-					 * We fallback to isClosed().
-					 */
-
-					if ( connection.isClosed() ) {
-						connection = DriverManager.getConnection(
-							connectionString,
-							username,
-							password );
-					}
-				} else {
-					if ( !connection.isValid( 0 ) ) {
-						connection = DriverManager.getConnection(
-							connectionString,
-							username,
-							password );
-					}
-				}
-			} catch( SQLException e ) {
-				throw new FaultException( "ConnectionError", e );
-			}
+		try {
+			return p.borrow( poolTimeout );
+		} catch( SQLException e ) {
+			throw new FaultException( "ConnectionError", e );
 		}
 	}
 
@@ -226,47 +243,65 @@ public class DatabaseService extends JavaService
 	public void checkConnection()
 		throws FaultException
 	{
+		final ConnectionPool.PooledConnection connection = borrowConnection();
+		boolean valid = false;
 		try {
-			if ( "postgresql".equals( driver ) ) {
-				/* The JDBC4 driver for postgresql does not implemented isValid().
-				 * We fallback to isClosed().
-				 */
-
-				if ( connection == null || connection.isClosed() ) {
-					throw new FaultException( "ConnectionError" );
-				}
-			} else {
-
-				if ( connection == null || !connection.isValid( 0 ) ) {
-					throw new FaultException( "ConnectionError" );
-				}
-			}
+			valid = isValid( driver, connection.connection() );
 		} catch( SQLException e ) {
 			throw new FaultException( "ConnectionError", e );
+		} finally {
+			connection.release( !valid );
+		}
+		if ( !valid ) {
+			throw new FaultException( "ConnectionError" );
 		}
 	}
 
+	/**
+	 * Returns the size and the usage counters of the connection pool.
+	 * @return the size and the usage counters of the connection pool
+	 * @throws FaultException if the service is not connected
+	 */
+	@RequestResponse
+	public Value poolStatistics()
+		throws FaultException
+	{
+		final ConnectionPool p = pool;
+		if ( p == null ) {
+			throw new FaultException( "ConnectionError" );
+		}
+		final ConnectionPool.Statistics statistics = p.statistics();
+		final Value resultValue = Value.create();
+		resultValue.getFirstChild( "maxSize" ).setValue( p.maxSize() );
+		resultValue.getFirstChild( "size" ).setValue( p.size() );
+		resultValue.getFirstChild( "idle" ).setValue( p.idleSize() );
+		resultValue.getFirstChild( "borrows" ).setValue( statistics.borrows() );
+		resultValue.getFirstChild( "waits" ).setValue( statistics.waits() );
+		resultValue.getFirstChild( "timeouts" ).setValue( statistics.timeouts() );
+		resultValue.getFirstChild( "creations" ).setValue( statistics.creations() );
+		resultValue.getFirstChild( "discards" ).setValue( statistics.discards() );
+		resultValue.getFirstChild( "statementCacheHits" ).setValue( statistics.statementCacheHits() );
+		resultValue.getFirstChild( "statementCacheMisses" ).setValue( statistics.statementCacheMisses() );
+		return resultValue;
+	}
+
 	@RequestResponse
 	public Value update( Value request )
 		throws FaultException
 	{
-		_checkConnection();
+		final ConnectionPool.PooledConnection connection = borrowConnection();
 		Value resultValue = Value.create();
 		PreparedStatement stm = null;
 		try {
-			synchronized( transactionMutex ) {
-				stm = new NamedStatementParser( connection, request.strValue(), request ).getPreparedStatement();
-				resultValue.setValue( stm.executeUpdate() );
-			}
+			stm = new NamedStatementParser( connection, request.strValue(), request ).getPreparedStatement();
+			resultValue.setValue( stm.executeUpdate() );
 		} catch( SQLException e ) {
 			throw createFaultException( e );
 		} finally {
 			if ( stm != null ) {
-				try {
-					stm.close();
-				} catch( SQLException e ) {
-				}
+				connection.closeStatement( stm );
 			}
+			connection.release( false );
 		}
 		return resultValue;
 	}
@@ -364,47 +399,87 @@ public class DatabaseService extends JavaService
 		}
 	}
 
-	private static void resultSetToValueVector( ResultSet result, ValueVector vector )
-		throws SQLException
+	/*
+	 * The columns of a result set. Column names are computed once and shared by all
+	 * the rows read from the result set, instead of being recomputed for each row.
+	 */
+	private static class ResultColumns
 	{
-		Value rowValue, fieldValue;
-		ResultSetMetaData metadata = result.getMetaData();
-		int cols = metadata.getColumnCount();
-		int i;
-		int rowIndex = 0;
-		if ( toLowerCase ) {
-			while( result.next() ) {
-				rowValue = vector.get( rowIndex );
-				for( i = 1; i <= cols; i++ ) {
-					fieldValue = rowValue.getFirstChild( metadata.getColumnLabel( i ).toLowerCase() );
-					setValue( fieldValue, result, metadata.getColumnType( i ), i );
+		private final String[] names;
+		private final int[] types;
+		private Map< String, Integer > indexes = null;
+		private final ResultSetMetaData metadata;
+
+		private ResultColumns( ResultSet result )
+			throws SQLException
+		{
+			metadata = result.getMetaData();
+			final int cols = metadata.getColumnCount();
+			names = new String[ cols + 1 ];
+			types = new int[ cols + 1 ];
+			for( int i = 1; i <= cols; i++ ) {
+				String name = metadata.getColumnLabel( i );
+				if ( toLowerCase ) {
+					name = name.toLowerCase();
+				} else if ( toUpperCase ) {
+					name = name.toUpperCase();
 				}
-				rowIndex++;
+				names[ i ] = name;
+				types[ i ] = metadata.getColumnType( i );
 			}
-		} else if ( toUpperCase ) {
-			while( result.next() ) {
-				rowValue = vector.get( rowIndex );
-				for( i = 1; i <= cols; i++ ) {
-					fieldValue = rowValue.getFirstChild( metadata.getColumnLabel( i ).toUpperCase() );
-					setValue( fieldValue, result, metadata.getColumnType( i ), i );
+		}
+
+		private int count()
+		{
+			return names.length - 1;
+		}
+
+		// Column indexes by name, used by templates
+		private Map< String, Integer > indexes()
+			throws SQLException
+		{
+			if ( indexes == null ) {
+				indexes = new HashMap<>();
+				for( int i = 1; i < names.length; i++ ) {
+					indexes.put( metadata.getColumnName( i ), i );
 				}
-				rowIndex++;
 			}
-		} else {
-			while( result.next() ) {
-				rowValue = vector.get( rowIndex );
-				for( i = 1; i <= cols; i++ ) {
-					fieldValue = rowValue.getFirstChild( metadata.getColumnLabel( i ) );
-					setValue( fieldValue, result, metadata.getColumnType( i ), i );
-				}
-				rowIndex++;
+			return indexes;
+		}
+	}
+
+	/*
+	 * Reads at most maxRows rows (all of them if maxRows <= 0) from the result set.
+	 * Returns true if the result set has been read to the end.
+	 */
+	private static boolean resultSetToValueVector( ResultSet result, ResultColumns columns, ValueVector vector, int maxRows )
+		throws SQLException
+	{
+		Value rowValue;
+		final int cols = columns.count();
+		int rowIndex = 0;
+		while( maxRows <= 0 || rowIndex < maxRows ) {
+			if ( !result.next() ) {
+				return true;
+			}
+			rowValue = vector.get( rowIndex );
+			for( int i = 1; i <= cols; i++ ) {
+				setValue( rowValue.getFirstChild( columns.names[ i ] ), result, columns.types[ i ], i );
 			}
+			rowIndex++;
 		}
+		return false;
+	}
+
+	private static void resultSetToValueVector( ResultSet result, ValueVector vector )
+		throws SQLException
+	{
+		resultSetToValueVector( result, new ResultColumns( result ), vector, 0 );
 	}
 
 	private static void _rowToValueWithTemplate(
 		Value resultValue, ResultSet result,
-		ResultSetMetaData metadata, Map< String, Integer> colIndexes,
+		ResultColumns columns,
 		Value template )
 		throws SQLException
 	{
@@ -415,42 +490,48 @@ public class DatabaseService extends JavaService
 			templateNode = template.getFirstChild( child.getKey() );
 			resultChild = resultValue.getFirstChild( child.getKey() );
 			if ( templateNode.isString() ) {
-				colIndex = colIndexes.get( templateNode.strValue() );
-				setValue( resultChild, result, metadata.getColumnType( colIndex ), colIndex );
+				colIndex = columns.indexes().get( templateNode.strValue() );
+				setValue( resultChild, result, columns.types[ colIndex ], colIndex );
 			}
 
-			_rowToValueWithTemplate( resultChild, result, metadata, colIndexes, templateNode );
+			_rowToValueWithTemplate( resultChild, result, columns, templateNode );
 		}
 	}
 
-	private static void resultSetToValueVectorWithTemplate( ResultSet result, ValueVector vector, Value template )
+	/*
+	 * Reads at most maxRows rows (all of them if maxRows <= 0) from the result set,
+	 * shaping them as the template. Returns true if the result set has been read to the end.
+	 */
+	private static boolean resultSetToValueVectorWithTemplate( ResultSet result, ResultColumns columns, ValueVector vector, Value template, int maxRows )
 		throws SQLException
 	{
-		Value rowValue;
-		ResultSetMetaData metadata = result.getMetaData();
-		Map< String, Integer> colIndexes = new HashMap< String, Integer>();
-		int cols = metadata.getColumnCount();
-		for( int i = 0; i < cols; i++ ) {
-			colIndexes.put( metadata.getColumnName( i ), i );
-		}
-
 		int rowIndex = 0;
-		while( result.next() ) {
-			rowValue = vector.get( rowIndex );
-			_rowToValueWithTemplate( rowValue, result, metadata, colIndexes, template );
-
+		while( maxRows <= 0 || rowIndex < maxRows ) {
+			if ( !result.next() ) {
+				return true;
+			}
+			_rowToValueWithTemplate( vector.get( rowIndex ), result, columns, template );
 			rowIndex++;
 		}
+		return false;
+	}
+
+	private static void resultSetToValueVectorWithTemplate( ResultSet result, ValueVector vector, Value template )
+		throws SQLException
+	{
+		resultSetToValueVectorWithTemplate( result, new ResultColumns( result ), vector, template, 0 );
 	}
 
 	@RequestResponse
 	public Value executeTransaction( Value request )
 		throws FaultException
 	{
-		_checkConnection();
+		final ConnectionPool.PooledConnection pooledConnection = borrowConnection();
+		final Connection connection = pooledConnection.connection();
+		boolean broken = false;
 		Value resultValue = Value.create();
 		ValueVector resultVector = resultValue.getChildren( "result" );
-		synchronized( transactionMutex ) {
+		try {
 			try {
 				connection.setAutoCommit( false );
 			} catch( SQLException e ) {
@@ -466,7 +547,7 @@ public class DatabaseService extends JavaService
 				stm = null;
 				try {
 					updateCount = -1;
-					stm = new NamedStatementParser( connection, statementValue.strValue(), statementValue ).getPreparedStatement();
+					stm = new NamedStatementParser( pooledConnection, statementValue.strValue(), statementValue ).getPreparedStatement();
 					if ( stm.execute() == true ) {
 						updateCount = stm.getUpdateCount();
 						if ( updateCount == -1 ) {
@@ -484,16 +565,12 @@ public class DatabaseService extends JavaService
 					try {
 						connection.rollback();
 					} catch( SQLException e1 ) {
-						connection = null;
+						broken = true;
 					}
 					throw createFaultException( e );
 				} finally {
 					if ( stm != null ) {
-						try {
-							stm.close();
-						} catch( SQLException e ) {
-							throw createFaultException( e );
-						}
+						pooledConnection.closeStatement( stm );
 					}
 				}
 			}
@@ -502,13 +579,17 @@ public class DatabaseService extends JavaService
 				connection.commit();
 			} catch( SQLException e ) {
 				throw createFaultException( e );
-			} finally {
+			}
+		} finally {
+			// The connection goes back to the pool, so it must be left in auto-commit mode
+			if ( !broken ) {
 				try {
 					connection.setAutoCommit( true );
 				} catch( SQLException e ) {
-					throw createFaultException( e );
+					broken = true;
 				}
 			}
+			pooledConnection.release( broken );
 		}
 		return resultValue;
 	}
@@ -529,32 +610,201 @@ public class DatabaseService extends JavaService
 	public Value query( Value request )
 		throws FaultException
 	{
-		_checkConnection();
+		final ConnectionPool.PooledConnection connection = borrowConnection();
 		Value resultValue = Value.create();
 		PreparedStatement stm = null;
 
 		try {
-			synchronized( transactionMutex ) {
-				stm = new NamedStatementParser( connection, request.strValue(), request ).getPreparedStatement();
-				ResultSet result = stm.executeQuery();
+			stm = new NamedStatementParser( connection, request.strValue(), request ).getPreparedStatement();
+			setResultLimits( stm, request );
+			try( ResultSet result = stm.executeQuery() ) {
 				if ( request.hasChildren( templateField ) ) {
 					resultSetToValueVectorWithTemplate( result, resultValue.getChildren( "row" ), request.getFirstChild( templateField ) );
 				} else {
 					resultSetToValueVector( result, resultValue.getChildren( "row" ) );
 				}
-				result.close();
 			}
 		} catch( SQLException e ) {
 			throw createFaultException( e );
 		} finally {
 			if ( stm != null ) {
+				connection.closeStatement( stm );
+			}
+			connection.release( false );
+		}
+
+		return resultValue;
+	}
+
+	/*
+	 * Applies the row limit and the fetch size requested with _maxRows and _fetchSize.
+	 * Statements can be cached, so the defaults are restored when they are not requested.
+	 */
+	private static void setResultLimits( PreparedStatement stm, Value request )
+		throws SQLException
+	{
+		final int maxRows = Math.max( 0, request.getFirstChild( maxRowsField ).intValue() );
+		int fetchSize = Math.max( 0, request.getFirstChild( fetchSizeField ).intValue() );
+		if ( maxRows > 0 ) {
+			fetchSize = Math.min( fetchSize, maxRows );
+		}
+		stm.setMaxRows( maxRows );
+		stm.setFetchSize( fetchSize );
+	}
+
+	/*
+	 * An open query result, read incrementally with fetch.
+	 * A cursor holds its connection until it is closed, or read to the end.
+	 */
+	private static class Cursor
+	{
+		private final ReentrantLock lock = new ReentrantLock();
+		private final ConnectionPool.PooledConnection connection;
+		private final PreparedStatement statement;
+		private final ResultSet result;
+		private final ResultColumns columns;
+		private final Value template;
+		private boolean closed = false;
+
+		private Cursor( ConnectionPool.PooledConnection connection, PreparedStatement statement, ResultSet result, Value template )
+			throws SQLException
+		{
+			this.connection = connection;
+			this.statement = statement;
+			this.result = result;
+			this.columns = new ResultColumns( result );
+			this.template = template;
+		}
+
+		// Returns true if the result has been read to the end
+		private boolean fetch( ValueVector rows, int maxRows )
+			throws SQLException
+		{
+			if ( closed ) {
+				return true;
+			}
+			if ( template == null ) {
+				return resultSetToValueVector( result, columns, rows, maxRows );
+			} else {
+				return resultSetToValueVectorWithTemplate( result, columns, rows, template, maxRows );
+			}
+		}
+
+		private void close()
+		{
+			lock.lock();
+			try {
+				if ( closed ) {
+					return;
+				}
+				closed = true;
+				try {
+					result.close();
+				} catch( SQLException e ) {}
+				connection.closeStatement( statement );
+				boolean broken = false;
+				try {
+					connection.connection().commit();
+					connection.connection().setAutoCommit( true );
+				} catch( SQLException e ) {
+					broken = true;
+				}
+				connection.release( broken );
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Executes a query and returns a cursor on its result, to be read with fetch.
+	 * @param request the query, as for query
+	 * @return the identifier of the cursor
+	 * @throws FaultException if the query fails or there is no connection
+	 */
+	@RequestResponse
+	public String openCursor( Value request )
+		throws FaultException
+	{
+		final ConnectionPool.PooledConnection connection = borrowConnection();
+		PreparedStatement stm = null;
+		boolean ok = false;
+		try {
+			// Some drivers stream results according to the fetch size only within transactions
+			connection.connection().setAutoCommit( false );
+			stm = new NamedStatementParser( connection, request.strValue(), request ).getPreparedStatement();
+			setResultLimits( stm, request );
+			final Cursor cursor = new Cursor(
+				connection, stm, stm.executeQuery(),
+				request.hasChildren( templateField ) ? request.getFirstChild( templateField ) : null
+			);
+			final String id = UUID.randomUUID().toString();
+			cursors.put( id, cursor );
+			ok = true;
+			return id;
+		} catch( SQLException e ) {
+			throw createFaultException( e );
+		} finally {
+			if ( !ok ) {
+				boolean broken = false;
+				if ( stm != null ) {
+					connection.closeStatement( stm );
+				}
 				try {
-					stm.close();
+					connection.connection().rollback();
+					connection.connection().setAutoCommit( true );
 				} catch( SQLException e ) {
+					broken = true;
 				}
+				connection.release( broken );
 			}
 		}
+	}
 
+	/**
+	 * Reads the next rows of a cursor. The cursor is closed once its result has been read to the end.
+	 * @param request the cursor and the maximum number of rows to read
+	 * @return the rows read, and whether there are more
+	 * @throws FaultException if the cursor does not exist or reading fails
+	 */
+	@RequestResponse
+	public Value fetch( Value request )
+		throws FaultException
+	{
+		final String id = request.getFirstChild( "cursor" ).strValue();
+		final Cursor cursor = cursors.get( id );
+		if ( cursor == null ) {
+			throw new FaultException( "CursorNotFound", "Unknown cursor: " + id );
+		}
+		final Value resultValue = Value.create();
+		boolean done = true;
+		cursor.lock.lock();
+		try {
+			done = cursor.fetch( resultValue.getChildren( "row" ), Math.max( 1, request.getFirstChild( "rows" ).intValue() ) );
+		} catch( SQLException e ) {
+			throw createFaultException( e );
+		} finally {
+			cursor.lock.unlock();
+			if ( done ) {
+				cursors.remove( id );
+				cursor.close();
+			}
+		}
+		resultValue.getFirstChild( "hasMore" ).setValue( !done );
 		return resultValue;
 	}
+
+	/**
+	 * Closes a cursor, giving its connection back to the pool.
+	 * Closing a cursor that does not exist has no effect.
+	 * @param id the identifier of the cursor
+	 */
+	@RequestResponse
+	public void closeCursor( String id )
+	{
+		final Cursor cursor = cursors.remove( id );
+		if ( cursor != null ) {
+			cursor.close();
+		}
+	}
 }
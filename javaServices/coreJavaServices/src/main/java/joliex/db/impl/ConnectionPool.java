@@ -0,0 +1,437 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package joliex.db.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded pool of JDBC connections towards the same database.
+ *
+ * Connections are created lazily, up to the maximum size of the pool, and
+ * are used by one borrower at a time. Idle connections can be validated
+ * when they are borrowed: the invalid ones are closed and replaced.
+ * Each connection keeps a cache of its prepared statements.
+ * @author agent
+ */
+public class ConnectionPool
+{
+	/**
+	 * Creates the connections of a pool.
+	 */
+	@FunctionalInterface
+	public interface ConnectionFactory
+	{
+		public Connection createConnection()
+			throws SQLException;
+	}
+
+	/**
+	 * Checks that a connection can still be used.
+	 */
+	@FunctionalInterface
+	public interface ConnectionValidator
+	{
+		public boolean isValid( Connection connection )
+			throws SQLException;
+	}
+
+	/**
+	 * Usage counters of a pool.
+	 */
+	public static class Statistics
+	{
+		private final LongAdder borrows = new LongAdder();
+		private final LongAdder waits = new LongAdder();
+		private final LongAdder timeouts = new LongAdder();
+		private final LongAdder creations = new LongAdder();
+		private final LongAdder discards = new LongAdder();
+		private final LongAdder statementCacheHits = new LongAdder();
+		private final LongAdder statementCacheMisses = new LongAdder();
+
+		/**
+		 * Returns the number of connections handed out by the pool.
+		 * @return the number of connections handed out by the pool
+		 */
+		public long borrows()
+		{
+			return borrows.sum();
+		}
+
+		/**
+		 * Returns the number of requests that had to wait for a connection to be released.
+		 * @return the number of requests that had to wait for a connection to be released
+		 */
+		public long waits()
+		{
+			return waits.sum();
+		}
+
+		/**
+		 * Returns the number of requests that did not get a connection in time.
+		 * @return the number of requests that did not get a connection in time
+		 */
+		public long timeouts()
+		{
+			return timeouts.sum();
+		}
+
+		/**
+		 * Returns the number of connections opened by the pool.
+		 * @return the number of connections opened by the pool
+		 */
+		public long creations()
+		{
+			return creations.sum();
+		}
+
+		/**
+		 * Returns the number of connections closed because they were found invalid or broken.
+		 * @return the number of discarded connections
+		 */
+		public long discards()
+		{
+			return discards.sum();
+		}
+
+		/**
+		 * Returns the number of statements reused from the statement caches.
+		 * @return the number of statements reused from the statement caches
+		 */
+		public long statementCacheHits()
+		{
+			return statementCacheHits.sum();
+		}
+
+		/**
+		 * Returns the number of statements that had to be prepared.
+		 * @return the number of statements that had to be prepared
+		 */
+		public long statementCacheMisses()
+		{
+			return statementCacheMisses.sum();
+		}
+	}
+
+	/**
+	 * A connection owned by a pool, with its cache of prepared statements.
+	 */
+	public class PooledConnection implements NamedStatementParser.StatementPreparer
+	{
+		private final Connection connection;
+		private final Map< String, PreparedStatement > statementCache;
+
+		private PooledConnection( Connection connection )
+		{
+			this.connection = connection;
+			this.statementCache = new LinkedHashMap< String, PreparedStatement >( 16, 0.75f, true ) {
+				@Override
+				protected boolean removeEldestEntry( Map.Entry< String, PreparedStatement > eldest )
+				{
+					if ( size() > statementCacheSize ) {
+						closeQuietly( eldest.getValue() );
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+
+		/**
+		 * Returns the underlying JDBC connection.
+		 * @return the underlying JDBC connection
+		 */
+		public Connection connection()
+		{
+			return connection;
+		}
+
+		/**
+		 * Returns a prepared statement for the passed SQL, reusing a cached one if possible.
+		 * The returned statement must be closed with {@link #closeStatement(java.sql.PreparedStatement)}.
+		 */
+		@Override
+		public PreparedStatement prepare( String sql )
+			throws SQLException
+		{
+			PreparedStatement statement = statementCache.get( sql );
+			if ( statement != null ) {
+				statistics.statementCacheHits.increment();
+				statement.clearParameters();
+				return statement;
+			}
+			statistics.statementCacheMisses.increment();
+			statement = connection.prepareStatement( sql );
+			if ( statementCacheSize > 0 ) {
+				statementCache.put( sql, statement );
+			}
+			return statement;
+		}
+
+		/**
+		 * Closes a statement obtained from {@link #prepare(java.lang.String)}, unless it is cached.
+		 * @param statement the statement to close
+		 */
+		public void closeStatement( PreparedStatement statement )
+		{
+			// Statement caches are small, so a linear search is fine
+			if ( !statementCache.containsValue( statement ) ) {
+				closeQuietly( statement );
+			}
+		}
+
+		/**
+		 * Gives this connection back to its pool.
+		 * @param broken {@code true} if this connection must not be used anymore
+		 */
+		public void release( boolean broken )
+		{
+			ConnectionPool.this.release( this, broken );
+		}
+
+		private void close()
+		{
+			statementCache.values().forEach( ConnectionPool::closeQuietly );
+			statementCache.clear();
+			try {
+				connection.close();
+			} catch( SQLException e ) {}
+		}
+	}
+
+	private final ConnectionFactory factory;
+	private final ConnectionValidator validator;
+	private final int maxSize;
+	private final int statementCacheSize;
+	private final Statistics statistics = new Statistics();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition released = lock.newCondition();
+	private final Deque< PooledConnection > idleConnections = new ArrayDeque<>();
+	private int size = 0;
+	private boolean closed = false;
+
+	/**
+	 * Creates a pool.
+	 * @param factory creates the connections of the pool
+	 * @param validator checks idle connections when they are borrowed, {@code null} for no validation
+	 * @param maxSize the maximum number of open connections
+	 * @param statementCacheSize the maximum number of prepared statements cached by each connection
+	 */
+	public ConnectionPool( ConnectionFactory factory, ConnectionValidator validator, int maxSize, int statementCacheSize )
+	{
+		this.factory = factory;
+		this.validator = validator;
+		this.maxSize = Math.max( 1, maxSize );
+		this.statementCacheSize = Math.max( 0, statementCacheSize );
+	}
+
+	/**
+	 * Takes a connection out of this pool, waiting for one to be released if
+	 * the pool has reached its maximum size.
+	 * @param timeout the maximum time to wait in milliseconds, 0 for no limit
+	 * @return a connection, to be given back with {@link PooledConnection#release(boolean)}
+	 * @throws SQLException if a new connection could not be opened, no connection
+	 * was released in time, or the pool has been closed
+	 */
+	public PooledConnection borrow( long timeout )
+		throws SQLException
+	{
+		long nanosLeft = TimeUnit.MILLISECONDS.toNanos( timeout );
+		PooledConnection ret = null;
+		do {
+			boolean mustCreate = false;
+			lock.lock();
+			try {
+				boolean waited = false;
+				while( !closed && idleConnections.isEmpty() && size >= maxSize ) {
+					waited = true;
+					if ( timeout > 0 ) {
+						if ( nanosLeft <= 0 ) {
+							statistics.timeouts.increment();
+							throw new SQLException( "Timeout while waiting for a database connection" );
+						}
+						nanosLeft = released.awaitNanos( nanosLeft );
+					} else {
+						released.await();
+					}
+				}
+				if ( waited ) {
+					statistics.waits.increment();
+				}
+				if ( closed ) {
+					throw new SQLException( "The connection pool has been closed" );
+				}
+				ret = idleConnections.pollFirst();
+				if ( ret == null ) {
+					size++;
+					mustCreate = true;
+				}
+			} catch( InterruptedException e ) {
+				throw new SQLException( e );
+			} finally {
+				lock.unlock();
+			}
+
+			if ( mustCreate ) {
+				try {
+					ret = new PooledConnection( factory.createConnection() );
+					statistics.creations.increment();
+				} catch( SQLException | RuntimeException e ) {
+					freeSlot();
+					throw e;
+				}
+			} else if ( validator != null && !isValid( ret ) ) {
+				statistics.discards.increment();
+				ret.close();
+				freeSlot();
+				ret = null;
+			}
+		} while( ret == null );
+
+		statistics.borrows.increment();
+		return ret;
+	}
+
+	private void release( PooledConnection connection, boolean broken )
+	{
+		if ( broken ) {
+			statistics.discards.increment();
+			connection.close();
+			freeSlot();
+			return;
+		}
+
+		lock.lock();
+		try {
+			if ( !closed ) {
+				idleConnections.addFirst( connection );
+				released.signal();
+				return;
+			}
+			size--;
+		} finally {
+			lock.unlock();
+		}
+		connection.close();
+	}
+
+	/**
+	 * Closes all the idle connections of this pool. Borrowed connections are
+	 * closed when they are released.
+	 */
+	public void close()
+	{
+		lock.lock();
+		try {
+			closed = true;
+			size -= idleConnections.size();
+			idleConnections.forEach( PooledConnection::close );
+			idleConnections.clear();
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of open connections, borrowed or idle.
+	 * @return the number of open connections
+	 */
+	public int size()
+	{
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of idle connections.
+	 * @return the number of idle connections
+	 */
+	public int idleSize()
+	{
+		lock.lock();
+		try {
+			return idleConnections.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the maximum number of open connections.
+	 * @return the maximum number of open connections
+	 */
+	public int maxSize()
+	{
+		return maxSize;
+	}
+
+	/**
+	 * Returns the usage counters of this pool.
+	 * @return the usage counters of this pool
+	 */
+	public Statistics statistics()
+	{
+		return statistics;
+	}
+
+	private boolean isValid( PooledConnection connection )
+	{
+		try {
+			return validator.isValid( connection.connection );
+		} catch( SQLException e ) {
+			return false;
+		}
+	}
+
+	// A connection has been closed, or could not be opened: make room for a new one
+	private void freeSlot()
+	{
+		lock.lock();
+		try {
+			size--;
+			released.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static void closeQuietly( PreparedStatement statement )
+	{
+		try {
+			statement.close();
+		} catch( SQLException e ) {}
+	}
+}
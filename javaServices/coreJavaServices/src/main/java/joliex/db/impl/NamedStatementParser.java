@@ -45,6 +45,16 @@ import jolie.runtime.Value;
  */
 public class NamedStatementParser
 {
+	/**
+	 * Prepares the JDBC statements obtained by parsing named statements.
+	 */
+	@FunctionalInterface
+	public interface StatementPreparer
+	{
+		public PreparedStatement prepare( String jdbcSql )
+			throws SQLException;
+	}
+
 	private static class TypeKeywords {
 		private final static String DATE = "Date";
 		private final static String TIMESTAMP = "Timestamp";
@@ -57,10 +67,16 @@ public class NamedStatementParser
 
 	public NamedStatementParser( Connection connection, String sql, Value parameters )
 		throws SQLException
+	{
+		this( connection::prepareStatement, sql, parameters );
+	}
+
+	public NamedStatementParser( StatementPreparer preparer, String sql, Value parameters )
+		throws SQLException
 	{
 		String jdbcSql = parse( sql );
 
-		statement = connection.prepareStatement( jdbcSql );
+		statement = preparer.prepare( jdbcSql );
 		Value v;
 		for( Entry< String, List< Integer > > entry : parameterPositions.entrySet() ) {
 			v = parameters.getFirstChild( entry.getKey() );
@@ -33,6 +33,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URI;
@@ -40,6 +41,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
@@ -50,7 +52,10 @@ import java.util.Base64;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.Map;
 import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiPredicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -80,6 +85,7 @@ import org.xml.sax.SAXException;
 import jolie.Interpreter;
 import jolie.jap.JapURLConnection;
 import jolie.js.JsUtils;
+import jolie.js.NdJsonReader;
 import jolie.runtime.AndJarDeps;
 import jolie.runtime.ByteArray;
 import jolie.runtime.FaultException;
@@ -97,9 +103,25 @@ import jolie.runtime.typing.Type;
 public class FileService extends JavaService
 {
 	private final static Pattern FILE_KEYWORD_PATTERN = Pattern.compile( "(#+)file\\s+(.*)" );
+	private final static int DEFAULT_NDJSON_BATCH_SIZE = 1000;
+
+	// An NDJSON file opened with openNdJsonReader
+	private static class NdJsonStream
+	{
+		private final NdJsonReader reader;
+		private final int batchSize;
+
+		private NdJsonStream( NdJsonReader reader, int batchSize )
+		{
+			this.reader = reader;
+			this.batchSize = batchSize;
+		}
+	}
+
 	private final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
 	private final TransformerFactory transformerFactory = TransformerFactory.newInstance();
 	private FileTypeMap fileTypeMap = FileTypeMap.getDefaultFileTypeMap();
+	private final Map< String, NdJsonStream > ndJsonStreams = new ConcurrentHashMap<>();
 
 	public FileService()
 		throws ParserConfigurationException
@@ -185,6 +207,13 @@ public class FileService extends JavaService
 		JsUtils.parseJsonIntoValue( isr, value, strictEncoding );
 	}
 
+	private static void readNdJsonIntoValue( InputStream istream, Value value, Charset charset, boolean strictEncoding )
+		throws IOException
+	{
+		Reader reader = new InputStreamReader( istream, charset == null ? StandardCharsets.UTF_8 : charset );
+		new NdJsonReader( reader, strictEncoding ).readBatch( value, Integer.MAX_VALUE );
+	}
+
 	private void readXMLIntoValue( InputStream istream, Value value, Charset charset, boolean skipMixedElement )
 		throws IOException
 	{
@@ -421,6 +450,10 @@ public class FileService extends JavaService
 							}
 						}	readJsonIntoValue( istream, retValue, charset, strictEncoding );
 						break;
+					case "ndjson":
+						readNdJsonIntoValue( istream, retValue, charset,
+							"strict".equals( request.getFirstChild( "format" ).getFirstChild( "json_encoding" ).strValue() ) );
+						break;
 					default:
 						readTextIntoValue( istream, size, retValue, charset );
 						break;
@@ -437,6 +470,67 @@ public class FileService extends JavaService
 		return retValue;
 	}
 
+	@RequestResponse
+	public String openNdJsonReader( Value request )
+		throws FaultException
+	{
+		Charset charset = StandardCharsets.UTF_8;
+		if ( request.hasChildren( "charset" ) ) {
+			charset = Charset.forName( request.getFirstChild( "charset" ).strValue() );
+		}
+		int batchSize = DEFAULT_NDJSON_BATCH_SIZE;
+		if ( request.hasChildren( "batchSize" ) ) {
+			batchSize = Math.max( 1, request.getFirstChild( "batchSize" ).intValue() );
+		}
+
+		final Reader reader;
+		try {
+			reader = new InputStreamReader( new FileInputStream( request.getFirstChild( "filename" ).strValue() ), charset );
+		} catch( FileNotFoundException e ) {
+			throw new FaultException( "FileNotFound", e );
+		}
+		final String id = UUID.randomUUID().toString();
+		ndJsonStreams.put( id, new NdJsonStream( new NdJsonReader( reader, request.getFirstChild( "strictEncoding" ).boolValue() ), batchSize ) );
+		return id;
+	}
+
+	@RequestResponse
+	public Value readNdJsonBatch( String id )
+		throws FaultException
+	{
+		final NdJsonStream stream = ndJsonStreams.get( id );
+		if ( stream == null ) {
+			throw new FaultException( "IOException", new IOException( "Unknown NDJSON reader: " + id ) );
+		}
+
+		Value retValue = Value.create();
+		synchronized( stream ) {
+			try {
+				stream.reader.readBatch( retValue, stream.batchSize );
+				if ( stream.reader.isEof() ) {
+					// Release the file as soon as possible, the stream is removed by closeNdJsonReader
+					stream.reader.close();
+				}
+			} catch( IOException e ) {
+				closeNdJsonReader( id );
+				throw new FaultException( "IOException", e );
+			}
+			retValue.getFirstChild( "eof" ).setValue( stream.reader.isEof() );
+		}
+		return retValue;
+	}
+
+	@RequestResponse
+	public void closeNdJsonReader( String id )
+	{
+		final NdJsonStream stream = ndJsonStreams.remove( id );
+		if ( stream != null ) {
+			try {
+				stream.reader.close();
+			} catch( IOException e ) {}
+		}
+	}
+
 	@RequestResponse
 	public Boolean exists( String filename )
 	{
@@ -605,12 +699,19 @@ public class FileService extends JavaService
 	private static void writeJson( File file, Value value, boolean append, String encoding )
 		throws IOException
 	{
-		StringBuilder json = new StringBuilder();
-		JsUtils.valueToJsonString( value, true, Type.UNDEFINED, json );
+		try( OutputStream fos = new FileOutputStream( file, append ) ) {
+			Writer writer = new OutputStreamWriter( fos, encoding != null ? encoding : "UTF-8" );
+			JsUtils.valueToJsonString( value, true, Type.UNDEFINED, writer );
+			writer.flush();
+		}
+	}
 
+	private static void writeNdJson( File file, Value value, boolean append, String encoding )
+		throws IOException
+	{
 		try( OutputStream fos = new FileOutputStream( file, append ) ) {
-			OutputStreamWriter writer = new OutputStreamWriter( fos, encoding != null ? encoding : "UTF-8" );
-			writer.write( json.toString() );
+			Writer writer = new OutputStreamWriter( fos, encoding != null ? encoding : "UTF-8" );
+			JsUtils.valueToNdJsonString( value, true, Type.UNDEFINED, writer );
 			writer.flush();
 		}
 	}
@@ -659,6 +760,8 @@ public class FileService extends JavaService
 				writeStorageXML( file, content, encoding, indent );
 			} else if ( "json".equals( format ) ) {
 				writeJson( file, content, append, encoding );
+			} else if ( "ndjson".equals( format ) ) {
+				writeNdJson( file, content, append, encoding );
 			} else if ( format.isEmpty() ) {
 				if ( content.isByteArray() ) {
 					writeBinary( file, content, append );
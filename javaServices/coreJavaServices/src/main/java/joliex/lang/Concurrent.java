@@ -32,14 +32,14 @@ public class Concurrent
 	public void notify( String lockName )
 		throws FaultException
 	{
-		Interpreter.getInstance().getLock( lockName ).notify();
+		Interpreter.getInstance().getLock( lockName ).condition().signal();
 	}
 
 	@RequestResponse
 	public void notifyAll( String lockName )
 		throws FaultException
 	{
-		Interpreter.getInstance().getLock( lockName ).notifyAll();
+		Interpreter.getInstance().getLock( lockName ).condition().signalAll();
 	}
 
 	@RequestResponse
@@ -47,7 +47,7 @@ public class Concurrent
 		throws FaultException
 	{
 		try {
-			Interpreter.getInstance().getLock( lockName ).wait();
+			Interpreter.getInstance().getLock( lockName ).condition().await();
 		} catch( InterruptedException ie ) {}
 	}
 }
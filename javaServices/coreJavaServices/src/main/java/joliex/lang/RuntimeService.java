@@ -31,6 +31,7 @@ import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.lang.Constants.EmbeddedServiceType;
+import jolie.monitoring.MonitoringPipeline;
 import jolie.net.CommListener;
 import jolie.net.LocalCommChannel;
 import jolie.net.ports.OutputPort;
@@ -84,7 +85,11 @@ public class RuntimeService extends JavaService
 				true );
 		port.optimizeLocation();
 
-		interpreter.setMonitor( port );
+		final int bufferSize = request.hasChildren( "bufferSize" ) ?
+			request.getFirstChild( "bufferSize" ).intValue() : MonitoringPipeline.DEFAULT_CAPACITY;
+		final int sampling = request.hasChildren( "sampling" ) ?
+			request.getFirstChild( "sampling" ).intValue() : 1;
+		interpreter.setMonitor( port, bufferSize, sampling );
 	}
 
 	@RequestResponse
@@ -331,6 +336,11 @@ public class RuntimeService extends JavaService
 		stats_os( stats.getFirstChild( "os" ) );
 		return stats;
 	}
+
+	public Value metrics()
+	{
+		return interpreter().metrics().toValue();
+	}
 	
 	private void stats_os( Value stats )
 	{
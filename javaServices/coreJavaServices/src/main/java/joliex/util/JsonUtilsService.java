@@ -73,7 +73,7 @@ public class JsonUtilsService extends JavaService
 			}
 			JsUtils.parseJsonIntoValue( new StringReader( str ), ret, request.getFirstChild( "strictEncoding" ).boolValue() );
 		} catch( IOException e ) {
-			throw new FaultException( "Jolie value generation from JSON string failed" );
+			throw new FaultException( "Jolie value generation from JSON string failed", e.getMessage() );
 		}
 
 		return ret;
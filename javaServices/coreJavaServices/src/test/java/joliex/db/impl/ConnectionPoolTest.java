@@ -0,0 +1,293 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package joliex.db.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link ConnectionPool} with stub connections, without any JDBC driver.
+ * @author agent
+ */
+public class ConnectionPoolTest
+{
+	// A JDBC object that only supports being closed, and preparing statements if it is a connection
+	private static class Stub implements InvocationHandler
+	{
+		private volatile boolean closed = false;
+		private volatile boolean valid = true;
+
+		@Override
+		public Object invoke( Object proxy, Method method, Object[] args )
+		{
+			switch( method.getName() ) {
+			case "close":
+				closed = true;
+				return null;
+			case "isClosed":
+				return closed;
+			case "clearParameters":
+				return null;
+			case "prepareStatement":
+				return create( PreparedStatement.class, new Stub() );
+			case "hashCode":
+				return System.identityHashCode( proxy );
+			case "equals":
+				return proxy == args[ 0 ];
+			case "toString":
+				return "Stub@" + System.identityHashCode( proxy );
+			default:
+				throw new UnsupportedOperationException( method.getName() );
+			}
+		}
+
+		private static < T > T create( Class< T > type, Stub stub )
+		{
+			return type.cast( Proxy.newProxyInstance( ConnectionPoolTest.class.getClassLoader(), new Class<?>[] { type }, stub ) );
+		}
+	}
+
+	private volatile boolean factoryFails = false;
+	private ExecutorService executor;
+
+	private Connection createConnection()
+		throws SQLException
+	{
+		if ( factoryFails ) {
+			throw new SQLException( "Connection refused" );
+		}
+		return Stub.create( Connection.class, new Stub() );
+	}
+
+	private static Stub stubOf( Object jdbcObject )
+	{
+		return (Stub) Proxy.getInvocationHandler( jdbcObject );
+	}
+
+	private static Stub stubOf( ConnectionPool.PooledConnection connection )
+	{
+		return stubOf( connection.connection() );
+	}
+
+	private ConnectionPool createPool( int maxSize )
+	{
+		return new ConnectionPool( this::createConnection, c -> stubOf( c ).valid, maxSize, 2 );
+	}
+
+	@Before
+	public void setUp()
+	{
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void tearDown()
+	{
+		executor.shutdownNow();
+	}
+
+	private static void assertBlocked( Future< ? > future )
+		throws InterruptedException, ExecutionException
+	{
+		try {
+			future.get( 200, TimeUnit.MILLISECONDS );
+			fail( "borrow should be waiting for a connection" );
+		} catch( TimeoutException e ) {}
+	}
+
+	@Test
+	public void borrowWaitsWhenThePoolIsFull()
+		throws Exception
+	{
+		final ConnectionPool pool = createPool( 2 );
+		final ConnectionPool.PooledConnection first = pool.borrow( 0 );
+		final ConnectionPool.PooledConnection second = pool.borrow( 0 );
+		assertNotSame( first, second );
+		assertEquals( 2, pool.size() );
+
+		final Future< ConnectionPool.PooledConnection > waiting = executor.submit( () -> pool.borrow( 0 ) );
+		assertBlocked( waiting );
+		first.release( false );
+		assertSame( first, waiting.get( 5, TimeUnit.SECONDS ) );
+		assertEquals( 2, pool.size() );
+		assertEquals( 2, pool.statistics().creations() );
+		assertEquals( 1, pool.statistics().waits() );
+		assertEquals( 3, pool.statistics().borrows() );
+	}
+
+	@Test
+	public void borrowTimesOut()
+		throws Exception
+	{
+		final ConnectionPool pool = createPool( 1 );
+		final ConnectionPool.PooledConnection connection = pool.borrow( 0 );
+		final long start = System.nanoTime();
+		try {
+			pool.borrow( 200 );
+			fail( "borrow should have timed out" );
+		} catch( SQLException e ) {}
+		assertTrue( System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos( 200 ) );
+		assertEquals( 1, pool.statistics().timeouts() );
+		assertEquals( 1, pool.size() );
+
+		connection.release( false );
+		assertSame( connection, pool.borrow( 200 ) );
+	}
+
+	@Test
+	public void brokenReleaseFreesASlot()
+		throws Exception
+	{
+		final ConnectionPool pool = createPool( 1 );
+		final ConnectionPool.PooledConnection broken = pool.borrow( 0 );
+		final Future< ConnectionPool.PooledConnection > waiting = executor.submit( () -> pool.borrow( 5000 ) );
+		assertBlocked( waiting );
+
+		broken.release( true );
+		assertTrue( stubOf( broken ).closed );
+		final ConnectionPool.PooledConnection replacement = waiting.get( 5, TimeUnit.SECONDS );
+		assertNotSame( broken, replacement );
+		assertFalse( stubOf( replacement ).closed );
+		assertEquals( 1, pool.size() );
+		assertEquals( 0, pool.idleSize() );
+		assertEquals( 2, pool.statistics().creations() );
+		assertEquals( 1, pool.statistics().discards() );
+	}
+
+	@Test
+	public void failedCreationFreesASlot()
+		throws Exception
+	{
+		final ConnectionPool pool = createPool( 1 );
+		factoryFails = true;
+		try {
+			pool.borrow( 100 );
+			fail( "borrow should have failed" );
+		} catch( SQLException e ) {}
+		assertEquals( 0, pool.size() );
+
+		factoryFails = false;
+		pool.borrow( 100 ).release( false );
+		assertEquals( 1, pool.size() );
+		assertEquals( 0, pool.statistics().timeouts() );
+	}
+
+	@Test
+	public void invalidIdleConnectionsAreReplaced()
+		throws Exception
+	{
+		final ConnectionPool pool = createPool( 1 );
+		final ConnectionPool.PooledConnection connection = pool.borrow( 0 );
+		connection.release( false );
+		stubOf( connection ).valid = false;
+
+		final ConnectionPool.PooledConnection replacement = pool.borrow( 0 );
+		assertNotSame( connection, replacement );
+		assertTrue( stubOf( connection ).closed );
+		assertEquals( 1, pool.size() );
+		assertEquals( 1, pool.statistics().discards() );
+	}
+
+	@Test
+	public void closeWhileConnectionsAreBorrowed()
+		throws Exception
+	{
+		final ConnectionPool pool = createPool( 3 );
+		final ConnectionPool.PooledConnection borrowed = pool.borrow( 0 );
+		final ConnectionPool.PooledConnection borrowedToo = pool.borrow( 0 );
+		final ConnectionPool.PooledConnection idle = pool.borrow( 0 );
+		borrowed.prepare( "SELECT 1" );
+		idle.release( false );
+
+		pool.close();
+		assertTrue( stubOf( idle ).closed );
+		assertFalse( stubOf( borrowed ).closed );
+		assertFalse( stubOf( borrowedToo ).closed );
+		assertEquals( 2, pool.size() );
+		assertEquals( 0, pool.idleSize() );
+		try {
+			pool.borrow( 0 );
+			fail( "borrow should fail after the pool is closed" );
+		} catch( SQLException e ) {}
+
+		borrowed.release( false );
+		assertTrue( stubOf( borrowed ).closed );
+		borrowedToo.release( true );
+		assertTrue( stubOf( borrowedToo ).closed );
+		assertEquals( 0, pool.size() );
+		assertEquals( 0, pool.idleSize() );
+	}
+
+	@Test
+	public void closeWakesUpWaitingBorrowers()
+		throws Exception
+	{
+		final ConnectionPool pool = createPool( 1 );
+		final ConnectionPool.PooledConnection borrowed = pool.borrow( 0 );
+		final Future< ConnectionPool.PooledConnection > waiting = executor.submit( () -> pool.borrow( 0 ) );
+		assertBlocked( waiting );
+
+		pool.close();
+		try {
+			waiting.get( 5, TimeUnit.SECONDS );
+			fail( "a waiting borrow should fail when the pool is closed" );
+		} catch( ExecutionException e ) {
+			assertTrue( e.getCause() instanceof SQLException );
+		}
+		borrowed.release( false );
+		assertTrue( stubOf( borrowed ).closed );
+		assertEquals( 0, pool.size() );
+	}
+
+	@Test
+	public void statementsAreCachedPerConnection()
+		throws Exception
+	{
+		final ConnectionPool pool = createPool( 1 );
+		final ConnectionPool.PooledConnection connection = pool.borrow( 0 );
+		final PreparedStatement a = connection.prepare( "a" );
+		connection.closeStatement( a );
+		assertSame( a, connection.prepare( "a" ) );
+		assertFalse( stubOf( a ).closed );
+
+		// The cache holds two statements, so preparing two more evicts and closes a
+		connection.prepare( "b" );
+		connection.prepare( "c" );
+		assertTrue( stubOf( a ).closed );
+		assertEquals( 1, pool.statistics().statementCacheHits() );
+		assertEquals( 3, pool.statistics().statementCacheMisses() );
+	}
+}
@@ -21,9 +21,10 @@
 
 package joliex.monitoring;
 
-import java.util.Deque;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import jolie.monitoring.MonitoringEvent;
 import jolie.net.CommMessage;
 import jolie.runtime.Value;
@@ -36,18 +37,18 @@ import jolie.runtime.Value;
  */
 public class StandardMonitor extends AbstractMonitorJavaService
 {
-	private Deque q = new LinkedList();		// event list
-	private boolean triggerEnabled;
-	private int queueMax;
-	private int triggerThreshold;
-	private boolean alert;
+	private final Queue< MonitoringEvent > q = new ConcurrentLinkedQueue<>();		// event list
+	private final AtomicInteger queueSize = new AtomicInteger( 0 );
+	private final AtomicBoolean alert = new AtomicBoolean( false );
+	private volatile boolean triggerEnabled;
+	private volatile int queueMax;
+	private volatile int triggerThreshold;
 
 	public StandardMonitor()
 	{
 		triggerEnabled = false;
 		triggerThreshold = 75;
 		queueMax = 100;
-		alert = false;
 	}
 
 
@@ -55,39 +56,43 @@ public class StandardMonitor extends AbstractMonitorJavaService
 	@Override
 	public void pushEvent( MonitoringEvent e )
 	{
-		
-		synchronized( this ) {
-			if ( q.size() >= queueMax ) {
-				q.removeFirst();
-			}
-			q.addLast( e );
-			if ( triggerEnabled && !alert ) {
-				if ( q.size() >= triggerThreshold ) {
-					sendMessage( CommMessage.createRequest( "monitorAlert", "/", Value.create( ) ) );
-					alert = true;
-				}
-			}
+		q.offer( e );
+		int size = queueSize.incrementAndGet();
+		while( size > queueMax && q.poll() != null ) {
+			size = queueSize.decrementAndGet();
+		}
+		if ( triggerEnabled && size >= triggerThreshold && alert.compareAndSet( false, true ) ) {
+			sendMessage( CommMessage.createRequest( "monitorAlert", "/", Value.create( ) ) );
+		}
+	}
+
+
+	/*
+	 * request:
+	 *     .events*: MonitorEvent
+	 */
+	public void pushEvents( Value request )
+	{
+		for( Value event : request.getChildren( "events" ) ) {
+			pushEvent( MonitoringEvent.fromValue( event ) );
 		}
 	}
 
 
 	public Value flush() {
-		synchronized( this ) {
-			Iterator<MonitoringEvent> it = q.iterator();
-			int index = 0;
-			Value response = Value.create();
-			while ( it.hasNext() ) {
-				MonitoringEvent e = it.next();
-				response.getChildren( "events" ).get( index ).getFirstChild( "data" ).deepCopy( e.data() );
-				response.getChildren( "events" ).get( index ).getFirstChild( "memory" ).setValue( e.memory() );
-				response.getChildren( "events" ).get( index ).getFirstChild( "timestamp" ).setValue( e.timestamp() );
-				response.getChildren( "events" ).get( index ).getFirstChild( "type" ).setValue( e.type() );
-				index++;
-			}
-			q.clear();
-			alert = false;
-			return response;
+		Value response = Value.create();
+		int index = 0;
+		MonitoringEvent e;
+		while( (e = q.poll()) != null ) {
+			queueSize.decrementAndGet();
+			response.getChildren( "events" ).get( index ).getFirstChild( "data" ).deepCopy( e.data() );
+			response.getChildren( "events" ).get( index ).getFirstChild( "memory" ).setValue( e.memory() );
+			response.getChildren( "events" ).get( index ).getFirstChild( "timestamp" ).setValue( e.timestamp() );
+			response.getChildren( "events" ).get( index ).getFirstChild( "type" ).setValue( e.type() );
+			index++;
 		}
+		alert.set( false );
+		return response;
 	}
 
 
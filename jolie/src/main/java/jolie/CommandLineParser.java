@@ -69,6 +69,7 @@ public class CommandLineParser implements Closeable
 
 	private final int connectionsLimit;
 	private final int connectionsCache;
+	private final int connectionsCacheMin;
 	private final CorrelationEngine.Type correlationAlgorithmType;
 	private final String[] includePaths;
 	private final String[] optionArgs;
@@ -85,9 +86,13 @@ public class CommandLineParser implements Closeable
 	private final String tracerMode;
 	private final String tracerLevel;
 	private final boolean check;
+	private final boolean virtualThreads;
 	private final long responseTimeout;
+	private final int parallelism;
+	private final int metricsPort;
 	private final boolean printStackTraces;
 	private final Level logLevel;
+	private final Path programCacheDirectory;
 	private File programDirectory = null;
 	
 	/**
@@ -160,6 +165,26 @@ public class CommandLineParser implements Closeable
 		return check;
 	}
 
+	/**
+	 * Returns {@code true} if the --virtualThreads option has been specified,
+	 * {@code false} otherwise. Running on virtual threads is experimental.
+	 * @return {@code true} if sessions and communication handlers should run on virtual threads
+	 */
+	public boolean virtualThreads()
+	{
+		return virtualThreads;
+	}
+
+	/**
+	 * Returns the directory passed with the --programCache option, where parsed
+	 * programs are persisted for later runs.
+	 * @return the program cache directory, {@code null} if it has not been specified
+	 */
+	public Path programCacheDirectory()
+	{
+		return programCacheDirectory;
+	}
+
 	/**
 	 * Returns {@code true} if the program is compiled, {@code false} otherwise.
 	 * @return {@code true} if the program is compiled, {@code false} otherwise.
@@ -244,6 +269,26 @@ public class CommandLineParser implements Closeable
 		return responseTimeout;
 	}
 
+	/**
+	 * Returns the parallelism parameter
+	 * passed by command line with the --parallelism option.
+	 * @return the parallelism parameter passed by command line
+	 */
+	public int parallelism()
+	{
+		return parallelism;
+	}
+
+	/**
+	 * Returns the local port of the metrics endpoint
+	 * passed by command line with the --metricsPort option.
+	 * @return the port of the metrics endpoint, or -1 if it is disabled
+	 */
+	public int metricsPort()
+	{
+		return metricsPort;
+	}
+
 	/**
 	 * Returns the connection cache parameter
 	 * passed by command line with the --conncache option.
@@ -253,6 +298,16 @@ public class CommandLineParser implements Closeable
 	{
 		return connectionsCache;
 	}
+
+	/**
+	 * Returns the minimum connection cache parameter
+	 * passed by command line with the --conncacheMin option.
+	 * @return the minimum connection cache parameter passed by command line
+	 */
+	public int connectionsCacheMin()
+	{
+		return connectionsCacheMin;
+	}
 	
 	private static String getOptionString( String option, String description )
 	{
@@ -292,25 +347,35 @@ public class CommandLineParser implements Closeable
 		helpBuilder.append(
 			getOptionString( "--connlimit [number]", "Set the maximum number of active connection threads" ) );
 		helpBuilder.append(
-			getOptionString( "--conncache [number]", "Set the maximum number of cached persistent output connections" ) );
+			getOptionString( "--conncache [number]", "Set the maximum number of idle cached persistent output connections per location and protocol (connections in use are not limited)" ) );
+		helpBuilder.append(
+			getOptionString( "--conncacheMin [number]", "Set the number of cached persistent output connections per location and protocol that are never closed for inactivity (default: 0)" ) );
 		helpBuilder.append(
 			getOptionString( "--responseTimeout [number]", "Set the timeout for request-response invocations (in milliseconds)" ) );
+		helpBuilder.append(
+			getOptionString( "--parallelism [number]", "Set the maximum number of threads that run the iterations of a spawn with a chunk size (default: the number of processors)" ) );
+		helpBuilder.append(
+			getOptionString( "--metricsPort [number]", "Serve runtime metrics in the Prometheus text format at http://localhost:[number]/metrics (default: disabled)" ) );
 		helpBuilder.append(
 			getOptionString( "--correlationAlgorithm [simple|hash]", "Set the algorithm to use for message correlation" ) );
 		helpBuilder.append(
 			getOptionString( "--log [severe|warning|info|fine]", "Set the logging level (default: info)" ) );
 		helpBuilder.append(
 			getOptionString( "--stackTraces", "Activate the printing of Java stack traces (default: false)" ) );
+		helpBuilder.append(
+			getOptionString( "--virtualThreads", "Experimental: run sessions and communication handlers on virtual threads (requires Java 21 or later, default: false)" ) );
 		helpBuilder.append(
 			getOptionString( "--typecheck [true|false]", "Check for correlation and other data related typing errors (default: false)" ) );
 		helpBuilder.append(
 			getOptionString( "--check", "Check for syntactic and semantic errors." ) );
 		helpBuilder.append(
-			getOptionString( "--trace [console|file]", "Activate tracer. console prints out in the console, file creates a json file" ) );
+			getOptionString( "--trace [console|file|binary]", "Activate tracer. console prints out in the console, file creates a json file, binary creates compact files to convert with jolietraceconvert" ) );
 		helpBuilder.append(
 				getOptionString( "--traceLevel [all|comm|comp]", "Defines tracer level: all - all the traces; comm - only communication traces; comp - only computation traces. Default is all. " ) );
 		helpBuilder.append(
 			getOptionString( "--charset [character encoding, e.g., UTF-8]", "Character encoding of the source *.ol/*.iol (default: system-dependent, on GNU/Linux UTF-8)" ) );
+		helpBuilder.append(
+			getOptionString( "--programCache [directory]", "Store parsed programs in directory and reuse them in later runs, as long as their sources are not modified" ) );
 		helpBuilder.append(
 			getOptionString( "--version", "Display this program version information" ) );
 		return helpBuilder.toString();
@@ -422,6 +487,7 @@ public class CommandLineParser implements Closeable
 		boolean bTracer = false;
 		boolean bStackTraces = false;
 		boolean bCheck = false;
+		boolean bVirtualThreads = false;
 		boolean bTypeCheck = false; // Default for typecheck
 		Level lLogLevel = Level.INFO;
 		String tMode = "console";
@@ -431,7 +497,11 @@ public class CommandLineParser implements Closeable
 		List< String > libList = new ArrayList<>();
 		int cLimit = -1;
 		int cCache = 100;
+		int cCacheMin = 0;
 		long rTimeout = 36000 * 1000; // 10 minutes
+		int pParallelism = Runtime.getRuntime().availableProcessors();
+		int mPort = -1;
+		Path pCacheDirectory = null;
 		String pwd = UriUtils.normalizeWindowsPath( new File( "" ).getCanonicalPath() );
 		includeList.add( pwd );
 		includeList.add( "include" );
@@ -487,11 +557,25 @@ public class CommandLineParser implements Closeable
 				i++;
 				cCache = Integer.parseInt( argsList.get( i ) );
 				optionsList.add( argsList.get( i ) );
+			} else if ( "--conncacheMin".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				cCacheMin = Integer.parseInt( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
 			} else if ( "--responseTimeout".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				i++;
 				rTimeout = Long.parseLong( argsList.get( i ) );
 				optionsList.add( argsList.get( i ) );
+			} else if ( "--parallelism".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				pParallelism = Integer.parseInt( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
+			} else if ( "--metricsPort".equals( argsList.get( i ) ) ) {
+				// Not passed on to embedded services, which would try to use the same port
+				i++;
+				mPort = Integer.parseInt( argsList.get( i ) );
 			} else if ( "--correlationAlgorithm".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				i++;
@@ -510,6 +594,9 @@ public class CommandLineParser implements Closeable
 			} else if ( "--stackTraces".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				bStackTraces = true;
+			} else if ( "--virtualThreads".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				bVirtualThreads = true;
 			} else if ( "--check".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				bCheck = true;
@@ -527,6 +614,11 @@ public class CommandLineParser implements Closeable
 						i++;
 						optionsList.add( argsList.get( i ) );
 						break;
+					case "binary":
+						tMode = "binary";
+						i++;
+						optionsList.add( argsList.get( i ) );
+						break;
 				}
 			} else if ( "--traceLevel".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
@@ -571,6 +663,12 @@ public class CommandLineParser implements Closeable
 				i++;
 				charset = argsList.get( i );
 				optionsList.add( argsList.get( i ) );
+			} else if ( "--programCache".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				// Embedded services inherit the option, so the path must not depend on their directory
+				pCacheDirectory = Paths.get( argsList.get( i ) ).toAbsolutePath();
+				optionsList.add( pCacheDirectory.toString() );
 			} else if ( "--version".equals( argsList.get( i ) ) ) {
 				throw new CommandLineException( getVersionString() );
 			} else if ( olFilepath == null ) {
@@ -620,6 +718,7 @@ public class CommandLineParser implements Closeable
 		tracerMode = tMode;
 		tracerLevel = tLevel;
 		printStackTraces = bStackTraces;
+		programCacheDirectory = pCacheDirectory;
 
 		correlationAlgorithmType = CorrelationEngine.Type.fromString( csetAlgorithmName );
 		if ( correlationAlgorithmType == null ) {
@@ -632,9 +731,23 @@ public class CommandLineParser implements Closeable
 			throw new CommandLineException( "Input file not specified." );
 		}
 	
+		if ( bVirtualThreads && !VirtualThreadContext.isSupported() ) {
+			throw new CommandLineException( "Virtual threads are not supported by this Java runtime, --virtualThreads requires Java 21 or later" );
+		}
+		virtualThreads = bVirtualThreads;
+
 		connectionsLimit = cLimit;
 		connectionsCache = cCache;
+		connectionsCacheMin = cCacheMin;
 		responseTimeout = rTimeout;
+		if ( pParallelism < 1 ) {
+			throw new CommandLineException( "The parallelism must be at least 1" );
+		}
+		parallelism = pParallelism;
+		if ( mPort > 65535 ) {
+			throw new CommandLineException( "Invalid metrics port: " + mPort );
+		}
+		metricsPort = mPort;
         
 		List< URL > urls = new ArrayList<>();
 		for( String path : libList ) {
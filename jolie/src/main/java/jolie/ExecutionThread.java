@@ -428,7 +428,8 @@ public abstract class ExecutionThread extends JolieThread
 			return ((CommChannelHandler)currThread).executionThread();
 		}
 
-		return null;
+		final VirtualThreadContext context = VirtualThreadContext.current();
+		return ( context == null ) ? null : context.executionThread();
 	}
 
 	/**
@@ -465,8 +466,13 @@ public abstract class ExecutionThread extends JolieThread
 	public final void run()
 	{
 		JolieExecutorThread t = JolieExecutorThread.currentThread();
-		t.setExecutionThread( this );
-		t.setContextClassLoader( interpreter().getClassLoader() );
+		if ( t == null ) {
+			// We are running in a virtual thread
+			VirtualThreadContext.current().setExecutionThread( this );
+		} else {
+			t.setExecutionThread( this );
+		}
+		Thread.currentThread().setContextClassLoader( interpreter().getClassLoader() );
 		runProcess();
 	}
 	
@@ -474,6 +480,17 @@ public abstract class ExecutionThread extends JolieThread
 	{
 		setTaskFuture( interpreter().runJolieThread( this ) );
 	}
+
+	/**
+	 * Runs this thread in the calling thread, which must be running task.
+	 * Killing this thread interrupts task.
+	 * @param task the task that runs this thread
+	 */
+	public void runInTask( Future< ? > task )
+	{
+		setTaskFuture( task );
+		run();
+	}
 	
 	public void join()
 		throws InterruptedException
@@ -26,8 +26,6 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.PrintStream;
 import java.io.StringWriter;
-import java.lang.ref.WeakReference;
-import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -36,36 +34,38 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 import jolie.lang.Constants;
 import jolie.lang.parse.OLParseTreeOptimizer;
-import jolie.lang.parse.OLParser;
 import jolie.lang.parse.ParserException;
-import jolie.lang.parse.Scanner;
 import jolie.lang.parse.SemanticException;
 import jolie.lang.parse.SemanticVerifier;
 import jolie.lang.parse.TypeChecker;
 import jolie.lang.parse.ast.Program;
+import jolie.lang.parse.util.ProgramCache;
+import jolie.monitoring.MetricsRegistry;
 import jolie.monitoring.MonitoringEvent;
+import jolie.monitoring.MonitoringPipeline;
+import jolie.monitoring.PrometheusEndpoint;
 import jolie.monitoring.events.MonitorAttachedEvent;
 import jolie.monitoring.events.OperationStartedEvent;
 import jolie.monitoring.events.SessionEndedEvent;
@@ -79,11 +79,13 @@ import jolie.process.DefinitionProcess;
 import jolie.process.InputOperationProcess;
 import jolie.process.SequentialProcess;
 import jolie.runtime.FaultException;
+import jolie.runtime.GlobalLock;
 import jolie.runtime.InputOperation;
 import jolie.runtime.InvalidIdException;
 import jolie.runtime.OneWayOperation;
 import jolie.runtime.RequestResponseOperation;
 import jolie.runtime.TimeoutHandler;
+import jolie.runtime.TimingWheel;
 import jolie.runtime.Value;
 import jolie.runtime.ValuePrettyPrinter;
 import jolie.runtime.ValueVector;
@@ -271,7 +273,7 @@ public class Interpreter
 	private final Map< String, OutputPort > outputPorts = new HashMap<>();
 	private final Map< String, InputOperation > inputOperations = new HashMap<>();
 	
-	private final HashMap< String, Object > locksMap = new HashMap<>();
+	private final HashMap< String, GlobalLock > locksMap = new HashMap<>();
 	
 	private final ClassLoader parentClassLoader;
 	private final String[] includePaths;
@@ -285,30 +287,62 @@ public class Interpreter
 	private final long persistentConnectionTimeout = 60 * 60 * 1000; // 1 hour
 	private final long awaitTerminationTimeout = 60 * 1000; // 1 minute
 	private final long responseTimeout;
+	private final int parallelism;
 	// private long persistentConnectionTimeout = 2 * 60 * 1000; // 4 minutes
 	// private long persistentConnectionTimeout = 1;
 
-	// 11 is the default initial capacity for PriorityQueue
-	private final Queue< WeakReference< TimeoutHandler > > timeoutHandlerQueue =
-		new PriorityQueue<>( 11, new TimeoutHandler.Comparator() );
-	
-	private final ExecutorService timeoutHandlerExecutor =
-		Executors.newSingleThreadExecutor( new NativeJolieThreadFactory( this ) );
+	private final ScheduledThreadPoolExecutor timeoutHandlerExecutor =
+		new ScheduledThreadPoolExecutor( 1, new NativeJolieThreadFactory( this ) );
+	private final TimingWheel timingWheel = new TimingWheel( timeoutHandlerExecutor );
 
 	private final String programFilename;
 	private final String programFilepath;
 	private final File programDirectory;
-	private OutputPort monitor = null;
+	private volatile MonitoringPipeline monitoringPipeline = null;
+	private final MetricsRegistry metrics = new MetricsRegistry( this );
+	private final int metricsPort;
+	private volatile PrometheusEndpoint metricsEndpoint = null;
 
 	public void setMonitor( OutputPort monitor )
 	{
-		this.monitor = monitor;
-		fireMonitorEvent( new MonitorAttachedEvent() );
+		setMonitor( monitor, MonitoringPipeline.DEFAULT_CAPACITY, 1 );
+	}
+
+	/**
+	 * Sets the monitor that receives the monitoring events of this interpreter.
+	 * @param monitor the port of the monitor
+	 * @param capacity the maximum number of events waiting to be delivered
+	 * @param sampling deliver one event out of sampling, on average
+	 * @see MonitoringPipeline
+	 */
+	public void setMonitor( OutputPort monitor, int capacity, int sampling )
+	{
+		monitoringPipeline = new MonitoringPipeline( this, monitor, capacity, sampling );
+		fireMonitorEvent( MonitorAttachedEvent::new );
 	}
 	
 	public boolean isMonitoring()
 	{
-		return monitor != null;
+		return monitoringPipeline != null;
+	}
+
+	/**
+	 * Returns the usage counters of the monitoring pipeline.
+	 * @return the usage counters of the monitoring pipeline, or {@code null} if no monitor has been set
+	 */
+	public MonitoringPipeline.Statistics monitoringStatistics()
+	{
+		final MonitoringPipeline pipeline = monitoringPipeline;
+		return pipeline == null ? null : pipeline.statistics();
+	}
+
+	/**
+	 * Returns the registry of the runtime metrics of this interpreter.
+	 * @return the registry of the runtime metrics of this interpreter
+	 */
+	public MetricsRegistry metrics()
+	{
+		return metrics;
 	}
 	
 	/*public long inputMessageTimeout()
@@ -328,27 +362,19 @@ public class Interpreter
 	
 	public void fireMonitorEvent( MonitoringEvent event )
 	{
-		if ( monitor != null ) {
-			CommMessage m = CommMessage.createRequest( "pushEvent", "/", MonitoringEvent.toValue( event ) );
-			CommChannel channel = null;
-			try {
-				channel = monitor.getCommChannel();
-				channel.send( m );
-				CommMessage response;
-				do {
-					response = channel.recvResponseFor( m ).get();
-				} while( response == null );
-			} catch( URISyntaxException | InterruptedException | ExecutionException | IOException e ) {
-				logWarning( e );
-			} finally {
-				if ( channel != null ) {
-					try {
-						channel.release();
-					} catch( IOException e ) {
-						logWarning( e );
-					}
-				}
-			}
+		fireMonitorEvent( () -> event );
+	}
+
+	/**
+	 * Sends the event created by event to the monitor, if there is one.
+	 * The event is created only if it is going to be sent.
+	 * @param event the creator of the event
+	 */
+	public void fireMonitorEvent( Supplier< ? extends MonitoringEvent > event )
+	{
+		final MonitoringPipeline pipeline = monitoringPipeline;
+		if ( pipeline != null ) {
+			pipeline.fire( event );
 		}
 	}
 
@@ -362,6 +388,16 @@ public class Interpreter
 		return responseTimeout;
 	}
 
+	/**
+	 * Returns the maximum number of threads that run the iterations of
+	 * a spawn statement with a chunk size.
+	 * @return the maximum number of threads that run the iterations of a chunked spawn
+	 */
+	public int parallelism()
+	{
+		return parallelism;
+	}
+
 	public CorrelationEngine correlationEngine()
 	{
 		return correlationEngine;
@@ -382,54 +418,24 @@ public class Interpreter
 		}
 	}
 
+	/**
+	 * Schedules handler to run after its timeout, unless it is cancelled
+	 * with {@link TimeoutHandler#cancel()}.
+	 * When this interpreter exits, all the handlers that have not run yet are run immediately.
+	 * @param handler the handler to schedule
+	 */
 	public void addTimeoutHandler( TimeoutHandler handler )
 	{
-		synchronized( timeoutHandlerQueue ) {
-			timeoutHandlerQueue.add( new WeakReference<>( handler ) );
-			if ( timeoutHandlerQueue.size() == 1 ) {
-				schedule( new TimerTask() {
-					@Override
-					public void run()
-					{
-						synchronized( timeoutHandlerQueue ) {
-							checkForExpiredTimeoutHandlers();
-						}
-					}
-				}, handler.time() - System.currentTimeMillis() + 1 );
-			} else {
-				checkForExpiredTimeoutHandlers();
-			}
-		}
+		timingWheel.add( handler );
 	}
 
-	/*public void removeTimeoutHandler( TimeoutHandler handler )
+	/**
+	 * Returns the number of timeout handlers waiting to run.
+	 * @return the number of timeout handlers waiting to run
+	 */
+	public int pendingTimeoutHandlers()
 	{
-		synchronized( timeoutHandlerQueue ) {
-			timeoutHandlerQueue.remove( handler );
-			checkForExpiredTimeoutHandlers();
-		}
-	}*/
-
-	private void checkForExpiredTimeoutHandlers()
-	{
-		long currentTime = System.currentTimeMillis();
-		WeakReference< TimeoutHandler > whandler = timeoutHandlerQueue.peek();
-		boolean keepRun = true;
-		TimeoutHandler handler;
-		while( whandler != null && keepRun ) {
-			handler = whandler.get();
-			if ( handler == null ) {
-				timeoutHandlerQueue.remove();
-				whandler = timeoutHandlerQueue.peek();
-			} else if ( handler.time() < currentTime || exiting ) {
-				// final TimeoutHandler h = handler;
-				timeoutHandlerExecutor.execute( handler );
-				timeoutHandlerQueue.poll();
-				whandler = timeoutHandlerQueue.peek();
-			} else {
-				keepRun = false;
-			}
-		}
+		return timingWheel.size();
 	}
 	
 	/**
@@ -655,10 +661,13 @@ public class Interpreter
 		if ( timer != null ) {
 			timer.cancel();
 		}
-		checkForExpiredTimeoutHandlers();
+		timingWheel.expireAll();
 		processExecutorService.shutdown();
 		nativeExecutorService.shutdown();
 		timeoutHandlerExecutor.shutdown();
+		if ( metricsEndpoint != null ) {
+			metricsEndpoint.stop();
+		}
 		commCore.shutdown( terminationTimeout );
 		try {
 			nativeExecutorService.awaitTermination( terminationTimeout, TimeUnit.MILLISECONDS );
@@ -669,6 +678,7 @@ public class Interpreter
 		try {
 			timeoutHandlerExecutor.awaitTermination( terminationTimeout, TimeUnit.MILLISECONDS );
 		} catch ( InterruptedException e ) {}
+		tracer.close();
 		free();
 	}
 
@@ -845,7 +855,8 @@ public class Interpreter
 		if ( t instanceof InterpreterThread ) {
 			return ((InterpreterThread)t).interpreter();
 		}
-		return null;
+		final VirtualThreadContext context = VirtualThreadContext.current();
+		return ( context == null ) ? null : context.interpreter();
 	}
 	
 	/**
@@ -887,6 +898,10 @@ public class Interpreter
 		printStackTraces = cmdParser.printStackTraces();
 		
 		responseTimeout = cmdParser.responseTimeout();
+		parallelism = cmdParser.parallelism();
+		metricsPort = cmdParser.metricsPort();
+		// Pending ticks of the timing wheel must not delay the exit
+		timeoutHandlerExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy( false );
 
 		switch( cmdParser.tracerLevel() ) {
 			case "comm":
@@ -899,7 +914,16 @@ public class Interpreter
         
 		this.correlationEngine = cmdParser.correlationAlgorithmType().createInstance( this );
 		
-        commCore = new CommCore( this, cmdParser.connectionsLimit() /*, cmdParser.connectionsCache() */ );
+		if ( cmdParser.virtualThreads() ) {
+			processExecutorService = VirtualThreadContext.newExecutor( this, "Session" );
+		} else {
+			processExecutorService = new JolieThreadPoolExecutor( new JolieExecutionThreadFactory( this ) );
+			// Executors.newCachedThreadPool( new JolieExecutionThreadFactory( this ) );
+		}
+        commCore = new CommCore( this, cmdParser.connectionsLimit(), cmdParser.connectionsCache(), cmdParser.connectionsCacheMin(), cmdParser.virtualThreads() );
+		metrics.registerThreadPool( "session", processExecutorService );
+		metrics.registerThreadPool( "native", nativeExecutorService );
+		metrics.registerThreadPool( "comm", commCore.executor() );
 		includePaths = cmdParser.includePaths();
 
 		StringBuilder builder = new StringBuilder();
@@ -911,6 +935,8 @@ public class Interpreter
 		if ( cmdParser.tracer() ) {
 			if ( cmdParser.tracerMode().equals("file")) {
 				tracer = new FileTracer( this, tracerLevel );
+			} else if ( cmdParser.tracerMode().equals( "binary" ) ) {
+				tracer = new BinaryTracer( this, tracerLevel );
 			} else {
 				tracer = new PrintingTracer(this, tracerLevel );
 			}
@@ -1001,11 +1027,11 @@ public class Interpreter
 	 * @param id the global lock identifier
 	 * @return the global lock registered on this interpreter with the specified identifier
 	 */
-	public synchronized Object getLock( String id )
+	public synchronized GlobalLock getLock( String id )
 	{
-		Object l = locksMap.get( id );
+		GlobalLock l = locksMap.get( id );
 		if ( l == null ) {
-			l = new Object();
+			l = new GlobalLock();
 			locksMap.put( id, l );
 		}
 		return l;
@@ -1072,6 +1098,10 @@ public class Interpreter
                     initExecutionThread = new InitSessionThread( this, getDefinition( "init" ) );
 
                     commCore.init();
+                    if ( metricsPort >= 0 ) {
+                        metricsEndpoint = new PrometheusEndpoint( metrics, metricsPort );
+                        logInfo( "Serving metrics at http://localhost:" + metricsEndpoint.port() + PrometheusEndpoint.PATH );
+                    }
 
                     // Initialize program arguments in the args variabile.
                     ValueVector jArgs = ValueVector.create();
@@ -1154,9 +1184,7 @@ public class Interpreter
 	private final ExecutorService nativeExecutorService =
 		new JolieThreadPoolExecutor( new NativeJolieThreadFactory( this ) );
 		// Executors.newCachedThreadPool( new NativeJolieThreadFactory( this ) );
-	private final ExecutorService processExecutorService =
-		new JolieThreadPoolExecutor( new JolieExecutionThreadFactory( this ) );
-		// Executors.newCachedThreadPool( new JolieExecutionThreadFactory( this ) );
+	private final ExecutorService processExecutorService;
 
 	/**
 	 * Runs an asynchronous task in this Interpreter internal thread pool.
@@ -1254,14 +1282,18 @@ public class Interpreter
 				}
 			} else {
 				if ( this.internalServiceProgram != null ) {
-					program = this.internalServiceProgram;
+					program = OLParseTreeOptimizer.optimize( this.internalServiceProgram );
 				} else {
-					final OLParser olParser = new OLParser( new Scanner( cmdParser.programStream(), cmdParser.programFilepath().toURI(), cmdParser.charset() ), includePaths, classLoader );
-
-					olParser.putConstants( cmdParser.definedConstants() );
-					program = olParser.parse();
+					program = ProgramCache.parseProgram(
+						cmdParser.programStream(),
+						cmdParser.programFilepath().toURI(),
+						cmdParser.charset(),
+						includePaths,
+						classLoader,
+						cmdParser.definedConstants(),
+						cmdParser.programCacheDirectory()
+					);
 				}
-				program = OLParseTreeOptimizer.optimize( program );
 			}
 			
 			cmdParser.close();
@@ -1420,15 +1452,15 @@ public class Interpreter
 	private void logSessionStart( String operationName, String sessionId, long messageId, Value message )
 	{
 		if ( isMonitoring() ) {
-			fireMonitorEvent( new SessionStartedEvent( operationName, sessionId ) );
-			fireMonitorEvent( new OperationStartedEvent( operationName, sessionId, Long.toString( messageId ), message ) );
+			fireMonitorEvent( () -> new SessionStartedEvent( operationName, sessionId ) );
+			fireMonitorEvent( () -> new OperationStartedEvent( operationName, sessionId, Long.toString( messageId ), message ) );
 		}
 	}
 	
 	private void logSessionEnd( String operationName, String sessionId )
 	{
 		if ( isMonitoring() ) {
-			fireMonitorEvent( new SessionEndedEvent( operationName, sessionId ) );
+			fireMonitorEvent( () -> new SessionEndedEvent( operationName, sessionId ) );
 		}
 	}
 	
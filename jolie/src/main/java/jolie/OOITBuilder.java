@@ -1529,6 +1529,7 @@ public class OOITBuilder implements OLVisitor
 		currProcess = new SpawnProcess(
 			buildVariablePath( n.indexVariablePath() ),
 			buildExpression( n.upperBoundExpression() ),
+			buildExpression( n.chunkSizeExpression() ),
 			buildVariablePath( n.inVariablePath() ),
 			new SequentialProcess( children )
 		);
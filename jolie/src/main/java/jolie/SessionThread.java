@@ -302,11 +302,24 @@ public class SessionThread extends ExecutionThread
 	 * @param parent the ExecutionThread to copy
 	 */
 	public SessionThread( Process process, ExecutionThread parent )
+	{
+		this( process, parent, parent.state() );
+	}
+
+	/**
+	 * Constructs a SessionThread cloning another ExecutionThread, copying
+	 * the passed State and the Scope stack of the parent.
+	 *
+	 * @param process the Process this thread has to execute
+	 * @param parent the ExecutionThread to copy
+	 * @param state the State to copy
+	 */
+	public SessionThread( Process process, ExecutionThread parent, jolie.State state )
 	{
 		super( process, parent );
 		initMessageQueues();
 		assert( parent != null );
-		state = parent.state().clone();
+		this.state = state.clone();
 		parent.scopeStack.forEach( s -> scopeStack.push( s.clone() ) );
 	}
 	
@@ -364,6 +377,7 @@ public class SessionThread extends ExecutionThread
 			} else {
 				future.setResult( message );
 				queue.removeFirst();
+				interpreter().metrics().addQueuedMessages( -1 );
 
 				// Check if we unlocked other receives
 				boolean keepRun = true;
@@ -374,6 +388,7 @@ public class SessionThread extends ExecutionThread
 					if ( f != null ) { // We found a waiter for the unlocked message
 						f.setResult( message );
 						queue.removeFirst();
+						interpreter().metrics().addQueuedMessages( -1 );
 					} else {
 						keepRun = false;
 					}
@@ -401,6 +416,7 @@ public class SessionThread extends ExecutionThread
 			} else {
 				future.setResult( message );
 				queue.removeFirst();
+				interpreter().metrics().addQueuedMessages( -1 );
 
 				// Check if we unlocked other receives
 				boolean keepRun = true;
@@ -410,6 +426,7 @@ public class SessionThread extends ExecutionThread
 					if ( currFuture != null ) { // We found a waiter for the unlocked message
 						currFuture.setResult( otherMessage );
 						queue.removeFirst();
+						interpreter().metrics().addQueuedMessages( -1 );
 					} else {
 						keepRun = false;
 					}
@@ -458,6 +475,7 @@ public class SessionThread extends ExecutionThread
 				future.setResult( message );
 			} else {
 				queue.addLast( message );
+				interpreter().metrics().addQueuedMessages( 1 );
 			}
 		}
 	}
@@ -500,6 +518,22 @@ public class SessionThread extends ExecutionThread
 				listeners.forEach( listener -> listener.onSessionError( this, fault ) );
 			}
 			listeners.forEach( listener -> listener.onSessionExecuted( this ) );
+		} finally {
+			releaseQueuedMessages();
+		}
+	}
+
+	// Messages that were not received by this session do not count as queued anymore
+	private void releaseQueuedMessages()
+	{
+		synchronized( messageQueues ) {
+			long count = uncorrelatedMessageQueue.size();
+			for( Deque< SessionMessage > queue : messageQueues.values() ) {
+				count += queue.size();
+			}
+			if ( count > 0 ) {
+				interpreter().metrics().addQueuedMessages( -count );
+			}
 		}
 	}
 
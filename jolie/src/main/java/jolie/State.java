@@ -66,8 +66,26 @@ public final class State implements Cloneable
 		this.root = Value.createRootValue();
 	}
 	
+	/**
+	 * Returns a copy of this State, whose variables are copied from this
+	 * State when they are first accessed. The variables of this State should
+	 * thus not be modified anymore, as it happens for the state of the init
+	 * code after it has terminated; use {@link #copy()} otherwise.
+	 * @see Value#createLazyRootClone(jolie.runtime.Value)
+	 */
 	@Override
 	public State clone()
+	{
+		return new State( Value.createLazyRootClone( root ) );
+	}
+
+	/**
+	 * Returns a copy of this State, whose variables are all copied immediately.
+	 * Unlike {@link #clone()}, it can be used while the variables of this
+	 * State may still be modified, e.g., by parallel branches of a process.
+	 * @return a copy of this State
+	 */
+	public State copy()
 	{
 		return new State( Value.createClone( root ) );
 	}
@@ -0,0 +1,150 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The state of a virtual thread running Jolie code.
+ *
+ * Virtual threads cannot be subclassed, so instead of being
+ * {@link JolieExecutorThread}s or {@link jolie.net.CommChannelHandler}s they
+ * keep the <code>Interpreter</code> and the <code>ExecutionThread</code>
+ * they refer to in a thread local <code>VirtualThreadContext</code>.
+ *
+ * Virtual threads are available from Java 21, so they are created by reflection.
+ * The virtual-thread execution mode is experimental: the test suite has not
+ * been run on it yet, and blocking paths that pin carrier threads may remain.
+ * @author agent
+ */
+public final class VirtualThreadContext implements InterpreterThread
+{
+	private static final ThreadLocal< VirtualThreadContext > current = new ThreadLocal<>();
+
+	private static final Method ofVirtualMethod;
+	private static final Method builderNameMethod;
+	private static final Method builderFactoryMethod;
+	private static final Method newThreadPerTaskExecutorMethod;
+
+	static {
+		Method ofVirtual = null, builderName = null, builderFactory = null, newThreadPerTaskExecutor = null;
+		try {
+			ofVirtual = Thread.class.getMethod( "ofVirtual" );
+			final Class< ? > builderClass = Class.forName( "java.lang.Thread$Builder" );
+			builderName = builderClass.getMethod( "name", String.class, long.class );
+			builderFactory = builderClass.getMethod( "factory" );
+			newThreadPerTaskExecutor = java.util.concurrent.Executors.class.getMethod( "newThreadPerTaskExecutor", ThreadFactory.class );
+			// Java 19 and 20 have virtual threads only as a preview feature
+			ofVirtual.invoke( null );
+		} catch( ReflectiveOperationException | LinkageError e ) {
+			ofVirtual = null;
+		}
+		ofVirtualMethod = ofVirtual;
+		builderNameMethod = builderName;
+		builderFactoryMethod = builderFactory;
+		newThreadPerTaskExecutorMethod = newThreadPerTaskExecutor;
+	}
+
+	private final Interpreter interpreter;
+	private ExecutionThread executionThread = null;
+
+	private VirtualThreadContext( Interpreter interpreter )
+	{
+		this.interpreter = interpreter;
+	}
+
+	/**
+	 * Returns {@code true} if the running JVM supports virtual threads.
+	 * @return {@code true} if the running JVM supports virtual threads
+	 */
+	public static boolean isSupported()
+	{
+		return ofVirtualMethod != null;
+	}
+
+	/**
+	 * Returns the context of the current thread.
+	 * @return the context of the current thread, or {@code null} if the current thread
+	 * has not been started by an executor created with {@link #newExecutor(jolie.Interpreter, java.lang.String)}
+	 */
+	public static VirtualThreadContext current()
+	{
+		return current.get();
+	}
+
+	/**
+	 * Creates an executor that runs each task in a new virtual thread referring to the passed interpreter.
+	 * @param interpreter the interpreter the created threads refer to
+	 * @param name the suffix name for the created threads
+	 * @return the created executor
+	 * @throws UnsupportedOperationException if the running JVM does not support virtual threads
+	 */
+	public static ExecutorService newExecutor( final Interpreter interpreter, String name )
+	{
+		if ( !isSupported() ) {
+			throw new UnsupportedOperationException( "Virtual threads require Java 21 or later" );
+		}
+		try {
+			final Object builder = builderNameMethod.invoke( ofVirtualMethod.invoke( null ), interpreter.programFilename() + "-" + name + "-", 0L );
+			final ThreadFactory virtualThreadFactory = (ThreadFactory)builderFactoryMethod.invoke( builder );
+			final ThreadFactory factory = r -> virtualThreadFactory.newThread( () -> {
+				current.set( new VirtualThreadContext( interpreter ) );
+				try {
+					r.run();
+				} finally {
+					current.remove();
+				}
+			} );
+			return (ExecutorService)newThreadPerTaskExecutorMethod.invoke( null, factory );
+		} catch( IllegalAccessException | InvocationTargetException e ) {
+			throw new UnsupportedOperationException( e );
+		}
+	}
+
+	/**
+	 * Sets the <code>ExecutionThread</code> this thread must refer to.
+	 * @param thread the <code>ExecutionThread</code> this thread must refer to for variable state resolution
+	 */
+	public void setExecutionThread( ExecutionThread thread )
+	{
+		executionThread = thread;
+	}
+
+	/**
+	 * Returns the <code>ExecutionThread</code> this thread is referring to for variable state resolution.
+	 * @return the <code>ExecutionThread</code> this thread is referring to for variable state resolution
+	 */
+	public ExecutionThread executionThread()
+	{
+		return executionThread;
+	}
+
+	@Override
+	public Interpreter interpreter()
+	{
+		return interpreter;
+	}
+}
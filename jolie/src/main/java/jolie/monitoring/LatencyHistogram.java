@@ -0,0 +1,170 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies, in microseconds, with a bounded relative error.
+ *
+ * As in HdrHistogram, values are counted in buckets whose width grows with
+ * the power of 2 of their values: each power of 2 is split in
+ * {@link #SUB_BUCKETS} linear sub-buckets, so the value reported for a
+ * quantile is at most 1/{@value #SUB_BUCKETS} larger than the recorded one.
+ * Recording takes constant time and does not lock, so it can be always on.
+ * @author agent
+ */
+public class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 4;
+	/**
+	 * The number of sub-buckets in each power of 2.
+	 */
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_MAGNITUDE = 40; // About 12 days
+	private static final long MAX_VALUE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+	private static final int BUCKETS = indexOf( MAX_VALUE ) + 1;
+
+	/**
+	 * A consistent view of the values recorded by a histogram.
+	 */
+	public static class Snapshot
+	{
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long max;
+
+		private Snapshot( long[] counts, long sum, long max )
+		{
+			long c = 0;
+			for( long n : counts ) {
+				c += n;
+			}
+			this.counts = counts;
+			this.count = c;
+			this.sum = sum;
+			this.max = max;
+		}
+
+		/**
+		 * Returns the number of recorded values.
+		 * @return the number of recorded values
+		 */
+		public long count()
+		{
+			return count;
+		}
+
+		/**
+		 * Returns the sum of the recorded values, in microseconds.
+		 * @return the sum of the recorded values, in microseconds
+		 */
+		public long sum()
+		{
+			return sum;
+		}
+
+		/**
+		 * Returns the largest recorded value, in microseconds.
+		 * @return the largest recorded value, in microseconds, or 0 if no value has been recorded
+		 */
+		public long max()
+		{
+			return max;
+		}
+
+		/**
+		 * Returns the value below which the passed fraction of the recorded values fall.
+		 * @param quantile the fraction of the values, between 0 and 1
+		 * @return the value at quantile, in microseconds, or 0 if no value has been recorded
+		 */
+		public long valueAtQuantile( double quantile )
+		{
+			if ( count == 0 ) {
+				return 0;
+			}
+			final long rank = Math.max( 1, (long) Math.ceil( quantile * count ) );
+			long seen = 0;
+			for( int i = 0; i < counts.length; i++ ) {
+				seen += counts[ i ];
+				if ( seen >= rank ) {
+					return Math.min( highestValueAt( i ), max );
+				}
+			}
+			return max;
+		}
+	}
+
+	private final AtomicLongArray counts = new AtomicLongArray( BUCKETS );
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator( Math::max, 0 );
+
+	/**
+	 * Records a latency.
+	 * @param nanos the latency, in nanoseconds
+	 */
+	public void record( long nanos )
+	{
+		final long micros = Math.min( MAX_VALUE, Math.max( 0, TimeUnit.NANOSECONDS.toMicros( nanos ) ) );
+		counts.incrementAndGet( indexOf( micros ) );
+		sum.add( micros );
+		max.accumulate( micros );
+	}
+
+	/**
+	 * Returns a snapshot of the values recorded so far.
+	 * Values recorded while the snapshot is taken may be only partially reflected in it.
+	 * @return a snapshot of the values recorded so far
+	 */
+	public Snapshot snapshot()
+	{
+		final long[] c = new long[ BUCKETS ];
+		for( int i = 0; i < BUCKETS; i++ ) {
+			c[ i ] = counts.get( i );
+		}
+		return new Snapshot( c, sum.sum(), max.get() );
+	}
+
+	// Values below 2*SUB_BUCKETS have their own bucket, the others keep their SUB_BUCKET_BITS + 1 highest bits
+	private static int indexOf( long value )
+	{
+		if ( value < 2 * SUB_BUCKETS ) {
+			return (int) value;
+		}
+		final int shift = 63 - Long.numberOfLeadingZeros( value ) - SUB_BUCKET_BITS;
+		return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+	}
+
+	private static long highestValueAt( int index )
+	{
+		if ( index < 2 * SUB_BUCKETS ) {
+			return index;
+		}
+		final int shift = (index >>> SUB_BUCKET_BITS) - 1;
+		final long high = (index & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+		return ((high + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,356 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+import jolie.Interpreter;
+import jolie.lang.parse.util.ProgramCache;
+import jolie.net.CommChannelPool;
+import jolie.runtime.Value;
+
+/**
+ * Collects the runtime metrics of an interpreter.
+ *
+ * The latencies of operations and of message correlation are recorded in
+ * {@link LatencyHistogram}s by the threads that perform them. The other
+ * metrics, e.g., the sizes of thread pools and the statistics of caches,
+ * are read from their owners when the metrics are requested.
+ * Metrics are always collected, so recording them must stay cheap.
+ * @author agent
+ */
+public class MetricsRegistry
+{
+	static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+	private static final String[] QUANTILE_NODE_NAMES = { "p50", "p90", "p99", "p999" };
+
+	/**
+	 * The direction of an operation, as seen from this interpreter.
+	 */
+	public enum Kind
+	{
+		INPUT( "input" ),
+		OUTPUT( "output" );
+
+		private final String label;
+
+		Kind( String label )
+		{
+			this.label = label;
+		}
+
+		/**
+		 * Returns the name of this kind in reported metrics.
+		 * @return the name of this kind in reported metrics
+		 */
+		public String label()
+		{
+			return label;
+		}
+	}
+
+	/**
+	 * The metrics of an operation of a port.
+	 *
+	 * For input operations, the latency goes from the moment a message is
+	 * routed to a session to the moment the session sends the response,
+	 * or receives the message for one-way operations.
+	 * For output operations, it goes from the moment a channel is requested
+	 * to the moment the response is received.
+	 */
+	public static class OperationMetrics
+	{
+		private final Kind kind;
+		private final String port;
+		private final String operation;
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final LongAdder faults = new LongAdder();
+
+		private OperationMetrics( Kind kind, String port, String operation )
+		{
+			this.kind = kind;
+			this.port = port;
+			this.operation = operation;
+		}
+
+		/**
+		 * Records a completed invocation of this operation.
+		 * @param nanos the latency of the invocation, in nanoseconds
+		 * @param fault whether the invocation ended with a fault or a communication error
+		 */
+		public void record( long nanos, boolean fault )
+		{
+			latency.record( nanos );
+			if ( fault ) {
+				faults.increment();
+			}
+		}
+
+		public Kind kind()
+		{
+			return kind;
+		}
+
+		public String port()
+		{
+			return port;
+		}
+
+		public String operation()
+		{
+			return operation;
+		}
+
+		public LatencyHistogram latency()
+		{
+			return latency;
+		}
+
+		/**
+		 * Returns the number of invocations that ended with a fault or a communication error.
+		 * @return the number of faulty invocations
+		 */
+		public long faults()
+		{
+			return faults.sum();
+		}
+	}
+
+	private final Interpreter interpreter;
+	private final ConcurrentMap< String, ConcurrentMap< String, OperationMetrics > > inputOperations = new ConcurrentHashMap<>();
+	private final ConcurrentMap< String, ConcurrentMap< String, OperationMetrics > > outputOperations = new ConcurrentHashMap<>();
+	private final LatencyHistogram correlationLatency = new LatencyHistogram();
+	private final LongAdder correlationErrors = new LongAdder();
+	private final LongAdder queuedMessages = new LongAdder();
+	private final Map< String, ExecutorService > threadPools = Collections.synchronizedMap( new LinkedHashMap<>() );
+
+	/**
+	 * Creates the registry of the metrics of interpreter.
+	 * @param interpreter the interpreter whose metrics are collected
+	 */
+	public MetricsRegistry( Interpreter interpreter )
+	{
+		this.interpreter = interpreter;
+	}
+
+	/**
+	 * Returns the metrics of an input operation.
+	 * @param port the name of the input port that received the message, or the empty string if unknown
+	 * @param operation the name of the operation
+	 * @return the metrics of the input operation
+	 */
+	public OperationMetrics inputOperation( String port, String operation )
+	{
+		return operation( inputOperations, Kind.INPUT, port, operation );
+	}
+
+	/**
+	 * Returns the metrics of an output operation.
+	 * @param port the name of the output port
+	 * @param operation the name of the operation
+	 * @return the metrics of the output operation
+	 */
+	public OperationMetrics outputOperation( String port, String operation )
+	{
+		return operation( outputOperations, Kind.OUTPUT, port, operation );
+	}
+
+	private static OperationMetrics operation( ConcurrentMap< String, ConcurrentMap< String, OperationMetrics > > ports, Kind kind, String port, String operation )
+	{
+		ConcurrentMap< String, OperationMetrics > operations = ports.get( port );
+		if ( operations == null ) {
+			operations = ports.computeIfAbsent( port, k -> new ConcurrentHashMap<>() );
+		}
+		OperationMetrics metrics = operations.get( operation );
+		if ( metrics == null ) {
+			metrics = operations.computeIfAbsent( operation, k -> new OperationMetrics( kind, port, operation ) );
+		}
+		return metrics;
+	}
+
+	/**
+	 * Returns the metrics of all the operations invoked so far.
+	 * @return the metrics of all the operations invoked so far
+	 */
+	public List< OperationMetrics > operations()
+	{
+		final List< OperationMetrics > result = new ArrayList<>();
+		inputOperations.values().forEach( operations -> result.addAll( operations.values() ) );
+		outputOperations.values().forEach( operations -> result.addAll( operations.values() ) );
+		return result;
+	}
+
+	/**
+	 * Records the time taken to route a received message to a session.
+	 * @param nanos the routing time, in nanoseconds
+	 * @param error whether the message could not be correlated
+	 */
+	public void recordCorrelation( long nanos, boolean error )
+	{
+		correlationLatency.record( nanos );
+		if ( error ) {
+			correlationErrors.increment();
+		}
+	}
+
+	public LatencyHistogram correlationLatency()
+	{
+		return correlationLatency;
+	}
+
+	/**
+	 * Returns the number of messages that could not be correlated.
+	 * @return the number of messages that could not be correlated
+	 */
+	public long correlationErrors()
+	{
+		return correlationErrors.sum();
+	}
+
+	/**
+	 * Updates the number of messages waiting in the queues of sessions.
+	 * @param delta the number of messages added to, or removed from if negative, the queues
+	 */
+	public void addQueuedMessages( long delta )
+	{
+		queuedMessages.add( delta );
+	}
+
+	/**
+	 * Returns the number of messages routed to sessions that have not received them yet.
+	 * @return the number of messages waiting in the queues of sessions
+	 */
+	public long queuedMessages()
+	{
+		return queuedMessages.sum();
+	}
+
+	/**
+	 * Adds a thread pool to the reported ones. Only pools implemented
+	 * by {@link ThreadPoolExecutor} are reported.
+	 * @param name the name of the pool in reported metrics
+	 * @param executor the thread pool
+	 */
+	public void registerThreadPool( String name, ExecutorService executor )
+	{
+		if ( executor instanceof ThreadPoolExecutor ) {
+			threadPools.put( name, executor );
+		}
+	}
+
+	/**
+	 * Returns the reported thread pools, by name.
+	 * @return the reported thread pools, by name
+	 */
+	public Map< String, ThreadPoolExecutor > threadPools()
+	{
+		final Map< String, ThreadPoolExecutor > result = new LinkedHashMap<>();
+		synchronized( threadPools ) {
+			threadPools.forEach( ( name, executor ) -> result.put( name, (ThreadPoolExecutor) executor ) );
+		}
+		return result;
+	}
+
+	public Interpreter interpreter()
+	{
+		return interpreter;
+	}
+
+	/**
+	 * Returns the current metrics as a value, as returned by the metrics operation of the Runtime service.
+	 * Latencies are in microseconds.
+	 * @return the current metrics
+	 */
+	public Value toValue()
+	{
+		final Value metrics = Value.create();
+		for( OperationMetrics operation : operations() ) {
+			final Value v = Value.create();
+			v.setFirstChild( "kind", operation.kind().label() );
+			v.setFirstChild( "port", operation.port() );
+			v.setFirstChild( "operation", operation.operation() );
+			v.setFirstChild( "faults", operation.faults() );
+			latencyToValue( operation.latency().snapshot(), v.getFirstChild( "latency" ) );
+			metrics.getChildren( "operation" ).add( v );
+		}
+
+		final Value correlation = metrics.getFirstChild( "correlation" );
+		correlation.setFirstChild( "errors", correlationErrors() );
+		latencyToValue( correlationLatency.snapshot(), correlation.getFirstChild( "latency" ) );
+
+		final Value sessions = metrics.getFirstChild( "sessions" );
+		sessions.setFirstChild( "queuedMessages", queuedMessages() );
+		sessions.setFirstChild( "parallelism", interpreter.parallelism() );
+		sessions.setFirstChild( "pendingTimeouts", interpreter.pendingTimeoutHandlers() );
+
+		threadPools().forEach( ( name, executor ) -> {
+			final Value v = Value.create();
+			v.setFirstChild( "name", name );
+			v.setFirstChild( "activeThreads", executor.getActiveCount() );
+			v.setFirstChild( "poolSize", executor.getPoolSize() );
+			v.setFirstChild( "largestPoolSize", executor.getLargestPoolSize() );
+			v.setFirstChild( "queuedTasks", executor.getQueue().size() );
+			metrics.getChildren( "threadPool" ).add( v );
+		} );
+
+		final CommChannelPool.Statistics channels = interpreter.commCore().persistentChannelStatistics();
+		final Value persistentChannels = metrics.getFirstChild( "persistentChannels" );
+		persistentChannels.setFirstChild( "hits", channels.hits() );
+		persistentChannels.setFirstChild( "misses", channels.misses() );
+		persistentChannels.setFirstChild( "evictions", channels.evictions() );
+		persistentChannels.setFirstChild( "discards", channels.discards() );
+
+		final ProgramCache.Statistics programs = ProgramCache.statistics();
+		final Value programCache = metrics.getFirstChild( "programCache" );
+		programCache.setFirstChild( "hits", programs.hits() );
+		programCache.setFirstChild( "diskHits", programs.diskHits() );
+		programCache.setFirstChild( "loads", programs.loads() );
+
+		final MonitoringPipeline.Statistics events = interpreter.monitoringStatistics();
+		if ( events != null ) {
+			final Value monitoring = metrics.getFirstChild( "monitoring" );
+			monitoring.setFirstChild( "delivered", events.delivered() );
+			monitoring.setFirstChild( "batches", events.batches() );
+			monitoring.setFirstChild( "dropped", events.dropped() );
+			monitoring.setFirstChild( "sampledOut", events.sampledOut() );
+		}
+		return metrics;
+	}
+
+	private static void latencyToValue( LatencyHistogram.Snapshot snapshot, Value value )
+	{
+		value.setFirstChild( "count", snapshot.count() );
+		value.setFirstChild( "sum", snapshot.sum() );
+		value.setFirstChild( "max", snapshot.max() );
+		for( int i = 0; i < QUANTILES.length; i++ ) {
+			value.setFirstChild( QUANTILE_NODE_NAMES[ i ], snapshot.valueAtQuantile( QUANTILES[ i ] ) );
+		}
+	}
+}
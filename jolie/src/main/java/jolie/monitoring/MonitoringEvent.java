@@ -33,17 +33,14 @@ public class MonitoringEvent implements ValueConverter
 {
 	private final String type;
 	private final long timestamp;
-	private final long memory;
+	private final long memory; // UNKNOWN_MEMORY if measured on delivery
 	private final Value data;
+
+	private static final long UNKNOWN_MEMORY = -1;
 	
 	public MonitoringEvent( String type, Value data )
 	{
-		this(
-			type,
-			System.currentTimeMillis(),
-			Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory(),
-			data
-		);
+		this( type, System.currentTimeMillis(), UNKNOWN_MEMORY, data );
 	}
 	
 	private MonitoringEvent( String type, long timestamp, long memory, Value data )
@@ -64,6 +61,11 @@ public class MonitoringEvent implements ValueConverter
 		return timestamp;
 	}
 
+	/**
+	 * Returns the memory used by the interpreter, or -1 if it is
+	 * measured when the event is delivered to a monitor.
+	 * @return the memory used by the interpreter, or -1
+	 */
 	public long memory()
 	{
 		return memory;
@@ -85,11 +87,16 @@ public class MonitoringEvent implements ValueConverter
 	}
 	
 	public static Value toValue( MonitoringEvent e )
+	{
+		return toValue( e, Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory() );
+	}
+
+	static Value toValue( MonitoringEvent e, long currentMemory )
 	{
 		Value ret = Value.create();
 		ret.getFirstChild( "type" ).setValue( e.type );
 		ret.getFirstChild( "timestamp" ).setValue( e.timestamp );
-		ret.getFirstChild( "memory" ).setValue( e.memory );
+		ret.getFirstChild( "memory" ).setValue( e.memory == UNKNOWN_MEMORY ? currentMemory : e.memory );
 		ret.getChildren( "data" ).add( e.data );
 		return ret;
 	}
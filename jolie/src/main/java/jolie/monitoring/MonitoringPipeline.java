@@ -0,0 +1,298 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import jolie.Interpreter;
+import jolie.net.CommChannel;
+import jolie.net.CommChannelHandler;
+import jolie.net.CommMessage;
+import jolie.net.ports.OutputPort;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/**
+ * Delivers monitoring events to a monitor, without blocking the threads that fire them.
+ *
+ * Events are put in a bounded ring buffer, which producers access without locking.
+ * A single delivery task, run by the communication core while the buffer is not empty,
+ * sends them in order to the monitor in batches, with the pushEvents operation.
+ * Monitors that do not support pushEvents receive each event with pushEvent instead.
+ *
+ * Events are dropped when the buffer is full, and only a random sample of them
+ * is kept if a sampling rate is set. The data of an event is captured only if
+ * the event is kept, and the memory used by the interpreter is measured when
+ * events are delivered.
+ * @author agent
+ */
+public class MonitoringPipeline
+{
+	public static final int DEFAULT_CAPACITY = 4096;
+	private static final int MAX_BATCH_SIZE = 256;
+	private static final String PUSH_EVENTS_OPERATION = "pushEvents";
+	private static final String PUSH_EVENT_OPERATION = "pushEvent";
+	private static final String EVENTS_NODE_NAME = "events";
+
+	/**
+	 * Usage counters of a pipeline.
+	 */
+	public static class Statistics
+	{
+		private final LongAdder delivered = new LongAdder();
+		private final LongAdder batches = new LongAdder();
+		private final LongAdder dropped = new LongAdder();
+		private final LongAdder sampledOut = new LongAdder();
+
+		/**
+		 * Returns the number of events sent to the monitor.
+		 * @return the number of events sent to the monitor
+		 */
+		public long delivered()
+		{
+			return delivered.sum();
+		}
+
+		/**
+		 * Returns the number of messages used to send events to the monitor.
+		 * @return the number of messages used to send events to the monitor
+		 */
+		public long batches()
+		{
+			return batches.sum();
+		}
+
+		/**
+		 * Returns the number of events dropped because the buffer was full
+		 * or they could not be sent.
+		 * @return the number of dropped events
+		 */
+		public long dropped()
+		{
+			return dropped.sum();
+		}
+
+		/**
+		 * Returns the number of events discarded by sampling.
+		 * @return the number of events discarded by sampling
+		 */
+		public long sampledOut()
+		{
+			return sampledOut.sum();
+		}
+	}
+
+	private enum Batching { UNKNOWN, SUPPORTED, UNSUPPORTED }
+
+	private final Interpreter interpreter;
+	private final OutputPort monitor;
+	private final int sampling;
+	private final AtomicReferenceArray< MonitoringEvent > buffer;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong( 0 ); // The next slot to fill
+	private final AtomicLong head = new AtomicLong( 0 ); // The next slot to deliver, written only by the delivery task
+	private final AtomicBoolean delivering = new AtomicBoolean( false );
+	private final Statistics statistics = new Statistics();
+	private volatile Batching batching = Batching.UNKNOWN; // Accessed only by the delivery task
+
+	/**
+	 * Creates a pipeline that delivers events to monitor.
+	 * @param interpreter the interpreter that runs the delivery task
+	 * @param monitor the port of the monitor
+	 * @param capacity the maximum number of events waiting to be delivered, rounded up to a power of 2
+	 * @param sampling keep one event out of sampling, on average (1 keeps all events)
+	 */
+	public MonitoringPipeline( Interpreter interpreter, OutputPort monitor, int capacity, int sampling )
+	{
+		this.interpreter = interpreter;
+		this.monitor = monitor;
+		this.sampling = Math.max( 1, sampling );
+		final int size = capacity <= 1 ? 1 : Integer.highestOneBit( capacity - 1 ) << 1;
+		this.buffer = new AtomicReferenceArray<>( size );
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Returns the usage counters of this pipeline.
+	 * @return the usage counters of this pipeline
+	 */
+	public Statistics statistics()
+	{
+		return statistics;
+	}
+
+	/**
+	 * Enqueues the event created by event for delivery.
+	 * event is invoked by the calling thread, and only if the event is kept.
+	 * @param event the creator of the event
+	 */
+	public void fire( Supplier< ? extends MonitoringEvent > event )
+	{
+		if ( sampling > 1 && ThreadLocalRandom.current().nextInt( sampling ) != 0 ) {
+			statistics.sampledOut.increment();
+			return;
+		}
+		if ( isFull( tail.get() ) ) {
+			statistics.dropped.increment();
+			return;
+		}
+
+		final MonitoringEvent e = event.get();
+		long t;
+		do {
+			t = tail.get();
+			if ( isFull( t ) ) {
+				statistics.dropped.increment();
+				return;
+			}
+		} while( !tail.compareAndSet( t, t + 1 ) );
+		buffer.set( (int) (t & mask), e );
+
+		if ( delivering.compareAndSet( false, true ) ) {
+			try {
+				interpreter.commCore().executor().execute( this::deliver );
+			} catch( RejectedExecutionException ex ) {
+				// The interpreter is exiting
+				delivering.set( false );
+			}
+		}
+	}
+
+	private boolean isFull( long t )
+	{
+		return t - head.get() > mask;
+	}
+
+	// Slots are filled after being claimed, so an empty slot may precede filled ones
+	private MonitoringEvent poll()
+	{
+		final long h = head.get();
+		final int i = (int) (h & mask);
+		final MonitoringEvent e = buffer.get( i );
+		if ( e != null ) {
+			buffer.lazySet( i, null );
+			head.lazySet( h + 1 );
+		}
+		return e;
+	}
+
+	private void deliver()
+	{
+		// Channels to embedded services need an execution thread to refer to
+		CommChannelHandler.setCurrentExecutionThread( interpreter.initThread() );
+		final List< MonitoringEvent > batch = new ArrayList<>();
+		while( true ) {
+			MonitoringEvent e;
+			while( batch.size() < MAX_BATCH_SIZE && (e = poll()) != null ) {
+				batch.add( e );
+			}
+			if ( !batch.isEmpty() ) {
+				send( batch );
+				batch.clear();
+				continue;
+			}
+
+			delivering.set( false );
+			// An event may have been added right after we stopped delivering
+			if ( buffer.get( (int) (head.get() & mask) ) == null || !delivering.compareAndSet( false, true ) ) {
+				return;
+			}
+		}
+	}
+
+	private void send( List< MonitoringEvent > batch )
+	{
+		final long memory = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+		if ( batching != Batching.UNSUPPORTED ) {
+			final Value request = Value.create();
+			final ValueVector events = request.getChildren( EVENTS_NODE_NAME );
+			for( MonitoringEvent e : batch ) {
+				events.add( MonitoringEvent.toValue( e, memory ) );
+			}
+			final CommMessage response = send( CommMessage.createRequest( PUSH_EVENTS_OPERATION, "/", request ) );
+			if ( response == null ) {
+				// I/O errors say nothing about what the monitor supports
+				statistics.dropped.add( batch.size() );
+				return;
+			} else if ( !response.isFault() ) {
+				batching = Batching.SUPPORTED;
+				statistics.delivered.add( batch.size() );
+				statistics.batches.increment();
+				return;
+			} else if ( batching == Batching.SUPPORTED ) {
+				statistics.dropped.add( batch.size() );
+				return;
+			}
+			// The monitor rejected the first batch (e.g., it does not offer pushEvents)
+			batching = Batching.UNSUPPORTED;
+		}
+
+		for( MonitoringEvent e : batch ) {
+			final CommMessage response = send( CommMessage.createRequest( PUSH_EVENT_OPERATION, "/", MonitoringEvent.toValue( e, memory ) ) );
+			if ( response == null ) {
+				statistics.dropped.increment();
+			} else {
+				statistics.delivered.increment();
+				statistics.batches.increment();
+			}
+		}
+	}
+
+	// Returns null if the message could not be sent
+	private CommMessage send( CommMessage m )
+	{
+		CommChannel channel = null;
+		try {
+			channel = monitor.getCommChannel();
+			channel.send( m );
+			CommMessage response;
+			do {
+				response = channel.recvResponseFor( m ).get();
+			} while( response == null );
+			return response;
+		} catch( URISyntaxException | InterruptedException | ExecutionException | IOException e ) {
+			interpreter.logWarning( e );
+			return null;
+		} catch( RejectedExecutionException e ) {
+			// The interpreter is exiting
+			return null;
+		} finally {
+			if ( channel != null ) {
+				try {
+					channel.release();
+				} catch( IOException e ) {
+					interpreter.logWarning( e );
+				}
+			}
+		}
+	}
+}
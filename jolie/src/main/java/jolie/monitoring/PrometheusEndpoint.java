@@ -0,0 +1,227 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jolie.lang.parse.util.ProgramCache;
+import jolie.net.CommChannelPool;
+
+/**
+ * Serves the metrics of a {@link MetricsRegistry} in the Prometheus text
+ * exposition format, over HTTP on a port of the loopback interface.
+ *
+ * Metrics are computed when they are requested, by a single daemon thread.
+ * Latencies are reported in seconds, as summaries.
+ * @author agent
+ */
+public class PrometheusEndpoint
+{
+	/**
+	 * The path at which metrics are served.
+	 */
+	public static final String PATH = "/metrics";
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final MetricsRegistry registry;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	/**
+	 * Starts serving the metrics of registry.
+	 * @param registry the metrics to serve
+	 * @param port the local port to listen on, 0 to pick a free one
+	 * @throws IOException if the port could not be bound
+	 */
+	public PrometheusEndpoint( MetricsRegistry registry, int port )
+		throws IOException
+	{
+		this.registry = registry;
+		this.server = HttpServer.create( new InetSocketAddress( InetAddress.getLoopbackAddress(), port ), 0 );
+		this.executor = Executors.newSingleThreadExecutor( r -> {
+			final Thread t = new Thread( r, registry.interpreter().programFilename() + "-Metrics" );
+			t.setDaemon( true );
+			return t;
+		} );
+		server.createContext( PATH, this::handle );
+		server.setExecutor( executor );
+		server.start();
+	}
+
+	/**
+	 * Returns the port this endpoint is listening on.
+	 * @return the port this endpoint is listening on
+	 */
+	public int port()
+	{
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * Stops serving metrics.
+	 */
+	public void stop()
+	{
+		server.stop( 0 );
+		executor.shutdown();
+	}
+
+	private void handle( HttpExchange exchange )
+		throws IOException
+	{
+		try {
+			if ( !"GET".equals( exchange.getRequestMethod() ) ) {
+				exchange.sendResponseHeaders( 405, -1 );
+				return;
+			}
+			final byte[] body = format( registry ).getBytes( StandardCharsets.UTF_8 );
+			exchange.getResponseHeaders().set( "Content-Type", CONTENT_TYPE );
+			exchange.sendResponseHeaders( 200, body.length );
+			try( OutputStream os = exchange.getResponseBody() ) {
+				os.write( body );
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Returns the current metrics of registry in the Prometheus text exposition format.
+	 * @param registry the metrics to format
+	 * @return the current metrics of registry in the Prometheus text exposition format
+	 */
+	public static String format( MetricsRegistry registry )
+	{
+		final StringBuilder b = new StringBuilder();
+
+		final List< MetricsRegistry.OperationMetrics > operations = registry.operations();
+		header( b, "jolie_operation_latency_seconds", "summary", "Latency of the invocations of operations" );
+		for( MetricsRegistry.OperationMetrics operation : operations ) {
+			summary( b, "jolie_operation_latency_seconds", operationLabels( operation ), operation.latency().snapshot() );
+		}
+		header( b, "jolie_operation_faults_total", "counter", "Invocations of operations that ended with a fault or a communication error" );
+		for( MetricsRegistry.OperationMetrics operation : operations ) {
+			sample( b, "jolie_operation_faults_total", operationLabels( operation ), operation.faults() );
+		}
+
+		header( b, "jolie_correlation_latency_seconds", "summary", "Time taken to route received messages to sessions" );
+		summary( b, "jolie_correlation_latency_seconds", "", registry.correlationLatency().snapshot() );
+		counter( b, "jolie_correlation_errors_total", "Received messages that could not be correlated", registry.correlationErrors() );
+
+		gauge( b, "jolie_session_queued_messages", "Messages waiting in the queues of sessions", registry.queuedMessages() );
+		gauge( b, "jolie_timeout_handlers_pending", "Timeout handlers waiting to run", registry.interpreter().pendingTimeoutHandlers() );
+		gauge( b, "jolie_spawn_parallelism", "Maximum number of threads that run a chunked spawn", registry.interpreter().parallelism() );
+
+		header( b, "jolie_thread_pool_active_threads", "gauge", "Threads that are running a task" );
+		registry.threadPools().forEach( ( name, executor ) -> sample( b, "jolie_thread_pool_active_threads", poolLabels( name ), executor.getActiveCount() ) );
+		header( b, "jolie_thread_pool_threads", "gauge", "Threads in the pool" );
+		registry.threadPools().forEach( ( name, executor ) -> sample( b, "jolie_thread_pool_threads", poolLabels( name ), executor.getPoolSize() ) );
+		header( b, "jolie_thread_pool_queued_tasks", "gauge", "Tasks waiting for a thread" );
+		registry.threadPools().forEach( ( name, executor ) -> sample( b, "jolie_thread_pool_queued_tasks", poolLabels( name ), executor.getQueue().size() ) );
+
+		final CommChannelPool.Statistics channels = registry.interpreter().commCore().persistentChannelStatistics();
+		counter( b, "jolie_persistent_channel_hits_total", "Requests served with a cached persistent channel", channels.hits() );
+		counter( b, "jolie_persistent_channel_misses_total", "Requests for which no cached persistent channel was available", channels.misses() );
+		counter( b, "jolie_persistent_channel_evictions_total", "Cached persistent channels closed because of their idle timeout", channels.evictions() );
+		counter( b, "jolie_persistent_channel_discards_total", "Persistent channels dropped from the cache", channels.discards() );
+
+		final ProgramCache.Statistics programs = ProgramCache.statistics();
+		counter( b, "jolie_program_cache_hits_total", "Programs served from memory", programs.hits() );
+		counter( b, "jolie_program_cache_disk_hits_total", "Programs read from a cache directory", programs.diskHits() );
+		counter( b, "jolie_program_cache_loads_total", "Programs parsed", programs.loads() );
+
+		final MonitoringPipeline.Statistics events = registry.interpreter().monitoringStatistics();
+		if ( events != null ) {
+			counter( b, "jolie_monitoring_events_delivered_total", "Monitoring events sent to the monitor", events.delivered() );
+			counter( b, "jolie_monitoring_events_dropped_total", "Monitoring events dropped", events.dropped() );
+			counter( b, "jolie_monitoring_events_sampled_out_total", "Monitoring events discarded by sampling", events.sampledOut() );
+		}
+		return b.toString();
+	}
+
+	private static String operationLabels( MetricsRegistry.OperationMetrics operation )
+	{
+		return "kind=\"" + operation.kind().label()
+			+ "\",port=\"" + escape( operation.port() )
+			+ "\",operation=\"" + escape( operation.operation() ) + '"';
+	}
+
+	private static String poolLabels( String name )
+	{
+		return "pool=\"" + escape( name ) + '"';
+	}
+
+	private static String escape( String labelValue )
+	{
+		return labelValue.replace( "\\", "\\\\" ).replace( "\"", "\\\"" ).replace( "\n", "\\n" );
+	}
+
+	private static void header( StringBuilder b, String name, String type, String help )
+	{
+		b.append( "# HELP " ).append( name ).append( ' ' ).append( help ).append( '\n' );
+		b.append( "# TYPE " ).append( name ).append( ' ' ).append( type ).append( '\n' );
+	}
+
+	private static void counter( StringBuilder b, String name, String help, long value )
+	{
+		header( b, name, "counter", help );
+		sample( b, name, "", value );
+	}
+
+	private static void gauge( StringBuilder b, String name, String help, long value )
+	{
+		header( b, name, "gauge", help );
+		sample( b, name, "", value );
+	}
+
+	private static void sample( StringBuilder b, String name, String labels, Object value )
+	{
+		b.append( name );
+		if ( !labels.isEmpty() ) {
+			b.append( '{' ).append( labels ).append( '}' );
+		}
+		b.append( ' ' ).append( value ).append( '\n' );
+	}
+
+	private static void summary( StringBuilder b, String name, String labels, LatencyHistogram.Snapshot snapshot )
+	{
+		final String prefix = labels.isEmpty() ? "" : labels + ',';
+		for( double quantile : MetricsRegistry.QUANTILES ) {
+			sample( b, name, prefix + "quantile=\"" + quantile + '"', seconds( snapshot.valueAtQuantile( quantile ) ) );
+		}
+		sample( b, name + "_sum", labels, seconds( snapshot.sum() ) );
+		sample( b, name + "_count", labels, snapshot.count() );
+	}
+
+	private static double seconds( long micros )
+	{
+		return micros / 1e6;
+	}
+}
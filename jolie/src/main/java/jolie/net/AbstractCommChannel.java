@@ -19,199 +19,216 @@
  *   For details about the authors of this software, see the AUTHORS file. *
  ***************************************************************************/
 
+
 package jolie.net;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import jolie.ExecutionThread;
-import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.runtime.FaultException;
-import jolie.runtime.TimeoutHandler;
 import jolie.runtime.Value;
+import jolie.util.Helpers;
 
+/**
+ * A CommChannel that matches the responses it receives to the requests
+ * waiting for them, by using message identifiers.
+ *
+ * Responses are read by a single receiver task, which completes the futures
+ * returned by {@link #recvResponseFor(jolie.net.CommMessage)}: no thread is
+ * kept waiting for each pending request.
+ * If the channel is multiplexed (see {@link #isMultiplexed()}), the receiver
+ * does not hold the channel lock while reading, so that other requests
+ * can be sent through the channel while responses are awaited.
+ * @author Fabrizio Montesi
+ */
 public abstract class AbstractCommChannel extends CommChannel
 {
 	private static final long RECEIVER_KEEP_ALIVE = 20000; // msecs
+	private static final int MAX_ABANDONED_REQUESTS = 1024;
 
 	private final Map< Long, CommMessage > pendingResponses = new HashMap<>();
-	private final Map< Long, ResponseContainer > waiters = new HashMap<>();
+	private final Map< Long, CompletableFuture< CommMessage > > waiters = new HashMap<>();
 	private final List< CommMessage > pendingGenericResponses = new LinkedList<>();
+	// Requests whose waiters gave up (e.g., for a timeout): their responses are discarded
+	private final Set< Long > abandonedRequests = new LinkedHashSet<>();
+	// The highest id of the abandoned requests that have been forgotten to bound abandonedRequests
+	private long forgottenAbandonedRequest = 0;
 	private ResponseReceiver responseReceiver = null;
-	private final Object responseRecvMutex = new Object();
-
-	private static class ResponseContainer
-	{
-		private ResponseContainer() {}
-		private CommMessage response = null;
-	}
+	// A lock instead of a monitor, so that waiting receivers do not pin the carriers of virtual threads
+	private final ReentrantLock responseRecvLock = new ReentrantLock();
+	private final Condition waitersCondition = responseRecvLock.newCondition();
 
 	@Override
 	public Future< CommMessage > recvResponseFor( CommMessage request )
 		throws IOException
 	{
-		final ExecutionThread ethread = ExecutionThread.currentThread();
-		return CompletableFuture.supplyAsync( () -> {
-			CommMessage response;
-			ResponseContainer monitor = null;
-			synchronized( responseRecvMutex ) {
-				response = pendingResponses.remove( request.id() );
-				if ( response == null ) {
-					if ( pendingGenericResponses.isEmpty() ) {
-						assert( waiters.containsKey( request.id() ) == false );
-						monitor = new ResponseContainer();
-						waiters.put( request.id(), monitor );
-						//responseRecvMutex.notify();
-					} else {
-						response = pendingGenericResponses.remove( 0 );
-					}
-				}
+		final CompletableFuture< CommMessage > future = new CompletableFuture<>();
+		responseRecvLock.lock();
+		try {
+			CommMessage response = pendingResponses.remove( request.id() );
+			if ( response == null && pendingGenericResponses.isEmpty() == false ) {
+				response = pendingGenericResponses.remove( 0 );
 			}
-			if ( response == null ) {
-				synchronized( responseRecvMutex ) {
-					if ( responseReceiver == null ) {
-						responseReceiver = new ResponseReceiver( this, ethread );
-						ethread.interpreter().commCore().startCommChannelHandler( responseReceiver );
-					} else {
-						responseReceiver.wakeUp();
-					}
-				}
-				
-				if ( monitor != null ) {
-					synchronized( monitor ) {
-						if ( monitor.response == null ) {
-							try {
-								monitor.wait();
-							} catch( InterruptedException e ) {
-								ethread.interpreter().logSevere( e );
-							}
-						}
-						response = monitor.response;
+			if ( response != null ) {
+				future.complete( response );
+				return future;
+			}
+
+			assert( waiters.containsKey( request.id() ) == false );
+			waiters.put( request.id(), future );
+			if ( responseReceiver == null ) {
+				final ExecutionThread ethread = ExecutionThread.currentThread();
+				responseReceiver = new ResponseReceiver( this, ethread );
+				ethread.interpreter().commCore().startCommChannelHandler( responseReceiver );
+			} else {
+				waitersCondition.signalAll();
+			}
+		} finally {
+			responseRecvLock.unlock();
+		}
+
+		future.whenComplete( ( response, t ) -> {
+			if ( future.isCancelled() ) {
+				responseRecvLock.lock();
+				try {
+					if ( waiters.remove( request.id(), future ) ) {
+						abandon( request.id() );
 					}
+				} finally {
+					responseRecvLock.unlock();
 				}
 			}
-			return response;
-		}, Interpreter.getInstance().commCore().executor() );
+		} );
+		return future;
 	}
 
-	private static class ResponseReceiver implements Runnable
+	/*
+	 * Remembers that the response to a request must be discarded.
+	 * Peers that never answer would make abandonedRequests grow forever, so the
+	 * oldest requests are forgotten: since message ids are increasing, responses
+	 * up to the highest forgotten id that nobody waits for are discarded too.
+	 */
+	private void abandon( long requestId )
 	{
-		private final AbstractCommChannel parent;
-		private final ExecutionThread ethread;
-		private boolean keepRun;
-		private TimeoutHandler timeoutHandler;
+		abandonedRequests.add( requestId );
+		if ( abandonedRequests.size() > MAX_ABANDONED_REQUESTS ) {
+			final Iterator< Long > it = abandonedRequests.iterator();
+			forgottenAbandonedRequest = Math.max( forgottenAbandonedRequest, it.next() );
+			it.remove();
+		}
+	}
 
-		private void timeout()
-		{
-			synchronized( parent.responseRecvMutex ) {
-				if ( keepRun == false ) {
-					if ( parent.waiters.isEmpty() ) {
-						timeoutHandler = null;
-						parent.responseReceiver = null;
-					} else {
-						keepRun = true;
-					}
-					parent.responseRecvMutex.notify();
-				}
-			}
+	private void handleGenericMessage( CommMessage response )
+	{
+		if ( waiters.isEmpty() ) {
+			pendingGenericResponses.add( response );
+		} else {
+			final Iterator< Entry< Long, CompletableFuture< CommMessage > > > it = waiters.entrySet().iterator();
+			final Entry< Long, CompletableFuture< CommMessage > > entry = it.next();
+			it.remove();
+			entry.getValue().complete( new CommMessage(
+				entry.getKey(),
+				response.operationName(),
+				response.resourcePath(),
+				response.value(),
+				response.fault()
+			) );
 		}
+	}
 
-		private void wakeUp()
-		{
-			// TODO: check race conditions on timeoutHandler, should we sync it?
-			if ( timeoutHandler != null ) {
-				timeoutHandler.cancel();
-			}
-			keepRun = true;
-			parent.responseRecvMutex.notify();
+	private void handleMessage( CommMessage response )
+	{
+		final CompletableFuture< CommMessage > future = waiters.remove( response.id() );
+		if ( future != null ) {
+			future.complete( response );
+		} else if ( abandonedRequests.remove( response.id() ) == false && response.id() > forgottenAbandonedRequest ) {
+			pendingResponses.put( response.id(), response );
 		}
+	}
 
-		private void sleep()
-		{
-			final ResponseReceiver receiver = this;
-			timeoutHandler = new TimeoutHandler( RECEIVER_KEEP_ALIVE ) {
-				@Override
-				public void onTimeout() {
-					receiver.timeout();
-				}
-			};
-			ethread.interpreter().addTimeoutHandler( timeoutHandler );
-			try {
-				keepRun = false;
-				parent.responseRecvMutex.wait();
-			} catch( InterruptedException e ) {
-				Interpreter.getInstance().logSevere( e );
-			}
+	private void throwIOExceptionFault( IOException e )
+	{
+		for( Entry< Long, CompletableFuture< CommMessage > > entry : waiters.entrySet() ) {
+			entry.getValue().complete( new CommMessage(
+				entry.getKey(),
+				"",
+				Constants.ROOT_RESOURCE_PATH,
+				Value.create(),
+				new FaultException( "IOException", e )
+			) );
 		}
+		waiters.clear();
+		// No more responses can be read from the channel
+		abandonedRequests.clear();
+	}
+
+	private static class ResponseReceiver implements Runnable
+	{
+		private final AbstractCommChannel parent;
+		private final ExecutionThread ethread;
 
 		private ResponseReceiver( AbstractCommChannel parent, ExecutionThread ethread )
 		{
 			this.ethread = ethread;
 			this.parent = parent;
-			this.keepRun = true;
-			this.timeoutHandler = null;
 		}
 
-		private void handleGenericMessage( CommMessage response )
+		/*
+		 * Waits until some request is waiting for a response.
+		 * Returns false if none arrives within RECEIVER_KEEP_ALIVE, in which case this receiver is terminated.
+		 */
+		private boolean awaitWaiters()
 		{
-			ResponseContainer monitor;
-			if ( parent.waiters.isEmpty() ) {
-				parent.pendingGenericResponses.add( response );
-			} else {
-				Entry< Long, ResponseContainer > entry =
-					parent.waiters.entrySet().iterator().next();
-				monitor = entry.getValue();
-				parent.waiters.remove( entry.getKey() );
-				synchronized( monitor ) {
-					monitor.response = new CommMessage(
-						entry.getKey(),
-						response.operationName(),
-						response.resourcePath(),
-						response.value(),
-						response.fault()
-					);
-					monitor.notify();
+			parent.responseRecvLock.lock();
+			try {
+				long timeLeft = TimeUnit.MILLISECONDS.toNanos( RECEIVER_KEEP_ALIVE );
+				while( parent.waiters.isEmpty() && timeLeft > 0 ) {
+					try {
+						timeLeft = parent.waitersCondition.awaitNanos( timeLeft );
+					} catch( InterruptedException e ) {
+						ethread.interpreter().logSevere( e );
+					}
 				}
-			}
-		}
-
-		private void handleMessage( CommMessage response )
-		{
-			ResponseContainer monitor;
-			if ( (monitor=parent.waiters.remove( response.id() )) == null ) {
-				parent.pendingResponses.put( response.id(), response );
-			} else {
-				synchronized( monitor ) {
-					monitor.response = response;
-					monitor.notify();
+				if ( parent.waiters.isEmpty() ) {
+					parent.responseReceiver = null;
+					return false;
 				}
+			} finally {
+				parent.responseRecvLock.unlock();
 			}
+			return true;
 		}
 
-		private void throwIOExceptionFault( IOException e )
+		private void handleIOException( IOException e )
 		{
-			if ( parent.waiters.isEmpty() == false ) {
-				ResponseContainer monitor;
-				for( Entry< Long, ResponseContainer > entry : parent.waiters.entrySet() ) {
-					monitor = entry.getValue();
-					synchronized( monitor ) {
-						monitor.response = new CommMessage(
-							entry.getKey(),
-							"",
-							Constants.ROOT_RESOURCE_PATH,
-							Value.create(),
-							new FaultException( "IOException", e )
-						);
-						monitor.notify();
-					}
+			parent.responseRecvLock.lock();
+			try {
+				parent.throwIOExceptionFault( e );
+				parent.responseReceiver = null;
+			} finally {
+				parent.responseRecvLock.unlock();
+			}
+			if ( parent.isMultiplexed() ) {
+				// The channel is shared: make sure that nobody else picks it up
+				parent.setToBeClosed( true );
+				try {
+					Helpers.lockAndThen( parent.lock, parent::close );
+				} catch( IOException ex ) {
+					ethread.interpreter().logWarning( ex );
 				}
-				parent.waiters.clear();
 			}
 		}
 
@@ -223,27 +240,30 @@ public abstract class AbstractCommChannel extends CommChannel
 			 * whole thing is safe iff the CommChannel is used only for outputs,
 			 * otherwise we are messing with correlation set checking.
 			 */
-			CommChannelHandler.currentThread().setExecutionThread( ethread ); // TODO: this is hacky..
+			CommChannelHandler.setCurrentExecutionThread( ethread ); // TODO: this is hacky..
 
 			CommMessage response;
-			while( keepRun ) {
-				synchronized( parent.responseRecvMutex ) {
+			while( awaitWaiters() ) {
+				try {
+					response = parent.isMultiplexed() ? parent.recvImpl() : parent.recv();
+				} catch( IOException e ) {
+					handleIOException( e );
+					return;
+				} catch( RuntimeException e ) {
+					// Do not leave the waiters hanging
+					handleIOException( new IOException( e ) );
+					return;
+				}
+				if ( response != null ) {
+					parent.responseRecvLock.lock();
 					try {
-						response = parent.recv();
-						if ( response != null ) {
-							if ( response.hasGenericId() ) {
-								handleGenericMessage( response );
-							} else {
-								handleMessage( response );
-							}
-						}
-						if ( parent.waiters.isEmpty() ) {
-							sleep();
+						if ( response.hasGenericId() ) {
+							parent.handleGenericMessage( response );
+						} else {
+							parent.handleMessage( response );
 						}
-					} catch( IOException e ) {
-						throwIOExceptionFault( e );
-						keepRun = false;
-						parent.responseReceiver = null;
+					} finally {
+						parent.responseRecvLock.unlock();
 					}
 				}
 			}
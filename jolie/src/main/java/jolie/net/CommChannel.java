@@ -183,6 +183,17 @@ public abstract class CommChannel
 		return false;
 	}
 
+	/**
+	 * Returns {@code true} if this channel can carry many requests at the same time,
+	 * matching responses to requests by their message identifiers.
+	 * A multiplexed channel can be shared by concurrent requests towards the same location.
+	 * @return {@code true} if this channel is multiplexed
+	 */
+	public boolean isMultiplexed()
+	{
+		return false;
+	}
+
 	/**
 	 * Receives a message from the channel. This is a blocking operation.
 	 * @return the received message
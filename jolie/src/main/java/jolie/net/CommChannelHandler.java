@@ -26,6 +26,7 @@ import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.InterpreterThread;
 import jolie.JolieThread;
+import jolie.VirtualThreadContext;
 
 /**
  * <code>CommChannelHandler</code> is a <code>JolieThread</code> used by
@@ -54,6 +55,23 @@ public class CommChannelHandler extends Thread implements InterpreterThread
 		return ((CommChannelHandler)Thread.currentThread());
 	}
 
+	/**
+	 * Sets the <code>ExecutionThread</code> the current thread must refer to.
+	 * The current thread must be either a <code>CommChannelHandler</code> or
+	 * a virtual thread started by <code>CommCore</code>.
+	 * @param thread the <code>ExecutionThread</code> the current thread must refer to for variable state resolution
+	 * @see VirtualThreadContext
+	 */
+	public static void setCurrentExecutionThread( ExecutionThread thread )
+	{
+		final Thread t = Thread.currentThread();
+		if ( t instanceof CommChannelHandler ) {
+			((CommChannelHandler)t).setExecutionThread( thread );
+		} else {
+			VirtualThreadContext.current().setExecutionThread( thread );
+		}
+	}
+
 	/**
 	 * Sets the <code>ExecutionThread</code> this thread must refer to.
 	 * This is needed to refer to the right variable state when in this thread.
@@ -0,0 +1,232 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of persistent channels towards the same location, all using the same protocol.
+ *
+ * Only idle channels are bounded, by the maximum idle size of the pool
+ * (see the --conncache option): the channels in use are not counted, so
+ * a request that finds no idle channel always opens a new one, and the
+ * channels in excess are closed when they are released.
+ *
+ * Channels are taken out of the pool while they are in use and put back
+ * when they are released. The most recently released channel is reused first,
+ * so that the channels in excess are the ones that get evicted by idle timeouts.
+ *
+ * A multiplexed channel (see {@link CommChannel#isMultiplexed()}) is instead
+ * shared: once released, it stays in the pool and is handed out to all
+ * the requests that follow, concurrently. It can be evicted only when nobody is using it.
+ * @author agent
+ */
+public class CommChannelPool
+{
+	/**
+	 * Usage counters, shared by all the pools of a {@link CommCore}.
+	 */
+	public static class Statistics
+	{
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+		private final LongAdder evictions = new LongAdder();
+		private final LongAdder discards = new LongAdder();
+
+		/**
+		 * Returns the number of requests served with a pooled channel.
+		 * @return the number of requests served with a pooled channel
+		 */
+		public long hits()
+		{
+			return hits.sum();
+		}
+
+		/**
+		 * Returns the number of requests for which no pooled channel was available.
+		 * @return the number of requests for which no pooled channel was available
+		 */
+		public long misses()
+		{
+			return misses.sum();
+		}
+
+		/**
+		 * Returns the number of idle channels closed because of their idle timeout.
+		 * @return the number of idle channels closed because of their idle timeout
+		 */
+		public long evictions()
+		{
+			return evictions.sum();
+		}
+
+		/**
+		 * Returns the number of channels dropped because they were closed
+		 * or in excess of the pool capacity.
+		 * @return the number of dropped channels
+		 */
+		public long discards()
+		{
+			return discards.sum();
+		}
+	}
+
+	private final Deque< CommChannel > idleChannels = new ArrayDeque<>();
+	private CommChannel sharedChannel = null;
+	private int sharedChannelUsers = 0;
+	private final int minIdleSize;
+	private final int maxIdleSize;
+	private final Statistics statistics;
+
+	CommChannelPool( int minIdleSize, int maxIdleSize, Statistics statistics )
+	{
+		this.minIdleSize = minIdleSize;
+		this.maxIdleSize = maxIdleSize;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Takes a healthy idle channel out of this pool.
+	 * Channels that have been closed, also by the other endpoint, are discarded.
+	 * @return a channel ready to be used, or {@code null} if none is available
+	 */
+	synchronized CommChannel acquire()
+	{
+		if ( sharedChannel != null ) {
+			if ( sharedChannel.isOpen() ) {
+				cancelTimeout( sharedChannel );
+				sharedChannelUsers++;
+				statistics.hits.increment();
+				return sharedChannel;
+			}
+			sharedChannel = null;
+			sharedChannelUsers = 0;
+			statistics.discards.increment();
+		}
+
+		final Iterator< CommChannel > it = idleChannels.iterator();
+		while( it.hasNext() ) {
+			final CommChannel channel = it.next();
+			// A channel may still be locked by the thread releasing it, which owns it until then
+			if ( channel.lock.tryLock() ) {
+				try {
+					it.remove();
+					cancelTimeout( channel );
+					if ( channel.isOpen() ) {
+						statistics.hits.increment();
+						return channel;
+					}
+					statistics.discards.increment();
+				} finally {
+					channel.lock.unlock();
+				}
+			}
+		}
+		statistics.misses.increment();
+		return null;
+	}
+
+	/**
+	 * Puts a channel back into this pool.
+	 * @param channel the channel to put back
+	 * @return {@code true} if the channel has been pooled, {@code false} if the pool is full
+	 */
+	synchronized boolean release( CommChannel channel )
+	{
+		if ( channel == sharedChannel ) {
+			if ( sharedChannelUsers > 0 ) {
+				sharedChannelUsers--;
+			}
+			return true;
+		}
+		if ( sharedChannel == null && channel.isMultiplexed() ) {
+			sharedChannel = channel;
+			return true;
+		}
+		if ( idleChannels.contains( channel ) ) {
+			return true;
+		}
+		if ( idleChannels.size() >= maxIdleSize ) {
+			statistics.discards.increment();
+			return false;
+		}
+		idleChannels.addFirst( channel );
+		return true;
+	}
+
+	/**
+	 * Removes an idle channel from this pool, unless this would
+	 * shrink the pool below its minimum size.
+	 * @param channel the channel to remove
+	 * @return {@code true} if the channel has been removed and should be closed
+	 */
+	synchronized boolean evict( CommChannel channel )
+	{
+		if ( channel == sharedChannel ) {
+			if ( sharedChannelUsers == 0 && idleSize() > minIdleSize ) {
+				sharedChannel = null;
+				statistics.evictions.increment();
+				return true;
+			}
+			return false;
+		}
+		if ( idleSize() > minIdleSize && idleChannels.remove( channel ) ) {
+			statistics.evictions.increment();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns {@code true} if the channel is idle in this pool.
+	 * @param channel the channel to check
+	 * @return {@code true} if the channel is idle in this pool
+	 */
+	synchronized boolean isIdle( CommChannel channel )
+	{
+		if ( channel == sharedChannel ) {
+			return sharedChannelUsers == 0;
+		}
+		return idleChannels.contains( channel );
+	}
+
+	/**
+	 * Returns the number of idle channels in this pool, counting the shared channel if there is one.
+	 * @return the number of idle channels in this pool
+	 */
+	public synchronized int idleSize()
+	{
+		return idleChannels.size() + ( sharedChannel == null ? 0 : 1 );
+	}
+
+	// If we return a channel, make sure it will not timeout!
+	private static void cancelTimeout( CommChannel channel )
+	{
+		if ( channel.timeoutHandler() != null ) {
+			channel.timeoutHandler().cancel();
+			channel.setTimeoutHandler( null );
+		}
+	}
+}
@@ -25,6 +25,7 @@ package jolie.net;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
@@ -45,12 +46,14 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import jolie.Interpreter;
 import jolie.JolieThreadPoolExecutor;
 import jolie.NativeJolieThread;
+import jolie.VirtualThreadContext;
 import jolie.lang.Constants;
 import jolie.net.ext.CommChannelFactory;
 import jolie.net.ext.CommListenerFactory;
@@ -80,6 +83,7 @@ public class CommCore
 {
 	private final Map< String, CommListener > listenersMap = new HashMap<>();
 	private final static int CHANNEL_HANDLER_TIMEOUT = 5;
+	private final static int READ_BUFFER_SIZE = 16 * 1024;
 	private final ThreadGroup threadGroup;
 
 	private static final Logger logger = Logger.getLogger( "JOLIE" );
@@ -89,89 +93,59 @@ public class CommCore
 	private final ReadWriteLock channelHandlersLock = new ReentrantReadWriteLock( true );
 	private SelectorThread[] selectorThreads;
 
-	// Location URI -> Protocol name -> Persistent CommChannel object
-	private final Map< URI, Map< String, CommChannel > > persistentChannels = new HashMap<>();
+	// Location URI -> Protocol name -> Pool of persistent CommChannel objects
+	private final Map< URI, Map< String, CommChannelPool > > persistentChannels = new HashMap<>();
+	private final CommChannelPool.Statistics persistentChannelStatistics = new CommChannelPool.Statistics();
+	private final int connectionsCacheSize;
+	private final int connectionsCacheMinSize;
 
-	private void removePersistentChannel( URI location, String protocol, Map< String, CommChannel > protocolChannels )
-	{		
-		protocolChannels.remove( protocol );
-		if ( protocolChannels.isEmpty() ) {
-			persistentChannels.remove( location );
-		}
-	}
-	
-	private void removePersistentChannel( URI location, String protocol, CommChannel channel )
+	private CommChannelPool getPersistentChannelPool( URI location, String protocol )
 	{
-		if ( persistentChannels.containsKey( location ) ) {
-			if ( persistentChannels.get( location ).get( protocol ) == channel ) {
-				removePersistentChannel( location, protocol, persistentChannels.get( location ) );
-			}
+		synchronized( persistentChannels ) {
+			return persistentChannels
+				.computeIfAbsent( location, k -> new HashMap<>() )
+				.computeIfAbsent( protocol, k -> new CommChannelPool( connectionsCacheMinSize, connectionsCacheSize, persistentChannelStatistics ) );
 		}
 	}
 
-	public CommChannel getPersistentChannel( URI location, String protocol )
+	private void removePersistentChannelPool( URI location, String protocol, CommChannelPool pool )
 	{
-		CommChannel ret = null;
 		synchronized( persistentChannels ) {
-			Map< String, CommChannel > protocolChannels = persistentChannels.get( location );
-			if ( protocolChannels != null ) {
-				ret = protocolChannels.get( protocol );
-				if ( ret != null ) {
-					if ( ret.lock.tryLock() ) {
-						if ( ret.isOpen() ) {
-							/*
-							 * We are going to return this channel, but first
-							 * check if it supports concurrent use.
-							 * If not, then others should not access this until
-							 * the caller is finished using it.
-							 */
-							//if ( ret.isThreadSafe() == false ) {
-							removePersistentChannel( location, protocol, protocolChannels );
-							//} else {
-							// If we return a channel, make sure it will not timeout!
-							ret.setTimeoutHandler( null );
-							//if ( ret.timeoutHandler() != null ) {
-								//interpreter.removeTimeoutHandler( ret.timeoutHandler() );
-								// ret.setTimeoutHandler( null );
-							//}
-							//}
-							ret.lock.unlock();
-						} else { // Channel is closed
-							removePersistentChannel( location, protocol, protocolChannels );
-							ret.lock.unlock();
-							ret = null;
-						}
-					} else { // Channel is busy
-						removePersistentChannel( location, protocol, protocolChannels );
-						ret = null;
-					}
+			Map< String, CommChannelPool > protocolPools = persistentChannels.get( location );
+			if ( protocolPools != null && protocolPools.get( protocol ) == pool && pool.idleSize() == 0 ) {
+				protocolPools.remove( protocol );
+				if ( protocolPools.isEmpty() ) {
+					persistentChannels.remove( location );
 				}
 			}
 		}
-
-		return ret;
 	}
 
-	private void setTimeoutHandler( final CommChannel channel, final URI location, final String protocol )
+	public CommChannel getPersistentChannel( URI location, String protocol )
 	{
-		/*if ( channel.timeoutHandler() != null ) {
-			interpreter.removeTimeoutHandler( channel.timeoutHandler() );
-		}*/
+		return getPersistentChannelPool( location, protocol ).acquire();
+	}
 
+	private void setTimeoutHandler( final CommChannel channel, final URI location, final String protocol, final CommChannelPool pool )
+	{
 		final TimeoutHandler handler = new TimeoutHandler( interpreter.persistentConnectionTimeout() ) {
 			@Override
 			public void onTimeout()
 			{
-				try {
-					synchronized( persistentChannels ) {
-						if ( channel.timeoutHandler() == this ) {
-							removePersistentChannel( location, protocol, channel );
-							channel.close();
-							channel.setTimeoutHandler( null );
-						}
+				if ( channel.timeoutHandler() != this ) {
+					return;
+				}
+				if ( pool.evict( channel ) ) {
+					channel.setTimeoutHandler( null );
+					removePersistentChannelPool( location, protocol, pool );
+					try {
+						channel.close();
+					} catch( IOException e ) {
+						interpreter.logSevere( e );
 					}
-				} catch( IOException e ) {
-					interpreter.logSevere( e );
+				} else if ( pool.isIdle( channel ) ) {
+					// The pool is at its minimum size, keep the channel around
+					setTimeoutHandler( channel, location, protocol, pool );
 				}
 			}
 		};
@@ -180,34 +154,41 @@ public class CommCore
 	}
 
 	public void putPersistentChannel( URI location, String protocol, final CommChannel channel )
+		throws IOException
+	{
+		final CommChannelPool pool = getPersistentChannelPool( location, protocol );
+		if ( pool.release( channel ) ) {
+			setTimeoutHandler( channel, location, protocol, pool );
+		} else {
+			// The pool is full
+			channel.close();
+		}
+	}
+
+	/**
+	 * Returns the usage statistics of the persistent channel pools of this CommCore.
+	 * @return the usage statistics of the persistent channel pools of this CommCore
+	 */
+	public CommChannelPool.Statistics persistentChannelStatistics()
+	{
+		return persistentChannelStatistics;
+	}
+
+	/**
+	 * Returns the number of idle persistent channels currently held by this CommCore.
+	 * @return the number of idle persistent channels currently held by this CommCore
+	 */
+	public int idlePersistentChannels()
 	{
+		int ret = 0;
 		synchronized( persistentChannels ) {
-			Map< String, CommChannel > protocolChannels = persistentChannels.get( location );
-			if ( protocolChannels == null ) {
-				protocolChannels = new HashMap<>();
-				persistentChannels.put( location, protocolChannels );
-			}
-			// Set the timeout
-			setTimeoutHandler( channel, location, protocol );
-			// Put the protocol in the cache (may overwrite another one)
-			protocolChannels.put( protocol, channel );
-			/*if ( protocolChannels.size() <= connectionCacheSize && protocolChannels.containsKey( protocol ) == false ) {
-				// Set the timeout
-				setTimeoutHandler( channel );
-				// Put the protocol in the cache
-				protocolChannels.put( protocol, channel );
-			} else {
-				try {
-					if ( protocolChannels.get( protocol ) != channel ) {
-						channel.close();
-					} else {
-						setTimeoutHandler( channel );
-					}
-				} catch( IOException e ) {
-					interpreter.logWarning( e );
+			for( Map< String, CommChannelPool > protocolPools : persistentChannels.values() ) {
+				for( CommChannelPool pool : protocolPools.values() ) {
+					ret += pool.idleSize();
 				}
-			}*/
+			}
 		}
+		return ret;
 	}
 
 	/**
@@ -223,14 +204,18 @@ public class CommCore
 	 * Constructor.
 	 * @param interpreter the Interpreter to refer to for this CommCore operations
 	 * @param connectionsLimit if more than zero, specifies an upper bound to the connections handled in parallel.
+	 * @param connectionsCacheSize the maximum number of idle persistent channels kept for each location and protocol
+	 * @param connectionsCacheMinSize the number of idle persistent channels for each location and protocol that are not closed by idle timeouts
+	 * @param virtualThreads if {@code true}, incoming communications are handled by virtual threads
 	 * @throws java.io.IOException
 	 */
-	public CommCore( Interpreter interpreter, int connectionsLimit /*, int connectionsCacheSize */ )
+	public CommCore( Interpreter interpreter, int connectionsLimit, int connectionsCacheSize, int connectionsCacheMinSize, boolean virtualThreads )
 		throws IOException
 	{
 		this.interpreter = interpreter;
 		this.connectionsLimit = connectionsLimit;
-		// this.connectionCacheSize = connectionsCacheSize;
+		this.connectionsCacheSize = connectionsCacheSize;
+		this.connectionsCacheMinSize = connectionsCacheMinSize;
 		this.threadGroup = new ThreadGroup( "CommCore-" + interpreter.hashCode() );
 		/* if ( connectionsLimit > 0 ) {
 			executorService = Executors.newFixedThreadPool( connectionsLimit, new CommThreadFactory() );
@@ -238,7 +223,11 @@ public class CommCore
 			executorService = Executors.newCachedThreadPool( new CommThreadFactory() );
 		}
 		*/
-		executorService = new JolieThreadPoolExecutor( new CommThreadFactory() );
+		if ( virtualThreads ) {
+			executorService = VirtualThreadContext.newExecutor( interpreter, "CommChannelHandler" );
+		} else {
+			executorService = new JolieThreadPoolExecutor( new CommThreadFactory() );
+		}
 		
 		//TODO make socket an extension, too?
 		CommListenerFactory listenerFactory = new SocketListenerFactory( this );
@@ -613,8 +602,7 @@ public class CommCore
 		@Override
 		public void run()
 		{
-			final CommChannelHandler thread = CommChannelHandler.currentThread();
-			thread.setExecutionThread( interpreter().initThread().getNewSessionThread() );
+			CommChannelHandler.setCurrentExecutionThread( interpreter().initThread().getNewSessionThread() );
 			channel.lock.lock();
 			channelHandlersLock.readLock().lock();
 			try {
@@ -654,7 +642,7 @@ public class CommCore
 				if ( channel.lock.isHeldByCurrentThread() ) {
 					channel.lock.unlock();
 				}
-				thread.setExecutionThread( null );
+				CommChannelHandler.setCurrentExecutionThread( null );
 			}
 		}
 	}
@@ -789,11 +777,15 @@ public class CommCore
 	
 	private class SelectorThread extends NativeJolieThread {
 		// We use a custom class for debugging purposes (the profiler gives us the class name)
-		private class SelectorMutex extends Object {}
+		private class SelectorMutex extends ReentrantLock {}
 		
 		private final Selector selector;
+		// Locks are used instead of monitors, so that virtual threads registering channels are not pinned
+		private final ReentrantLock selectorLock = new ReentrantLock();
 		private final SelectorMutex selectingMutex = new SelectorMutex();
 		private final Deque< Runnable > selectorTasks = new ArrayDeque<>();
+		// Shared by all the channels of this selector, which reads them one at a time
+		private final ByteBuffer readBuffer = ByteBuffer.allocateDirect( READ_BUFFER_SIZE );
 		
 		public SelectorThread( Interpreter interpreter )
 			throws IOException
@@ -806,19 +798,28 @@ public class CommCore
 			throws IOException
 		{
 			boolean keepRun;
-			synchronized( this ) {
+			selectorLock.lock();
+			try {
 				do {
+					// Whether some channel has been read or scheduled in this round
+					boolean progress = false;
 					for( final SelectionKey key : selectedKeys ) {
 						if ( key.isValid() ) {
 							final SelectableStreamingCommChannel channel = (SelectableStreamingCommChannel)key.attachment();
 							if ( channel.lock.tryLock() ) {
+								progress = true;
+								if ( !isInputReady( channel ) ) {
+									// Keep waiting for the rest of the message, without occupying a thread
+									channel.lock.unlock();
+									continue;
+								}
 								key.cancel();
 								selectorTasks.add( () -> {
 									try {
 										try {
 											try {
 												key.channel().configureBlocking( true );
-												if ( channel.isOpen() ) {
+												if ( channel.hasBufferedInput() || channel.isOpen() ) {
 													/*if ( channel.selectionTimeoutHandler() != null ) {
 														interpreter.removeTimeoutHandler( channel.selectionTimeoutHandler() );
 													}*/
@@ -844,20 +845,38 @@ public class CommCore
 							}
 						}
 					}
-					synchronized( selectingMutex ) {
-						if ( selector.selectNow() > 0 ) { // Clean up the cancelled keys
+					selectingMutex.lock();
+					try {
+						// Channels locked by other threads stay selected: do not spin on them while holding selectorLock,
+						// which the threads holding their locks may need for unregistering them
+						if ( progress && selector.selectNow() > 0 ) { // Clean up the cancelled keys
 							// If some new channels are selected, run again
 							selectedKeys = selector.selectedKeys().toArray( new SelectionKey[0] );
+							selector.selectedKeys().clear();
 							keepRun = true;
 						} else {
 							keepRun = false;
 						}
+					} finally {
+						selectingMutex.unlock();
 					}
 				} while( keepRun );
+			} finally {
+				selectorLock.unlock();
 			}
 			return selectorTasks;
 		}
 		
+		private boolean isInputReady( SelectableStreamingCommChannel channel )
+		{
+			try {
+				return channel.bufferInput( readBuffer );
+			} catch( IOException e ) {
+				// The receiving side will find out that the channel is broken
+				return true;
+			}
+		}
+
 		private void runTasks( Deque< Runnable > tasks )
 			throws IOException
 		{
@@ -873,9 +892,13 @@ public class CommCore
 			while( active ) {
 				try {
 					SelectionKey[] selectedKeys;
-					synchronized( selectingMutex ) {
+					selectingMutex.lock();
+					try {
 						selector.select();
 						selectedKeys = selector.selectedKeys().toArray( new SelectionKey[0] );
+						selector.selectedKeys().clear();
+					} finally {
+						selectingMutex.unlock();
 					}
 					final Deque< Runnable > tasks = runKeys( selectedKeys );
 					runTasks( tasks );
@@ -884,7 +907,8 @@ public class CommCore
 				}
 			}
 
-			synchronized( this ) {
+			selectorLock.lock();
+			try {
 				for( SelectionKey key : selector.keys() ) {
 					try {
 						((SelectableStreamingCommChannel)key.attachment()).closeImpl();
@@ -892,28 +916,36 @@ public class CommCore
 						interpreter.logWarning( e );
 					}
 				}
+			} finally {
+				selectorLock.unlock();
 			}
 		}
 		
 		public void register( SelectableStreamingCommChannel channel, int index )
 		{
 			try {
-				if ( channel.inputStream().available() > 0 ) {
+				if ( channel.inputStream().available() > 0 && channel.isBufferedMessageComplete() ) {
 					scheduleReceive( channel, channel.parentInputPort() );
 					return;
 				}
 
-				synchronized( this ) {
+				selectorLock.lock();
+				try {
 					if ( !isSelecting( channel ) ) {
 						selector.wakeup();
 						SelectableChannel c = channel.selectableChannel();
 						c.configureBlocking( false );
-						synchronized( selectingMutex ) {
+						selectingMutex.lock();
+						try {
 							c.register( selector, SelectionKey.OP_READ, channel );
 							selector.wakeup();
 							channel.setSelectorIndex( index );
+						} finally {
+							selectingMutex.unlock();
 						}
 					}
+				} finally {
+					selectorLock.unlock();
 				}
 			} catch( ClosedChannelException e ) {
 				interpreter.logWarning( e );
@@ -925,18 +957,24 @@ public class CommCore
 		public void unregister( SelectableStreamingCommChannel channel )
 			throws IOException
 		{
-			synchronized( this ) {
+			selectorLock.lock();
+			try {
 				if ( isSelecting( channel ) ) {
 					selector.wakeup();
-					synchronized( selectingMutex ) {
+					selectingMutex.lock();
+					try {
 						SelectionKey key = channel.selectableChannel().keyFor( selector );
 						if ( key != null ) {
 							key.cancel();
 						}
 						selector.selectNow();
+					} finally {
+						selectingMutex.unlock();
 					}
 					channel.selectableChannel().configureBlocking( true );
 				}
+			} finally {
+				selectorLock.unlock();
 			}
 		}
 	}
@@ -984,34 +1022,39 @@ public class CommCore
 	}
 
 	/** Shutdowns the communication core, interrupting every communication-related thread. */
-	public synchronized void shutdown( long timeout )
+	public void shutdown( long timeout )
 	{
-		if ( active ) {
+		// Do not wait for the termination of the handlers while holding the monitor:
+		// a handler running on a virtual thread would pin its carrier
+		synchronized( this ) {
+			if ( !active ) {
+				return;
+			}
 			active = false;
-			listenersMap.entrySet().forEach( ( entry ) -> {
-				entry.getValue().shutdown();
-			} );
-			
-			try {
-				for( SelectorThread t : selectorThreads() ) {
-					t.selector.wakeup();
-					try {
-						t.join();
-					} catch( InterruptedException e ) {}
-				}
-			} catch( IOException e ) {
-				interpreter.logSevere( e );
+		}
+		listenersMap.entrySet().forEach( ( entry ) -> {
+			entry.getValue().shutdown();
+		} );
+		
+		try {
+			for( SelectorThread t : selectorThreads() ) {
+				t.selector.wakeup();
+				try {
+					t.join();
+				} catch( InterruptedException e ) {}
 			}
-			
-			try {
-				channelHandlersLock.writeLock().tryLock( CHANNEL_HANDLER_TIMEOUT, TimeUnit.SECONDS );
-			} catch( InterruptedException e ) {}
-			executorService.shutdown();
-			try {
-				executorService.awaitTermination( interpreter.persistentConnectionTimeout(), TimeUnit.MILLISECONDS );
-			} catch( InterruptedException e ) {}
-			threadGroup.interrupt();
+		} catch( IOException e ) {
+			interpreter.logSevere( e );
 		}
+		
+		try {
+			channelHandlersLock.writeLock().tryLock( CHANNEL_HANDLER_TIMEOUT, TimeUnit.SECONDS );
+		} catch( InterruptedException e ) {}
+		executorService.shutdown();
+		try {
+			executorService.awaitTermination( interpreter.persistentConnectionTimeout(), TimeUnit.MILLISECONDS );
+		} catch( InterruptedException e ) {}
+		threadGroup.interrupt();
 	}
 
 	private boolean active = false;
@@ -28,6 +28,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 
+/**
+ * A buffered input stream whose buffer can be filled in advance with data
+ * that has already been read from the underlying stream.
+ *
+ * Reads are not synchronized on the stream monitor: channels already serialise
+ * the accesses to their streams, and holding a monitor while blocking on a read
+ * would pin a virtual thread to its carrier thread.
+ * @author Fabrizio Montesi
+ */
 public class PreBufferedInputStream extends BufferedInputStream
 {
 	private final static int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
@@ -37,11 +46,129 @@ public class PreBufferedInputStream extends BufferedInputStream
 		super( istream );
 	}
 
+	private byte[] getBufferIfOpen()
+		throws IOException
+	{
+		final byte[] buffer = buf;
+		if ( buffer == null || in == null ) {
+			throw new IOException( "Stream closed" );
+		}
+		return buffer;
+	}
+
+	private void fill()
+		throws IOException
+	{
+		final byte[] buffer = getBufferIfOpen();
+		pos = 0;
+		count = 0;
+		final int n = in.read( buffer, 0, buffer.length );
+		if ( n > 0 ) {
+			count = n;
+		}
+	}
+
+	@Override
+	public int read()
+		throws IOException
+	{
+		if ( pos >= count ) {
+			fill();
+			if ( pos >= count ) {
+				return -1;
+			}
+		}
+		return getBufferIfOpen()[ pos++ ] & 0xff;
+	}
+
+	@Override
+	public int read( byte[] b, int off, int len )
+		throws IOException
+	{
+		final byte[] buffer = getBufferIfOpen();
+		if ( (off | len | (off + len) | (b.length - (off + len))) < 0 ) {
+			throw new IndexOutOfBoundsException();
+		} else if ( len == 0 ) {
+			return 0;
+		}
+
+		int available = count - pos;
+		if ( available <= 0 ) {
+			if ( len >= buffer.length ) {
+				// Do not bother copying through the buffer
+				return in.read( b, off, len );
+			}
+			fill();
+			available = count - pos;
+			if ( available <= 0 ) {
+				return -1;
+			}
+		}
+		final int n = Math.min( available, len );
+		System.arraycopy( buf, pos, b, off, n );
+		pos += n;
+		return n;
+	}
+
+	@Override
+	public long skip( long n )
+		throws IOException
+	{
+		getBufferIfOpen();
+		if ( n <= 0 ) {
+			return 0;
+		}
+		final long available = count - pos;
+		if ( available <= 0 ) {
+			return in.skip( n );
+		}
+		final long skipped = Math.min( available, n );
+		pos += skipped;
+		return skipped;
+	}
+
+	@Override
+	public int available()
+		throws IOException
+	{
+		final int cached = count - pos;
+		getBufferIfOpen();
+		final int available = in.available();
+		return cached > Integer.MAX_VALUE - available ? Integer.MAX_VALUE : cached + available;
+	}
+
+	@Override
+	public boolean markSupported()
+	{
+		return false;
+	}
+
+	@Override
+	public void mark( int readlimit )
+	{}
+
+	@Override
+	public void reset()
+		throws IOException
+	{
+		throw new IOException( "mark/reset not supported" );
+	}
+
 	public boolean hasCachedData()
 	{
 		return pos < count;
 	}
 
+	/**
+	 * Returns a read-only view of the cached data that has not been read yet.
+	 * The view is valid until the next operation on this stream.
+	 * @return a read-only view of the cached data
+	 */
+	public ByteBuffer cachedData()
+	{
+		return ByteBuffer.wrap( buf, pos, count - pos ).asReadOnlyBuffer();
+	}
+
 	public void append( ByteBuffer b )
 	{
 		final int bufferSize = b.remaining();
@@ -24,6 +24,7 @@ package jolie.net;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import jolie.Interpreter;
 import jolie.net.protocols.CommProtocol;
@@ -70,6 +71,40 @@ public abstract class SelectableStreamingCommChannel extends StreamingCommChanne
 	 */
 	abstract public SelectableChannel selectableChannel();
 
+	/**
+	 * Called by a selector when this channel is readable, while it is still in
+	 * non-blocking mode. Implementations can read the available data in advance
+	 * and ask to keep waiting until a whole message has been received.
+	 * @param buffer a buffer owned by the selector, usable only during this call
+	 * @return {@code true} if this channel must be handed to a receiving thread,
+	 * {@code false} if it must wait for more data
+	 * @throws IOException if reading from this channel failed
+	 */
+	protected boolean bufferInput( ByteBuffer buffer )
+		throws IOException
+	{
+		return true;
+	}
+
+	/**
+	 * Returns {@code true} if the data received by this channel that has not
+	 * been read yet starts with a complete message, or if this cannot be determined.
+	 * @return {@code true} unless this channel knows it must wait for more data
+	 */
+	protected boolean isBufferedMessageComplete()
+	{
+		return true;
+	}
+
+	/**
+	 * Returns {@code true} if this channel has received data that has not been read yet.
+	 * @return {@code true} if this channel has received data that has not been read yet
+	 */
+	protected boolean hasBufferedInput()
+	{
+		return false;
+	}
+
 	@Override
 	public final void send( CommMessage message )
 		throws IOException
@@ -30,6 +30,7 @@ public class SessionMessage
 {
 	private final CommMessage message;
 	private final CommChannel channel;
+	private final long creationTime = System.nanoTime();
 
 	public SessionMessage( CommMessage message, CommChannel channel )
 	{
@@ -37,6 +38,25 @@ public class SessionMessage
 		this.channel = channel;
 	}
 
+	/**
+	 * Returns the time at which this message was routed to a session,
+	 * as given by {@link System#nanoTime()}.
+	 * @return the time at which this message was routed to a session
+	 */
+	public long creationTime()
+	{
+		return creationTime;
+	}
+
+	/**
+	 * Returns the name of the input port that received this message.
+	 * @return the name of the input port that received this message, or the empty string if unknown
+	 */
+	public String inputPortName()
+	{
+		return channel == null || channel.parentInputPort() == null ? "" : channel.parentInputPort().name();
+	}
+
 	public CommMessage message()
 	{
 		return message;
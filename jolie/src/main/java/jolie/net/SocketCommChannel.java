@@ -46,6 +46,7 @@ public class SocketCommChannel extends SelectableStreamingCommChannel
 	private final SocketChannel socketChannel;
 	private final PreBufferedInputStream istream;
 	private final OutputStream ostream;
+	private final boolean multiplexed;
 	
 	private static final int SO_LINGER = 10000;
 	
@@ -60,13 +61,39 @@ public class SocketCommChannel extends SelectableStreamingCommChannel
 	 */
 	public SocketCommChannel( SocketChannel socketChannel, URI location, CommProtocol protocol )
 		throws IOException
+	{
+		this( socketChannel, location, protocol, false );
+	}
+
+	/** Constructor.
+	 * 
+	 * @param socketChannel the SocketChannel underlying this SocketCommChannel
+	 * @param location the location for this channel
+	 * @param protocol the CommProtocol to use to send and receive messages
+	 * @param multiplexed whether this channel is multiplexed, see {@link CommChannel#isMultiplexed()}
+	 * @throws java.io.IOException
+	 * @see CommProtocol
+	 * @see SocketChannel
+	 */
+	public SocketCommChannel( SocketChannel socketChannel, URI location, CommProtocol protocol, boolean multiplexed )
+		throws IOException
 	{
 		super( location, protocol );
 		this.socketChannel = socketChannel;
+		this.multiplexed = multiplexed;
 		socketChannel.socket().setSoLinger( true, SO_LINGER );
-		// this.istream = new PreBufferedInputStream( new BufferedInputStream( Channels.newInputStream( socketChannel ) ) );
-		this.istream = new PreBufferedInputStream( Channels.newInputStream( socketChannel ) );
-		this.ostream = new BufferedOutputStream( Channels.newOutputStream( socketChannel ) );
+		if ( multiplexed ) {
+			/*
+			 * The streams of the socket adaptor can be read and written concurrently,
+			 * whereas those returned by Channels hold the same lock for both.
+			 */
+			this.istream = new PreBufferedInputStream( socketChannel.socket().getInputStream() );
+			this.ostream = new BufferedOutputStream( socketChannel.socket().getOutputStream() );
+		} else {
+			// this.istream = new PreBufferedInputStream( new BufferedInputStream( Channels.newInputStream( socketChannel ) ) );
+			this.istream = new PreBufferedInputStream( Channels.newInputStream( socketChannel ) );
+			this.ostream = new BufferedOutputStream( Channels.newOutputStream( socketChannel ) );
+		}
 		setToBeClosed( false ); // Socket connections are kept open by default
 	}
 	
@@ -80,6 +107,12 @@ public class SocketCommChannel extends SelectableStreamingCommChannel
 		return socketChannel;
 	}
 	
+	@Override
+	public boolean isMultiplexed()
+	{
+		return multiplexed;
+	}
+
 	@Override
 	public InputStream inputStream()
 	{
@@ -132,6 +165,43 @@ public class SocketCommChannel extends SelectableStreamingCommChannel
 		socketChannel.close();
 	}
 	
+	@Override
+	protected boolean bufferInput( ByteBuffer buffer )
+		throws IOException
+	{
+		if ( multiplexed ) {
+			return true;
+		}
+
+		int read;
+		do {
+			buffer.clear();
+			read = socketChannel.read( buffer );
+			if ( read > 0 ) {
+				buffer.flip();
+				istream.append( buffer );
+			}
+		} while( read == buffer.capacity() );
+
+		if ( read == -1 ) {
+			// Let the receiving side deal with the closed connection
+			return true;
+		}
+		return istream.hasCachedData() && isBufferedMessageComplete();
+	}
+
+	@Override
+	protected boolean isBufferedMessageComplete()
+	{
+		return multiplexed || protocol().isMessageComplete( istream.cachedData() );
+	}
+
+	@Override
+	protected boolean hasBufferedInput()
+	{
+		return istream.hasCachedData();
+	}
+
 	private final ByteBuffer buffer = ByteBuffer.allocateDirect( 1024 );
 	
 	private boolean _isOpenImpl()
@@ -175,6 +245,10 @@ public class SocketCommChannel extends SelectableStreamingCommChannel
 		if ( socketChannel.isConnected() == false || socketChannel.isOpen() == false ) {
 			return false;
 		}
+		if ( multiplexed ) {
+			// The response receiver may be reading: it closes the channel when the connection is lost
+			return true;
+		}
 
 		final boolean ret;
 		try {
@@ -28,6 +28,7 @@ import java.net.URISyntaxException;
 import java.nio.channels.SocketChannel;
 import jolie.net.ext.CommChannelFactory;
 import jolie.net.ports.OutputPort;
+import jolie.net.protocols.CommProtocol;
 
 /**
  * A <code>CommChannelFactory</code> using TCP/IP sockets as backend.
@@ -46,7 +47,8 @@ public class SocketCommChannelFactory extends CommChannelFactory
 		SocketChannel channel = SocketChannel.open( new InetSocketAddress( location.getHost(), location.getPort() ) );
 		SocketCommChannel ret = null;
 		try {
-			ret = new SocketCommChannel( channel, location, port.getProtocol() );
+			final CommProtocol protocol = port.getProtocol();
+			ret = new SocketCommChannel( channel, location, protocol, protocol.isMultiplexed() );
 		} catch( URISyntaxException e ) {
 			throw new IOException( e );
 		}
@@ -80,12 +80,13 @@ public class SocketListener extends CommListener
 		try {
 			SocketChannel socketChannel;
 			while ( (socketChannel = serverChannel.accept()) != null ) {
-				final CommChannel channel = new SocketCommChannel(
+				final SocketCommChannel channel = new SocketCommChannel(
 							socketChannel,
 							inputPort().location(),
 							createProtocol() );
 				channel.setParentInputPort( inputPort() );
-				interpreter().commCore().scheduleReceive( channel, inputPort() );
+				// Wait for the first message without occupying a thread
+				interpreter().commCore().registerForSelection( channel );
 			}
 		} catch( ClosedByInterruptException e ) {
 			try {
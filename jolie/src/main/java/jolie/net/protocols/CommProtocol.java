@@ -25,6 +25,7 @@ package jolie.net.protocols;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import jolie.net.AbstractCommChannel;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
@@ -234,4 +235,31 @@ public abstract class CommProtocol
 		throws IOException;
 
 	abstract public boolean isThreadSafe();
+
+	/**
+	 * Returns {@code true} if this protocol, used by an output port, should
+	 * multiplex concurrent requests over a single channel.
+	 * Multiplexed protocols must be thread safe and must send responses
+	 * with the same message identifiers of their requests.
+	 * @return {@code true} if this protocol should multiplex concurrent requests
+	 */
+	public boolean isMultiplexed()
+	{
+		return false;
+	}
+
+	/**
+	 * Returns {@code true} if the passed data, received by the channel of this
+	 * protocol, starts with a complete message.
+	 * Selectable channels wait for their messages to be complete before
+	 * handing them to a receiving thread, so that slow senders do not keep
+	 * threads busy. The default implementation cannot recognise the end of
+	 * messages and always returns {@code true}.
+	 * @param data the received data that has not been consumed yet, which must not be modified
+	 * @return {@code true} if the data starts with a complete message or its end cannot be determined
+	 */
+	public boolean isMessageComplete( ByteBuffer data )
+	{
+		return true;
+	}
 }
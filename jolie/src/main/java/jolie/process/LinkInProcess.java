@@ -21,6 +21,9 @@
 
 package jolie.process;
 
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.net.CommChannel;
@@ -35,6 +38,8 @@ public class LinkInProcess implements Process
 	{
 		private CommMessage message = null;
 		private final LinkInProcess parent;
+		private final Lock lock = new ReentrantLock();
+		private final Condition messageReceived = lock.newCondition();
 		
 		public Execution( LinkInProcess parent )
 		{
@@ -47,23 +52,33 @@ public class LinkInProcess implements Process
 			InternalLink link = InternalLink.getById( parent.linkId );
 			try {
 				link.signForMessage( this );
-				synchronized( this ) {
+				lock.lock();
+				try {
 					if( message == null && !Interpreter.getInstance().exiting() ) {
 						ExecutionThread ethread = ExecutionThread.currentThread();
 						ethread.setCanBeInterrupted( true );
-						this.wait();
+						while( message == null ) {
+							messageReceived.await();
+						}
 						ethread.setCanBeInterrupted( false );
 					}
+				} finally {
+					lock.unlock();
 				}
 			} catch( InterruptedException ie ) {
 				link.cancelWaiting( this );
 			}
 		}
 
-		public synchronized boolean recvMessage( CommChannel channel, CommMessage message )
+		public boolean recvMessage( CommChannel channel, CommMessage message )
 		{
-			this.message = message;
-			this.notify();
+			lock.lock();
+			try {
+				this.message = message;
+				messageReceived.signal();
+			} finally {
+				lock.unlock();
+			}
 			return true;
 		}
 		
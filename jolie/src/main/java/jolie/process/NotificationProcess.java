@@ -28,6 +28,7 @@ import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.lang.parse.context.ParsingContext;
+import jolie.monitoring.MetricsRegistry;
 import jolie.monitoring.events.OperationCallEvent;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
@@ -93,6 +94,9 @@ public class NotificationProcess implements Process
 			return;
 		}
 
+		final MetricsRegistry.OperationMetrics metrics = Interpreter.getInstance().metrics().outputOperation( outputPort.id(), operationId );
+		long startTime = 0L;
+		boolean awaitingResponse = false;
 		CommChannel channel = null;
 		try {
 			CommMessage message =
@@ -104,11 +108,13 @@ public class NotificationProcess implements Process
 				oneWayDescription.requestType().check( message.value() );
 				} catch( TypeCheckingException e ) {
 					if ( Interpreter.getInstance().isMonitoring() ) {
-						Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( message.id()).toString(), OperationCallEvent.FAULT, "TypeMismatch:" + e.getMessage(), outputPort.id(), message.value() ) );
+						Interpreter.getInstance().fireMonitorEvent( () -> new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( message.id()).toString(), OperationCallEvent.FAULT, "TypeMismatch:" + e.getMessage(), outputPort.id(), message.value() ) );
 					}
 					throw( e );
 				}
 			}
+			startTime = System.nanoTime();
+			awaitingResponse = true;
 			channel = outputPort.getCommChannel();
 
 			log( "SENDING", message );
@@ -117,7 +123,7 @@ public class NotificationProcess implements Process
 			
 			log( "SENT", message );
 			if ( Interpreter.getInstance().isMonitoring() ) {
-				Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( message.id()).toString(), OperationCallEvent.SUCCESS, "", outputPort.id(), message.value() ) );
+				Interpreter.getInstance().fireMonitorEvent( () -> new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( message.id()).toString(), OperationCallEvent.SUCCESS, "", outputPort.id(), message.value() ) );
 			}
 			
 			CommMessage response = null;
@@ -128,6 +134,8 @@ public class NotificationProcess implements Process
 					Interpreter.getInstance().logFine( e );
 				}
 			} while( response == null );
+			awaitingResponse = false;
+			metrics.record( System.nanoTime() - startTime, response.isFault() );
 			
 			log( "RECEIVED ACK", response );
 			
@@ -148,6 +156,9 @@ public class NotificationProcess implements Process
 		} catch( TypeCheckingException e ) {
 			throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME, "TypeMismatch (" + operationId + "@" + outputPort.id() + "): " + e.getMessage() );
 		} finally {
+			if ( awaitingResponse ) {
+				metrics.record( System.nanoTime() - startTime, true );
+			}
 			if ( channel != null ) {
 				try {
 					channel.release();
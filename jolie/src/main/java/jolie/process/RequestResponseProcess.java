@@ -27,6 +27,7 @@ import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.lang.parse.context.ParsingContext;
+import jolie.monitoring.MetricsRegistry;
 import jolie.monitoring.events.OperationEndedEvent;
 import jolie.monitoring.events.OperationStartedEvent;
 import jolie.net.CommChannel;
@@ -109,7 +110,7 @@ public class RequestResponseProcess implements InputOperationProcess
 	public Process receiveMessage( final SessionMessage sessionMessage, jolie.State state )
 	{
 		if ( Interpreter.getInstance().isMonitoring() && !isSessionStarter ) {
-			Interpreter.getInstance().fireMonitorEvent( new OperationStartedEvent( operation.id(), ExecutionThread.currentThread().getSessionId(), Long.valueOf( sessionMessage.message().id()).toString(), sessionMessage.message().value() ) );
+			Interpreter.getInstance().fireMonitorEvent( () -> new OperationStartedEvent( operation.id(), ExecutionThread.currentThread().getSessionId(), Long.valueOf( sessionMessage.message().id()).toString(), sessionMessage.message().value() ) );
 		}
 
 		log( "RECEIVED", sessionMessage.message() );
@@ -121,7 +122,7 @@ public class RequestResponseProcess implements InputOperationProcess
 			public void run()
 				throws FaultException, ExitingException
 			{
-				runBehaviour( sessionMessage.channel(), sessionMessage.message() );
+				runBehaviour( sessionMessage );
 			}
 
 			public Process copy( TransformationReason reason )
@@ -185,9 +186,14 @@ public class RequestResponseProcess implements InputOperationProcess
 		return CommMessage.createFaultResponse( request, f );
 	}
 	
-	private void runBehaviour( CommChannel channel, CommMessage message )
+	private void runBehaviour( SessionMessage sessionMessage )
 		throws FaultException
 	{
+		final CommChannel channel = sessionMessage.channel();
+		final CommMessage message = sessionMessage.message();
+		final MetricsRegistry.OperationMetrics metrics =
+			Interpreter.getInstance().metrics().inputOperation( sessionMessage.inputPortName(), operation.id() );
+
 		// Variables for monitor
 		int responseStatus;
 		String details;
@@ -251,6 +257,7 @@ public class RequestResponseProcess implements InputOperationProcess
 
 		try {
 			channel.send( response );
+			metrics.record( System.nanoTime() - sessionMessage.creationTime(), response.isFault() );
 			Value monitorValue;
 			if ( response.isFault() ) {
 				log( "SENT FAULT", response );					
@@ -260,10 +267,14 @@ public class RequestResponseProcess implements InputOperationProcess
 				monitorValue = response.value();
 			}
 			if ( Interpreter.getInstance().isMonitoring() ) {
-				Interpreter.getInstance().fireMonitorEvent( new OperationEndedEvent( operation.id(), ExecutionThread.currentThread().getSessionId(), Long.toString( response.id() ), responseStatus, details, monitorValue ));
+				final String messageId = Long.toString( response.id() );
+				final int status = responseStatus;
+				final String statusDetails = details;
+				Interpreter.getInstance().fireMonitorEvent( () -> new OperationEndedEvent( operation.id(), ExecutionThread.currentThread().getSessionId(), messageId, status, statusDetails, monitorValue ));
 			}
 		} catch( IOException e ) {
 			//Interpreter.getInstance().logSevere( e );
+			metrics.record( System.nanoTime() - sessionMessage.creationTime(), true );
 			throw new FaultException( Constants.IO_EXCEPTION_FAULT_NAME, e );
 		} finally {
 			try {
@@ -24,12 +24,14 @@ package jolie.process;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.lang.parse.context.ParsingContext;
+import jolie.monitoring.MetricsRegistry;
 import jolie.monitoring.events.OperationCallEvent;
 import jolie.monitoring.events.OperationReplyEvent;
 import jolie.net.CommChannel;
@@ -105,6 +107,9 @@ public class SolicitResponseProcess implements Process
 		if ( ExecutionThread.currentThread().isKilled() ) {
 			return;
 		}
+		final MetricsRegistry.OperationMetrics metrics = Interpreter.getInstance().metrics().outputOperation( outputPort.id(), operationId );
+		long startTime = 0L;
+		boolean awaitingResponse = false;
 		CommChannel channel = null;
 		try {
 
@@ -126,25 +131,32 @@ public class SolicitResponseProcess implements Process
 					tmpValue.setValue(e.getMessage());
 					log( "TYPE MISMATCH", new CommMessage(message.id(),message.operationName(), message.resourcePath(),tmpValue, null ));
 					if ( Interpreter.getInstance().isMonitoring() ) {
-						Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.toString( message.id() ), OperationCallEvent.FAULT, "TypeMismatch:" + e.getMessage(), outputPort.id(), message.value() ) );
+						Interpreter.getInstance().fireMonitorEvent( () -> new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.toString( message.id() ), OperationCallEvent.FAULT, "TypeMismatch:" + e.getMessage(), outputPort.id(), message.value() ) );
 					}
 
 					throw( e );
 				}
 			}
 
+			startTime = System.nanoTime();
+			awaitingResponse = true;
 			channel = outputPort.getCommChannel();
 			channel.send( message );
 			//channel.release(); TODO release channel if possible (i.e. it will not be closed)
 			log( "SENT", message );
 			if ( Interpreter.getInstance().isMonitoring() ) {
-				Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.toString ( message.id() ), OperationCallEvent.SUCCESS, "", outputPort.id(), message.value() ) );
+				Interpreter.getInstance().fireMonitorEvent( () -> new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.toString ( message.id() ), OperationCallEvent.SUCCESS, "", outputPort.id(), message.value() ) );
 			}
 
 			CommMessage response = null;
 			do {
+				final Future< CommMessage > futureResponse = channel.recvResponseFor( message );
 				try {
-					response = channel.recvResponseFor( message ).get( Interpreter.getInstance().responseTimeout(), TimeUnit.MILLISECONDS );
+					response = futureResponse.get( Interpreter.getInstance().responseTimeout(), TimeUnit.MILLISECONDS );
+				} catch( TimeoutException e ) {
+					// Stop waiting, so that the channel does not keep track of this request
+					futureResponse.cancel( false );
+					throw e;
 				} catch( InterruptedException e ) {
 					throw new IOException( e );
 				} catch( ExecutionException e ) {
@@ -155,7 +167,10 @@ public class SolicitResponseProcess implements Process
 					}
 				}
 			} while( response == null );
+			awaitingResponse = false;
+			metrics.record( System.nanoTime() - startTime, response.isFault() );
 			log( "RECEIVED", response );
+			final CommMessage reply = response;
 
 			if ( inputVarPath != null ) {
 				inputVarPath.setValue( response.value() );
@@ -167,17 +182,17 @@ public class SolicitResponseProcess implements Process
 					try {
 						faultType.check( response.fault().value() );
 						if ( Interpreter.getInstance().isMonitoring() ) {
-							Interpreter.getInstance().fireMonitorEvent( new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( response.id()).toString(), OperationReplyEvent.FAULT, response.fault().faultName(), outputPort.id(), response.fault().value() ) );
+							Interpreter.getInstance().fireMonitorEvent( () -> new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( reply.id()).toString(), OperationReplyEvent.FAULT, reply.fault().faultName(), outputPort.id(), reply.fault().value() ) );
 						}
 					} catch( TypeCheckingException e ) {
 						if ( Interpreter.getInstance().isMonitoring() ) {
-							Interpreter.getInstance().fireMonitorEvent( new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( response.id()).toString(), OperationReplyEvent.FAULT, "TypeMismatch on fault:" + response.fault().faultName() + "." + e.getMessage(), outputPort.id(), response.fault().value() ) );
+							Interpreter.getInstance().fireMonitorEvent( () -> new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( reply.id()).toString(), OperationReplyEvent.FAULT, "TypeMismatch on fault:" + reply.fault().faultName() + "." + e.getMessage(), outputPort.id(), reply.fault().value() ) );
 						}
 						throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME, "Received fault " + response.fault().faultName() + " TypeMismatch (" + operationId + "@" + outputPort.id() + "): " + e.getMessage() );
 					}
 				} else {
 					if ( Interpreter.getInstance().isMonitoring() ) {
-						Interpreter.getInstance().fireMonitorEvent( new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( response.id()).toString(), OperationReplyEvent.FAULT, response.fault().faultName(), outputPort.id(), response.fault().value() ) );
+						Interpreter.getInstance().fireMonitorEvent( () -> new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( reply.id()).toString(), OperationReplyEvent.FAULT, reply.fault().faultName(), outputPort.id(), reply.fault().value() ) );
 					}
 				}
 				throw response.fault();
@@ -186,17 +201,17 @@ public class SolicitResponseProcess implements Process
 					try {
 						types.responseType().check( response.value() );
 						if ( Interpreter.getInstance().isMonitoring() ) {
-							Interpreter.getInstance().fireMonitorEvent( new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( response.id()).toString(), OperationReplyEvent.SUCCESS, "", outputPort.id(), response.value() ) );
+							Interpreter.getInstance().fireMonitorEvent( () -> new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( reply.id()).toString(), OperationReplyEvent.SUCCESS, "", outputPort.id(), reply.value() ) );
 						}
 					} catch( TypeCheckingException e ) {
 						if ( Interpreter.getInstance().isMonitoring() ) {
-							Interpreter.getInstance().fireMonitorEvent( new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( response.id()).toString(), OperationReplyEvent.FAULT, e.getMessage(), outputPort.id(), response.value() ) );
+							Interpreter.getInstance().fireMonitorEvent( () -> new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( reply.id()).toString(), OperationReplyEvent.FAULT, e.getMessage(), outputPort.id(), reply.value() ) );
 						}
 						throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME, "Received message TypeMismatch (" + operationId + "@" + outputPort.id() + "): " + e.getMessage() );
 					}
 				} else {
 					if ( Interpreter.getInstance().isMonitoring() ) {
-				        Interpreter.getInstance().fireMonitorEvent( new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( response.id()).toString(), OperationReplyEvent.SUCCESS, "", outputPort.id(), response.value() ) );
+				        Interpreter.getInstance().fireMonitorEvent( () -> new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( reply.id()).toString(), OperationReplyEvent.SUCCESS, "", outputPort.id(), reply.value() ) );
 			        }
 				}
 			}
@@ -213,6 +228,9 @@ public class SolicitResponseProcess implements Process
 		} catch( TypeCheckingException e ) {
 			throw new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME, "Output message TypeMismatch (" + operationId + "@" + outputPort.id() + "): " + e.getMessage() );
 		} finally {
+			if ( awaitingResponse ) {
+				metrics.record( System.nanoTime() - startTime, true );
+			}
 			if ( channel != null ) {
 				try {
 					channel.release();
@@ -31,17 +31,20 @@ public class SpawnProcess implements Process
 	private final VariablePath indexPath;
 	private final VariablePath inPath; // may be null
 	private final Expression upperBound;
+	private final Expression chunkSize; // may be null
 	private final Process process;
 
 	public SpawnProcess(
 			VariablePath indexPath,
 			Expression upperBound,
+			Expression chunkSize,
 			VariablePath inPath,
 			Process process
 	) {
 		this.indexPath = indexPath;
 		this.inPath = inPath;
 		this.upperBound = upperBound;
+		this.chunkSize = chunkSize;
 		this.process = process;
 	}
 	
@@ -50,6 +53,7 @@ public class SpawnProcess implements Process
 		return new SpawnProcess(
 					(VariablePath) indexPath.cloneExpression( reason ),
 					upperBound.cloneExpression( reason ),
+					( chunkSize == null ) ? null : chunkSize.cloneExpression( reason ),
 					( inPath == null ) ? null : (VariablePath) inPath.cloneExpression( reason ),
 					process.copy( reason )
 				);
@@ -66,6 +70,16 @@ public class SpawnProcess implements Process
 		return upperBound;
 	}
 
+	/**
+	 * Returns the expression of the number of iterations that each thread
+	 * runs in a row, or {@code null} if every iteration runs in its own thread.
+	 * @return the chunk size expression, or {@code null}
+	 */
+	public Expression chunkSize()
+	{
+		return chunkSize;
+	}
+
 	public VariablePath indexPath()
 	{
 		return indexPath;
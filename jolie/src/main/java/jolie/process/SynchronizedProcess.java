@@ -24,6 +24,7 @@ package jolie.process;
 import jolie.runtime.FaultException;
 import jolie.Interpreter;
 import jolie.runtime.ExitingException;
+import jolie.runtime.GlobalLock;
 
 public class SynchronizedProcess implements Process
 {
@@ -44,8 +45,12 @@ public class SynchronizedProcess implements Process
 	public void run()
 		throws FaultException, ExitingException
 	{
-		synchronized( Interpreter.getInstance().getLock( id ) ) {
+		final GlobalLock lock = Interpreter.getInstance().getLock( id );
+		lock.lock();
+		try {
 			process.run();
+		} finally {
+			lock.unlock();
 		}
 	}
 	
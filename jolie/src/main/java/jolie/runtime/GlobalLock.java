@@ -0,0 +1,50 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+
+package jolie.runtime;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A lock registered on an interpreter with an identifier, used by the
+ * <code>synchronized</code> statement.
+ * Blocking while holding a <code>GlobalLock</code> does not pin the
+ * carrier of a virtual thread, as it would with a Java monitor.
+ * @see jolie.Interpreter#getLock(java.lang.String)
+ * @author agent
+ */
+public class GlobalLock extends ReentrantLock
+{
+	private static final long serialVersionUID = 1L;
+
+	private final Condition condition = newCondition();
+
+	/**
+	 * Returns the condition associated to this lock, for waiting and notifying.
+	 * @return the condition associated to this lock
+	 */
+	public Condition condition()
+	{
+		return condition;
+	}
+}
@@ -60,7 +60,7 @@ public abstract class InputOperation extends AbstractIdentifiableObject
 				path = ((InputOperationProcess)pe.parent()).inputVarPath();
 			}
 			
-			CommChannelHandler.currentThread().setExecutionThread( entry.getValue() );
+			CommChannelHandler.setCurrentExecutionThread( entry.getValue() );
 			if ( entry.getValue().checkCorrelation( path, message ) ) {
 				try {
 					if ( entry.getKey().recvMessage( channel, message ) ) {
@@ -23,12 +23,15 @@
 package jolie.runtime;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 import jolie.Interpreter;
 import jolie.lang.Constants;
@@ -46,27 +49,27 @@ public abstract class JavaService
 {
 	@FunctionalInterface
 	private interface JavaOperationCallable {
-		public CommMessage call( JavaService service, JavaOperation javaOperation, CommMessage message )
-			throws IllegalAccessException;
+		public CommMessage call( JavaService service, JavaOperation javaOperation, CommMessage message );
 	}
 	
 	public interface ValueConverter {}
 
+	/*
+	 * The type of operation invokers: they take the service and the message value,
+	 * and return the response value (null for void methods or if the method returned null).
+	 */
+	private static final MethodType INVOKER_TYPE = MethodType.methodType( Value.class, JavaService.class, Value.class );
+
 	private static class JavaOperation {
-		private final Method method;
-		private final Method parameterConstructor;
-		private final Method returnValueConstructor;
+		// The method composed with its parameter and return value converters
+		private final MethodHandle invoker;
 		private final JavaOperationCallable callable;
 
 		private JavaOperation(
-				Method method,
-				Method parameterConstructor,
-				Method returnValueConstructor,
+				MethodHandle invoker,
 				JavaOperationCallable callable
 		) {
-			this.method = method;
-			this.parameterConstructor = parameterConstructor;
-			this.returnValueConstructor = returnValueConstructor;
+			this.invoker = invoker;
 			this.callable = callable;
 		}
 	}
@@ -119,11 +122,17 @@ public abstract class JavaService
 		for( Method method : this.getClass().getDeclaredMethods() ) {
 			if ( Modifier.isPublic( method.getModifiers() ) ) {
 				params = method.getParameterTypes();
-				if ( params.length == 1 ) {
-					checkMethod( ops, method, getFromValueConverter( params[0] ) );
-
-				} else if ( params.length == 0 ) {
-					checkMethod( ops, method, null );
+				try {
+					if ( params.length == 1 ) {
+						final MethodHandle parameterConstructor = getFromValueConverter( params[0] );
+						if ( parameterConstructor != null ) {
+							checkMethod( ops, method, parameterConstructor );
+						}
+					} else if ( params.length == 0 ) {
+						checkMethod( ops, method, null );
+					}
+				} catch( IllegalAccessException e ) {
+					// The method cannot be called from here, so it is not an operation
 				}
 			}
 		}
@@ -148,34 +157,62 @@ public abstract class JavaService
 		Value.class, String.class, Integer.class, Double.class, Boolean.class,
 		Long.class, ByteArray.class
 	};
-	private static final Method[] toValueConverters;
-	private static final Method[] fromValueConverters;
+	private static final MethodHandle[] toValueConverters;
+	private static final MethodHandle[] fromValueConverters;
+	private static final MethodHandle IS_NULL;
 
 	static {
-		toValueConverters = new Method[ supportedTypes.length ];
+		final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		toValueConverters = new MethodHandle[ supportedTypes.length ];
 		try {
-			toValueConverters[0] = JavaServiceHelpers.class.getMethod( "createValue", Value.class );
+			toValueConverters[0] = lookup.findStatic( JavaServiceHelpers.class, "createValue", MethodType.methodType( Value.class, Value.class ) );
 			for( int i = 1; i < supportedTypes.length; i++ ) {
-				toValueConverters[ i ] = Value.class.getMethod( "create", supportedTypes[ i ] );
+				toValueConverters[ i ] = lookup.findStatic( Value.class, "create", MethodType.methodType( Value.class, supportedTypes[ i ] ) );
 			}
-		} catch( NoSuchMethodException e ) {
+		} catch( NoSuchMethodException | IllegalAccessException e ) {
 			e.printStackTrace();
 			assert false;
 		}
 
-		fromValueConverters = new Method[ supportedTypes.length ];
+		fromValueConverters = new MethodHandle[ supportedTypes.length ];
 		try {
-			fromValueConverters[0] = JavaServiceHelpers.class.getMethod( "createValue", Value.class );
+			fromValueConverters[0] = lookup.findStatic( JavaServiceHelpers.class, "createValue", MethodType.methodType( Value.class, Value.class ) );
 			for( int i = 1; i < supportedTypes.length; i++ ) {
-				fromValueConverters[ i ] = JavaServiceHelpers.class.getMethod( "valueTo" + supportedTypes[i].getSimpleName(), Value.class );
+				fromValueConverters[ i ] = lookup.findStatic( JavaServiceHelpers.class, "valueTo" + supportedTypes[i].getSimpleName(), MethodType.methodType( supportedTypes[ i ], Value.class ) );
 			}
-		} catch( NoSuchMethodException e ) {
+		} catch( NoSuchMethodException | IllegalAccessException e ) {
+			e.printStackTrace();
+			assert false;
+		}
+
+		MethodHandle isNull = null;
+		try {
+			isNull = lookup.findStatic( Objects.class, "isNull", MethodType.methodType( boolean.class, Object.class ) );
+		} catch( NoSuchMethodException | IllegalAccessException e ) {
 			e.printStackTrace();
 			assert false;
 		}
+		IS_NULL = isNull;
+	}
+
+	private static MethodHandle unreflect( Method method )
+		throws IllegalAccessException
+	{
+		try {
+			return MethodHandles.publicLookup().unreflect( method );
+		} catch( IllegalAccessException e ) {
+			// The method is public, but its class may not be
+			try {
+				method.setAccessible( true );
+			} catch( RuntimeException ex ) {
+				throw e;
+			}
+			return MethodHandles.lookup().unreflect( method );
+		}
 	}
 
-	private static Method getToValueConverter( Class<?> param )
+	private static MethodHandle getToValueConverter( Class<?> param )
+		throws IllegalAccessException
 	{
 		if ( param == null ) {
 			return null;
@@ -183,7 +220,7 @@ public abstract class JavaService
 
 		if ( ValueConverter.class.isAssignableFrom( param ) ) {
 			try {
-				return param.getMethod( "toValue", param );
+				return unreflect( param.getMethod( "toValue", param ) );
 			} catch( NoSuchMethodException e ) {
 				return null;
 			}
@@ -199,7 +236,8 @@ public abstract class JavaService
 		return null;
 	}
 
-	private static Method getFromValueConverter( Class<?> param )
+	private static MethodHandle getFromValueConverter( Class<?> param )
+		throws IllegalAccessException
 	{
 		if ( param == null ) {
 			return null;
@@ -207,7 +245,7 @@ public abstract class JavaService
 
 		if ( ValueConverter.class.isAssignableFrom( param ) ) {
 			try {
-				return param.getMethod( "fromValue", Value.class );
+				return unreflect( param.getMethod( "fromValue", Value.class ) );
 			} catch( NoSuchMethodException e ) {
 				return null;
 			}
@@ -224,48 +262,74 @@ public abstract class JavaService
 	}
 	
 	private static CommMessage oneWayCallable( JavaService javaService, JavaOperation javaOperation, CommMessage message )
-		throws IllegalAccessException
 	{
-		final Object[] args = getArguments( javaOperation, message );
 		javaService.interpreter.execute( () -> {
 			try {
-				javaOperation.method.invoke( javaService, args );
-			} catch( InvocationTargetException | IllegalAccessException e ) {
-				// This should never happen, as we filtered this out in the constructor.
-				javaService.interpreter.logSevere( e );
+				final Value ignored = (Value)javaOperation.invoker.invokeExact( javaService, message.value() );
+			} catch( Throwable t ) {
+				javaService.interpreter.logSevere( t );
 			}
 		} );
 		return CommMessage.createEmptyResponse( message );
 	}
 	
 	private static CommMessage requestResponseCallable( JavaService javaService, JavaOperation javaOperation, CommMessage message )
-		throws IllegalAccessException
 	{
-		final Object[] args = getArguments( javaOperation, message );
 		try {
-			final Object retObject = javaOperation.method.invoke( javaService, args );
-			if ( retObject == null ) {
+			final Value retValue = (Value)javaOperation.invoker.invokeExact( javaService, message.value() );
+			if ( retValue == null ) {
 				return CommMessage.createEmptyResponse( message );
 			} else {
-				return CommMessage.createResponse( message, (Value)javaOperation.returnValueConstructor.invoke( null, retObject ) );
+				return CommMessage.createResponse( message, retValue );
 			}
-		} catch( InvocationTargetException e ) {
-			final FaultException fault =
-				( e.getCause() instanceof FaultException )
-				? (FaultException)e.getCause()
-				: new FaultException( e.getCause() );
+		} catch( FaultException e ) {
+			return CommMessage.createFaultResponse( message, e );
+		} catch( Throwable t ) {
 			return CommMessage.createFaultResponse(
 				message,
-				fault
+				new FaultException( t )
 			);
 		}
 	}
 
-	private void checkMethod( Map< String, JavaOperation > ops, Method method, Method parameterConstructor )
+	/*
+	 * Composes a method with its converters, so that calling an operation
+	 * costs a single method handle invocation.
+	 */
+	private static MethodHandle createInvoker( Method method, MethodHandle parameterConstructor, MethodHandle returnValueConstructor )
+		throws IllegalAccessException
+	{
+		MethodHandle invoker = unreflect( method );
+		if ( parameterConstructor == null ) {
+			invoker = MethodHandles.dropArguments( invoker, 1, Value.class );
+		} else {
+			invoker = MethodHandles.filterArguments(
+				invoker,
+				1,
+				parameterConstructor.asType( MethodType.methodType( method.getParameterTypes()[0], Value.class ) )
+			);
+		}
+		if ( returnValueConstructor != null ) {
+			// A null return value means an empty response, so it must not be converted
+			final Class<?> returnType = method.getReturnType();
+			invoker = MethodHandles.filterReturnValue(
+				invoker,
+				MethodHandles.guardWithTest(
+					IS_NULL.asType( MethodType.methodType( boolean.class, returnType ) ),
+					MethodHandles.dropArguments( MethodHandles.constant( Value.class, null ), 0, returnType ),
+					returnValueConstructor.asType( MethodType.methodType( Value.class, returnType ) )
+				)
+			);
+		}
+		return invoker.asType( INVOKER_TYPE );
+	}
+
+	private void checkMethod( Map< String, JavaOperation > ops, Method method, MethodHandle parameterConstructor )
+		throws IllegalAccessException
 	{
 		final Class<?> returnType;
 		final Class<?>[] exceptions;
-		final Method returnValueConstructor;
+		final MethodHandle returnValueConstructor;
 
 		returnType = method.getReturnType();
 		if ( void.class.isAssignableFrom( returnType ) ) {
@@ -275,9 +339,7 @@ public abstract class JavaService
 				ops.put(
 					method.getName(),
 					new JavaOperation(
-						method,
-						parameterConstructor,
-						null,
+						createInvoker( method, parameterConstructor, null ),
 						JavaService::requestResponseCallable
 					)
 				);
@@ -285,9 +347,7 @@ public abstract class JavaService
 				ops.put(
 					method.getName(),
 					new JavaOperation(
-						method,
-						parameterConstructor,
-						null,
+						createInvoker( method, parameterConstructor, null ),
 						JavaService::oneWayCallable
 					)
 				);
@@ -303,9 +363,7 @@ public abstract class JavaService
 					ops.put(
 						getMethodName( method ),
 						new JavaOperation(
-							method,
-							parameterConstructor,
-							returnValueConstructor,
+							createInvoker( method, parameterConstructor, returnValueConstructor ),
 							JavaService::requestResponseCallable
 						)
 					);
@@ -314,20 +372,6 @@ public abstract class JavaService
 		}
 	}
 
-	private static Object[] getArguments( final JavaOperation javaOperation, final CommMessage message )
-		throws IllegalAccessException
-	{
-		if ( javaOperation.parameterConstructor == null ) {
-			return new Object[0];
-		} else {
-			try {
-				return new Object[] { javaOperation.parameterConstructor.invoke( null, message.value() ) };
-			} catch( InvocationTargetException e ) {
-				throw new IllegalAccessException( e.getMessage() );
-			}
-		}
-	}
-	
 	public CommMessage callOperation( CommMessage message )
 		throws InvalidIdException, IllegalAccessException
 	{
@@ -24,6 +24,9 @@ package jolie.runtime;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import jolie.ExecutionThread;
 import jolie.TransparentExecutionThread;
 import jolie.process.Process;
@@ -56,6 +59,9 @@ public class ParallelExecution
 	}
 	
 	final private Collection< ParallelThread > threads = new HashSet< ParallelThread >();
+	// Not a monitor, so that joins do not pin the carriers of virtual threads
+	private final Lock lock = new ReentrantLock();
+	private final Condition terminated = lock.newCondition();
 	private FaultException fault = null;
 	private boolean isKilled = false;
 
@@ -69,7 +75,8 @@ public class ParallelExecution
 	public void run()
 		throws FaultException
 	{
-		synchronized( this ) {
+		lock.lock();
+		try {
 			for( ParallelThread t : threads ) {
 				t.start();
 			}
@@ -79,19 +86,17 @@ public class ParallelExecution
 				ethread = ExecutionThread.currentThread();
 				try {
 					ethread.setCanBeInterrupted( true );
-					wait();
+					terminated.await();
 					ethread.setCanBeInterrupted( false );
 				} catch( InterruptedException e ) {
-					synchronized( this ) {
-						if ( ethread.isKilled() && !threads.isEmpty() ) {
-							isKilled = true;
-							for( ParallelThread t : threads ) {
-								t.kill( ethread.killerFault() );
-							}
-							try {
-								wait();
-							} catch( InterruptedException ie ) {}
+					if ( ethread.isKilled() && !threads.isEmpty() ) {
+						isKilled = true;
+						for( ParallelThread t : threads ) {
+							t.kill( ethread.killerFault() );
 						}
+						try {
+							terminated.await();
+						} catch( InterruptedException ie ) {}
 					}
 				}
 			}
@@ -102,42 +107,50 @@ public class ParallelExecution
 				}
 				while ( !threads.isEmpty() ) {
 					try {
-						wait();
+						terminated.await();
 					} catch( InterruptedException e ) {}
 				}
 				throw fault;
 			}
+		} finally {
+			lock.unlock();
 		}
 	}
 	
 	private void terminationNotify( ParallelThread thread )
 	{
-		synchronized( this ) {
+		lock.lock();
+		try {
 			threads.remove( thread );
 			
 			if ( threads.isEmpty() ) {
-				notify();
+				terminated.signal();
 			}
+		} finally {
+			lock.unlock();
 		}
 	}
 	
 		
 	private void signalFault( ParallelThread thread, FaultException f )
 	{
-		synchronized( this ) {
+		lock.lock();
+		try {
 			threads.remove( thread );
 			if ( isKilled ) {
 				if ( threads.isEmpty() ) {
-					notify();
+					terminated.signal();
 				}
 			} else {
 				if ( fault == null ) {
 					fault = f;
-					notify();
+					terminated.signal();
 				} else if ( threads.isEmpty() ) {
-					notify();
+					terminated.signal();
 				}
 			}
+		} finally {
+			lock.unlock();
 		}
 	}
 
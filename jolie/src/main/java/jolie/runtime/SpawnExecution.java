@@ -22,15 +22,34 @@
 package jolie.runtime;
 
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.SessionThread;
+import jolie.State;
 import jolie.process.Process;
 import jolie.process.SpawnProcess;
 
+/**
+ * Runs the iterations of a spawn statement in parallel.
+ *
+ * Each iteration runs in its own {@link SessionThread}, starting from a
+ * copy of the state of the parent taken when the statement starts.
+ * By default, all iterations are started at once, since they may wait for
+ * each other. If the statement has a chunk size, its iterations are
+ * instead claimed in chunks of that size by at most
+ * {@link Interpreter#parallelism()} workers, each of which runs the
+ * iterations of a chunk one after the other. Workers that finish early
+ * keep claiming the remaining chunks, so the load is balanced among them.
+ * @author Fabrizio Montesi
+ */
 public class SpawnExecution
 {
 	private class SpawnedThread extends SessionThread
@@ -39,11 +58,12 @@ public class SpawnExecution
 
 		public SpawnedThread(
 			ExecutionThread parentThread,
+			State state,
 			Process process,
 			int index
 		)
 		{
-			super( process, parentThread );
+			super( process, parentThread, state );
 			this.index = index;
 		}
 
@@ -58,11 +78,43 @@ public class SpawnExecution
 			terminationNotify( this );
 		}
 	}
+
+	private class ChunkWorker implements Runnable
+	{
+		private final State state;
+		private final int upperBound;
+		private final int chunkSize;
+		private final AtomicLong nextIndex;
+		private FutureTask< Void > task;
+
+		private ChunkWorker( State state, int upperBound, int chunkSize, AtomicLong nextIndex )
+		{
+			this.state = state;
+			this.upperBound = upperBound;
+			this.chunkSize = chunkSize;
+			this.nextIndex = nextIndex;
+		}
+
+		@Override
+		public void run()
+		{
+			long start;
+			while( (start = nextIndex.getAndAdd( chunkSize )) < upperBound ) {
+				final long end = Math.min( start + chunkSize, upperBound );
+				for( int i = (int) start; i < end; i++ ) {
+					try {
+						new SpawnedThread( ethread, state, parentSpawnProcess.body(), i ).runInTask( task );
+					} catch( RuntimeException e ) {
+						ethread.interpreter().logSevere( e );
+					}
+				}
+			}
+		}
+	}
 	
-	private final Collection< SpawnedThread > threads = new HashSet< SpawnedThread >();
 	private final SpawnProcess parentSpawnProcess;
 	private final ExecutionThread ethread;
-	private CountDownLatch latch;
+	private CountDownLatch latch = null;
 
 	public SpawnExecution( SpawnProcess parent )
 	{
@@ -77,16 +129,30 @@ public class SpawnExecution
 			parentSpawnProcess.inPath().undef();
 		}
 		int upperBound = parentSpawnProcess.upperBound().evaluate().intValue();
-		latch = new CountDownLatch( upperBound );
-		SpawnedThread thread;
-		
+
+		// Parallel branches of the parent may still modify its variables, so spawned
+		// threads copy them lazily from a snapshot that nothing modifies
+		final State state = ethread.state().copy();
+
+		if ( parentSpawnProcess.chunkSize() == null ) {
+			runThreads( state, upperBound );
+		} else {
+			final int chunkSize = Math.max( 1, parentSpawnProcess.chunkSize().evaluate().intValue() );
+			runChunks( state, upperBound, chunkSize );
+		}
+	}
+
+	private void runThreads( State state, int upperBound )
+	{
+		latch = new CountDownLatch( Math.max( 0, upperBound ) );
+		final Collection< SpawnedThread > threads = new HashSet<>();
 		for( int i = 0; i < upperBound; i++ ) {
-			thread = new SpawnedThread(
+			threads.add( new SpawnedThread(
 				ethread,
+				state,
 				parentSpawnProcess.body(),
 				i
-			);
-			threads.add( thread );
+			) );
 		}
 
 		for( SpawnedThread t : threads ) {
@@ -100,6 +166,30 @@ public class SpawnExecution
 			Interpreter.getInstance().logWarning( e );
 		}
 	}
+
+	private void runChunks( State state, int upperBound, int chunkSize )
+	{
+		final AtomicLong nextIndex = new AtomicLong( 0 );
+		final long nChunks = ( Math.max( 0, upperBound ) + (long) chunkSize - 1 ) / chunkSize;
+		final int nWorkers = (int) Math.min( ethread.interpreter().parallelism(), nChunks );
+		final List< FutureTask< Void > > tasks = new ArrayList<>( nWorkers );
+		for( int i = 0; i < nWorkers; i++ ) {
+			final ChunkWorker worker = new ChunkWorker( state, upperBound, chunkSize, nextIndex );
+			worker.task = new FutureTask<>( worker, null );
+			tasks.add( worker.task );
+			ethread.interpreter().runJolieThread( worker.task );
+		}
+
+		for( FutureTask< Void > task : tasks ) {
+			try {
+				task.get();
+			} catch( InterruptedException e ) {
+				ethread.interpreter().logWarning( e );
+			} catch( ExecutionException e ) {
+				ethread.interpreter().logSevere( e );
+			}
+		}
+	}
 	
 	private void terminationNotify( SpawnedThread thread )
 	{
@@ -108,8 +198,10 @@ public class SpawnExecution
 				parentSpawnProcess.inPath().getValueVector( ethread.state().root() ).get( thread.index )
 					.deepCopy( parentSpawnProcess.inPath().getValueVector().first() );
 			}
-			
-			latch.countDown();
+
+			if ( latch != null ) {
+				latch.countDown();
+			}
 		}
 	}
 }
@@ -21,15 +21,17 @@
 
 package jolie.runtime;
 
-import java.lang.ref.WeakReference;
-
 /**
+ * A task that runs after a timeout, unless it is cancelled first.
+ * Handlers are scheduled with {@link jolie.Interpreter#addTimeoutHandler(TimeoutHandler)}.
  * @author Fabrizio Montesi
+ * @see TimingWheel
  */
 public abstract class TimeoutHandler implements Runnable
 {
 	private final long time;
 	private volatile boolean cancelled = false;
+	private volatile TimingWheel.Node node = null;
 
 	public TimeoutHandler( long timeout )
 	{
@@ -41,9 +43,26 @@ public abstract class TimeoutHandler implements Runnable
 		return time;
 	}
 	
+	/**
+	 * Cancels this handler, removing it from the timing wheel it has been added to.
+	 */
 	public void cancel()
 	{
 		cancelled = true;
+		final TimingWheel.Node n = node;
+		if ( n != null ) {
+			n.cancel();
+		}
+	}
+
+	boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	void setNode( TimingWheel.Node node )
+	{
+		this.node = node;
 	}
 	
 	public void run()
@@ -54,32 +73,4 @@ public abstract class TimeoutHandler implements Runnable
 	}
 
 	protected abstract void onTimeout();
-
-	/**
-	 * Note: this comparator imposes orderings that are inconsistent with equals.
-	 */
-	public static class Comparator implements java.util.Comparator< WeakReference< TimeoutHandler > >
-	{
-		@Override
-		public int compare( WeakReference< TimeoutHandler > wt1, WeakReference< TimeoutHandler > wt2 )
-		{
-			TimeoutHandler t1 = ( wt1 != null ) ? wt1.get() : null;
-			TimeoutHandler t2 = ( wt2 != null ) ? wt2.get() : null;
-			if ( t1 == null ) {
-				return -1;
-			} else if ( t2 == null ) {
-				return 1;
-			}
-			
-			// Both are not null after this
-
-			if ( t1.time < t2.time ) {
-				return -1;
-			} else if ( t1.time == t2.time ) {
-				return 0;
-			} else {
-				return 1;
-			}
-		}
-	}
 }
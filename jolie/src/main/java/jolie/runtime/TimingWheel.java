@@ -0,0 +1,272 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.runtime;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import jolie.Interpreter;
+
+/**
+ * A hashed timing wheel that runs {@link TimeoutHandler}s when they expire.
+ *
+ * Time advances in ticks of {@link #TICK_MILLIS} milliseconds, and a handler
+ * runs at the first tick that starts after its time. Handlers are hashed
+ * by their last tick into a ring of buckets, so adding and cancelling a
+ * handler take constant time, and each tick visits only one bucket.
+ * The wheel is split into shards, each guarded by its own lock, and
+ * threads register their handlers in different shards, so that threads
+ * managing different channels do not contend for the same lock.
+ *
+ * Handlers are referenced weakly: a handler that is not
+ * referenced anymore by its owner is discarded without running it.
+ * The wheel only ticks while it contains some handler. Ticks and
+ * handlers run on the passed executor, which should have a single thread.
+ * @author agent
+ */
+public class TimingWheel
+{
+	/**
+	 * The duration of a tick, in milliseconds.
+	 */
+	public static final long TICK_MILLIS = 100;
+
+	private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos( TICK_MILLIS );
+	private static final int WHEEL_SIZE = 512; // Must be a power of 2
+	private static final int MAX_SHARDS = 16;
+
+	static final class Node extends WeakReference< TimeoutHandler >
+	{
+		private final Shard shard;
+		private long deadline; // The tick at which the handler expires, guarded by shard
+		private Node prev = null;
+		private Node next = null;
+		private boolean linked = false;
+
+		private Node( TimeoutHandler handler, Shard shard )
+		{
+			super( handler );
+			this.shard = shard;
+		}
+
+		void cancel()
+		{
+			synchronized( shard ) {
+				shard.unlink( this );
+			}
+		}
+	}
+
+	private final class Shard
+	{
+		private final Node[] buckets = new Node[ WHEEL_SIZE ];
+		private long nextTick = 0; // The first tick that has not been processed yet
+		private int size = 0;
+
+		// Both link and unlink must be called holding the lock of this shard
+		private void link( Node node )
+		{
+			final int i = (int) (node.deadline & (WHEEL_SIZE - 1));
+			node.next = buckets[ i ];
+			if ( node.next != null ) {
+				node.next.prev = node;
+			}
+			buckets[ i ] = node;
+			node.linked = true;
+			size++;
+		}
+
+		private void unlink( Node node )
+		{
+			if ( !node.linked ) {
+				return;
+			}
+			if ( node.prev == null ) {
+				buckets[ (int) (node.deadline & (WHEEL_SIZE - 1)) ] = node.next;
+			} else {
+				node.prev.next = node.next;
+			}
+			if ( node.next != null ) {
+				node.next.prev = node.prev;
+			}
+			node.prev = null;
+			node.next = null;
+			node.linked = false;
+			size--;
+			TimingWheel.this.size.decrementAndGet();
+		}
+
+		// Collects the handlers whose deadline is not after tick now
+		private void expire( long now, List< TimeoutHandler > expired )
+		{
+			if ( size == 0 ) {
+				nextTick = Math.max( nextTick, now + 1 );
+				return;
+			}
+			// After a full turn, every bucket has been visited
+			final long last = Math.min( now, nextTick + WHEEL_SIZE - 1 );
+			for( long tick = nextTick; tick <= last; tick++ ) {
+				Node node = buckets[ (int) (tick & (WHEEL_SIZE - 1)) ];
+				while( node != null ) {
+					final Node next = node.next;
+					if ( node.deadline <= now ) {
+						unlink( node );
+						final TimeoutHandler handler = node.get();
+						if ( handler != null ) {
+							expired.add( handler );
+						}
+					}
+					node = next;
+				}
+			}
+			nextTick = Math.max( nextTick, now + 1 );
+		}
+
+		private void expireAll( List< TimeoutHandler > expired )
+		{
+			for( int i = 0; i < WHEEL_SIZE; i++ ) {
+				while( buckets[ i ] != null ) {
+					final Node node = buckets[ i ];
+					unlink( node );
+					final TimeoutHandler handler = node.get();
+					if ( handler != null ) {
+						expired.add( handler );
+					}
+				}
+			}
+		}
+	}
+
+	private final ScheduledExecutorService executor;
+	private final Shard[] shards;
+	private final long startTime = System.nanoTime();
+	private final AtomicInteger size = new AtomicInteger( 0 );
+	private final AtomicBoolean ticking = new AtomicBoolean( false );
+
+	/**
+	 * Creates a timing wheel that ticks and runs handlers on executor.
+	 * @param executor the executor used to tick the wheel and to run handlers
+	 */
+	public TimingWheel( ScheduledExecutorService executor )
+	{
+		this.executor = executor;
+		final int nShards = Math.min( MAX_SHARDS, Integer.highestOneBit( Runtime.getRuntime().availableProcessors() * 2 - 1 ) );
+		this.shards = new Shard[ nShards ];
+		for( int i = 0; i < nShards; i++ ) {
+			shards[ i ] = new Shard();
+		}
+	}
+
+	/**
+	 * Adds a handler, which will run after its time unless it is cancelled first.
+	 * @param handler the handler to add
+	 */
+	public void add( TimeoutHandler handler )
+	{
+		final long delay = TimeUnit.MILLISECONDS.toNanos( Math.max( 0, handler.time() - System.currentTimeMillis() ) );
+		final long deadline = (System.nanoTime() - startTime + delay + TICK_NANOS - 1) / TICK_NANOS;
+		final Shard shard = shards[ (int) Thread.currentThread().getId() & (shards.length - 1) ];
+		final Node node = new Node( handler, shard );
+		handler.setNode( node );
+		size.incrementAndGet();
+		synchronized( shard ) {
+			node.deadline = Math.max( deadline, shard.nextTick );
+			shard.link( node );
+		}
+		if ( handler.isCancelled() ) {
+			// The handler has been cancelled before being linked
+			node.cancel();
+		}
+		if ( ticking.compareAndSet( false, true ) ) {
+			scheduleTick();
+		}
+	}
+
+	/**
+	 * Returns the number of handlers waiting in this wheel.
+	 * @return the number of handlers waiting in this wheel
+	 */
+	public int size()
+	{
+		return size.get();
+	}
+
+	/**
+	 * Runs all the handlers that are still waiting, regardless of their time.
+	 * They are run by the executor of this wheel.
+	 */
+	public void expireAll()
+	{
+		final List< TimeoutHandler > expired = new ArrayList<>();
+		for( Shard shard : shards ) {
+			synchronized( shard ) {
+				shard.expireAll( expired );
+			}
+		}
+		try {
+			executor.execute( () -> run( expired ) );
+		} catch( RejectedExecutionException e ) {}
+	}
+
+	private void scheduleTick()
+	{
+		try {
+			executor.schedule( this::tick, TICK_MILLIS, TimeUnit.MILLISECONDS );
+		} catch( RejectedExecutionException e ) {
+			// The executor has been shut down, so nothing can expire anymore
+		}
+	}
+
+	private void tick()
+	{
+		final long now = (System.nanoTime() - startTime) / TICK_NANOS;
+		final List< TimeoutHandler > expired = new ArrayList<>();
+		for( Shard shard : shards ) {
+			synchronized( shard ) {
+				shard.expire( now, expired );
+			}
+		}
+		run( expired );
+
+		ticking.set( false );
+		// A handler may have been added right after we stopped ticking
+		if ( size.get() > 0 && ticking.compareAndSet( false, true ) ) {
+			scheduleTick();
+		}
+	}
+
+	private static void run( List< TimeoutHandler > handlers )
+	{
+		for( TimeoutHandler handler : handlers ) {
+			try {
+				handler.run();
+			} catch( RuntimeException e ) {
+				Interpreter.getInstance().logSevere( e );
+			}
+		}
+	}
+}
@@ -27,11 +27,16 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Function;
 
 import jolie.lang.Constants;
@@ -134,12 +139,241 @@ class ValueLink extends Value implements Cloneable
 	}
 }
 
+/*
+ * The children of a value.
+ *
+ * Most values have only a few children, so these are kept in an array of
+ * alternating names and vectors, which is replaced by a ConcurrentHashMap
+ * only when there are more than MAX_INLINE_CHILDREN of them.
+ * Reads do not lock: the array is never modified, but replaced by an updated
+ * copy while holding the monitor of this map. Iterators walk the array that
+ * was current when they were created.
+ */
+final class ValueChildren extends AbstractMap< String, ValueVector > implements Serializable
+{
+	private static final long serialVersionUID = Constants.serialVersionUID();
+	private static final int MAX_INLINE_CHILDREN = 8;
+	private static final Object[] EMPTY = new Object[ 0 ];
+
+	// Either an Object[] of alternating names and vectors, or a ConcurrentHashMap
+	private volatile Object storage = EMPTY;
+
+	@SuppressWarnings( "unchecked" )
+	private static ConcurrentHashMap< String, ValueVector > asMap( Object storage )
+	{
+		return (ConcurrentHashMap< String, ValueVector >) storage;
+	}
+
+	private static int indexOf( Object[] entries, Object name )
+	{
+		for( int i = 0; i < entries.length; i += 2 ) {
+			if ( entries[ i ] == name || entries[ i ].equals( name ) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public ValueVector get( Object name )
+	{
+		final Object s = storage;
+		if ( s instanceof Object[] ) {
+			final Object[] entries = (Object[]) s;
+			final int i = indexOf( entries, name );
+			return i < 0 ? null : (ValueVector) entries[ i + 1 ];
+		}
+		return asMap( s ).get( name );
+	}
+
+	@Override
+	public boolean containsKey( Object name )
+	{
+		return get( name ) != null;
+	}
+
+	@Override
+	public int size()
+	{
+		final Object s = storage;
+		if ( s instanceof Object[] ) {
+			return ((Object[]) s).length / 2;
+		}
+		return asMap( s ).size();
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	@Override
+	public ValueVector computeIfAbsent( String name, Function< ? super String, ? extends ValueVector > mappingFunction )
+	{
+		final ValueVector vector = get( name );
+		if ( vector != null ) {
+			return vector;
+		}
+		synchronized( this ) {
+			final Object s = storage;
+			if ( s instanceof Object[] ) {
+				final Object[] entries = (Object[]) s;
+				final int i = indexOf( entries, name );
+				if ( i >= 0 ) {
+					return (ValueVector) entries[ i + 1 ];
+				}
+				final ValueVector newVector = mappingFunction.apply( name );
+				if ( newVector != null ) {
+					add( entries, name, newVector );
+				}
+				return newVector;
+			}
+			return asMap( s ).computeIfAbsent( name, mappingFunction );
+		}
+	}
+
+	@Override
+	public synchronized ValueVector put( String name, ValueVector vector )
+	{
+		final Object s = storage;
+		if ( s instanceof Object[] ) {
+			final Object[] entries = (Object[]) s;
+			final int i = indexOf( entries, name );
+			if ( i >= 0 ) {
+				final Object[] copy = entries.clone();
+				copy[ i + 1 ] = vector;
+				storage = copy;
+				return (ValueVector) entries[ i + 1 ];
+			}
+			add( entries, name, vector );
+			return null;
+		}
+		return asMap( s ).put( name, vector );
+	}
+
+	// Must be called while holding the monitor
+	private void add( Object[] entries, String name, ValueVector vector )
+	{
+		if ( entries.length < MAX_INLINE_CHILDREN * 2 ) {
+			final Object[] copy = new Object[ entries.length + 2 ];
+			System.arraycopy( entries, 0, copy, 0, entries.length );
+			copy[ entries.length ] = name;
+			copy[ entries.length + 1 ] = vector;
+			storage = copy;
+		} else {
+			final ConcurrentHashMap< String, ValueVector > map = new ConcurrentHashMap<>( MAX_INLINE_CHILDREN * 4 );
+			for( int i = 0; i < entries.length; i += 2 ) {
+				map.put( (String) entries[ i ], (ValueVector) entries[ i + 1 ] );
+			}
+			map.put( name, vector );
+			storage = map;
+		}
+	}
+
+	@Override
+	public synchronized ValueVector remove( Object name )
+	{
+		final Object s = storage;
+		if ( s instanceof Object[] ) {
+			final Object[] entries = (Object[]) s;
+			final int i = indexOf( entries, name );
+			if ( i < 0 ) {
+				return null;
+			}
+			final Object[] copy = new Object[ entries.length - 2 ];
+			System.arraycopy( entries, 0, copy, 0, i );
+			System.arraycopy( entries, i + 2, copy, i, entries.length - i - 2 );
+			storage = copy;
+			return (ValueVector) entries[ i + 1 ];
+		}
+		return asMap( s ).remove( name );
+	}
+
+	@Override
+	public synchronized void clear()
+	{
+		final Object s = storage;
+		if ( s instanceof Object[] ) {
+			storage = EMPTY;
+		} else {
+			// Keep the map, its views may be in use
+			asMap( s ).clear();
+		}
+	}
+
+	@Override
+	public Set< Entry< String, ValueVector > > entrySet()
+	{
+		final Object s = storage;
+		if ( s instanceof Object[] ) {
+			return new InlineEntrySet( (Object[]) s );
+		}
+		return asMap( s ).entrySet();
+	}
+
+	private class InlineEntrySet extends AbstractSet< Entry< String, ValueVector > >
+	{
+		private final Object[] entries;
+
+		private InlineEntrySet( Object[] entries )
+		{
+			this.entries = entries;
+		}
+
+		@Override
+		public int size()
+		{
+			return entries.length / 2;
+		}
+
+		@Override
+		public Iterator< Entry< String, ValueVector > > iterator()
+		{
+			return new Iterator< Entry< String, ValueVector > >() {
+				private int next = 0;
+
+				@Override
+				public boolean hasNext()
+				{
+					return next < entries.length;
+				}
+
+				@Override
+				public Entry< String, ValueVector > next()
+				{
+					if ( next >= entries.length ) {
+						throw new NoSuchElementException();
+					}
+					final Entry< String, ValueVector > entry =
+						new SimpleImmutableEntry<>( (String) entries[ next ], (ValueVector) entries[ next + 1 ] );
+					next += 2;
+					return entry;
+				}
+
+				@Override
+				public void remove()
+				{
+					if ( next == 0 ) {
+						throw new IllegalStateException();
+					}
+					ValueChildren.this.remove( entries[ next - 2 ] );
+				}
+			};
+		}
+	}
+}
+
 class ValueImpl extends Value implements Cloneable, Serializable
 {
 	private static final long serialVersionUID = 1L;
+	@SuppressWarnings( "rawtypes" )
+	private static final AtomicReferenceFieldUpdater< ValueImpl, Map > CHILDREN =
+		AtomicReferenceFieldUpdater.newUpdater( ValueImpl.class, Map.class, "children" );
 	
 	private volatile Object valueObject = null;
-	private final AtomicReference< Map< String, ValueVector > > children = new AtomicReference<>();
+	// Created when the first child is added, can be shared with other values (see _refCopy)
+	private volatile Map< String, ValueVector > children = null;
 	
 	@Override
 	public void setValueObject( Object object )
@@ -165,7 +399,7 @@ class ValueImpl extends Value implements Cloneable, Serializable
 	protected void _refCopy( Value value )
 	{
 		setValueObject( value.valueObject() );
-		this.children.set( value.children() );
+		this.children = value.children();
 	}
 
 	@Override
@@ -178,7 +412,7 @@ class ValueImpl extends Value implements Cloneable, Serializable
 	public void erase()
 	{
 		valueObject = null;
-		children.set( null );
+		children = null;
 	}
 	
 	protected ValueImpl() {}
@@ -192,14 +426,14 @@ class ValueImpl extends Value implements Cloneable, Serializable
 	@Override
 	public boolean hasChildren()
 	{
-		Map< String, ValueVector > c = children.get();
+		Map< String, ValueVector > c = children;
 		return ( c != null && !c.isEmpty() );
 	}
 
 	@Override
 	public boolean hasChildren( String childId )
 	{
-		Map< String, ValueVector > c = children.get();
+		Map< String, ValueVector > c = children;
 		return ( c != null && c.containsKey( childId ) );
 	}
 	
@@ -225,6 +459,9 @@ class ValueImpl extends Value implements Cloneable, Serializable
 					for( Value v : otherVector ) {
 						if ( copyLinks && v.isLink() ) {
 							vec.set( i, ((ValueLink)v).clone() );
+						} else if ( i < vec.size() && vec.get( i ).isUsedInCorrelation() ) {
+							// Correlation values are updated in place (see VariablePath.setValue)
+							vec.get( i )._deepCopy( v, copyLinks );
 						} else {
 							newValue = ( v.isUsedInCorrelation() ? new CSetValue() : new ValueImpl() );
 							newValue._deepCopy( v, copyLinks );
@@ -242,15 +479,16 @@ class ValueImpl extends Value implements Cloneable, Serializable
 		return children.computeIfAbsent( childId, k -> ValueVector.create() );
 	}
 
-	private final static int INITIAL_CAPACITY = 8;
-	private final static float LOAD_FACTOR = 0.75f;
-	
 	@Override
 	public Map< String, ValueVector > children()
 	{
 		// Create the map if not present
-		children.getAndUpdate( v -> v == null ? new ConcurrentHashMap<> ( INITIAL_CAPACITY, LOAD_FACTOR ) : v );
-		return children.get();
+		final Map< String, ValueVector > c = children;
+		if ( c != null ) {
+			return c;
+		}
+		CHILDREN.compareAndSet( this, null, new ValueChildren() );
+		return children;
 	}
 	
 	@Override
@@ -270,14 +508,182 @@ class ValueImpl extends Value implements Cloneable, Serializable
 	} 
 }
 
-/** TODO: remove code duplication from ValueImpl */
-class RootValueImpl extends Value implements Cloneable
+/*
+ * The variables of a root value.
+ *
+ * A root created by RootValueImpl.lazyClone() starts by sharing the vectors
+ * of the root it was cloned from, and copies each of them the first time the
+ * variable is accessed. Cloning a state thus costs a copy of its variable table,
+ * and sessions copy only the variables that they use. Vectors are handed out
+ * for modification, so reading a variable copies it as well.
+ * Shared vectors are copied and dropped while holding the monitor of this map,
+ * so that they cannot reappear after a concurrent put or remove.
+ */
+final class RootValueChildren extends AbstractMap< String, ValueVector >
 {
 	private final static int INITIAL_CAPACITY = 8;
 	private final static float LOAD_FACTOR = 0.75f;
 
-	private final Map< String, ValueVector > children =
-		new ConcurrentHashMap<> ( INITIAL_CAPACITY, LOAD_FACTOR );
+	private final ConcurrentHashMap< String, ValueVector > variables =
+		new ConcurrentHashMap<>( INITIAL_CAPACITY, LOAD_FACTOR );
+	// The vectors of the source root that have not been copied yet, null if there are none
+	private volatile ConcurrentHashMap< String, ValueVector > shared = null;
+
+	/*
+	 * Returns a map that shares all the variables of this one.
+	 */
+	synchronized RootValueChildren lazyCopy()
+	{
+		final RootValueChildren ret = new RootValueChildren();
+		final ConcurrentHashMap< String, ValueVector > s = shared;
+		final int size = variables.size() + (s == null ? 0 : s.size());
+		if ( size > 0 ) {
+			final ConcurrentHashMap< String, ValueVector > retShared =
+				new ConcurrentHashMap<>( Math.max( INITIAL_CAPACITY, (int) (size / LOAD_FACTOR) + 1 ), LOAD_FACTOR );
+			if ( s != null ) {
+				retShared.putAll( s );
+			}
+			retShared.putAll( variables );
+			ret.shared = retShared;
+		}
+		return ret;
+	}
+
+	@Override
+	public ValueVector get( Object name )
+	{
+		final ValueVector vec = variables.get( name );
+		if ( vec == null && shared != null ) {
+			return copyShared( name );
+		}
+		return vec;
+	}
+
+	@Override
+	public boolean containsKey( Object name )
+	{
+		// Shared vectors are added to variables before being dropped from shared
+		final ConcurrentHashMap< String, ValueVector > s = shared;
+		return ( s != null && s.containsKey( name ) ) || variables.containsKey( name );
+	}
+
+	@Override
+	public ValueVector computeIfAbsent( String name, Function< ? super String, ? extends ValueVector > mappingFunction )
+	{
+		final ValueVector vec = get( name );
+		if ( vec != null ) {
+			return vec;
+		}
+		if ( shared == null ) {
+			return variables.computeIfAbsent( name, mappingFunction );
+		}
+		synchronized( this ) {
+			return variables.computeIfAbsent( name, mappingFunction );
+		}
+	}
+
+	@Override
+	public synchronized ValueVector put( String name, ValueVector vec )
+	{
+		final ValueVector old = variables.put( name, vec );
+		return old == null ? dropShared( name ) : old;
+	}
+
+	@Override
+	public synchronized ValueVector remove( Object name )
+	{
+		final ValueVector old = variables.remove( name );
+		return old == null ? dropShared( name ) : old;
+	}
+
+	@Override
+	public synchronized void clear()
+	{
+		shared = null;
+		variables.clear();
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		final ConcurrentHashMap< String, ValueVector > s = shared;
+		return variables.isEmpty() && ( s == null || s.isEmpty() );
+	}
+
+	@Override
+	public int size()
+	{
+		copyAllShared();
+		return variables.size();
+	}
+
+	@Override
+	public Set< Entry< String, ValueVector > > entrySet()
+	{
+		copyAllShared();
+		return variables.entrySet();
+	}
+
+	private synchronized ValueVector copyShared( Object name )
+	{
+		final ValueVector vec = variables.get( name );
+		final ConcurrentHashMap< String, ValueVector > s = shared;
+		if ( vec != null || s == null ) {
+			return vec;
+		}
+		final ValueVector source = s.get( name );
+		if ( source == null ) {
+			return null;
+		}
+		final ValueVector copy = RootValueImpl.copyVariable( source );
+		variables.put( (String) name, copy );
+		s.remove( name );
+		if ( s.isEmpty() ) {
+			shared = null;
+		}
+		return copy;
+	}
+
+	private void copyAllShared()
+	{
+		final ConcurrentHashMap< String, ValueVector > s = shared;
+		if ( s != null ) {
+			for( String name : s.keySet() ) {
+				copyShared( name );
+			}
+		}
+	}
+
+	// The caller must hold the monitor of this map
+	private ValueVector dropShared( Object name )
+	{
+		final ConcurrentHashMap< String, ValueVector > s = shared;
+		if ( s == null ) {
+			return null;
+		}
+		final ValueVector source = s.remove( name );
+		if ( s.isEmpty() ) {
+			shared = null;
+		}
+		// The shared vector belongs to another root, so callers get a copy that they can detach
+		return source == null ? null : RootValueImpl.copyVariable( source );
+	}
+}
+
+/** TODO: remove code duplication from ValueImpl */
+class RootValueImpl extends Value implements Cloneable
+{
+	private final RootValueChildren children;
+
+	RootValueImpl()
+	{
+		this( new RootValueChildren() );
+	}
+
+	private RootValueImpl( RootValueChildren children )
+	{
+		this.children = children;
+	}
 
 	@Override
 	public RootValueImpl clone()
@@ -287,6 +693,33 @@ class RootValueImpl extends Value implements Cloneable
 		return ret;
 	}
 
+	/*
+	 * Returns a clone of this root, whose variables are copied when they are first accessed.
+	 */
+	RootValueImpl lazyClone()
+	{
+		return new RootValueImpl( children.lazyCopy() );
+	}
+
+	// Copies a variable of a root into a new vector, as clone() does
+	static ValueVector copyVariable( ValueVector source )
+	{
+		if ( source.isLink() ) {
+			return ValueVector.createClone( source );
+		}
+		final ValueVector vec = ValueVector.create();
+		for( Value v : source.valuesCopy() ) {
+			if ( v.isLink() ) {
+				vec.add( ((ValueLink)v).clone() );
+			} else {
+				final ValueImpl newValue = ( v.isUsedInCorrelation() ? new CSetValue() : new ValueImpl() );
+				newValue._deepCopy( v, true );
+				vec.add( newValue );
+			}
+		}
+		return vec;
+	}
+
 	@Override
 	public void setValueObject( Object object )
 	{}
@@ -353,6 +786,9 @@ class RootValueImpl extends Value implements Cloneable
 					for( Value v : otherVector ) {
 						if ( copyLinks && v.isLink() ) {
 							vec.set( i, ((ValueLink)v).clone() );
+						} else if ( i < vec.size() && vec.get( i ).isUsedInCorrelation() ) {
+							// Correlation values are updated in place (see VariablePath.setValue)
+							vec.get( i )._deepCopy( v, copyLinks );
 						} else {
 							newValue = ( v.isUsedInCorrelation() ? new CSetValue() : new ValueImpl() );
 							newValue._deepCopy( v, copyLinks );
@@ -381,15 +817,54 @@ class CSetValue extends ValueImpl
 {
 	private static final long serialVersionUID = Constants.serialVersionUID();
 
+	// Notified whenever the correlation value changes, e.g., to update correlation indexes.
+	private final transient Runnable updateListener;
+
+	public CSetValue()
+	{
+		updateListener = null;
+	}
+
+	public CSetValue( Value value, Runnable updateListener )
+	{
+		_deepCopy( value, false );
+		this.updateListener = updateListener;
+	}
+
+	private void fireUpdate()
+	{
+		if ( updateListener != null ) {
+			updateListener.run();
+		}
+	}
+
 	@Override
 	public void setValueObject( Object object )
 	{
-		//CommCore commCore = Interpreter.getInstance().commCore();
-		//synchronized( commCore.correlationLock() )
-			//removeFromRadixTree();
-			super.setValueObject( object );
-			//addToRadixTree();
-		//}
+		super.setValueObject( object );
+		fireUpdate();
+	}
+
+	@Override
+	protected void _refCopy( Value value )
+	{
+		super._refCopy( value );
+		fireUpdate();
+	}
+
+	@Override
+	public void erase()
+	{
+		super.erase();
+		fireUpdate();
+	}
+
+	/**
+	 * Called when this value is detached from its parent tree.
+	 */
+	protected void detach()
+	{
+		fireUpdate();
 	}
 
 	@Override
@@ -443,6 +918,19 @@ public abstract class Value implements Expression, Cloneable
 	{
 		return new CSetValue();
 	}
+
+	/**
+	 * Creates a correlation value holding a copy of the passed value.
+	 * The listener is invoked every time the correlation value is modified
+	 * or detached from its tree.
+	 * @param value the value to copy
+	 * @param updateListener the listener to invoke on updates
+	 * @return the new correlation value
+	 */
+	public final static Value createCSetValue( Value value, Runnable updateListener )
+	{
+		return new CSetValue( value, updateListener );
+	}
 	
 	public final static Value create( Boolean bool )
 	{
@@ -483,6 +971,23 @@ public abstract class Value implements Expression, Cloneable
 	{
 		return value.clone();
 	}
+
+	/**
+	 * Creates a clone of a root value, whose variables are copied from root
+	 * only when they are first accessed through the clone.
+	 * The variables of root should thus not be modified while the clone may
+	 * still copy them, as it happens, e.g., for the state of the init code
+	 * after it has terminated.
+	 * @param root the root value to clone
+	 * @return the clone of root
+	 */
+	public final static Value createLazyRootClone( Value root )
+	{
+		if ( root instanceof RootValueImpl ) {
+			return ((RootValueImpl)root).lazyClone();
+		}
+		return root.clone();
+	}
 	
 	public final static Value createDeepCopy( Value value )
 	{
@@ -25,6 +25,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -69,9 +70,27 @@ class ValueVectorLink extends ValueVector implements Cloneable
 	}
 	
 	@Override
-	protected List< Value > values()
+	public void add( Value value )
 	{
-		return getLinkedValueVector().values();
+		getLinkedValueVector().add( value );
+	}
+	
+	@Override
+	public Value remove( int i )
+	{
+		return getLinkedValueVector().remove( i );
+	}
+	
+	@Override
+	public Iterator< Value > iterator()
+	{
+		return getLinkedValueVector().iterator();
+	}
+	
+	@Override
+	public boolean isEmpty()
+	{
+		return getLinkedValueVector().isEmpty();
 	}
 	
 	@Override
@@ -88,52 +107,132 @@ class ValueVectorLink extends ValueVector implements Cloneable
 	}
 }
 
+/*
+ * Reads do not lock. Writes are made while holding the monitor of the vector,
+ * and publish their effects by writing elements and then size: a reader reads
+ * size and then elements, so it sees all the elements below the size it read.
+ *
+ * The array of elements never shrinks, and removals replace it with a copy
+ * (copy-on-write), so a reader never sees it half-shifted. A reader that finds
+ * an index out of bounds, or a slot emptied by a concurrent removal, retries
+ * while holding the monitor.
+ *
+ * Most vectors hold a single element, so the first array has capacity 1;
+ * larger vectors double their capacity when they grow.
+ */
 class ValueVectorImpl extends ValueVector implements Serializable
 {
 	private static final long serialVersionUID = Constants.serialVersionUID();
-	private final ArrayList<Value> values;
+	private static final Value[] EMPTY = new Value[ 0 ];
+	private volatile Value[] elements = EMPTY;
+	private volatile int size = 0;
 	
 	@Override
-	protected List< Value > values()
+	public int size()
 	{
-		return values;
+		return size;
 	}
-	
+
 	@Override
-	public synchronized int size()
+	public Value get( int i )
 	{
-		return values().size();
+		if ( i < size ) {
+			final Value value = elements[ i ];
+			if ( value != null ) {
+				return value;
+			}
+		}
+		return getOrCreate( i );
 	}
 
-	@Override
-	public Value get( int i )
+	private synchronized Value getOrCreate( int i )
 	{
-		if ( i >= values.size() ) {
-			synchronized( this ) {
-				if ( i >= values.size() ) {
-					values.ensureCapacity( i + 1 );
-					for( int k = values.size(); k <= i; k++ ) {
-						values.add( Value.create() );
-					}
-				}
+		if ( i >= size ) {
+			final Value[] a = ensureCapacity( i + 1 );
+			for( int k = size; k <= i; k++ ) {
+				a[ k ] = Value.create();
 			}
+			size = i + 1;
 		}
-		return values.get( i );
+		return elements[ i ];
 	}
 
 	@Override
 	public synchronized void set( int i, Value value )
 	{
-		if ( i >= values.size() ) {
-			values.ensureCapacity( i + 1 );
-			for( int k = values.size(); k < i; k++ ) {
-				values.add( Value.create() );
-			}
-			values.add( value );
+		final Value[] a = ensureCapacity( i + 1 );
+		for( int k = size; k < i; k++ ) {
+			a[ k ] = Value.create();
+		}
+		a[ i ] = value;
+		if ( i >= size ) {
+			size = i + 1;
 		} else {
-			values.set( i, value );
+			// Publish the new element
+			elements = a;
 		}
 	}
+
+	@Override
+	public synchronized void add( Value value )
+	{
+		final int i = size;
+		ensureCapacity( i + 1 )[ i ] = value;
+		size = i + 1;
+	}
+
+	@Override
+	public synchronized Value remove( int i )
+	{
+		final int n = size;
+		if ( i < 0 || i >= n ) {
+			throw new IndexOutOfBoundsException( "Index: " + i + ", Size: " + n );
+		}
+		final Value[] a = elements;
+		final Value[] copy = new Value[ a.length ];
+		System.arraycopy( a, 0, copy, 0, i );
+		System.arraycopy( a, i + 1, copy, i, n - i - 1 );
+		elements = copy;
+		size = n - 1;
+		return a[ i ];
+	}
+
+	// Must be called while holding the monitor
+	private Value[] ensureCapacity( int capacity )
+	{
+		Value[] a = elements;
+		if ( capacity > a.length ) {
+			final Value[] grown = new Value[ Math.max( capacity, a.length * 2 ) ];
+			System.arraycopy( a, 0, grown, 0, size );
+			elements = a = grown;
+		}
+		return a;
+	}
+
+	@Override
+	public Iterator< Value > iterator()
+	{
+		final int n = size;
+		final Value[] a = elements;
+		return new Iterator< Value >() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return next < n && a[ next ] != null;
+			}
+
+			@Override
+			public Value next()
+			{
+				if ( !hasNext() ) {
+					throw new NoSuchElementException();
+				}
+				return a[ next++ ];
+			}
+		};
+	}
 	
 	@Override
 	public boolean isLink()
@@ -144,12 +243,13 @@ class ValueVectorImpl extends ValueVector implements Serializable
 	@Override
 	public synchronized List< Value > valuesCopy()
 	{
-		return new ArrayList<>( values );
-	}
-	
-	public ValueVectorImpl()
-	{
-		values = new ArrayList<>( 1 );
+		final int n = size;
+		final Value[] a = elements;
+		final List< Value > ret = new ArrayList<>( n );
+		for( int i = 0; i < n; i++ ) {
+			ret.add( a[ i ] );
+		}
+		return ret;
 	}
 }
 
@@ -160,11 +260,6 @@ public abstract class ValueVector implements Iterable< Value >
 		return new ValueVectorImpl();
 	}
 	
-	public synchronized Value remove( int i )
-	{
-		return values().remove( i );
-	}
-	
 	public static ValueVector createLink( VariablePath path )
 	{
 		return new ValueVectorLink( path );
@@ -186,49 +281,37 @@ public abstract class ValueVector implements Iterable< Value >
 		return retVec;
 	}
 	
-	public synchronized Value first()
+	public Value first()
 	{
 		return get( 0 );
 	}
 	
-	public synchronized boolean isEmpty()
-	{
-		return values().isEmpty();
-	}
-	
-	@Override
-	public synchronized Iterator< Value > iterator()
+	public boolean isEmpty()
 	{
-		return values().iterator();
+		return size() == 0;
 	}
 	
 	public abstract Value get( int i );
 	public abstract void set( int i, Value value );
+	public abstract void add( Value value );
+	public abstract Value remove( int i );
 	public abstract int size();
 	public abstract List< Value > valuesCopy();
 	
-	
-	public synchronized void add( Value value )
-	{
-		values().add( value );
-	}
-	
 	// TODO: improve performance
-	public synchronized void deepCopy( ValueVector vec )
+	public void deepCopy( ValueVector vec )
 	{
 		for( int i = 0; i < vec.size(); i++ ) {
 			get( i ).deepCopy( vec.get( i ) );
 		}
 	}
 
-	public synchronized void deepCopyWithLinks( ValueVector vec ) {
+	public void deepCopyWithLinks( ValueVector vec ) {
 		for( int i = 0; i < vec.size(); i++ ) {
 			get( i ).deepCopyWithLinks( vec.get( i ) );
 		}
 	}
 
-
-	protected abstract List< Value > values();
 	public abstract boolean isLink();
 	
 	public final Stream< Value > stream()
@@ -157,7 +157,7 @@ public class VariablePath implements Expression
 				if ( (i+1) < path.length ) {
 					currValue = currVector.get( 0 );
 				} else { // We're finished
-					currValue.children().remove( keyStr );
+					detachCorrelationValues( currValue.children().remove( keyStr ) );
 				}
 			} else {
 				index = pair.value().evaluate().intValue();
@@ -168,12 +168,28 @@ public class VariablePath implements Expression
 					currValue = currVector.get( index );
 				} else {
 					if ( currVector.size() > index ) {
-						currVector.remove( index );
+						detachCorrelationValue( currVector.remove( index ) );
 					}
 				}
 			}
 		}
 	}
+
+	private static void detachCorrelationValues( ValueVector vector )
+	{
+		if ( vector != null && !vector.isLink() ) {
+			for( Value value : vector ) {
+				detachCorrelationValue( value );
+			}
+		}
+	}
+
+	private static void detachCorrelationValue( Value value )
+	{
+		if ( value.isUsedInCorrelation() ) {
+			((CSetValue)value).detach();
+		}
+	}
 	
 	public final Value getValue()
 	{
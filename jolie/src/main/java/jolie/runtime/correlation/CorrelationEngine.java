@@ -28,6 +28,7 @@ import jolie.net.CommChannel;
 import jolie.net.CommMessage;
 import jolie.runtime.Value;
 import jolie.runtime.correlation.CorrelationSet.CorrelationPair;
+import jolie.runtime.correlation.impl.HashCorrelationEngine;
 import jolie.runtime.correlation.impl.SimpleCorrelationEngine;
 
 /**
@@ -46,8 +47,7 @@ public abstract class CorrelationEngine implements SessionListener
 		HASH {
 			@Override
 			public CorrelationEngine createInstance( Interpreter interpreter ) {
-				//return new HashCorrelationEngine( interpreter );
-				return null;
+				return new HashCorrelationEngine( interpreter );
 			}
 		};
 
@@ -98,7 +98,21 @@ public abstract class CorrelationEngine implements SessionListener
 		}
 	}
 	
-	public synchronized void onMessageReceive( final CommMessage message, final CommChannel channel )
+	public void onMessageReceive( final CommMessage message, final CommChannel channel )
+		throws CorrelationError
+	{
+		// Measured outside of the lock, so that contention shows up in the metrics
+		final long startTime = System.nanoTime();
+		boolean error = true;
+		try {
+			routeOrStartSession( message, channel );
+			error = false;
+		} finally {
+			interpreter.metrics().recordCorrelation( System.nanoTime() - startTime, error );
+		}
+	}
+
+	private synchronized void routeOrStartSession( final CommMessage message, final CommChannel channel )
 		throws CorrelationError
 	{
 		if ( !(
@@ -21,16 +21,343 @@
 
 package jolie.runtime.correlation.impl;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import jolie.Interpreter;
+import jolie.SessionThread;
+import jolie.lang.Constants.ExecutionMode;
+import jolie.net.CommChannel;
+import jolie.net.CommMessage;
+import jolie.net.SessionMessage;
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+import jolie.runtime.VariablePath;
+import jolie.runtime.correlation.CorrelationSet;
+import jolie.runtime.correlation.CorrelationSet.CorrelationPair;
+import jolie.runtime.expression.Expression;
+import jolie.util.Pair;
 
 /**
- * A hash table based correlation algorithm (stub).
+ * A hash table based correlation algorithm.
+ *
+ * For each correlation set, sessions are indexed by the values of their
+ * correlation variables, so that routing a message costs a single lookup
+ * instead of a scan over all running sessions.
+ * Correlation variables are stored as correlation values (see {@link Value#createCSetValue(jolie.runtime.Value, java.lang.Runnable)}),
+ * which notify this engine whenever they are assigned, so that the indexes
+ * are kept up to date.
+ *
+ * Index keys are canonical forms of the correlation values, which are the same
+ * for values of different types that the comparison used by {@link SimpleCorrelationEngine}
+ * considers equal, e.g., the int 1, the double 1.0 and the string "01".
+ * Every session found through the index is checked again with that comparison
+ * before routing a message to it, and messages not found through the index
+ * are not correlated. Unlike the sequential check, this engine thus does not
+ * correlate values that are equal only because a conversion failed or
+ * overflowed, e.g., the int 0 and the string "a", or the bool true and the int 2.
+ *
+ * In single execution mode, while the init procedure is running, and for operations
+ * whose correlation aliases do not cover all the variables of their correlation set,
+ * this engine falls back to the sequential check of {@link SimpleCorrelationEngine}.
  * @author Fabrizio Montesi
  */
 public class HashCorrelationEngine extends SimpleCorrelationEngine
 {
+	private static class CorrelationKey
+	{
+		private final String[] values;
+		private final int hashCode;
+
+		private CorrelationKey( String[] values )
+		{
+			this.values = values;
+			this.hashCode = Arrays.hashCode( values );
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals( Object obj )
+		{
+			return obj instanceof CorrelationKey && Arrays.equals( values, ((CorrelationKey)obj).values );
+		}
+	}
+
+	/*
+	 * The correlation values of a session, with the keys under which
+	 * the session is currently indexed (one per correlation set).
+	 */
+	private static class SessionEntry
+	{
+		private final Value[][] correlationValues;
+		private final CorrelationKey[] keys;
+
+		private SessionEntry( int size )
+		{
+			correlationValues = new Value[ size ][];
+			keys = new CorrelationKey[ size ];
+		}
+	}
+
+	private static final String NUMBER_KEY_PREFIX = "#";
+	private static final String STRING_KEY_PREFIX = "'";
+
+	private final Object indexLock = new Object();
+	private final Set< SessionThread > initialisingSessions = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+	private final Map< SessionThread, SessionEntry > sessionEntries = new ConcurrentHashMap<>();
+	private final Map< CorrelationSet, Map< CorrelationKey, Set< SessionThread > > > indexes = new ConcurrentHashMap<>();
+	// Message paths ordered as the variables of their correlation set, null if not indexable.
+	private final Map< String, VariablePath[] > operationKeyPaths = new ConcurrentHashMap<>();
+
 	public HashCorrelationEngine( Interpreter interpreter )
 	{
 		super( interpreter );
 	}
+
+	@Override
+	public boolean routeMessage( CommMessage message, CommChannel channel )
+	{
+		if ( interpreter().executionMode() == ExecutionMode.SINGLE || !initialisingSessions.isEmpty() ) {
+			return super.routeMessage( message, channel );
+		}
+
+		final CorrelationSet cset = interpreter().getCorrelationSetForOperation( message.operationName() );
+		if ( cset == null ) {
+			// It must be a session starter.
+			return false;
+		}
+
+		final VariablePath[] keyPaths = operationKeyPaths.computeIfAbsent( message.operationName(), op -> buildKeyPaths( cset, op ) );
+		if ( keyPaths.length == 0 ) {
+			return super.routeMessage( message, channel );
+		}
+
+		final CorrelationKey key = buildKey( keyPaths, message.value() );
+		if ( key != null ) {
+			final Set< SessionThread > candidates = getIndex( cset ).get( key );
+			if ( candidates != null ) {
+				for( SessionThread session : candidates ) {
+					if ( correlate( session, message ) ) {
+						session.pushMessage( new SessionMessage( message, channel ) );
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void onSessionStart( SessionThread session, Interpreter.SessionStarter starter, CommMessage message )
+	{
+		super.onSessionStart( session, starter, message );
+		synchronized( indexLock ) {
+			sessionEntries.put( session, new SessionEntry( interpreter().correlationSets().size() ) );
+			updateSession( session );
+		}
+	}
+
+	@Override
+	public void onSingleExecutionSessionStart( SessionThread session )
+	{
+		super.onSingleExecutionSessionStart( session );
+		if ( session.isInitialisingThread() ) {
+			initialisingSessions.add( session );
+		}
+	}
+
+	@Override
+	public void onSessionExecuted( SessionThread session )
+	{
+		super.onSessionExecuted( session );
+		initialisingSessions.remove( session );
+		synchronized( indexLock ) {
+			final SessionEntry entry = sessionEntries.remove( session );
+			if ( entry != null ) {
+				final List< CorrelationSet > csets = interpreter().correlationSets();
+				for( int i = 0; i < entry.keys.length; i++ ) {
+					removeFromIndex( csets.get( i ), entry.keys[ i ], session );
+				}
+			}
+		}
+	}
+
+	@Override
+	public void onSessionError( SessionThread session, FaultException fault )
+	{
+		onSessionExecuted( session );
+	}
+
+	private Map< CorrelationKey, Set< SessionThread > > getIndex( CorrelationSet cset )
+	{
+		return indexes.computeIfAbsent( cset, k -> new ConcurrentHashMap<>() );
+	}
+
+	/*
+	 * Makes sure that all the correlation variables of the session are backed by
+	 * correlation values bound to it, and re-indexes the session under its current keys.
+	 * Must be called while holding indexLock.
+	 */
+	private void updateSession( final SessionThread session )
+	{
+		final SessionEntry entry = sessionEntries.get( session );
+		if ( entry == null ) {
+			// The session has already terminated.
+			return;
+		}
+
+		final Value root = session.state().root();
+		final List< CorrelationSet > csets = interpreter().correlationSets();
+		for( int i = 0; i < csets.size(); i++ ) {
+			final CorrelationSet cset = csets.get( i );
+			final List< VariablePath > paths = cset.correlationVariablePaths();
+			if ( entry.correlationValues[ i ] == null ) {
+				entry.correlationValues[ i ] = new Value[ paths.size() ];
+			}
+			final Value[] values = entry.correlationValues[ i ];
+			final String[] keyValues = new String[ paths.size() ];
+			boolean defined = true;
+			for( int k = 0; k < paths.size(); k++ ) {
+				final VariablePath path = paths.get( k );
+				Value value = path.getValueOrNull( root );
+				if ( value == null || value != values[ k ] ) {
+					value = bindCorrelationValue( path, root, value, session );
+					values[ k ] = value;
+				}
+				if ( value.isDefined() ) {
+					keyValues[ k ] = canonicalKey( value );
+				} else {
+					defined = false;
+				}
+			}
+
+			final CorrelationKey key = defined ? new CorrelationKey( keyValues ) : null;
+			if ( key == null ? entry.keys[ i ] != null : !key.equals( entry.keys[ i ] ) ) {
+				removeFromIndex( cset, entry.keys[ i ], session );
+				if ( key != null ) {
+					getIndex( cset ).computeIfAbsent( key, k -> Collections.newSetFromMap( new ConcurrentHashMap<>() ) ).add( session );
+				}
+				entry.keys[ i ] = key;
+			}
+		}
+	}
+
+	private Value bindCorrelationValue( VariablePath path, Value root, Value current, final SessionThread session )
+	{
+		final Pair< Expression, Expression >[] p = path.path();
+		final Expression indexExpression = p[ p.length - 1 ].value();
+		final int index = ( indexExpression == null ) ? 0 : indexExpression.evaluate().intValue();
+		final ValueVector vector = path.getValueVector( root );
+		final Value cvalue = Value.createCSetValue(
+			( current == null ) ? Value.UNDEFINED_VALUE : current,
+			() -> {
+				synchronized( indexLock ) {
+					updateSession( session );
+				}
+			}
+		);
+		vector.set( index, cvalue );
+		return cvalue;
+	}
+
+	private void removeFromIndex( CorrelationSet cset, CorrelationKey key, SessionThread session )
+	{
+		if ( key != null ) {
+			getIndex( cset ).computeIfPresent( key, ( k, sessions ) -> {
+				sessions.remove( session );
+				return sessions.isEmpty() ? null : sessions;
+			} );
+		}
+	}
+
+	private static CorrelationKey buildKey( VariablePath[] keyPaths, Value messageValue )
+	{
+		final String[] keyValues = new String[ keyPaths.length ];
+		for( int i = 0; i < keyPaths.length; i++ ) {
+			final Value value = keyPaths[ i ].getValueOrNull( messageValue );
+			if ( value == null || !value.isDefined() ) {
+				return null;
+			}
+			keyValues[ i ] = canonicalKey( value );
+		}
+		return new CorrelationKey( keyValues );
+	}
+
+	/*
+	 * Returns the same key for any two values that correlate() may consider equal,
+	 * whatever their types. Numbers, booleans and the strings that represent them
+	 * are keyed by their integral part, so that, e.g., 1, 1L, 1.0, 1.5, "01" and
+	 * true share a key. Sessions under the same key are told apart by correlate().
+	 */
+	private static String canonicalKey( Value value )
+	{
+		if ( value.isInt() || value.isLong() || value.isDouble() || value.isBool() ) {
+			return NUMBER_KEY_PREFIX + value.longValue();
+		} else if ( value.isString() ) {
+			final String str = value.strValue().trim();
+			if ( "true".equalsIgnoreCase( str ) ) {
+				return NUMBER_KEY_PREFIX + 1;
+			} else if ( "false".equalsIgnoreCase( str ) ) {
+				return NUMBER_KEY_PREFIX + 0;
+			}
+			try {
+				return NUMBER_KEY_PREFIX + Long.parseLong( str );
+			} catch( NumberFormatException e ) {}
+			try {
+				return NUMBER_KEY_PREFIX + (long) Double.parseDouble( str );
+			} catch( NumberFormatException e ) {}
+		}
+		return STRING_KEY_PREFIX + value.strValue();
+	}
+
+	private static VariablePath[] buildKeyPaths( CorrelationSet cset, String operationName )
+	{
+		final List< VariablePath > variablePaths = cset.correlationVariablePaths();
+		final Map< String, Integer > variableIndexes = new HashMap<>();
+		for( int i = 0; i < variablePaths.size(); i++ ) {
+			variableIndexes.put( pathToString( variablePaths.get( i ) ), i );
+		}
+
+		final VariablePath[] keyPaths = new VariablePath[ variablePaths.size() ];
+		final List< CorrelationPair > pairs = cset.getOperationCorrelationPairs( operationName );
+		if ( pairs == null ) {
+			return new VariablePath[0];
+		}
+		for( CorrelationPair pair : pairs ) {
+			final Integer index = variableIndexes.get( pathToString( pair.sessionPath() ) );
+			if ( index == null ) {
+				return new VariablePath[0];
+			}
+			keyPaths[ index ] = pair.messagePath();
+		}
+		for( VariablePath keyPath : keyPaths ) {
+			if ( keyPath == null ) {
+				return new VariablePath[0];
+			}
+		}
+		return keyPaths;
+	}
+
+	// Correlation variable paths are static, so they can be evaluated outside of any session.
+	private static String pathToString( VariablePath path )
+	{
+		final StringBuilder builder = new StringBuilder();
+		for( Pair< Expression, Expression > pair : path.path() ) {
+			builder.append( '.' ).append( pair.key().evaluate().strValue() );
+			if ( pair.value() != null ) {
+				builder.append( '[' ).append( pair.value().evaluate().intValue() ).append( ']' );
+			}
+		}
+		return builder.toString();
+	}
 }
@@ -84,7 +84,7 @@ public class SimpleCorrelationEngine extends CorrelationEngine
 		onSessionExecuted( session );
 	}
 
-	private boolean correlate( SessionThread session, CommMessage message )
+	protected boolean correlate( SessionThread session, CommMessage message )
 	{
 		if ( (interpreter().correlationSets().isEmpty()
 			&& interpreter().executionMode() == ExecutionMode.SINGLE)
@@ -0,0 +1,237 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.tracer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Converts the files written by {@link BinaryTracer} to the JSON files
+ * written by {@link FileTracer}, which can be browsed with jolietraceviewer.
+ *
+ * Each file {@code name.jolie.trace} is converted to {@code name.jolie.log.json},
+ * with one line per action, in the order in which actions were traced.
+ * Usage: {@code BinaryTraceConverter [file or directory]...}, where the default
+ * is the working directory.
+ * @author agent
+ */
+public class BinaryTraceConverter
+{
+	private static final String JSON_SUFFIX = ".jolie.log.json";
+	private static final DateTimeFormatter TIMESTAMP_FORMAT =
+		DateTimeFormatter.ofPattern( "dd/MM/yyyy HH:mm:ss.SSS" ).withZone( ZoneId.systemDefault() );
+
+	private static class Record
+	{
+		private final int sequence;
+		private final String json;
+
+		private Record( int sequence, String json )
+		{
+			this.sequence = sequence;
+			this.json = json;
+		}
+	}
+
+	public static void main( String[] args )
+	{
+		final List< Path > files = new ArrayList<>();
+		try {
+			if ( args.length == 0 ) {
+				addTraceFiles( Paths.get( "." ), files );
+			}
+			for( String arg : args ) {
+				addTraceFiles( Paths.get( arg ), files );
+			}
+			for( Path file : files ) {
+				final Path target = convert( file );
+				System.out.println( file + " -> " + target );
+			}
+		} catch( IOException e ) {
+			System.err.println( e.getMessage() );
+			System.exit( 1 );
+		}
+	}
+
+	private static void addTraceFiles( Path path, List< Path > files )
+		throws IOException
+	{
+		if ( Files.isDirectory( path ) ) {
+			try( DirectoryStream< Path > stream = Files.newDirectoryStream( path, "*" + BinaryTracer.FILE_SUFFIX ) ) {
+				stream.forEach( files::add );
+			}
+		} else {
+			files.add( path );
+		}
+	}
+
+	/**
+	 * Converts a trace file to JSON, in the same directory.
+	 * @param file the trace file
+	 * @return the path of the JSON file
+	 * @throws IOException if the trace could not be read or the JSON file could not be written
+	 */
+	public static Path convert( Path file )
+		throws IOException
+	{
+		final String name = file.getFileName().toString();
+		final String baseName = name.endsWith( BinaryTracer.FILE_SUFFIX )
+			? name.substring( 0, name.length() - BinaryTracer.FILE_SUFFIX.length() )
+			: name;
+		final Path target = file.resolveSibling( baseName + JSON_SUFFIX );
+
+		final List< Record > records = new ArrayList<>();
+		long dropped = 0;
+		try( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) ) {
+			final ByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+			while( buffer.remaining() >= BinaryTracer.HEADER_SIZE ) {
+				final int start = buffer.position();
+				final int length = buffer.getInt( start );
+				if ( length == 0 ) {
+					break;
+				} else if ( length < BinaryTracer.HEADER_SIZE || length > buffer.remaining() ) {
+					throw new IOException( file + ": corrupted record at offset " + start );
+				}
+				final byte kind = buffer.get( start + 4 );
+				if ( kind == BinaryTracer.ACTION_RECORD ) {
+					records.add( readAction( buffer ) );
+				} else if ( kind == BinaryTracer.DROPPED_RECORD ) {
+					dropped += buffer.getLong( start + 24 );
+				}
+				buffer.position( start + length );
+			}
+		}
+		records.sort( Comparator.comparingInt( r -> r.sequence ) );
+
+		try( Writer writer = Files.newBufferedWriter( target, StandardCharsets.UTF_8 ) ) {
+			for( Record record : records ) {
+				writer.write( record.json );
+			}
+		}
+		if ( dropped > 0 ) {
+			System.err.println( file + ": " + dropped + " actions were dropped because the tracer could not keep up" );
+		}
+		return target;
+	}
+
+	private static Record readAction( ByteBuffer buffer )
+	{
+		buffer.getInt(); // length
+		buffer.get(); // kind
+		final byte flags = buffer.get();
+		buffer.getShort();
+		final int sequence = buffer.getInt();
+		final long timestamp = buffer.getLong();
+		final int line = buffer.getInt();
+		final long messageId = buffer.getLong();
+		final String source = readString( buffer );
+		final String sourceName = readString( buffer );
+		final String code = readString( buffer );
+		final String first = readString( buffer );
+		final String second = readString( buffer );
+		final byte[] payload = readBytes( buffer );
+
+		final StringBuilder b = new StringBuilder();
+		b.append( "{\"" ).append( sequence ).append( "\":[" );
+		appendString( b, TIMESTAMP_FORMAT.format( Instant.ofEpochMilli( timestamp ) ) ).append( ',' );
+		appendString( b, source ).append( ',' );
+		appendString( b, sourceName ).append( ',' );
+		appendString( b, line < 0 ? "" : Integer.toString( line ) ).append( ',' );
+		if ( code != null ) {
+			appendString( b, code ).append( ',' );
+		}
+		appendString( b, first ).append( ',' );
+		appendString( b, second );
+		if ( (flags & BinaryTracer.HAS_PAYLOAD) != 0 ) {
+			b.append( ',' );
+			appendString( b, (flags & BinaryTracer.HAS_MESSAGE_ID) != 0 ? Long.toString( messageId ) : "" ).append( ',' );
+			appendString( b, Base64.getEncoder().encodeToString( payload ) );
+		}
+		b.append( "]}\n" );
+		return new Record( sequence, b.toString() );
+	}
+
+	private static byte[] readBytes( ByteBuffer buffer )
+	{
+		final int length = buffer.getInt();
+		if ( length < 0 ) {
+			return null;
+		}
+		final byte[] bytes = new byte[ length ];
+		buffer.get( bytes );
+		return bytes;
+	}
+
+	private static String readString( ByteBuffer buffer )
+	{
+		final byte[] bytes = readBytes( buffer );
+		return bytes == null ? null : new String( bytes, StandardCharsets.UTF_8 );
+	}
+
+	private static StringBuilder appendString( StringBuilder b, String s )
+	{
+		b.append( '"' );
+		for( int i = 0; i < s.length(); i++ ) {
+			final char c = s.charAt( i );
+			switch( c ) {
+			case '"':
+				b.append( "\\\"" );
+				break;
+			case '\\':
+				b.append( "\\\\" );
+				break;
+			case '\n':
+				b.append( "\\n" );
+				break;
+			case '\r':
+				b.append( "\\r" );
+				break;
+			case '\t':
+				b.append( "\\t" );
+				break;
+			default:
+				if ( c < 0x20 ) {
+					b.append( String.format( "\\u%04x", (int) c ) );
+				} else {
+					b.append( c );
+				}
+				break;
+			}
+		}
+		return b.append( '"' );
+	}
+}
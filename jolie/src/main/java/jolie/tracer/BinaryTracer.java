@@ -0,0 +1,486 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.tracer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import jolie.Interpreter;
+import jolie.lang.parse.context.ParsingContext;
+import jolie.runtime.Value;
+import jolie.runtime.ValuePrettyPrinter;
+
+/**
+ * A tracer that writes actions as binary records, for tracing with a low overhead.
+ *
+ * Each thread writes its records in its own ring buffer, without locking.
+ * A single daemon thread drains the buffers into memory-mapped files of
+ * {@link #FILE_SIZE} bytes, named {@code *.jolie.trace}, and only the last
+ * {@link #MAX_FILES} files are kept. The drainer checks the buffers
+ * every millisecond while records keep coming, and less and less often,
+ * down to once a second, while tracing is idle. Records still buffered when
+ * the tracer is closed are written by {@link #close()}. Records that do not fit in the buffer
+ * of their thread are dropped, and their number is recorded in the trace.
+ *
+ * Records carry the same information as the ones written by {@link FileTracer},
+ * and {@link BinaryTraceConverter} converts trace files to its JSON format.
+ *
+ * The layout of a record is a fixed header followed by its variable fields:
+ * <pre>
+ * int length       the size of the record, in bytes; 0 marks the end of a file
+ * byte kind        {@link #ACTION_RECORD} or {@link #DROPPED_RECORD}
+ * byte flags       {@link #HAS_MESSAGE_ID}, {@link #HAS_PAYLOAD}
+ * short reserved
+ * int sequence     the number of the action, counting also filtered ones
+ * long timestamp   the time of the action, in milliseconds since the epoch
+ * int line         the line of the action in its source, or -1
+ * long messageId   the id of the traced message, or the number of dropped records
+ * five UTF-8 strings, each prefixed by its length as an int: source, source name,
+ * type code (length -1 if missing), and two descriptive fields, in the order used
+ * by the JSON format; the payload, prefixed by its length as an int
+ * </pre>
+ * @author agent
+ */
+public class BinaryTracer implements Tracer
+{
+	/**
+	 * The size of each trace file, in bytes.
+	 */
+	public static final int FILE_SIZE = 16 * 1024 * 1024;
+	/**
+	 * The number of trace files that are kept.
+	 */
+	public static final int MAX_FILES = 16;
+	/**
+	 * The suffix of the names of trace files.
+	 */
+	public static final String FILE_SUFFIX = ".jolie.trace";
+
+	static final byte ACTION_RECORD = 1;
+	static final byte DROPPED_RECORD = 2;
+	static final byte HAS_MESSAGE_ID = 1;
+	static final byte HAS_PAYLOAD = 2;
+	static final int HEADER_SIZE = 32;
+
+	private static final int BUFFER_SIZE = 256 * 1024; // Per thread, must be a power of 2
+	// Producers wake up the drainer when their buffer is half full or drops a record,
+	// so the drainer backs off from the minimum to the maximum park time while idle
+	private static final long MIN_PARK_NANOS = 1_000_000; // 1 ms
+	private static final long MAX_PARK_NANOS = 1_000_000_000; // 1 s
+	private static final byte[] EMPTY = new byte[ 0 ];
+	private static final AtomicInteger instanceCounter = new AtomicInteger();
+
+	// A single-producer, single-consumer ring of records
+	private static final class RingBuffer
+	{
+		private final Thread owner = Thread.currentThread();
+		private final byte[] data = new byte[ BUFFER_SIZE ];
+		private volatile long head = 0; // Written only by the drainer
+		private volatile long tail = 0; // Written only by the owner
+		private ByteBuffer scratch = ByteBuffer.allocate( 1024 ); // Used only by the owner
+
+		private boolean offer( ByteBuffer record )
+		{
+			final int length = record.position();
+			final long t = tail;
+			if ( length > BUFFER_SIZE - (t - head) ) {
+				return false;
+			}
+			final int start = (int) (t & (BUFFER_SIZE - 1));
+			final int first = Math.min( length, BUFFER_SIZE - start );
+			System.arraycopy( record.array(), 0, data, start, first );
+			System.arraycopy( record.array(), first, data, 0, length - first );
+			tail = t + length;
+			return true;
+		}
+
+		private int available()
+		{
+			return (int) (tail - head);
+		}
+
+		private int readLength( long position )
+		{
+			int length = 0;
+			for( int i = 0; i < 4; i++ ) {
+				length = (length << 8) | (data[ (int) ((position + i) & (BUFFER_SIZE - 1)) ] & 0xFF);
+			}
+			return length;
+		}
+	}
+
+	private final Interpreter interpreter;
+	private final TracerUtils.TracerLevels tracerLevel;
+	private final AtomicInteger actionCounter = new AtomicInteger( 0 );
+	private final LongAdder dropped = new LongAdder();
+	private final List< RingBuffer > buffers = new CopyOnWriteArrayList<>();
+	private final ThreadLocal< RingBuffer > localBuffer = ThreadLocal.withInitial( this::createBuffer );
+	private final Deque< Path > files = new ArrayDeque<>();
+	private final String filePrefix;
+	private int fileCount = 0; // Accessed only by the drainer
+	private final Thread drainer;
+	private volatile boolean closed = false;
+	private long reportedDropped = 0; // Accessed only by the drainer
+	private FileChannel channel = null; // Accessed only by the drainer
+	private MappedByteBuffer mapped = null; // Accessed only by the drainer
+
+	/**
+	 * Creates a binary tracer that writes its files in the working directory.
+	 * @param interpreter the interpreter that is traced
+	 * @param tracerLevel the kinds of actions to trace
+	 */
+	public BinaryTracer( Interpreter interpreter, TracerUtils.TracerLevels tracerLevel )
+	{
+		this.interpreter = interpreter;
+		this.tracerLevel = tracerLevel;
+		this.filePrefix = new SimpleDateFormat( "ddMMyyyyHHmmssSSS" ).format( new Date() ) + "-" + instanceCounter.incrementAndGet() + "-";
+		this.drainer = new Thread( this::drainLoop, interpreter.programFilename() + "-TraceWriter" );
+		drainer.setDaemon( true );
+		drainer.start();
+	}
+
+	private RingBuffer createBuffer()
+	{
+		final RingBuffer buffer = new RingBuffer();
+		buffers.add( buffer );
+		return buffer;
+	}
+
+	@Override
+	public void trace( Supplier< ? extends TraceAction > supplier )
+	{
+		if ( closed ) {
+			return;
+		}
+		final TraceAction action = supplier.get();
+		final int sequence = actionCounter.incrementAndGet();
+		if ( action instanceof MessageTraceAction ) {
+			if ( tracerLevel == TracerUtils.TracerLevels.ALL || tracerLevel == TracerUtils.TracerLevels.COMM ) {
+				trace( sequence, (MessageTraceAction) action );
+			}
+		} else if ( action instanceof EmbeddingTraceAction ) {
+			if ( tracerLevel == TracerUtils.TracerLevels.ALL ) {
+				trace( sequence, (EmbeddingTraceAction) action );
+			}
+		} else if ( action instanceof AssignmentTraceAction ) {
+			if ( tracerLevel == TracerUtils.TracerLevels.ALL || tracerLevel == TracerUtils.TracerLevels.COMP ) {
+				trace( sequence, (AssignmentTraceAction) action );
+			}
+		} else if ( action instanceof ProtocolTraceAction ) {
+			if ( tracerLevel == TracerUtils.TracerLevels.ALL || tracerLevel == TracerUtils.TracerLevels.COMM ) {
+				trace( sequence, (ProtocolTraceAction) action );
+			}
+		}
+	}
+
+	private void trace( int sequence, EmbeddingTraceAction action )
+	{
+		final String code = action.type() == EmbeddingTraceAction.Type.SERVICE_LOAD ? "emb" : null;
+		write( sequence, action.context(), code, action.name(), action.description(), 0, null );
+	}
+
+	private void trace( int sequence, MessageTraceAction action )
+	{
+		final String code;
+		switch( action.type() ) {
+		case SOLICIT_RESPONSE:
+			code = "sr";
+			break;
+		case NOTIFICATION:
+			code = "n";
+			break;
+		case ONE_WAY:
+			code = "ow";
+			break;
+		case REQUEST_RESPONSE:
+			code = "rr";
+			break;
+		case COURIER_NOTIFICATION:
+			code = "cn";
+			break;
+		case COURIER_SOLICIT_RESPONSE:
+			code = "csr";
+			break;
+		default:
+			code = null;
+			break;
+		}
+		if ( action.message() == null ) {
+			write( sequence, action.context(), code, action.description(), action.name(), 0, null );
+		} else {
+			Value value = action.message().value();
+			if ( action.message().isFault() ) {
+				value = action.message().fault().value().clone();
+				value.getFirstChild( "__faultname" ).setValue( action.message().fault().faultName() );
+			}
+			write( sequence, action.context(), code, action.description(), action.name(), action.message().id(), prettyPrint( value, 0 ) );
+		}
+	}
+
+	private void trace( int sequence, AssignmentTraceAction action )
+	{
+		final String code;
+		switch( action.type() ) {
+		case ASSIGNMENT:
+			code = "comp";
+			break;
+		case POINTER:
+			code = "alias";
+			break;
+		case DEEPCOPY:
+			code = "dcopy";
+			break;
+		default:
+			code = null;
+			break;
+		}
+		write( sequence, action.context(), code, action.description(), action.name(), -1,
+			action.value() == null ? null : prettyPrint( action.value(), 6 ) );
+	}
+
+	private void trace( int sequence, ProtocolTraceAction action )
+	{
+		final String code;
+		switch( action.type() ) {
+		case HTTP:
+			code = "http";
+			break;
+		case SOAP:
+			code = "soap";
+			break;
+		default:
+			code = null;
+			break;
+		}
+		write( sequence, action.context(), code, action.description(), action.name(), -1,
+			action.message() == null ? null : action.message().getBytes( StandardCharsets.UTF_8 ) );
+	}
+
+	private static byte[] prettyPrint( Value value, int indentationOffset )
+	{
+		final Writer writer = new StringWriter();
+		final ValuePrettyPrinter printer = new ValuePrettyPrinter( value, writer, "Value:" );
+		printer.setByteTruncation( 50 );
+		printer.setIndentationOffset( indentationOffset );
+		try {
+			printer.run();
+		} catch( IOException e ) {} // Should never happen
+		return writer.toString().trim().getBytes( StandardCharsets.UTF_8 );
+	}
+
+	private static byte[] bytes( String s )
+	{
+		return s == null ? EMPTY : s.getBytes( StandardCharsets.UTF_8 );
+	}
+
+	/*
+	 * A negative messageId means that the payload, if any, is not related to a message.
+	 * A null payload means that the record has neither a message id nor a payload.
+	 */
+	private void write( int sequence, ParsingContext context, String code, String first, String second, long messageId, byte[] payload )
+	{
+		final byte[] source = bytes( context == null ? interpreter.programDirectory() + interpreter.programFilename() : context.source().toString() );
+		final byte[] sourceName = bytes( context == null ? interpreter.programFilename() : context.sourceName() );
+		final byte[] codeBytes = bytes( code );
+		// As in FileTracer, missing descriptions are written as "null"
+		final byte[] firstBytes = bytes( String.valueOf( first ) );
+		final byte[] secondBytes = bytes( String.valueOf( second ) );
+		final byte[] payloadBytes = payload == null ? EMPTY : payload;
+		final int length = HEADER_SIZE + 24
+			+ source.length + sourceName.length + codeBytes.length
+			+ firstBytes.length + secondBytes.length + payloadBytes.length;
+		if ( length > BUFFER_SIZE ) {
+			dropped.increment();
+			return;
+		}
+
+		final RingBuffer buffer = localBuffer.get();
+		if ( buffer.scratch.capacity() < length ) {
+			buffer.scratch = ByteBuffer.allocate( Integer.highestOneBit( length - 1 ) << 1 );
+		}
+		final ByteBuffer record = buffer.scratch;
+		record.clear();
+		byte flags = 0;
+		if ( payload != null ) {
+			flags |= HAS_PAYLOAD;
+			if ( messageId >= 0 ) {
+				flags |= HAS_MESSAGE_ID;
+			}
+		}
+		record.putInt( length )
+			.put( ACTION_RECORD )
+			.put( flags )
+			.putShort( (short) 0 )
+			.putInt( sequence )
+			.putLong( System.currentTimeMillis() )
+			.putInt( context == null ? -1 : context.line() )
+			.putLong( messageId );
+		putBytes( record, source );
+		putBytes( record, sourceName );
+		if ( code == null ) {
+			record.putInt( -1 );
+		} else {
+			putBytes( record, codeBytes );
+		}
+		putBytes( record, firstBytes );
+		putBytes( record, secondBytes );
+		putBytes( record, payloadBytes );
+
+		if ( buffer.offer( record ) ) {
+			if ( buffer.available() > BUFFER_SIZE / 2 ) {
+				LockSupport.unpark( drainer );
+			}
+		} else {
+			dropped.increment();
+			LockSupport.unpark( drainer );
+		}
+	}
+
+	private static void putBytes( ByteBuffer buffer, byte[] bytes )
+	{
+		buffer.putInt( bytes.length ).put( bytes );
+	}
+
+	private void drainLoop()
+	{
+		try {
+			long parkNanos = MIN_PARK_NANOS;
+			while( !closed ) {
+				if ( drain() ) {
+					parkNanos = MIN_PARK_NANOS;
+				} else {
+					LockSupport.parkNanos( parkNanos );
+					parkNanos = Math.min( parkNanos * 2, MAX_PARK_NANOS );
+				}
+			}
+		} catch( IOException e ) {
+			closed = true;
+			interpreter.logWarning( "Tracing stopped, the trace could not be written: " + e.getMessage() );
+		}
+	}
+
+	// Returns true if some record has been written
+	private boolean drain()
+		throws IOException
+	{
+		boolean written = false;
+		for( RingBuffer buffer : buffers ) {
+			final long tail = buffer.tail;
+			long head = buffer.head;
+			while( head < tail ) {
+				final int length = buffer.readLength( head );
+				ensureSpace( length );
+				final int start = (int) (head & (BUFFER_SIZE - 1));
+				final int first = Math.min( length, BUFFER_SIZE - start );
+				mapped.put( buffer.data, start, first );
+				mapped.put( buffer.data, 0, length - first );
+				head += length;
+				buffer.head = head;
+				written = true;
+			}
+			if ( !buffer.owner.isAlive() && buffer.available() == 0 ) {
+				buffers.remove( buffer );
+			}
+		}
+
+		final long droppedCount = dropped.sum();
+		if ( droppedCount > reportedDropped ) {
+			ensureSpace( HEADER_SIZE );
+			mapped.putInt( HEADER_SIZE )
+				.put( DROPPED_RECORD )
+				.put( (byte) 0 )
+				.putShort( (short) 0 )
+				.putInt( 0 )
+				.putLong( System.currentTimeMillis() )
+				.putInt( -1 )
+				.putLong( droppedCount - reportedDropped );
+			reportedDropped = droppedCount;
+			written = true;
+		}
+		return written;
+	}
+
+	private void ensureSpace( int length )
+		throws IOException
+	{
+		if ( mapped == null || mapped.remaining() < length ) {
+			rotate();
+		}
+	}
+
+	// Files are created with their full size, so the unused part reads as an end marker
+	private void rotate()
+		throws IOException
+	{
+		if ( channel != null ) {
+			channel.close();
+		}
+		final Path path = new File( filePrefix + fileCount++ + FILE_SUFFIX ).toPath();
+		files.addLast( path );
+		while( files.size() > MAX_FILES ) {
+			Files.deleteIfExists( files.removeFirst() );
+		}
+		channel = FileChannel.open( path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE );
+		mapped = channel.map( FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE );
+	}
+
+	/**
+	 * Writes the records that are still buffered and stops tracing.
+	 */
+	@Override
+	public void close()
+	{
+		if ( closed ) {
+			return;
+		}
+		closed = true;
+		LockSupport.unpark( drainer );
+		try {
+			drainer.join();
+			drain();
+			if ( mapped != null ) {
+				mapped.force();
+				channel.close();
+			}
+		} catch( InterruptedException | IOException e ) {
+			interpreter.logWarning( e );
+		}
+	}
+}
@@ -31,4 +31,11 @@ public interface Tracer
 {
 
 	public void trace( Supplier< ? extends TraceAction > supplier );
+
+	/**
+	 * Writes out the actions that this tracer still holds and stops tracing.
+	 * Called when the traced interpreter exits.
+	 */
+	public default void close()
+	{}
 }
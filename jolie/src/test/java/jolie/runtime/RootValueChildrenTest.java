@@ -0,0 +1,160 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the roots created by {@link Value#createLazyRootClone(Value)}, which
+ * copy the variables of their source only when they are first accessed.
+ * @author agent
+ */
+public class RootValueChildrenTest
+{
+	private Value source;
+
+	@Before
+	public void setUp()
+	{
+		source = Value.createRootValue();
+		source.getFirstChild( "a" ).setValue( 1 );
+		source.getFirstChild( "a" ).getFirstChild( "x" ).setValue( "nested" );
+		source.getChildren( "b" ).get( 1 ).setValue( 2 );
+		source.getFirstChild( "c" ).setValue( 3 );
+	}
+
+	@Test
+	public void modifyingACloneLeavesTheSourceUnchanged()
+	{
+		final Value clone = Value.createLazyRootClone( source );
+		assertEquals( 1, clone.getFirstChild( "a" ).intValue() );
+		clone.getFirstChild( "a" ).setValue( 10 );
+		clone.getFirstChild( "a" ).getFirstChild( "x" ).setValue( "changed" );
+		clone.getChildren( "b" ).get( 2 ).setValue( 20 );
+
+		assertEquals( 1, source.getFirstChild( "a" ).intValue() );
+		assertEquals( "nested", source.getFirstChild( "a" ).getFirstChild( "x" ).strValue() );
+		assertEquals( 2, source.getChildren( "b" ).size() );
+
+		final Value other = Value.createLazyRootClone( source );
+		assertEquals( 1, other.getFirstChild( "a" ).intValue() );
+		assertEquals( "nested", other.getFirstChild( "a" ).getFirstChild( "x" ).strValue() );
+	}
+
+	@Test
+	public void sizeAndEntrySetIncludeSharedVariables()
+	{
+		final Value clone = Value.createLazyRootClone( source );
+		clone.getFirstChild( "a" ).setValue( 10 );
+		clone.getFirstChild( "d" ).setValue( 4 );
+		assertEquals( 4, clone.children().size() );
+
+		final Set< String > names = new HashSet<>();
+		for( Map.Entry< String, ValueVector > entry : clone.children().entrySet() ) {
+			names.add( entry.getKey() );
+			entry.getValue().first().setValue( "overwritten" );
+		}
+		assertEquals( new HashSet<>( Arrays.asList( "a", "b", "c", "d" ) ), names );
+		assertEquals( "overwritten", clone.getFirstChild( "c" ).strValue() );
+		assertEquals( 3, source.getFirstChild( "c" ).intValue() );
+		assertEquals( 3, source.children().size() );
+		assertFalse( source.hasChildren( "d" ) );
+	}
+
+	@Test
+	public void removeReturnsADetachedCopy()
+	{
+		final Value clone = Value.createLazyRootClone( source );
+		final ValueVector removed = clone.children().remove( "b" );
+		assertNotNull( removed );
+		assertNotSame( source.getChildren( "b" ), removed );
+		assertEquals( 2, removed.get( 1 ).intValue() );
+		removed.get( 1 ).setValue( 20 );
+
+		assertFalse( clone.children().containsKey( "b" ) );
+		assertFalse( clone.hasChildren( "b" ) );
+		assertEquals( 2, clone.children().size() );
+		assertNull( clone.children().remove( "b" ) );
+		assertNull( clone.children().remove( "missing" ) );
+		assertEquals( 2, source.getChildren( "b" ).get( 1 ).intValue() );
+
+		final ValueVector replacement = ValueVector.create();
+		replacement.get( 0 ).setValue( 30 );
+		final ValueVector replaced = clone.children().put( "c", replacement );
+		assertNotSame( source.getChildren( "c" ), replaced );
+		assertEquals( 3, replaced.first().intValue() );
+		assertEquals( 30, clone.getFirstChild( "c" ).intValue() );
+		assertEquals( 3, source.getFirstChild( "c" ).intValue() );
+	}
+
+	@Test
+	public void clonesOfClonesSeeBothCopiedAndSharedVariables()
+	{
+		final Value clone = Value.createLazyRootClone( source );
+		clone.getFirstChild( "a" ).setValue( 10 );
+		final Value cloneOfClone = Value.createLazyRootClone( clone );
+		assertEquals( 10, cloneOfClone.getFirstChild( "a" ).intValue() );
+		assertEquals( 3, cloneOfClone.getFirstChild( "c" ).intValue() );
+		assertEquals( 3, cloneOfClone.children().size() );
+
+		cloneOfClone.children().clear();
+		assertTrue( cloneOfClone.children().isEmpty() );
+		assertFalse( clone.children().isEmpty() );
+		assertEquals( 3, clone.children().size() );
+		assertEquals( 1, source.getFirstChild( "a" ).intValue() );
+	}
+
+	@Test
+	public void concurrentReadersGetTheSameCopy()
+		throws Exception
+	{
+		final int nThreads = 8;
+		final ExecutorService executor = Executors.newFixedThreadPool( nThreads );
+		try {
+			for( int i = 0; i < 100; i++ ) {
+				final Value clone = Value.createLazyRootClone( source );
+				final List< Future< ValueVector > > futures = new ArrayList<>();
+				for( int t = 0; t < nThreads; t++ ) {
+					futures.add( executor.submit( () -> clone.getChildren( "a" ) ) );
+				}
+				final ValueVector first = futures.get( 0 ).get();
+				assertNotSame( source.getChildren( "a" ), first );
+				for( Future< ValueVector > future : futures ) {
+					assertSame( first, future.get() );
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
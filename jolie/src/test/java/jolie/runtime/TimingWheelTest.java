@@ -0,0 +1,179 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link TimingWheel}.
+ * @author agent
+ */
+public class TimingWheelTest
+{
+	// A full turn of the wheel, in milliseconds
+	private static final long TURN_MILLIS = 512 * TimingWheel.TICK_MILLIS;
+
+	private static class CountingHandler extends TimeoutHandler
+	{
+		private final CountDownLatch latch;
+		private final AtomicInteger runs = new AtomicInteger( 0 );
+
+		private CountingHandler( long timeout, CountDownLatch latch )
+		{
+			super( timeout );
+			this.latch = latch;
+		}
+
+		@Override
+		protected void onTimeout()
+		{
+			runs.incrementAndGet();
+			latch.countDown();
+		}
+	}
+
+	private ScheduledExecutorService executor;
+	private TimingWheel wheel;
+
+	@Before
+	public void setUp()
+	{
+		executor = Executors.newSingleThreadScheduledExecutor();
+		wheel = new TimingWheel( executor );
+	}
+
+	@After
+	public void tearDown()
+	{
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void shortTimeoutBehindALongOne()
+		throws InterruptedException
+	{
+		final CountDownLatch latch = new CountDownLatch( 1 );
+		// The long handler wraps around the wheel and lands in the bucket of the short one
+		final CountingHandler longHandler = new CountingHandler( TURN_MILLIS + 200, new CountDownLatch( 1 ) );
+		wheel.add( longHandler );
+		final CountingHandler shortHandler = new CountingHandler( 200, latch );
+		wheel.add( shortHandler );
+		assertEquals( 2, wheel.size() );
+
+		assertTrue( latch.await( 5, TimeUnit.SECONDS ) );
+		// Let a few more ticks visit the bucket of both handlers
+		Thread.sleep( 3 * TimingWheel.TICK_MILLIS );
+		assertEquals( 1, shortHandler.runs.get() );
+		assertEquals( 0, longHandler.runs.get() );
+		assertEquals( 1, wheel.size() );
+		longHandler.cancel();
+		assertEquals( 0, wheel.size() );
+	}
+
+	@Test
+	public void handlersRunAfterTheirTime()
+		throws InterruptedException
+	{
+		final CountDownLatch latch = new CountDownLatch( 1 );
+		final long start = System.currentTimeMillis();
+		wheel.add( new CountingHandler( 300, latch ) );
+		assertTrue( latch.await( 5, TimeUnit.SECONDS ) );
+		assertTrue( System.currentTimeMillis() - start >= 300 );
+		assertEquals( 0, wheel.size() );
+	}
+
+	@Test
+	public void cancelBeforeAdd()
+		throws InterruptedException
+	{
+		final CountingHandler handler = new CountingHandler( 0, new CountDownLatch( 1 ) );
+		handler.cancel();
+		wheel.add( handler );
+		assertEquals( 0, wheel.size() );
+		Thread.sleep( 3 * TimingWheel.TICK_MILLIS );
+		assertEquals( 0, handler.runs.get() );
+	}
+
+	@Test
+	public void concurrentCancelsLeaveNoHandlers()
+		throws Exception
+	{
+		final int nThreads = 4;
+		final int nHandlers = 1000;
+		final ExecutorService threads = Executors.newFixedThreadPool( nThreads * 2 );
+		try {
+			final List< CountingHandler > handlers = new ArrayList<>();
+			for( int i = 0; i < nThreads * nHandlers; i++ ) {
+				handlers.add( new CountingHandler( TURN_MILLIS, new CountDownLatch( 1 ) ) );
+			}
+			final List< Future< ? > > futures = new ArrayList<>();
+			for( int t = 0; t < nThreads; t++ ) {
+				final List< CountingHandler > slice = handlers.subList( t * nHandlers, (t + 1) * nHandlers );
+				// Cancels may happen before, while or after their handlers are linked
+				futures.add( threads.submit( () -> slice.forEach( wheel::add ) ) );
+				futures.add( threads.submit( () -> slice.forEach( TimeoutHandler::cancel ) ) );
+			}
+			for( Future< ? > future : futures ) {
+				future.get();
+			}
+			assertEquals( 0, wheel.size() );
+		} finally {
+			threads.shutdown();
+		}
+	}
+
+	@Test
+	public void expireAllRunsWaitingHandlers()
+		throws InterruptedException
+	{
+		final CountDownLatch latch = new CountDownLatch( 3 );
+		final List< CountingHandler > handlers = new ArrayList<>();
+		for( long timeout : new long[] { TimingWheel.TICK_MILLIS, TURN_MILLIS, 10 * TURN_MILLIS } ) {
+			final CountingHandler handler = new CountingHandler( timeout, latch );
+			handlers.add( handler );
+			wheel.add( handler );
+		}
+		final CountingHandler cancelled = new CountingHandler( TURN_MILLIS, latch );
+		wheel.add( cancelled );
+		cancelled.cancel();
+
+		wheel.expireAll();
+		assertEquals( 0, wheel.size() );
+		assertTrue( latch.await( 5, TimeUnit.SECONDS ) );
+		for( CountingHandler handler : handlers ) {
+			assertEquals( 1, handler.runs.get() );
+		}
+		assertEquals( 0, cancelled.runs.get() );
+	}
+}
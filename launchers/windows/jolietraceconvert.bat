@@ -0,0 +1,2 @@
+@echo off
+java -cp %JOLIE_HOME%\jolie.jar;%JOLIE_HOME%\lib\libjolie.jar jolie.tracer.BinaryTraceConverter %*
@@ -24,17 +24,12 @@ package jolie.js;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
-import java.util.List;
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.stream.Collectors;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
 import jolie.runtime.typing.Type;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.JSONValue;
-import org.json.simple.parser.ParseException;
 
 public class JsUtils
 {
@@ -45,7 +40,7 @@ public class JsUtils
 	 * introduces a "ROOT_SIGN" named attribute on each mapped Jolie value with
 	 * a root value set.
 	 */
-	private static final String ROOT_SIGN = "$";
+	static final String ROOT_SIGN = "$";
 
 	/**
 	 * Jolie values do not support multi-dimensional arrays as JSON, hence
@@ -54,216 +49,348 @@ public class JsUtils
 	 */
 	public static final String JSONARRAY_KEY = "_";
 
+	/**
+	 * Adapts a StringBuilder to the Writer-based encoding methods, without
+	 * the synchronization of StringWriter.
+	 */
+	private static class StringBuilderWriter extends Writer
+	{
+		private final StringBuilder builder;
+
+		private StringBuilderWriter( StringBuilder builder )
+		{
+			this.builder = builder;
+		}
+
+		@Override
+		public void write( int c )
+		{
+			builder.append( (char) c );
+		}
+
+		@Override
+		public void write( char[] cbuf, int off, int len )
+		{
+			builder.append( cbuf, off, len );
+		}
+
+		@Override
+		public void write( String str, int off, int len )
+		{
+			builder.append( str, off, off + len );
+		}
+
+		@Override
+		public void flush() {}
+
+		@Override
+		public void close() {}
+	}
+
+	/**
+	 * Buffers the many small writes of the encoding methods without the
+	 * locking of BufferedWriter, passing large chunks to the wrapped writer.
+	 * Most documents are small, so the buffer grows only as they are written.
+	 */
+	private static class BufferedJsonWriter extends Writer
+	{
+		private static final int INITIAL_BUFFER_SIZE = 512;
+		private static final int MAX_BUFFER_SIZE = 8192;
+
+		private final Writer writer;
+		private char[] buffer = new char[ INITIAL_BUFFER_SIZE ];
+		private int count = 0;
+
+		private BufferedJsonWriter( Writer writer )
+		{
+			this.writer = writer;
+		}
+
+		@Override
+		public void write( int c )
+			throws IOException
+		{
+			reserve( 1 );
+			buffer[ count++ ] = (char) c;
+		}
+
+		@Override
+		public void write( char[] cbuf, int off, int len )
+			throws IOException
+		{
+			if ( reserve( len ) ) {
+				System.arraycopy( cbuf, off, buffer, count, len );
+				count += len;
+			} else {
+				writer.write( cbuf, off, len );
+			}
+		}
+
+		@Override
+		public void write( String str, int off, int len )
+			throws IOException
+		{
+			if ( reserve( len ) ) {
+				str.getChars( off, off + len, buffer, count );
+				count += len;
+			} else {
+				writer.write( str, off, len );
+			}
+		}
+
+		// Makes room for len characters, returning false if they do not fit in the buffer
+		private boolean reserve( int len )
+			throws IOException
+		{
+			if ( len <= buffer.length - count ) {
+				return true;
+			}
+			if ( buffer.length < MAX_BUFFER_SIZE ) {
+				buffer = Arrays.copyOf( buffer, Math.min( MAX_BUFFER_SIZE, Math.max( buffer.length * 2, count + len ) ) );
+				if ( len <= buffer.length - count ) {
+					return true;
+				}
+			}
+			flushBuffer();
+			return len <= buffer.length;
+		}
+
+		// Passes the buffered characters to the wrapped writer, without flushing it
+		private void flushBuffer()
+			throws IOException
+		{
+			writer.write( buffer, 0, count );
+			count = 0;
+		}
+
+		@Override
+		public void flush()
+			throws IOException
+		{
+			flushBuffer();
+			writer.flush();
+		}
+
+		@Override
+		public void close()
+			throws IOException
+		{
+			flushBuffer();
+			writer.close();
+		}
+	}
+
     // Jolie value -> JSON string
-	private static void appendKeyColon( StringBuilder builder, String key )
+	private static void appendKeyColon( Writer writer, String key )
+		throws IOException
 	{
-		builder.append( '"' ).append( key ).append( "\":" );
+		writer.write( '"' );
+		writer.write( key );
+		writer.write( "\":" );
 	}
 
-	private static String nativeValueToJsonString( Value value ) throws IOException
+	private static void writeNativeValue( Value value, Writer writer )
+		throws IOException
 	{
 		if ( !value.isDefined() ) {
-			return "null";
+			writer.write( "null" );
 		} else if ( value.isInt() || value.isLong() || value.isBool() || value.isDouble() ) {
-			return value.strValue();
+			writer.write( value.strValue() );
 		} else {
-			return '"' + JSONValue.escape( value.strValue() ) + '"';
+			writer.write( '"' );
+			writeEscaped( value.strValue(), writer );
+			writer.write( '"' );
+		}
+	}
+
+	// Escapes like json-simple, which was used before, to keep the same output
+	private static void writeEscaped( String s, Writer writer )
+		throws IOException
+	{
+		final int length = s.length();
+		int start = 0; // Start of the run of characters that need no escaping
+		for( int i = 0; i < length; i++ ) {
+			final char c = s.charAt( i );
+			final String escaped;
+			switch( c ) {
+			case '"':
+				escaped = "\\\"";
+				break;
+			case '\\':
+				escaped = "\\\\";
+				break;
+			case '\b':
+				escaped = "\\b";
+				break;
+			case '\f':
+				escaped = "\\f";
+				break;
+			case '\n':
+				escaped = "\\n";
+				break;
+			case '\r':
+				escaped = "\\r";
+				break;
+			case '\t':
+				escaped = "\\t";
+				break;
+			case '/':
+				escaped = "\\/";
+				break;
+			default:
+				if ( c <= '\u001F' || (c >= '\u007F' && c <= '\u009F') || (c >= '\u2000' && c <= '\u20FF') ) {
+					escaped = String.format( "\\u%04X", (int) c );
+				} else {
+					escaped = null;
+				}
+			}
+			if ( escaped != null ) {
+				writer.write( s, start, i - start );
+				writer.write( escaped );
+				start = i + 1;
+			}
 		}
+		writer.write( s, start, length - start );
 	}
 
-	private static void valueVectorToJsonString( ValueVector vector, StringBuilder builder, boolean isArray, Type type )
+	private static void valueVectorToJsonString( ValueVector vector, Writer writer, boolean isArray, Type type )
 		throws IOException
 	{
 		if ( vector.size() > 1 || isArray || ( type != null && type.cardinality().max() > 1 ) ) {
-			builder.append( '[' );
+			writer.write( '[' );
 			for( int i = 0; i < vector.size(); i++ ) {
-				valueToJsonString( vector.get( i ), false, type, builder );
+				writeJson( vector.get( i ), false, type, writer );
 				if ( i < vector.size() - 1 ) {
-					builder.append( ',' );
+					writer.write( ',' );
 				}
 			}
-			builder.append( ']' );
+			writer.write( ']' );
 		} else {
-			valueToJsonString( vector.first(), false, type, builder );
+			writeJson( vector.first(), false, type, writer );
 		}
 	}
 
 	public static void valueToJsonString( Value value, boolean extendedRoot, Type type, StringBuilder builder ) throws IOException
+	{
+		writeJson( value, extendedRoot, type, new StringBuilderWriter( builder ) );
+	}
+
+	/**
+	 * Writes the JSON representation of a value. Writes are buffered, so the
+	 * writer does not need to be a BufferedWriter. The writer is not flushed.
+	 */
+	public static void valueToJsonString( Value value, boolean extendedRoot, Type type, Writer writer ) throws IOException
+	{
+		final BufferedJsonWriter out = new BufferedJsonWriter( writer );
+		writeJson( value, extendedRoot, type, out );
+		out.flushBuffer();
+	}
+
+	private static void writeJson( Value value, boolean extendedRoot, Type type, Writer writer ) throws IOException
 	{
 		if ( value.hasChildren( JSONARRAY_KEY ) ) {
 			Type subType = ( type != null ? type.findSubType( JSONARRAY_KEY ) : null );
-			valueVectorToJsonString( value.children().get( JSONARRAY_KEY ), builder, true, subType );
+			valueVectorToJsonString( value.children().get( JSONARRAY_KEY ), writer, true, subType );
 			return;
 		}
 		int size = value.children().size();
 		if ( size == 0 ) {
 			if ( extendedRoot ) {
-				builder.append( '{' );
+				writer.write( '{' );
 				if ( value.isDefined() ) {
-					appendKeyColon( builder, ROOT_SIGN );
-					builder.append( nativeValueToJsonString( value ) );
+					appendKeyColon( writer, ROOT_SIGN );
+					writeNativeValue( value, writer );
 				}
-				builder.append( '}' );
+				writer.write( '}' );
 			} else {
-				builder.append( nativeValueToJsonString( value ) );
+				writeNativeValue( value, writer );
 			}
 		} else {
-			builder.append( '{' );
+			writer.write( '{' );
 			if ( value.isDefined() ) {
-				appendKeyColon( builder, ROOT_SIGN );
-				builder.append( nativeValueToJsonString( value ) );
-				builder.append( ',' );
+				appendKeyColon( writer, ROOT_SIGN );
+				writeNativeValue( value, writer );
+				writer.write( ',' );
 			}
 			int i = 0;
-			for( Map.Entry<String, ValueVector> child : value.children().entrySet() ) {                               
+			for( Map.Entry<String, ValueVector> child : value.children().entrySet() ) {
 				final Type subType = ( type != null ? type.findSubType( child.getKey() ) : null );
-				appendKeyColon( builder, child.getKey() );
-				valueVectorToJsonString( child.getValue(), builder, false, subType );
+				appendKeyColon( writer, child.getKey() );
+				valueVectorToJsonString( child.getValue(), writer, false, subType );
 				if ( i++ < size - 1 ) {
-					builder.append( ',' );
+					writer.write( ',' );
 				}
 			}
-			builder.append( '}' );
+			writer.write( '}' );
 		}
 	}
+
 	public static void valueToNdJsonString( Value value, boolean extendedRoot, Type type, StringBuilder builder ) throws IOException
 	{
-		for( Value item : value.getChildren( "item" ) ) {
-			valueToJsonString( item, extendedRoot, type, builder );
-			builder.append( '\n' );
-		}
+		writeNdJson( value, extendedRoot, type, new StringBuilderWriter( builder ) );
 	}
 
-	
-	public static void faultValueToJsonString( Value value, Type type, StringBuilder builder ) throws IOException
+	/**
+	 * Writes the "item" children of a value as NDJSON records. Writes are
+	 * buffered, so the writer does not need to be a BufferedWriter.
+	 * The writer is not flushed.
+	 */
+	public static void valueToNdJsonString( Value value, boolean extendedRoot, Type type, Writer writer ) throws IOException
 	{
-		builder.append( "{\"error\":{\"message\":\"" );
-		builder.append( value.getFirstChild( "error" ).getFirstChild( "message" ).strValue() );
-		builder.append( "\",\"code\":" );
-		builder.append( value.getFirstChild( "error" ).getFirstChild( "code" ).intValue() );
-		builder.append( ",\"data\":" );
-		valueToJsonString( value.getFirstChild( "error" ).getFirstChild( "data" ), false, type, builder );
-		builder.append( "}}" );
+		final BufferedJsonWriter out = new BufferedJsonWriter( writer );
+		writeNdJson( value, extendedRoot, type, out );
+		out.flushBuffer();
 	}
 
-    // JSON string -> Jolie value
-	private static void getBasicValue( Object obj, Value val )
+	private static void writeNdJson( Value value, boolean extendedRoot, Type type, Writer writer ) throws IOException
 	{
-		if ( obj instanceof String ) {
-			val.setValue( (String) obj );
-		} else if ( obj instanceof Double ) {
-			val.setValue( (Double) obj );
-		} else if ( obj instanceof Long ) {
-			long lval = (Long) obj;
-			if ( lval > Integer.MAX_VALUE || lval < Integer.MIN_VALUE ) {
-				val.setValue( lval );
-			} else {
-				val.setValue( (int) lval );
-			}
-		} else if ( obj instanceof Boolean ) {
-			val.setValue( (Boolean) obj );
-		} else if ( obj != null ) {
-			val.setValue( obj.toString() );
+		for( Value item : value.getChildren( "item" ) ) {
+			writeJson( item, extendedRoot, type, writer );
+			writer.write( '\n' );
 		}
 	}
 
-	private static void jsonObjectToValue( JSONObject obj, Value value, boolean strictEncoding )
+	public static void faultValueToJsonString( Value value, Type type, StringBuilder builder ) throws IOException
 	{
-		Map<String, Object> map = (Map<String, Object>) obj;
-		ValueVector vec;
-		for( Map.Entry<String, Object> entry : map.entrySet() ) {
-			if ( entry.getKey().equals( ROOT_SIGN ) ) {
-				getBasicValue( entry.getValue(), value );
-			} else {
-				vec = jsonObjectToValueVector( entry.getValue(), strictEncoding );
-				value.children().put( entry.getKey(), vec );
-			}
-		}
+		writeFaultJson( value, type, new StringBuilderWriter( builder ) );
 	}
 
-	private static ValueVector jsonObjectToValueVector( Object obj, boolean strictEncoding )
+	/**
+	 * Writes the JSON representation of a fault value. Writes are buffered,
+	 * so the writer does not need to be a BufferedWriter. The writer is not flushed.
+	 */
+	public static void faultValueToJsonString( Value value, Type type, Writer writer ) throws IOException
 	{
-		ValueVector vec = ValueVector.create();
-		if ( obj instanceof JSONObject ) {
-			Value val = Value.create();
-			jsonObjectToValue( (JSONObject) obj, val, strictEncoding );
-			vec.add( val );
-		} else if ( obj instanceof JSONArray && strictEncoding ) {
-			Value arrayValue = Value.create();
-			vec.add( arrayValue );
-			arrayValue.children().put( JSONARRAY_KEY, jsonArrayToValueVector( (JSONArray) obj, strictEncoding ) );
-		} else if ( obj instanceof JSONArray && !strictEncoding ) {
-			vec = jsonArrayToValueVector( (JSONArray) obj, strictEncoding );
-		} else {
-			Value val = Value.create();
-			getBasicValue( obj, val );
-			vec.add( val );
-		}
-		return vec;
+		final BufferedJsonWriter out = new BufferedJsonWriter( writer );
+		writeFaultJson( value, type, out );
+		out.flushBuffer();
 	}
 
-	private static ValueVector jsonArrayToValueVector( JSONArray array, boolean strictEncoding )
+	private static void writeFaultJson( Value value, Type type, Writer writer ) throws IOException
 	{
-		ValueVector vec = ValueVector.create();
-		for( Object element : array ) {
-			Value value = Value.create();
-			if ( element instanceof JSONArray ) {
-				value.children().put( JSONARRAY_KEY, jsonArrayToValueVector( (JSONArray) element, strictEncoding ) );
-			} else if ( element instanceof JSONObject ) {
-				jsonObjectToValue( (JSONObject) element, value, strictEncoding );
-			} else {
-				getBasicValue( element, value );
-			}
-			vec.add( value );
-		}
-		return vec;
+		writer.write( "{\"error\":{\"message\":\"" );
+		writer.write( value.getFirstChild( "error" ).getFirstChild( "message" ).strValue() );
+		writer.write( "\",\"code\":" );
+		writer.write( Integer.toString( value.getFirstChild( "error" ).getFirstChild( "code" ).intValue() ) );
+		writer.write( ",\"data\":" );
+		writeJson( value.getFirstChild( "error" ).getFirstChild( "data" ), false, type, writer );
+		writer.write( "}}" );
 	}
 
+    // JSON string -> Jolie value
 	public static void parseJsonIntoValue( Reader reader, Value value, boolean strictEncoding )
 		throws IOException
 	{
-		try {
-			Object obj = JSONValue.parseWithException( reader );
-			if ( obj instanceof JSONArray ) {
-				value.children().put( JSONARRAY_KEY, jsonArrayToValueVector( (JSONArray) obj, strictEncoding ) );
-			} else if ( obj instanceof JSONObject ) {
-				jsonObjectToValue( (JSONObject) obj, value, strictEncoding );
-			} else {
-				getBasicValue( obj, value );
-			}
-		} catch( ParseException e ) {
-			throw new IOException( e );
-		} catch( ClassCastException e ) {
-			throw new IOException( e );
-		}
+		new JsonParser( reader, strictEncoding ).parse( value );
 	}
-	
 
+	/**
+	 * Reads all the records of an NDJSON stream into the "item" children of value.
+	 * Use {@link NdJsonReader} to process long streams in bounded batches.
+	 */
 	public static void parseNdJsonIntoValue( BufferedReader reader, Value value, boolean strictEncoding )
 		throws IOException
 	{
-		List<String> stringItemVector = reader.lines().collect( Collectors.toList() );
-	
-		for( String stringItem : stringItemVector ) {
-			StringReader itemReader = new StringReader( stringItem );
-			try {
-				Value itemValue = Value.create();
-				Object obj = JSONValue.parseWithException( itemReader );
-				if ( obj instanceof JSONArray ) {
-					itemValue.children().put( JSONARRAY_KEY, jsonArrayToValueVector( (JSONArray) obj, strictEncoding ) );
-				} else if ( obj instanceof JSONObject ) {
-					jsonObjectToValue( (JSONObject) obj, itemValue, strictEncoding );
-				} else {
-					getBasicValue( obj, itemValue );
-				}
-				value.getChildren( "item" ).add( itemValue );
-			} catch( ParseException e ) {
-				throw new IOException( e );
-			} catch( ClassCastException e ) {
-				throw new IOException( e );
-			}
-
-		}
-
+		new NdJsonReader( reader, strictEncoding ).readBatch( value, Integer.MAX_VALUE );
 	}
 }
@@ -0,0 +1,413 @@
+/*
+ * Copyright (C) 2026 by agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+
+package jolie.js;
+
+import java.io.IOException;
+import java.io.Reader;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/**
+ * A single-pass JSON parser that builds Jolie values directly, following
+ * the conventions described in {@link JsUtils}.
+ *
+ * The accepted syntax is the one of the json-simple parser previously used
+ * by Jolie: trailing commas in arrays and objects are tolerated, and unknown
+ * escape sequences in strings are kept as they are.
+ * @author agent
+ */
+final class JsonParser
+{
+	private static final int INITIAL_BUFFER_SIZE = 512;
+	private static final int MAX_BUFFER_SIZE = 8192;
+	// Integers with at most this many digits always fit in a long
+	private static final int MAX_SAFE_LONG_DIGITS = 18;
+
+	private final Reader reader;
+	private final boolean strictEncoding;
+	private char[] buffer = new char[ INITIAL_BUFFER_SIZE ];
+	private final StringBuilder builder = new StringBuilder();
+	private int position = 0;
+	private int length = 0;
+	private long offset = 0; // Characters read before the current buffer
+
+	JsonParser( Reader reader, boolean strictEncoding )
+	{
+		this.reader = reader;
+		this.strictEncoding = strictEncoding;
+	}
+
+	/**
+	 * Parses a JSON document, which must contain exactly one JSON value.
+	 */
+	void parse( Value value )
+		throws IOException
+	{
+		parseValue( nextNonWhitespace(), value );
+		int c = nextNonWhitespace();
+		if ( c != -1 ) {
+			throw unexpected( c );
+		}
+	}
+
+	/**
+	 * Parses the next record of an NDJSON stream, a JSON value that must be
+	 * followed by a new line or by the end of the stream. Blank lines are skipped.
+	 * @return {@code false} if the stream has no more records
+	 */
+	boolean parseRecord( Value value )
+		throws IOException
+	{
+		int c = nextNonWhitespace();
+		if ( c == -1 ) {
+			return false;
+		}
+		parseValue( c, value );
+		while( (c = read()) == ' ' || c == '\t' || c == '\r' ) {}
+		if ( c != '\n' && c != -1 ) {
+			throw unexpected( c );
+		}
+		return true;
+	}
+
+	private void parseValue( int c, Value value )
+		throws IOException
+	{
+		switch( c ) {
+		case '{':
+			parseObject( value );
+			break;
+		case '[':
+			value.children().put( JsUtils.JSONARRAY_KEY, parseArray() );
+			break;
+		default:
+			parseBasicValue( c, value );
+			break;
+		}
+	}
+
+	private void parseObject( Value value )
+		throws IOException
+	{
+		int c = nextNonWhitespace();
+		while( c != '}' ) {
+			if ( c != '"' ) {
+				throw unexpected( c );
+			}
+			final String key = parseString();
+			c = nextNonWhitespace();
+			if ( c != ':' ) {
+				throw unexpected( c );
+			}
+			c = nextNonWhitespace();
+			if ( JsUtils.ROOT_SIGN.equals( key ) ) {
+				parseRootValue( c, value );
+			} else if ( c == '[' && !strictEncoding ) {
+				value.children().put( key, parseArray() );
+			} else {
+				final Value child = Value.create();
+				parseValue( c, child );
+				final ValueVector vec = ValueVector.create();
+				vec.add( child );
+				value.children().put( key, vec );
+			}
+			c = nextNonWhitespace();
+			if ( c == ',' ) {
+				c = nextNonWhitespace();
+			} else if ( c != '}' ) {
+				throw unexpected( c );
+			}
+		}
+	}
+
+	private ValueVector parseArray()
+		throws IOException
+	{
+		final ValueVector vec = ValueVector.create();
+		int c = nextNonWhitespace();
+		while( c != ']' ) {
+			final Value element = Value.create();
+			parseValue( c, element );
+			vec.add( element );
+			c = nextNonWhitespace();
+			if ( c == ',' ) {
+				c = nextNonWhitespace();
+			} else if ( c != ']' ) {
+				throw unexpected( c );
+			}
+		}
+		return vec;
+	}
+
+	// Objects and arrays under ROOT_SIGN become the root value as JSON text
+	private void parseRootValue( int c, Value value )
+		throws IOException
+	{
+		if ( c == '{' || c == '[' ) {
+			final Value compound = Value.create();
+			parseValue( c, compound );
+			final StringBuilder json = new StringBuilder();
+			JsUtils.valueToJsonString( compound, c == '{', null, json );
+			value.setValue( json.toString() );
+		} else if ( c == 'n' ) {
+			// null replaces the root values set by previous ROOT_SIGN keys
+			expect( "ull" );
+			value.setValue( (Object) null );
+		} else {
+			parseBasicValue( c, value );
+		}
+	}
+
+	private void parseBasicValue( int c, Value value )
+		throws IOException
+	{
+		switch( c ) {
+		case '"':
+			value.setValue( parseString() );
+			break;
+		case 't':
+			expect( "rue" );
+			value.setValue( true );
+			break;
+		case 'f':
+			expect( "alse" );
+			value.setValue( false );
+			break;
+		case 'n':
+			expect( "ull" );
+			break;
+		default:
+			if ( c == '-' || (c >= '0' && c <= '9') ) {
+				parseNumber( c, value );
+			} else {
+				throw unexpected( c );
+			}
+		}
+	}
+
+	private void parseNumber( int first, Value value )
+		throws IOException
+	{
+		builder.setLength( 0 );
+		builder.append( (char) first );
+		int digits = first == '-' ? 0 : 1;
+		long integer = first == '-' ? 0 : first - '0';
+		int c;
+		while( (c = peek()) >= '0' && c <= '9' ) {
+			position++;
+			builder.append( (char) c );
+			integer = integer * 10 + (c - '0');
+			digits++;
+		}
+		if ( digits == 0 ) {
+			throw unexpected( first );
+		}
+
+		boolean isDouble = false;
+		if ( c == '.' ) {
+			isDouble = true;
+			position++;
+			builder.append( '.' );
+			appendDigits();
+			c = peek();
+		}
+		if ( c == 'e' || c == 'E' ) {
+			isDouble = true;
+			position++;
+			builder.append( 'e' );
+			c = peek();
+			if ( c == '+' || c == '-' ) {
+				position++;
+				builder.append( (char) c );
+			}
+			appendDigits();
+		}
+
+		if ( isDouble ) {
+			value.setValue( Double.parseDouble( builder.toString() ) );
+		} else {
+			if ( digits > MAX_SAFE_LONG_DIGITS ) {
+				try {
+					integer = Long.parseLong( builder.toString() );
+				} catch( NumberFormatException e ) {
+					value.setValue( Double.parseDouble( builder.toString() ) );
+					return;
+				}
+			} else if ( first == '-' ) {
+				integer = -integer;
+			}
+			if ( integer > Integer.MAX_VALUE || integer < Integer.MIN_VALUE ) {
+				value.setValue( integer );
+			} else {
+				value.setValue( (int) integer );
+			}
+		}
+	}
+
+	// Fractions and exponents need at least one digit
+	private void appendDigits()
+		throws IOException
+	{
+		int c = peek();
+		if ( c < '0' || c > '9' ) {
+			throw unexpected( read() );
+		}
+		do {
+			position++;
+			builder.append( (char) c );
+		} while( (c = peek()) >= '0' && c <= '9' );
+	}
+
+	private String parseString()
+		throws IOException
+	{
+		builder.setLength( 0 );
+		while( true ) {
+			final int start = position;
+			while( position < length && buffer[ position ] != '"' && buffer[ position ] != '\\' ) {
+				position++;
+			}
+			if ( position < length && buffer[ position ] == '"' && builder.length() == 0 ) {
+				// The whole string is in the buffer and has no escape sequences
+				return new String( buffer, start, position++ - start );
+			}
+			builder.append( buffer, start, position - start );
+			if ( position == length ) {
+				if ( !fill() ) {
+					throw new IOException( "Unterminated string at position " + offset );
+				}
+			} else if ( buffer[ position++ ] == '"' ) {
+				return builder.toString();
+			} else {
+				parseEscape();
+			}
+		}
+	}
+
+	private void parseEscape()
+		throws IOException
+	{
+		final int c = read();
+		switch( c ) {
+		case '"':
+		case '\\':
+		case '/':
+			builder.append( (char) c );
+			break;
+		case 'b':
+			builder.append( '\b' );
+			break;
+		case 'f':
+			builder.append( '\f' );
+			break;
+		case 'n':
+			builder.append( '\n' );
+			break;
+		case 'r':
+			builder.append( '\r' );
+			break;
+		case 't':
+			builder.append( '\t' );
+			break;
+		case 'u':
+			final int start = builder.length();
+			builder.append( "\\u" );
+			int codeUnit = 0;
+			for( int i = 0; i < 4; i++ ) {
+				final int h = peek();
+				final int digit = h == -1 ? -1 : Character.digit( h, 16 );
+				if ( digit < 0 ) {
+					// Not an escape sequence, so it is kept as text
+					return;
+				}
+				position++;
+				builder.append( (char) h );
+				codeUnit = (codeUnit << 4) | digit;
+			}
+			builder.setLength( start );
+			builder.append( (char) codeUnit );
+			break;
+		case -1:
+			throw unexpected( c );
+		default:
+			builder.append( '\\' ).append( (char) c );
+			break;
+		}
+	}
+
+	private void expect( String rest )
+		throws IOException
+	{
+		for( int i = 0; i < rest.length(); i++ ) {
+			final int c = read();
+			if ( c != rest.charAt( i ) ) {
+				throw unexpected( c );
+			}
+		}
+	}
+
+	private int nextNonWhitespace()
+		throws IOException
+	{
+		int c;
+		while( (c = read()) == ' ' || c == '\n' || c == '\r' || c == '\t' ) {}
+		return c;
+	}
+
+	private int read()
+		throws IOException
+	{
+		if ( position == length && !fill() ) {
+			return -1;
+		}
+		return buffer[ position++ ];
+	}
+
+	private int peek()
+		throws IOException
+	{
+		if ( position == length && !fill() ) {
+			return -1;
+		}
+		return buffer[ position ];
+	}
+
+	private boolean fill()
+		throws IOException
+	{
+		offset += length;
+		position = 0;
+		// Most documents are small, so the buffer grows only while the input fills it
+		if ( length == buffer.length && buffer.length < MAX_BUFFER_SIZE ) {
+			buffer = new char[ buffer.length * 2 ];
+		}
+		length = Math.max( 0, reader.read( buffer, 0, buffer.length ) );
+		return length > 0;
+	}
+
+	// c has just been read
+	private IOException unexpected( int c )
+	{
+		if ( c == -1 ) {
+			return new IOException( "Unexpected end of JSON input at position " + (offset + position) );
+		}
+		return new IOException( "Unexpected character (" + (char) c + ") at position " + (offset + position - 1) );
+	}
+}
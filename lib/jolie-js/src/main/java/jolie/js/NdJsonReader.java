@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 by agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+
+package jolie.js;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import jolie.runtime.Value;
+
+/**
+ * Reads the records of an NDJSON stream incrementally.
+ *
+ * Records are parsed only when they are requested, so streams of any length
+ * can be processed in bounded batches without keeping the whole stream in memory.
+ * Each record is converted like {@link JsUtils#parseJsonIntoValue(java.io.Reader, jolie.runtime.Value, boolean)}
+ * does, and blank lines are skipped.
+ * This class is not thread-safe.
+ * @author agent
+ */
+public class NdJsonReader implements Closeable
+{
+	/**
+	 * The name of the children that hold the records in a batch, as in
+	 * {@link JsUtils#parseNdJsonIntoValue(java.io.BufferedReader, jolie.runtime.Value, boolean)}.
+	 */
+	public static final String ITEM = "item";
+
+	private final Reader reader;
+	private final JsonParser parser;
+	private boolean eof = false;
+
+	/**
+	 * Creates a reader of the NDJSON records in reader, which does not need to be buffered.
+	 * @param reader the source of the NDJSON stream
+	 * @param strictEncoding whether JSON arrays are always mapped to the "_" helper children
+	 */
+	public NdJsonReader( Reader reader, boolean strictEncoding )
+	{
+		this.reader = reader;
+		this.parser = new JsonParser( reader, strictEncoding );
+	}
+
+	/**
+	 * Reads the next record into value.
+	 * @param value the value that receives the record
+	 * @return {@code false} if the stream has no more records, in which case value is not modified
+	 * @throws IOException if the stream could not be read or the record is not valid JSON
+	 */
+	public boolean read( Value value )
+		throws IOException
+	{
+		if ( eof ) {
+			return false;
+		}
+		eof = !parser.parseRecord( value );
+		return !eof;
+	}
+
+	/**
+	 * Appends up to maxRecords records to the {@link #ITEM} children of value.
+	 * @param value the value that receives the records
+	 * @param maxRecords the maximum number of records to read
+	 * @return the number of records read, less than maxRecords only at the end of the stream
+	 * @throws IOException if the stream could not be read or a record is not valid JSON
+	 */
+	public int readBatch( Value value, int maxRecords )
+		throws IOException
+	{
+		int count = 0;
+		Value record = Value.create();
+		while( count < maxRecords && read( record ) ) {
+			value.getChildren( ITEM ).add( record );
+			record = Value.create();
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns whether the end of the stream has been reached.
+	 * @return {@code true} if the stream has no more records
+	 */
+	public boolean isEof()
+	{
+		return eof;
+	}
+
+	/**
+	 * Closes the underlying reader.
+	 */
+	@Override
+	public void close()
+		throws IOException
+	{
+		reader.close();
+	}
+}
@@ -0,0 +1,293 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.net.ssl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * Process-wide cache of initialized SSL contexts, shared by all the channels
+ * that use the same SSL configuration.
+ *
+ * Sharing contexts avoids reloading the key and trust stores for every channel,
+ * and lets channels resume the TLS sessions cached by their context instead of
+ * performing full handshakes. A context is reloaded when its key store or
+ * trust store file is modified.
+ * @author agent
+ */
+public class SSLContextCache
+{
+	/**
+	 * Counters of the TLS handshakes performed by SSL channels.
+	 */
+	public static class Statistics
+	{
+		private final LongAdder contextLoads = new LongAdder();
+		private final LongAdder handshakes = new LongAdder();
+		private final LongAdder resumedHandshakes = new LongAdder();
+		private final LongAdder failedHandshakes = new LongAdder();
+		private final LongAdder handshakeNanos = new LongAdder();
+		private final LongAccumulator maxHandshakeNanos = new LongAccumulator( Math::max, 0 );
+
+		/**
+		 * Returns the number of SSL contexts initialized, including reloads.
+		 * @return the number of SSL contexts initialized
+		 */
+		public long contextLoads()
+		{
+			return contextLoads.sum();
+		}
+
+		/**
+		 * Returns the number of completed handshakes.
+		 * @return the number of completed handshakes
+		 */
+		public long handshakes()
+		{
+			return handshakes.sum();
+		}
+
+		/**
+		 * Returns the number of completed handshakes that resumed a cached session.
+		 * @return the number of completed handshakes that resumed a cached session
+		 */
+		public long resumedHandshakes()
+		{
+			return resumedHandshakes.sum();
+		}
+
+		/**
+		 * Returns the number of handshakes that failed.
+		 * @return the number of handshakes that failed
+		 */
+		public long failedHandshakes()
+		{
+			return failedHandshakes.sum();
+		}
+
+		/**
+		 * Returns the total time spent in completed handshakes, in nanoseconds.
+		 * @return the total time spent in completed handshakes, in nanoseconds
+		 */
+		public long handshakeNanos()
+		{
+			return handshakeNanos.sum();
+		}
+
+		/**
+		 * Returns the duration of the slowest completed handshake, in nanoseconds.
+		 * @return the duration of the slowest completed handshake, in nanoseconds
+		 */
+		public long maxHandshakeNanos()
+		{
+			return maxHandshakeNanos.get();
+		}
+
+		void handshakeCompleted( long nanos, boolean resumed )
+		{
+			handshakes.increment();
+			if ( resumed ) {
+				resumedHandshakes.increment();
+			}
+			handshakeNanos.add( nanos );
+			maxHandshakeNanos.accumulate( nanos );
+		}
+
+		void handshakeFailed()
+		{
+			failedHandshakes.increment();
+		}
+	}
+
+	private static class Entry
+	{
+		private final SSLContext context;
+		private final String keyStoreFile;
+		private final String trustStoreFile;
+		private final long keyStoreModified;
+		private final long trustStoreModified;
+
+		private Entry( SSLContext context, String keyStoreFile, String trustStoreFile )
+		{
+			this.context = context;
+			this.keyStoreFile = keyStoreFile;
+			this.trustStoreFile = trustStoreFile;
+			this.keyStoreModified = lastModified( keyStoreFile );
+			this.trustStoreModified = lastModified( trustStoreFile );
+		}
+
+		private boolean isCurrent()
+		{
+			return keyStoreModified == lastModified( keyStoreFile )
+				&& trustStoreModified == lastModified( trustStoreFile );
+		}
+	}
+
+	private static final Map< List< Object >, Entry > contexts = new ConcurrentHashMap<>();
+	private static final Statistics statistics = new Statistics();
+
+	private SSLContextCache() {}
+
+	/**
+	 * Returns the handshake counters of all the SSL channels of this process.
+	 * @return the handshake counters of all the SSL channels of this process
+	 */
+	public static Statistics statistics()
+	{
+		return statistics;
+	}
+
+	/**
+	 * Returns the context for an SSL configuration, initializing it if this
+	 * is the first request for that configuration or its store files have changed.
+	 * @param sessionCacheSize the maximum number of cached TLS sessions, negative for the default
+	 * @param sessionTimeout the lifetime of cached TLS sessions in seconds, negative for the default
+	 */
+	static SSLContext get(
+		String protocol,
+		String keyStoreFormat, String keyStoreFile, String keyStorePassword,
+		String trustStoreFormat, String trustStoreFile, String trustStorePassword,
+		int sessionCacheSize, int sessionTimeout
+	)
+		throws IOException
+	{
+		final List< Object > key = Arrays.asList(
+			protocol,
+			keyStoreFormat, keyStoreFile, keyStorePassword,
+			trustStoreFormat, trustStoreFile, trustStorePassword,
+			sessionCacheSize, sessionTimeout
+		);
+		Entry entry = contexts.get( key );
+		if ( entry != null && entry.isCurrent() ) {
+			return entry.context;
+		}
+		try {
+			entry = contexts.compute( key, ( k, current ) -> {
+				if ( current != null && current.isCurrent() ) {
+					return current;
+				}
+				try {
+					final Entry newEntry = new Entry(
+						createContext(
+							protocol,
+							keyStoreFormat, keyStoreFile, keyStorePassword,
+							trustStoreFormat, trustStoreFile, trustStorePassword,
+							sessionCacheSize, sessionTimeout
+						),
+						keyStoreFile, trustStoreFile
+					);
+					statistics.contextLoads.increment();
+					return newEntry;
+				} catch( IOException e ) {
+					throw new UncheckedIOException( e );
+				}
+			} );
+		} catch( UncheckedIOException e ) {
+			throw e.getCause();
+		}
+		return entry.context;
+	}
+
+	private static SSLContext createContext(
+		String protocol,
+		String keyStoreFormat, String keyStoreFile, String keyStorePassword,
+		String trustStoreFormat, String trustStoreFile, String trustStorePassword,
+		int sessionCacheSize, int sessionTimeout
+	)
+		throws IOException
+	{
+		try {
+			SSLContext context = SSLContext.getInstance( protocol );
+			KeyStore ks = KeyStore.getInstance( keyStoreFormat );
+			KeyStore ts = KeyStore.getInstance( trustStoreFormat );
+
+			char[] passphrase;
+			if ( keyStorePassword != null ) {
+				passphrase = keyStorePassword.toCharArray();
+			} else {
+				passphrase = null;
+			}
+
+			if ( keyStoreFile != null ) {
+				try( InputStream is = new FileInputStream( keyStoreFile ) ) {
+					ks.load( is, passphrase );
+				}
+			} else {
+				ks.load( null, null );
+			}
+
+			KeyManagerFactory kmf = KeyManagerFactory.getInstance( "SunX509" );
+			kmf.init( ks, passphrase );
+
+			if ( trustStorePassword != null ) {
+				passphrase = trustStorePassword.toCharArray();
+			} else {
+				passphrase = null;
+			}
+			try( InputStream is = new FileInputStream( trustStoreFile ) ) {
+				ts.load( is, passphrase );
+			}
+
+			TrustManagerFactory tmf = TrustManagerFactory.getInstance( "SunX509" );
+			tmf.init( ts );
+
+			context.init( kmf.getKeyManagers(), tmf.getTrustManagers(), null );
+			configureSessions( context.getClientSessionContext(), sessionCacheSize, sessionTimeout );
+			configureSessions( context.getServerSessionContext(), sessionCacheSize, sessionTimeout );
+			return context;
+		} catch( GeneralSecurityException e ) {
+			throw new IOException( e );
+		}
+	}
+
+	private static void configureSessions( SSLSessionContext sessionContext, int cacheSize, int timeout )
+	{
+		if ( sessionContext != null ) {
+			if ( cacheSize >= 0 ) {
+				sessionContext.setSessionCacheSize( cacheSize );
+			}
+			if ( timeout >= 0 ) {
+				sessionContext.setSessionTimeout( timeout );
+			}
+		}
+	}
+
+	private static long lastModified( String file )
+	{
+		return file == null ? 0L : new File( file ).lastModified();
+	}
+}
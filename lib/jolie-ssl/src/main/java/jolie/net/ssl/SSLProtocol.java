@@ -21,30 +21,17 @@
  ***************************************************************************/
 package jolie.net.ssl;
 
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
-import java.nio.BufferOverflowException;
-import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
-import java.nio.channels.Channels;
-import java.nio.channels.WritableByteChannel;
-import java.security.KeyManagementException;
-import java.security.KeyStore;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.UnrecoverableKeyException;
-import java.security.cert.CertificateException;
-import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLEngineResult;
 import javax.net.ssl.SSLEngineResult.HandshakeStatus;
 import javax.net.ssl.SSLEngineResult.Status;
 import javax.net.ssl.SSLException;
-import javax.net.ssl.TrustManagerFactory;
 import jolie.net.CommMessage;
 import jolie.net.protocols.CommProtocol;
 import jolie.net.protocols.SequentialCommProtocol;
@@ -60,69 +47,73 @@ import jolie.runtime.VariablePath;
  */
 public class SSLProtocol extends SequentialCommProtocol
 {
-	private static final int INITIAL_BUFFER_SIZE = 8192;
+	// The maximum size of the plaintext of a TLS record
+	private static final int MAX_RECORD_DATA_SIZE = 16384;
+	private static final int RECORD_HEADER_SIZE = 5;
 
 	private final boolean isClient;
 	private final URI location;
 	private boolean firstTime;
 	private final CommProtocol wrappedProtocol;
 	private SSLEngine sslEngine;
+	// System.nanoTime() at the beginning of the initial handshake, 0 once it has ended
+	private long handshakeStart = 0;
+	private long handshakeStartMillis;
 
 	private OutputStream outputStream;
 	private InputStream inputStream;
 
+	/*
+	 * The buffers are allocated once per channel, when the engine is created,
+	 * and sized after the packet and application buffer sizes of its session.
+	 * Buffers that are read from (netInBuffer, appInBuffer) are kept in read mode.
+	 */
+	private final ByteBuffer emptyBuffer = ByteBuffer.allocate( 0 );
+	private ByteBuffer netInBuffer = emptyBuffer;
+	private ByteBuffer appInBuffer = emptyBuffer;
+	private ByteBuffer netOutBuffer = emptyBuffer;
+
 	private final SSLInputStream sslInputStream = new SSLInputStream();
 	private final SSLOutputStream sslOutputStream = new SSLOutputStream();
 
 	private class SSLInputStream extends InputStream
 	{
-		private ByteBuffer clearInputBuffer = ByteBuffer.allocate( 0 );
-
-		@Override
-		public int read()
+		// Makes sure that there is clear data to read, returns false at the end of the stream
+		private boolean fill()
 			throws IOException
 		{
-			if ( !clearInputBuffer.hasRemaining() ) {
+			while( !appInBuffer.hasRemaining() ) {
 				handshake();
-				unwrap( this );
-				// EOF reached?
-				if ( !clearInputBuffer.hasRemaining() ) {
-					return -1;
+				if ( !unwrap() ) {
+					return false;
 				}
 			}
+			return true;
+		}
 
-			try {
-				return clearInputBuffer.get();
-			} catch ( BufferUnderflowException e ) {
+		@Override
+		public int read()
+			throws IOException
+		{
+			if ( !fill() ) {
 				return -1;
 			}
+			return appInBuffer.get() & 0xFF;
 		}
 
 		@Override
 		public int read( byte[] b, int off, int len )
 			throws IOException
 		{
-			if ( len == 0 )
+			if ( len == 0 ) {
 				return 0;
-
-			if ( !clearInputBuffer.hasRemaining() ) {
-				handshake();
-				unwrap( this );
-				// EOF reached?
-				if ( !clearInputBuffer.hasRemaining() ) {
-					return -1;
-				}
 			}
-
-			try {
-				clearInputBuffer.get( b, off, len );
-				return len;
-			} catch ( BufferUnderflowException e ) {
-				// okay, just return the maximum possible
-				len = clearInputBuffer.remaining();
-				clearInputBuffer.get( b, off, len );
-				return len;
+			if ( !fill() ) {
+				return -1;
 			}
+			len = Math.min( len, appInBuffer.remaining() );
+			appInBuffer.get( b, off, len );
+			return len;
 		}
 
 		@Override
@@ -132,12 +123,8 @@ public class SSLProtocol extends SequentialCommProtocol
 			if ( n <= 0 ) {
 				return 0;
 			}
-
-			long skipped = 0;
-			while ( skipped < n && clearInputBuffer.hasRemaining() ) {
-				clearInputBuffer.get();
-				++skipped;
-			}
+			final int skipped = (int) Math.min( n, appInBuffer.remaining() );
+			appInBuffer.position( appInBuffer.position() + skipped );
 			return skipped;
 		}
 
@@ -145,7 +132,7 @@ public class SSLProtocol extends SequentialCommProtocol
 		public int available()
 			throws IOException
 		{
-			return clearInputBuffer.remaining();
+			return appInBuffer.remaining();
 		}
 
 		// close() not necessary, does nothing
@@ -153,12 +140,12 @@ public class SSLProtocol extends SequentialCommProtocol
 
 	private class SSLOutputStream extends OutputStream
 	{
-		private final ByteBuffer internalBuffer = ByteBuffer.allocate( INITIAL_BUFFER_SIZE );
+		private final ByteBuffer internalBuffer = ByteBuffer.allocate( MAX_RECORD_DATA_SIZE );
 
 		private void writeCache()
 			throws IOException
 		{
-			if ( internalBuffer.hasRemaining() ) {
+			if ( internalBuffer.position() > 0 ) {
 				handshake();
 				internalBuffer.flip();
 				wrap( internalBuffer );
@@ -170,31 +157,24 @@ public class SSLProtocol extends SequentialCommProtocol
 		public void write( int b )
 			throws IOException
 		{
-			try {
-				internalBuffer.put( ( byte ) b );
-			} catch ( BufferOverflowException e ) {
-				// let us retry after freeing the buffer
+			if ( !internalBuffer.hasRemaining() ) {
 				writeCache();
-				internalBuffer.put( ( byte ) b );
 			}
+			internalBuffer.put( (byte) b );
 		}
 
 		@Override
 		public void write( byte[] b, int off, int len )
 			throws IOException
 		{
-			try {
-
-				if ( INITIAL_BUFFER_SIZE < ( len - off ) ) {
-					internalBuffer.put( b, off, ( INITIAL_BUFFER_SIZE - 1 ) ); // otherwise it won't work in writeCache wrt .remaining
-					writeCache();
-					write( b, ( off + ( INITIAL_BUFFER_SIZE - 1 ) ), len );
-				} else {
-					internalBuffer.put( b, off, ( len - off ) );
+			while( len > 0 ) {
+				if ( !internalBuffer.hasRemaining() ) {
 					writeCache();
 				}
-			} catch ( BufferOverflowException e ) {
-				throw new IOException( e.fillInStackTrace() );
+				final int n = Math.min( len, internalBuffer.remaining() );
+				internalBuffer.put( b, off, n );
+				off += n;
+				len -= n;
 			}
 		}
 
@@ -208,17 +188,6 @@ public class SSLProtocol extends SequentialCommProtocol
 		// close() not necessary, does nothing
 	}
 
-	private class SSLResult
-	{
-		private ByteBuffer buffer;
-		private SSLEngineResult log;
-
-		public SSLResult( int capacity )
-		{
-			buffer = ByteBuffer.allocate( capacity );
-		}
-	}
-
 	public SSLProtocol(
 		VariablePath configurationPath,
 		URI uri,
@@ -274,80 +243,82 @@ public class SSLProtocol extends SequentialCommProtocol
 		if ( keyStoreFile == null && isClient == false ) {
 			throw new IOException( "Compulsory parameter needed for server mode: ssl.keyStore" );
 		}
-		try {
-			SSLContext context = SSLContext.getInstance( protocol );
-			KeyStore ks = KeyStore.getInstance( keyStoreFormat );
-			KeyStore ts = KeyStore.getInstance( trustStoreFormat );
-
-			char[] passphrase;
-			if ( keyStorePassword != null ) {
-				passphrase = keyStorePassword.toCharArray();
-			} else {
-				passphrase = null;
-			}
-
-			if ( keyStoreFile != null ) {
-				try( InputStream is = new FileInputStream( keyStoreFile ) ) {
-					ks.load( is, passphrase );
-				}
-			} else {
-				ks.load( null, null );
-			}
-
-			KeyManagerFactory kmf = KeyManagerFactory.getInstance( "SunX509" );
-			kmf.init( ks, passphrase );
-
-			
-			if ( trustStorePassword != null ) {
-				passphrase = trustStorePassword.toCharArray();
-			} else {
-				passphrase = null;
-			}
-			try( InputStream is = new FileInputStream( trustStoreFile ) ) {
-				ts.load( is, passphrase );
-			}
-
-			TrustManagerFactory tmf = TrustManagerFactory.getInstance( "SunX509" );
-			tmf.init( ts );
-
-			context.init( kmf.getKeyManagers(), tmf.getTrustManagers(), null );
-
-			if ( location.getHost() != null && location.getPort() != -1 ) {
-				sslEngine = context.createSSLEngine( location.getHost(), location.getPort() );
+		SSLContext context = SSLContextCache.get(
+			protocol,
+			keyStoreFormat, keyStoreFile, keyStorePassword,
+			trustStoreFormat, trustStoreFile, trustStorePassword,
+			getSSLIntegerParameter( "sessionCacheSize", -1 ),
+			getSSLIntegerParameter( "sessionTimeout", -1 )
+		);
+
+		// Passing the peer lets client engines resume the sessions cached by the context
+		if ( location.getHost() != null && location.getPort() != -1 ) {
+			sslEngine = context.createSSLEngine( location.getHost(), location.getPort() );
+		} else {
+			sslEngine = context.createSSLEngine();
+		}
+		sslEngine.setEnabledProtocols( new String[]{ protocol } );
+		sslEngine.setUseClientMode( isClient );
+		if ( isClient == false ) {
+			if ( getSSLIntegerParameter( "wantClientAuth", 1 ) > 0 ) {
+				sslEngine.setWantClientAuth( true );
 			} else {
-				sslEngine = context.createSSLEngine();
-			}
-			sslEngine.setEnabledProtocols( new String[]{ protocol } );
-			sslEngine.setUseClientMode( isClient );
-			if ( isClient == false ) {
-				if ( getSSLIntegerParameter( "wantClientAuth", 1 ) > 0 ) {
-					sslEngine.setWantClientAuth( true );
-				} else {
-					sslEngine.setWantClientAuth( false );
-				}
+				sslEngine.setWantClientAuth( false );
 			}
-		} catch ( NoSuchAlgorithmException e ) {
-			throw new IOException( e );
-		} catch ( KeyManagementException e ) {
-			throw new IOException( e );
-		} catch ( KeyStoreException e ) {
-			throw new IOException( e );
-		} catch ( UnrecoverableKeyException e ) {
-			throw new IOException( e );
-		} catch ( CertificateException e ) {
-			throw new IOException( e );
 		}
+
+		final int packetSize = sslEngine.getSession().getPacketBufferSize();
+		netInBuffer = ByteBuffer.allocate( packetSize );
+		netInBuffer.flip();
+		netOutBuffer = ByteBuffer.allocate( packetSize );
+		appInBuffer = ByteBuffer.allocate( sslEngine.getSession().getApplicationBufferSize() );
+		appInBuffer.flip();
 	}
 
 	private void handshake()
 		throws IOException, SSLException
 	{
 		if ( firstTime ) {
-			init();
-			sslEngine.beginHandshake();
+			handshakeStart = System.nanoTime();
+			handshakeStartMillis = System.currentTimeMillis();
+			try {
+				init();
+				sslEngine.beginHandshake();
+			} catch( IOException e ) {
+				handshakeStart = 0;
+				SSLContextCache.statistics().handshakeFailed();
+				throw e;
+			}
 			firstTime = false;
 		}
 
+		try {
+			performHandshake();
+		} catch( IOException | RuntimeException e ) {
+			if ( handshakeStart != 0 ) {
+				handshakeStart = 0;
+				SSLContextCache.statistics().handshakeFailed();
+			}
+			throw e;
+		}
+		if ( handshakeStart != 0 && isHandshakeDone() ) {
+			final long nanos = System.nanoTime() - handshakeStart;
+			handshakeStart = 0;
+			// A resumed session was created before this handshake began
+			final boolean resumed = sslEngine.getSession().getCreationTime() < handshakeStartMillis;
+			SSLContextCache.statistics().handshakeCompleted( nanos, resumed );
+		}
+	}
+
+	private boolean isHandshakeDone()
+	{
+		final HandshakeStatus status = sslEngine.getHandshakeStatus();
+		return status == HandshakeStatus.FINISHED || status == HandshakeStatus.NOT_HANDSHAKING;
+	}
+
+	private void performHandshake()
+		throws IOException
+	{
 		boolean keepRun = true;
 
 		Runnable runnable;
@@ -361,10 +332,10 @@ public class SSLProtocol extends SequentialCommProtocol
 					}
 					break;
 				case NEED_WRAP:
-					wrap( ByteBuffer.allocate( INITIAL_BUFFER_SIZE ) );
+					wrap( emptyBuffer );
 					break;
 				case NEED_UNWRAP:
-					keepRun = unwrap( null );
+					keepRun = unwrap();
 					if ( sslEngine.isInboundDone() && sslEngine.isOutboundDone() ) {
 						keepRun = false;
 					}
@@ -373,98 +344,108 @@ public class SSLProtocol extends SequentialCommProtocol
 		}
 	}
 
-	private boolean unwrap( SSLInputStream sslInputStream )
+	/*
+	 * Unwraps the next TLS record into appInBuffer, reading it from the network if needed.
+	 * Returns false if the stream or the engine has been closed.
+	 */
+	private boolean unwrap()
 		throws IOException
 	{
+		while( true ) {
+			appInBuffer.compact();
+			final SSLEngineResult result;
+			try {
+				result = sslEngine.unwrap( netInBuffer, appInBuffer );
+			} finally {
+				appInBuffer.flip();
+			}
 
-		ByteBuffer cryptBuffer = ByteBuffer.allocate( 0 );
-		final SSLResult result = new SSLResult( INITIAL_BUFFER_SIZE );
-
-		boolean keepRun = true;
-		boolean returnResult = true;
-
-		while ( keepRun ) {
-			result.log = sslEngine.unwrap( cryptBuffer, result.buffer );
-
-			switch ( result.log.getStatus() ) {
+			switch( result.getStatus() ) {
+				case OK:
+					return true;
+				case CLOSED:
+					return false;
 				case BUFFER_OVERFLOW:
-					final int appSize = sslEngine.getSession().getApplicationBufferSize();
-					// Resize "result.buffer" if needed
-					if ( appSize > result.buffer.capacity() ) {
-						final ByteBuffer b = ByteBuffer.allocate( appSize );
-						result.buffer.flip();
-						b.put( result.buffer );
-						result.buffer = b;
-					} else {
-						result.buffer.compact();
-					}
+					appInBuffer = enlarge( appInBuffer, sslEngine.getSession().getApplicationBufferSize() );
 					break;
 				case BUFFER_UNDERFLOW:
-					final int netSize = sslEngine.getSession().getPacketBufferSize();
-					// Resize "cryptBuffer" if needed
-					if ( netSize > cryptBuffer.capacity() ) {
-						final ByteBuffer b = ByteBuffer.allocate( netSize );
-						cryptBuffer.flip();
-						b.put( cryptBuffer );
-						cryptBuffer = b;
-					} else {
-						cryptBuffer.compact();
-					}
-
-					int currByte = inputStream.read();
-					if ( currByte >= 0 ) {
-						cryptBuffer.put( ( byte ) currByte );
-						cryptBuffer.flip();
-					} else {
+					if ( !readRecord() ) {
 						// input stream EOF reached, we may not continue
-						returnResult = false;
-						keepRun = false;
-					}
-					break;
-				case CLOSED:
-					returnResult = false;
-				case OK:
-					if ( result.log.bytesConsumed() > 0 && sslInputStream != null ) {
-						sslInputStream.clearInputBuffer = result.buffer;
-						sslInputStream.clearInputBuffer.flip();
+						return false;
 					}
-					keepRun = false;
 					break;
 			}
 		}
-		return returnResult;
 	}
 
-	private void wrap( ByteBuffer source )
+	/*
+	 * Reads more of the TLS record at the beginning of netInBuffer.
+	 * The header of the record tells its length, so the record is read in bulk
+	 * without consuming anything that follows it: the bytes left in the socket
+	 * are what makes the channel selectable again.
+	 * Returns false at the end of the input stream.
+	 */
+	private boolean readRecord()
 		throws IOException
 	{
-		final SSLResult result = new SSLResult( source.capacity() );
-		result.log = sslEngine.wrap( source, result.buffer );
-		while ( result.log.getStatus() == Status.BUFFER_OVERFLOW ) {
-			final int appSize = sslEngine.getSession().getApplicationBufferSize();
-			// Resize "result.buffer" if needed
-//			if ( appSize > result.buffer.capacity() ) {
-//				final ByteBuffer b = ByteBuffer.allocate( appSize );
-//				result.buffer.flip();
-//				b.put( result.buffer );
-//				result.buffer = b;
-//			} else {
-//				result.buffer.compact();
-//			}
-			// From the docs: "The size of the outbound application data buffer generally does not matter."
-			// For the time being we can double it and later implement some smarter optimisations.
-			result.buffer = ByteBuffer.allocate( result.buffer.capacity() * 2 );
-
-			result.log = sslEngine.wrap( source, result.buffer );
+		final int available = netInBuffer.remaining();
+		int missing;
+		if ( available < RECORD_HEADER_SIZE ) {
+			missing = RECORD_HEADER_SIZE - available;
+		} else {
+			final int p = netInBuffer.position();
+			final int contentType = netInBuffer.get( p ) & 0xFF;
+			if ( contentType >= 20 && contentType <= 24 ) {
+				final int length = ((netInBuffer.get( p + 3 ) & 0xFF) << 8) | (netInBuffer.get( p + 4 ) & 0xFF);
+				missing = Math.max( 1, RECORD_HEADER_SIZE + length - available );
+			} else {
+				// Not a TLS record header (e.g., an SSLv2 hello): proceed byte by byte
+				missing = 1;
+			}
+		}
+
+		netInBuffer.compact();
+		if ( netInBuffer.remaining() < missing ) {
+			netInBuffer.flip();
+			netInBuffer = enlarge( netInBuffer, netInBuffer.remaining() + missing );
+			netInBuffer.compact();
 		}
-		// must be Status.OK or Status.CLOSED here
-		if ( result.log.bytesProduced() > 0 ) {
-			final WritableByteChannel outputChannel = Channels.newChannel( outputStream );
-			result.buffer.flip();
-			while ( result.buffer.hasRemaining() )
-				outputChannel.write( result.buffer );
-			outputStream.flush();
+		final int read = inputStream.read( netInBuffer.array(), netInBuffer.arrayOffset() + netInBuffer.position(), missing );
+		if ( read > 0 ) {
+			netInBuffer.position( netInBuffer.position() + read );
 		}
+		netInBuffer.flip();
+		return read >= 0;
+	}
+
+	// Returns a larger copy of a buffer in read mode, also in read mode
+	private static ByteBuffer enlarge( ByteBuffer buffer, int minCapacity )
+	{
+		final ByteBuffer b = ByteBuffer.allocate( Math.max( minCapacity, buffer.capacity() * 2 ) );
+		b.put( buffer );
+		b.flip();
+		return b;
+	}
+
+	private void wrap( ByteBuffer source )
+		throws IOException
+	{
+		do {
+			netOutBuffer.clear();
+			SSLEngineResult result = sslEngine.wrap( source, netOutBuffer );
+			while( result.getStatus() == Status.BUFFER_OVERFLOW ) {
+				netOutBuffer = ByteBuffer.allocate( Math.max( sslEngine.getSession().getPacketBufferSize(), netOutBuffer.capacity() * 2 ) );
+				result = sslEngine.wrap( source, netOutBuffer );
+			}
+			// must be Status.OK or Status.CLOSED here
+			if ( result.bytesProduced() > 0 ) {
+				outputStream.write( netOutBuffer.array(), netOutBuffer.arrayOffset(), netOutBuffer.position() );
+			}
+			if ( result.getStatus() == Status.CLOSED ) {
+				break;
+			}
+		} while( source.hasRemaining() );
+		outputStream.flush();
 	}
 
 	@Override
@@ -0,0 +1,307 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.xml;
+
+import com.sun.xml.xsom.XSAttributeUse;
+import com.sun.xml.xsom.XSComplexType;
+import com.sun.xml.xsom.XSContentType;
+import com.sun.xml.xsom.XSElementDecl;
+import com.sun.xml.xsom.XSModelGroup;
+import com.sun.xml.xsom.XSModelGroupDecl;
+import com.sun.xml.xsom.XSParticle;
+import com.sun.xml.xsom.XSTerm;
+import com.sun.xml.xsom.XSType;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import jolie.lang.Constants;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/**
+ * Streaming counterparts of the conversions between XML and values in
+ * {@link XmlUtils}.
+ *
+ * XML is read with StAX and written with {@link XmlWriter}, directly from and
+ * to values, without building an intermediate DOM document. The results are
+ * the same values and the same XML infosets as those of the corresponding
+ * methods of {@link XmlUtils}.
+ * @author agent
+ */
+public class XmlStreamUtils
+{
+	private static final String ATTRIBUTES = Constants.Predefined.ATTRIBUTES.token().content();
+
+	private XmlStreamUtils() {}
+
+	/**
+	 * Reads an XML document into a value, like {@link XmlUtils#documentToValue(org.w3c.dom.Document, jolie.runtime.Value, boolean, boolean)}.
+	 * The name of the document element is not stored.
+	 * @param reader the source of the XML document, positioned before its document element
+	 * @param value the value receiving the content of the document element
+	 * @param includeAttributes {@code true} to store attributes and element prefixes
+	 * @param skipMixedText {@code true} to ignore the text of elements that also have child elements
+	 * @throws XMLStreamException if the document could not be read
+	 */
+	public static void documentToValue( XMLStreamReader reader, Value value, boolean includeAttributes, boolean skipMixedText )
+		throws XMLStreamException
+	{
+		while( reader.getEventType() != XMLStreamConstants.START_ELEMENT ) {
+			reader.next();
+		}
+		elementToValue( reader, value, includeAttributes, skipMixedText );
+	}
+
+	/**
+	 * Reads an XML element into a value. Afterwards, reader is positioned at
+	 * the end of the element.
+	 * @param reader the source of the XML element, positioned at its start
+	 * @param value the value receiving the content of the element
+	 * @param includeAttributes {@code true} to store attributes and element prefixes
+	 * @param skipMixedText {@code true} to ignore the text of elements that also have child elements
+	 * @throws XMLStreamException if the element could not be read
+	 */
+	public static void elementToValue( XMLStreamReader reader, Value value, boolean includeAttributes, boolean skipMixedText )
+		throws XMLStreamException
+	{
+		if ( includeAttributes ) {
+			setAttributes( value, reader );
+		}
+
+		StringBuilder builder = null;
+		boolean hasSubNodes = false;
+		int event;
+		while( (event = reader.next()) != XMLStreamConstants.END_ELEMENT ) {
+			switch( event ) {
+			case XMLStreamConstants.START_ELEMENT:
+				Value childValue = value.getNewChild( reader.getLocalName() );
+				if ( includeAttributes ) {
+					String prefix = reader.getPrefix();
+					if ( prefix != null && !prefix.isEmpty() ) {
+						childValue.getFirstChild( XmlUtils.PREFIX ).setValue( prefix );
+					}
+				}
+				elementToValue( reader, childValue, includeAttributes, skipMixedText );
+				hasSubNodes = true;
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.CDATA:
+			case XMLStreamConstants.SPACE:
+				if ( builder == null ) {
+					builder = new StringBuilder();
+				}
+				builder.append( reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength() );
+				break;
+			}
+		}
+		if ( builder != null && builder.length() > 0 ) {
+			if ( !(skipMixedText && hasSubNodes) ) {
+				value.setValue( builder.toString() );
+			}
+		}
+	}
+
+	// Namespace declarations are attributes in DOM, so they are stored as such
+	private static void setAttributes( Value value, XMLStreamReader reader )
+	{
+		for( int i = 0; i < reader.getNamespaceCount(); i++ ) {
+			String prefix = reader.getNamespacePrefix( i );
+			getAttribute( value, prefix == null || prefix.isEmpty() ? "xmlns" : prefix ).setValue( reader.getNamespaceURI( i ) );
+		}
+		for( int i = 0; i < reader.getAttributeCount(); i++ ) {
+			getAttribute( value, reader.getAttributeLocalName( i ) ).setValue( reader.getAttributeValue( i ) );
+		}
+	}
+
+	private static Value getAttribute( Value value, String attrName )
+	{
+		return value.getFirstChild( ATTRIBUTES ).getFirstChild( attrName );
+	}
+
+	/**
+	 * Writes a value as an XML element, like {@link XmlUtils#valueToDocument(jolie.runtime.Value, java.lang.String, org.w3c.dom.Document)}.
+	 * @param value the source value
+	 * @param elementName the name of the element
+	 * @param writer the destination of the element
+	 * @throws IOException if the element could not be written
+	 */
+	public static void valueToStream( Value value, String elementName, XmlWriter writer )
+		throws IOException
+	{
+		writer.startElement( elementName );
+		if ( value.hasChildren( ATTRIBUTES ) ) {
+			for( Entry< String, ValueVector > attrEntry : value.getFirstChild( ATTRIBUTES ).children().entrySet() ) {
+				writer.attribute( attrEntry.getKey(), attrEntry.getValue().first().strValue() );
+			}
+		}
+		writer.text( value.strValue() );
+		for( Entry< String, ValueVector > entry : value.children().entrySet() ) {
+			if ( !entry.getKey().startsWith( "@" ) ) {
+				for( Value child : entry.getValue() ) {
+					valueToStream( child, entry.getKey(), writer );
+				}
+			}
+		}
+		writer.endElement();
+	}
+
+	/**
+	 * Writes a value as an XML element following a given XML type definition,
+	 * like {@link XmlUtils#valueToDocument(jolie.runtime.Value, java.lang.String, org.w3c.dom.Document, com.sun.xml.xsom.XSType)}.
+	 * Unlike the DOM version, the written value is not modified.
+	 * @param value the source value
+	 * @param elementName the name of the element
+	 * @param writer the destination of the element
+	 * @param type the XML type definition to follow
+	 * @throws IOException if the element could not be written
+	 */
+	public static void valueToStream( Value value, String elementName, XmlWriter writer, XSType type )
+		throws IOException
+	{
+		writer.startElement( getElementNameWithPrefix( value, elementName ) );
+		writeForcedAttributes( value, writer );
+		if ( type.isSimpleType() ) {
+			writer.text( value.strValue() );
+		} else if ( type.isComplexType() ) {
+			XSComplexType complexType = type.asComplexType();
+
+			for( XSAttributeUse attrUse : complexType.getAttributeUses() ) {
+				String name = attrUse.getDecl().getName();
+				Value attrValue = getAttributeOrNull( value, name );
+				if ( attrValue != null ) {
+					writer.attribute( name, attrValue.strValue() );
+				}
+			}
+
+			XSContentType contentType = complexType.getContentType();
+			XSParticle particle = contentType.asParticle();
+			if ( contentType.asSimpleType() != null ) {
+				writer.text( value.strValue() );
+			} else if ( particle != null ) {
+				XSTerm term = particle.getTerm();
+				XSModelGroupDecl modelGroupDecl;
+				XSModelGroup modelGroup = null;
+				if ( (modelGroupDecl=term.asModelGroupDecl()) != null ) {
+					modelGroup = modelGroupDecl.getModelGroup();
+				} else if ( term.isModelGroup() ) {
+					modelGroup = term.asModelGroup();
+				}
+				if ( modelGroup != null ) {
+					modelGroupToStream( value, writer, modelGroup, new HashMap<>() );
+				}
+			}
+		}
+		writer.endElement();
+	}
+
+	// written counts how many children of each vector have been written, as the DOM version removes them
+	private static void modelGroupToStream( Value value, XmlWriter writer, XSModelGroup modelGroup, Map< String, Integer > written )
+		throws IOException
+	{
+		XSModelGroup.Compositor compositor = modelGroup.getCompositor();
+		if ( compositor.equals( XSModelGroup.SEQUENCE ) ) {
+			for( XSParticle child : modelGroup.getChildren() ) {
+				XSTerm currTerm = child.getTerm();
+				if ( currTerm.isElementDecl() ) {
+					XSElementDecl currElementDecl = currTerm.asElementDecl();
+					String name = currElementDecl.getName();
+					ValueVector vec = value.children().get( name );
+					if ( vec != null ) {
+						int index = written.getOrDefault( name, 0 );
+						int k = 0;
+						while(
+							index < vec.size() &&
+							(child.getMaxOccurs() == XSParticle.UNBOUNDED ||
+								child.getMaxOccurs() > k)
+						) {
+							valueToStream( vec.get( index ), name, writer, currElementDecl.getType() );
+							index++;
+							k++;
+						}
+						written.put( name, index );
+					}
+				} else if ( currTerm.isModelGroupDecl() ) {
+					modelGroupToStream( value, writer, currTerm.asModelGroupDecl().getModelGroup(), written );
+				} else if ( currTerm.isModelGroup() ) {
+					modelGroupToStream( value, writer, currTerm.asModelGroup(), written );
+				}
+			}
+		} else if ( compositor.equals( XSModelGroup.CHOICE ) ) {
+			boolean found = false;
+			XSParticle[] children = modelGroup.getChildren();
+			for( int i = 0; i < children.length && !found; i++ ) {
+				XSTerm currTerm = children[ i ].getTerm();
+				if ( currTerm.isElementDecl() ) {
+					XSElementDecl currElementDecl = currTerm.asElementDecl();
+					String name = currElementDecl.getName();
+					ValueVector vec = value.children().get( name );
+					if ( vec != null ) {
+						found = true;
+						int index = written.getOrDefault( name, 0 );
+						valueToStream( index < vec.size() ? vec.get( index ) : Value.create(), name, writer, currElementDecl.getType() );
+						written.put( name, index + 1 );
+					}
+				} else if ( currTerm.isModelGroupDecl() ) {
+					modelGroupToStream( value, writer, currTerm.asModelGroupDecl().getModelGroup(), written );
+				} else if ( currTerm.isModelGroup() ) {
+					modelGroupToStream( value, writer, currTerm.asModelGroup(), written );
+				}
+			}
+		}
+	}
+
+	private static String getElementNameWithPrefix( Value value, String name )
+	{
+		if ( value.hasChildren( XmlUtils.PREFIX ) ) {
+			String prefix = value.getFirstChild( XmlUtils.PREFIX ).strValue();
+			if ( !prefix.isEmpty() ) {
+				return prefix + ":" + name;
+			}
+		}
+		return name;
+	}
+
+	private static void writeForcedAttributes( Value value, XmlWriter writer )
+		throws IOException
+	{
+		if ( value.hasChildren( XmlUtils.FORCE_ATTRIBUTE ) ) {
+			for( Entry< String, ValueVector > entry : value.getFirstChild( XmlUtils.FORCE_ATTRIBUTE ).children().entrySet() ) {
+				writer.attribute( entry.getKey(), entry.getValue().get( 0 ).strValue() );
+			}
+		}
+	}
+
+	private static Value getAttributeOrNull( Value value, String attributeName )
+	{
+		if ( value.hasChildren( ATTRIBUTES ) ) {
+			ValueVector vec = value.getFirstChild( ATTRIBUTES ).children().get( attributeName );
+			if ( vec != null && vec.size() > 0 ) {
+				return vec.first();
+			}
+		}
+		return null;
+	}
+}
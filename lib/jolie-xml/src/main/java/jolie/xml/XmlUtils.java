@@ -61,7 +61,7 @@ import jolie.runtime.ValueVector;
 public class XmlUtils
 {
 	private static final String JOLIE_TYPE_ATTRIBUTE = "_jolie_type";
-	private static final String FORCE_ATTRIBUTE = "@ForcedAttributes";
+	static final String FORCE_ATTRIBUTE = "@ForcedAttributes";
 
 	public static final String PREFIX = "@Prefix";
 	public static final String NAMESPACE_ATTRIBUTE_NAME = "@Namespace";
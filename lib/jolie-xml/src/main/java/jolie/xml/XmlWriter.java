@@ -0,0 +1,213 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.xml;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A minimal streaming writer of XML elements, which escapes text and
+ * attributes like the XML serializer of the JDK transformers: characters
+ * that would be lost or normalized by parsers, and characters that cannot
+ * be encoded in the output charset, are written as character references.
+ *
+ * Elements without content are written as empty-element tags.
+ * No XML declaration is written.
+ * @author agent
+ */
+public class XmlWriter
+{
+	private final Writer writer;
+	private final CharsetEncoder encoder;
+	private final Deque< String > openElements = new ArrayDeque<>();
+	private boolean startTagOpen = false;
+
+	/**
+	 * Creates a writer of XML encoded with the passed charset.
+	 * @param stream the destination of the XML
+	 * @param charset the charset used to encode the XML
+	 */
+	public XmlWriter( OutputStream stream, Charset charset )
+	{
+		this.writer = new BufferedWriter( new OutputStreamWriter( stream, charset ) );
+		// Unicode charsets can encode every character
+		this.encoder = charset.name().startsWith( "UTF" ) ? null : charset.newEncoder();
+	}
+
+	/**
+	 * Starts an element, which can then receive attributes, text and child elements.
+	 * @param name the name of the element
+	 * @throws IOException if the element could not be written
+	 */
+	public void startElement( String name )
+		throws IOException
+	{
+		closeStartTag();
+		writer.write( '<' );
+		writer.write( name );
+		openElements.push( name );
+		startTagOpen = true;
+	}
+
+	/**
+	 * Adds an attribute to the element that has just been started.
+	 * @param name the name of the attribute
+	 * @param value the value of the attribute
+	 * @throws IOException if the attribute could not be written
+	 * @throws IllegalStateException if the current element already has some content
+	 */
+	public void attribute( String name, String value )
+		throws IOException
+	{
+		if ( !startTagOpen ) {
+			throw new IllegalStateException( "Attributes must be written before the content of an element" );
+		}
+		writer.write( ' ' );
+		writer.write( name );
+		writer.write( "=\"" );
+		writeEscaped( value, true );
+		writer.write( '"' );
+	}
+
+	/**
+	 * Writes text in the current element.
+	 * @param text the text to write
+	 * @throws IOException if the text could not be written
+	 */
+	public void text( String text )
+		throws IOException
+	{
+		if ( !text.isEmpty() ) {
+			closeStartTag();
+			writeEscaped( text, false );
+		}
+	}
+
+	/**
+	 * Ends the current element.
+	 * @throws IOException if the element could not be written
+	 */
+	public void endElement()
+		throws IOException
+	{
+		final String name = openElements.pop();
+		if ( startTagOpen ) {
+			writer.write( "/>" );
+			startTagOpen = false;
+		} else {
+			writer.write( "</" );
+			writer.write( name );
+			writer.write( '>' );
+		}
+	}
+
+	/**
+	 * Flushes the written XML to the underlying stream, which is not closed.
+	 * @throws IOException if the XML could not be flushed
+	 */
+	public void flush()
+		throws IOException
+	{
+		writer.flush();
+	}
+
+	private void closeStartTag()
+		throws IOException
+	{
+		if ( startTagOpen ) {
+			writer.write( '>' );
+			startTagOpen = false;
+		}
+	}
+
+	private void writeEscaped( String s, boolean inAttribute )
+		throws IOException
+	{
+		final int length = s.length();
+		int start = 0; // Start of the run of characters that need no escaping
+		for( int i = 0; i < length; i++ ) {
+			final char c = s.charAt( i );
+			final String escaped;
+			int codePoint = -1;
+			switch( c ) {
+			case '&':
+				escaped = "&amp;";
+				break;
+			case '<':
+				escaped = "&lt;";
+				break;
+			case '>':
+				escaped = "&gt;";
+				break;
+			case '"':
+				escaped = inAttribute ? "&quot;" : null;
+				break;
+			case '\n':
+			case '\t':
+				escaped = null;
+				if ( inAttribute ) {
+					codePoint = c;
+				}
+				break;
+			default:
+				escaped = null;
+				if ( c < 0x20 ) {
+					codePoint = c;
+				} else if ( c >= 0x80 && encoder != null && !encoder.canEncode( c ) ) {
+					if ( Character.isHighSurrogate( c ) && i + 1 < length && Character.isLowSurrogate( s.charAt( i + 1 ) ) ) {
+						writer.write( s, start, i - start );
+						writeCharacterReference( Character.toCodePoint( c, s.charAt( i + 1 ) ) );
+						i++;
+						start = i + 1;
+						continue;
+					}
+					codePoint = c;
+				}
+			}
+			if ( escaped != null || codePoint >= 0 ) {
+				writer.write( s, start, i - start );
+				if ( escaped != null ) {
+					writer.write( escaped );
+				} else {
+					writeCharacterReference( codePoint );
+				}
+				start = i + 1;
+			}
+		}
+		writer.write( s, start, length - start );
+	}
+
+	private void writeCharacterReference( int codePoint )
+		throws IOException
+	{
+		writer.write( "&#" );
+		writer.write( Integer.toString( codePoint ) );
+		writer.write( ';' );
+	}
+}
@@ -353,6 +353,7 @@ public class OLParseTreeOptimizer
 				n.context(),
 				optimizePath( n.indexVariablePath() ),
 				optimizeNode( n.upperBoundExpression() ),
+				optimizeNode( n.chunkSizeExpression() ),
 				optimizePath( n.inVariablePath() ),
 				optimizeNode( n.body() )
 			);
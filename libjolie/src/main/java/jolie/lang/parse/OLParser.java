@@ -159,6 +159,7 @@ public class OLParser extends AbstractParser
 
 	private final Map< String, TypeDefinition > definedTypes;
 	private final ClassLoader classLoader;
+	private final List< URI > includedFiles = new ArrayList<>();
 
 	private InterfaceExtenderDefinition currInterfaceExtender = null;
 
@@ -177,6 +178,16 @@ public class OLParser extends AbstractParser
 		constantsMap.putAll( constantsToPut );
 	}
 
+	/**
+	 * Returns the URIs of the files included by the parsed program, in the
+	 * order in which they have been included.
+	 * @return the URIs of the included files
+	 */
+	public List< URI > includedFiles()
+	{
+		return includedFiles;
+	}
+
 	public static Map< String, TypeDefinition > createTypeDeclarationMap( ParsingContext context )
 	{
 		Map< String, TypeDefinition > definedTypes = new HashMap<>();
@@ -811,6 +822,7 @@ public class OLParser extends AbstractParser
 				}
 			}
 
+			includedFiles.add( includeFile.getURI() );
 			origIncludePaths = includePaths;
 			// includes are explicitly parsed in ASCII to be independent of program's encoding
 			setScanner( new Scanner( includeFile.getInputStream(), includeFile.getURI(), "US-ASCII", oldScanner.includeDocumentation() ) );
@@ -1802,6 +1814,11 @@ public class OLParser extends AbstractParser
 			}
 			getToken();
 			OLSyntaxNode upperBoundExpression = parseBasicExpression();
+			OLSyntaxNode chunkSizeExpression = null;
+			if ( token.isKeyword( "chunk" ) ) {
+				getToken();
+				chunkSizeExpression = parseBasicExpression();
+			}
 			eat( Scanner.TokenType.RPAREN, "expected )" );
 
 			VariablePathNode inVariablePath = null;
@@ -1816,6 +1833,7 @@ public class OLParser extends AbstractParser
 				getContext(),
 				indexVariablePath,
 				upperBoundExpression,
+				chunkSizeExpression,
 				inVariablePath,
 				process
 			);
@@ -30,6 +30,7 @@ public class SpawnStatement extends OLSyntaxNode
 	private final VariablePathNode indexVariablePath;
 	private final VariablePathNode inVariablePath; // may be null
 	private final OLSyntaxNode upperBoundExpression, body;
+	private final OLSyntaxNode chunkSizeExpression; // may be null
 
 	public SpawnStatement(
 			ParsingContext context,
@@ -38,11 +39,24 @@ public class SpawnStatement extends OLSyntaxNode
 			VariablePathNode inVariablePath,
 			OLSyntaxNode body
 	)
+	{
+		this( context, indexVariablePath, upperBoundExpression, null, inVariablePath, body );
+	}
+
+	public SpawnStatement(
+			ParsingContext context,
+			VariablePathNode indexVariablePath,
+			OLSyntaxNode upperBoundExpression,
+			OLSyntaxNode chunkSizeExpression,
+			VariablePathNode inVariablePath,
+			OLSyntaxNode body
+	)
 	{
 		super( context );
 		this.indexVariablePath = indexVariablePath;
 		this.inVariablePath = inVariablePath;
 		this.upperBoundExpression = upperBoundExpression;
+		this.chunkSizeExpression = chunkSizeExpression;
 		this.body = body;
 	}
 	
@@ -56,6 +70,11 @@ public class SpawnStatement extends OLSyntaxNode
 		return upperBoundExpression;
 	}
 
+	public OLSyntaxNode chunkSizeExpression()
+	{
+		return chunkSizeExpression;
+	}
+
 	public VariablePathNode indexVariablePath()
 	{
 		return indexVariablePath;
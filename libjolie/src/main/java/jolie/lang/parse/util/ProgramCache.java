@@ -0,0 +1,502 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.lang.parse.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import jolie.lang.Constants;
+import jolie.lang.parse.OLParseTreeOptimizer;
+import jolie.lang.parse.OLParser;
+import jolie.lang.parse.ParserException;
+import jolie.lang.parse.Scanner;
+import jolie.lang.parse.ast.Program;
+
+/**
+ * Process-wide cache of parsed and optimized programs.
+ *
+ * Interpreters that run the same program with the same include paths,
+ * libraries, constants and charset parse it only once, so embedding
+ * a service many times is faster. An entry is reused only if the
+ * program has the same content, which is compared by hash, and none of the
+ * files it includes has been modified since it was parsed. Programs that
+ * include files that cannot be checked for modifications, e.g., remote
+ * URLs, are parsed every time.
+ *
+ * Entries keep programs in serialized form and every caller gets its own
+ * copy, because interpreters modify their parse trees while verifying them.
+ * A program is kept only from the second time it is requested, so programs
+ * that are run once do not pay for serializing them.
+ * A program is parsed by one thread at a time: concurrent requests for it
+ * wait for that parse and then read its entry. At most {@value #MAX_ENTRIES}
+ * entries are kept in memory, evicting the least recently used ones.
+ *
+ * Entries can also be persisted in a directory, which makes them available
+ * to later processes. Reading an entry only creates classes of parse trees,
+ * but the directory should still be writable only by the users that run
+ * the programs.
+ * @author agent
+ */
+public class ProgramCache
+{
+	/**
+	 * Counters of the program cache.
+	 */
+	public static class Statistics
+	{
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder diskHits = new LongAdder();
+		private final LongAdder loads = new LongAdder();
+
+		/**
+		 * Returns the number of programs served from memory.
+		 * @return the number of programs served from memory
+		 */
+		public long hits()
+		{
+			return hits.sum();
+		}
+
+		/**
+		 * Returns the number of programs read from a cache directory.
+		 * @return the number of programs read from a cache directory
+		 */
+		public long diskHits()
+		{
+			return diskHits.sum();
+		}
+
+		/**
+		 * Returns the number of programs parsed, including reloads.
+		 * @return the number of programs parsed
+		 */
+		public long loads()
+		{
+			return loads.sum();
+		}
+	}
+
+	private static class Entry
+	{
+		private final byte[] digest;
+		private final String[] files;
+		private final long[] modified;
+		// null until the program is requested again, so that programs parsed once are not serialized
+		private final byte[] program;
+
+		private Entry( byte[] digest, String[] files, long[] modified, byte[] program )
+		{
+			this.digest = digest;
+			this.files = files;
+			this.modified = modified;
+			this.program = program;
+		}
+
+		private boolean isCurrent( byte[] digest )
+		{
+			if ( !Arrays.equals( this.digest, digest ) ) {
+				return false;
+			}
+			for( int i = 0; i < modified.length; i++ ) {
+				if ( modified[ i ] == UNCHECKABLE || modified[ i ] != lastModified( files[ i ] ) ) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/*
+	 * Only resolves the classes that parse trees are made of, so that a
+	 * tampered entry cannot make deserialization run the code of other classes.
+	 */
+	private static class ProgramInputStream extends ObjectInputStream
+	{
+		private static final String[] ALLOWED_PACKAGES = { "jolie.lang.", "jolie.util." };
+		private static final Set< String > ALLOWED_CLASSES = new HashSet<>( Arrays.asList(
+			"java.lang.Boolean", "java.lang.Double", "java.lang.Enum", "java.lang.Integer",
+			"java.lang.Long", "java.lang.Number", "java.lang.String", "java.net.URI",
+			"java.util.ArrayList", "java.util.HashMap", "java.util.HashSet", "java.util.LinkedHashMap",
+			"java.util.LinkedHashSet", "java.util.LinkedList", "java.util.TreeMap"
+		) );
+
+		private ProgramInputStream( InputStream istream )
+			throws IOException
+		{
+			super( istream );
+		}
+
+		private static boolean isAllowed( String className )
+		{
+			String name = className;
+			while( name.startsWith( "[" ) ) {
+				name = name.substring( 1 );
+			}
+			if ( name.length() == 1 ) {
+				// An array of primitive types
+				return true;
+			}
+			if ( name.startsWith( "L" ) && name.endsWith( ";" ) ) {
+				name = name.substring( 1, name.length() - 1 );
+			}
+			if ( ALLOWED_CLASSES.contains( name ) || name.startsWith( "java.util.Collections$" ) ) {
+				return true;
+			}
+			for( String allowedPackage : ALLOWED_PACKAGES ) {
+				if ( name.startsWith( allowedPackage ) ) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		protected Class< ? > resolveClass( ObjectStreamClass desc )
+			throws IOException, ClassNotFoundException
+		{
+			if ( !isAllowed( desc.getName() ) ) {
+				throw new InvalidClassException( desc.getName(), "not part of a parse tree" );
+			}
+			return super.resolveClass( desc );
+		}
+
+		@Override
+		protected Class< ? > resolveProxyClass( String[] interfaces )
+			throws IOException
+		{
+			throw new InvalidClassException( "Proxy classes are not part of a parse tree" );
+		}
+	}
+
+	private static final long UNCHECKABLE = -1L;
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final String FILE_EXTENSION = ".cache";
+	private static final int MAX_ENTRIES = 64;
+
+	private static final Map< String, Entry > programs = Collections.synchronizedMap(
+		new LinkedHashMap< String, Entry >( 16, 0.75f, true ) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry< String, Entry > eldest )
+			{
+				return size() > MAX_ENTRIES;
+			}
+		}
+	);
+	// Completed when the program of a key has been loaded by the thread that owns it
+	private static final Map< String, CompletableFuture< Void > > loading = new ConcurrentHashMap<>();
+	private static final Statistics statistics = new Statistics();
+
+	private ProgramCache() {}
+
+	/**
+	 * Returns the counters of this cache.
+	 * @return the counters of this cache
+	 */
+	public static Statistics statistics()
+	{
+		return statistics;
+	}
+
+	/**
+	 * Returns the parsed and optimized program read from inputStream,
+	 * parsing it only if it is not cached yet.
+	 * The returned program is never shared, so the caller may modify it.
+	 * @param inputStream the source code of the program, which is read completely but not closed
+	 * @param source the URI of the program
+	 * @param charset the charset of the source code, {@code null} for the default one
+	 * @param includePaths the paths used to resolve includes
+	 * @param classLoader the class loader used to resolve includes
+	 * @param definedConstants the constants defined for the program
+	 * @param directory the directory where entries are persisted, {@code null} to keep them only in memory
+	 * @return the parsed and optimized program
+	 * @throws IOException if the program or one of its includes could not be read
+	 * @throws ParserException if the program could not be parsed
+	 */
+	public static Program parseProgram(
+		InputStream inputStream,
+		URI source,
+		String charset,
+		String[] includePaths,
+		ClassLoader classLoader,
+		Map< String, Scanner.Token > definedConstants,
+		Path directory
+	)
+		throws IOException, ParserException
+	{
+		final byte[] code = readAll( inputStream );
+		final byte[] digest = digest( code );
+		final String key = key( source, charset, includePaths, classLoader, definedConstants );
+
+		while( true ) {
+			final Entry entry = programs.get( key );
+			final boolean requestedBefore = entry != null && entry.isCurrent( digest );
+			if ( requestedBefore && entry.program != null ) {
+				final Program program = readProgram( entry.program );
+				if ( program != null ) {
+					statistics.hits.increment();
+					return program;
+				}
+				programs.remove( key, entry );
+			}
+			final CompletableFuture< Void > loaded = new CompletableFuture<>();
+			final CompletableFuture< Void > running = loading.putIfAbsent( key, loaded );
+			if ( running == null ) {
+				try {
+					return load( key, code, digest, source, charset, includePaths, classLoader, definedConstants, directory, requestedBefore );
+				} finally {
+					loading.remove( key, loaded );
+					loaded.complete( null );
+				}
+			}
+			// Another thread is loading the program: wait and look for its entry again
+			running.join();
+		}
+	}
+
+	private static Program load(
+		String key,
+		byte[] code,
+		byte[] digest,
+		URI source,
+		String charset,
+		String[] includePaths,
+		ClassLoader classLoader,
+		Map< String, Scanner.Token > definedConstants,
+		Path directory,
+		boolean requestedBefore
+	)
+		throws IOException, ParserException
+	{
+		final Path file = directory == null ? null : directory.resolve( toHex( digest( key.getBytes( StandardCharsets.UTF_8 ) ) ) + FILE_EXTENSION );
+		if ( file != null ) {
+			final Entry stored = readEntry( file, digest );
+			final Program program = stored == null ? null : readProgram( stored.program );
+			if ( program != null ) {
+				statistics.diskHits.increment();
+				programs.put( key, stored );
+				return program;
+			}
+		}
+
+		final OLParser parser = new OLParser( new Scanner( new ByteArrayInputStream( code ), source, charset ), includePaths, classLoader );
+		parser.putConstants( definedConstants );
+		final Program program = OLParseTreeOptimizer.optimize( parser.parse() );
+		statistics.loads.increment();
+		final List< URI > includedFiles = parser.includedFiles();
+		final String[] files = new String[ includedFiles.size() ];
+		final long[] modified = new long[ files.length ];
+		for( int i = 0; i < files.length; i++ ) {
+			files[ i ] = includedFiles.get( i ).toString();
+			modified[ i ] = lastModified( files[ i ] );
+		}
+		final boolean keep = requestedBefore || file != null;
+		final Entry entry = new Entry( digest, files, modified, keep ? writeProgram( program ) : null );
+		if ( entry.isCurrent( digest ) ) {
+			programs.put( key, entry );
+			if ( file != null && entry.program != null ) {
+				writeEntry( file, entry );
+			}
+		}
+		return program;
+	}
+
+	// Returns null if the program cannot be serialized, in which case it is not cached
+	private static byte[] writeProgram( Program program )
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try( ObjectOutputStream ostream = new ObjectOutputStream( bytes ) ) {
+			ostream.writeObject( program );
+		} catch( IOException e ) {
+			return null;
+		}
+		return bytes.toByteArray();
+	}
+
+	// Returns null if the program cannot be deserialized, in which case it is parsed again
+	private static Program readProgram( byte[] bytes )
+	{
+		try( ObjectInputStream istream = new ProgramInputStream( new ByteArrayInputStream( bytes ) ) ) {
+			return (Program) istream.readObject();
+		} catch( IOException | ClassNotFoundException | ClassCastException e ) {
+			return null;
+		}
+	}
+
+	private static Entry readEntry( Path file, byte[] digest )
+	{
+		try( ObjectInputStream istream = new ProgramInputStream( new BufferedInputStream( Files.newInputStream( file ) ) ) ) {
+			if ( !Constants.VERSION.equals( istream.readUTF() ) ) {
+				return null;
+			}
+			final Entry entry = new Entry(
+				(byte[]) istream.readObject(),
+				(String[]) istream.readObject(),
+				(long[]) istream.readObject(),
+				(byte[]) istream.readObject()
+			);
+			return entry.isCurrent( digest ) ? entry : null;
+		} catch( NoSuchFileException e ) {
+			return null;
+		} catch( IOException | ClassNotFoundException | ClassCastException e ) {
+			// Written by an incompatible version of Jolie, damaged or tampered with, it gets replaced
+			return null;
+		}
+	}
+
+	// Persisting is best-effort: programs that cannot be stored are just parsed again
+	private static void writeEntry( Path file, Entry entry )
+	{
+		Path tmpFile = null;
+		try {
+			Files.createDirectories( file.getParent() );
+			tmpFile = Files.createTempFile( file.getParent(), file.getFileName().toString(), ".tmp" );
+			try( ObjectOutputStream ostream = new ObjectOutputStream( new BufferedOutputStream( Files.newOutputStream( tmpFile ) ) ) ) {
+				ostream.writeUTF( Constants.VERSION );
+				ostream.writeObject( entry.digest );
+				ostream.writeObject( entry.files );
+				ostream.writeObject( entry.modified );
+				ostream.writeObject( entry.program );
+			}
+			// Other processes see either the previous file or the complete new one
+			Files.move( tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+			tmpFile = null;
+		} catch( IOException e ) {
+		} finally {
+			if ( tmpFile != null ) {
+				try {
+					Files.deleteIfExists( tmpFile );
+				} catch( IOException e ) {}
+			}
+		}
+	}
+
+	private static String key(
+		URI source,
+		String charset,
+		String[] includePaths,
+		ClassLoader classLoader,
+		Map< String, Scanner.Token > definedConstants
+	) {
+		final StringBuilder builder = new StringBuilder();
+		builder.append( source ).append( '\n' ).append( charset ).append( '\n' );
+		for( String includePath : includePaths ) {
+			builder.append( includePath ).append( '\n' );
+		}
+		for( ClassLoader cl = classLoader; cl != null; cl = cl.getParent() ) {
+			if ( cl instanceof URLClassLoader ) {
+				for( URL url : ((URLClassLoader) cl).getURLs() ) {
+					builder.append( url ).append( '\n' );
+				}
+			}
+		}
+		for( Map.Entry< String, Scanner.Token > constant : new TreeMap<>( definedConstants ).entrySet() ) {
+			builder.append( constant.getKey() ).append( '=' )
+				.append( constant.getValue().type() ).append( ':' )
+				.append( constant.getValue().content() ).append( '\n' );
+		}
+		return builder.toString();
+	}
+
+	// Files in archives are checked through the modification time of the archive
+	private static long lastModified( String uri )
+	{
+		String location = uri;
+		while( location.startsWith( "jap:" ) || location.startsWith( "jar:" ) ) {
+			location = location.substring( 4 );
+		}
+		final int archiveEnd = location.indexOf( "!/" );
+		if ( archiveEnd >= 0 ) {
+			location = location.substring( 0, archiveEnd );
+		}
+		if ( !location.startsWith( "file:" ) ) {
+			return UNCHECKABLE;
+		}
+		try {
+			return new File( new URI( location ) ).lastModified();
+		} catch( URISyntaxException | IllegalArgumentException e ) {
+			return UNCHECKABLE;
+		}
+	}
+
+	private static byte[] readAll( InputStream inputStream )
+		throws IOException
+	{
+		final ByteArrayOutputStream ostream = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[ 8192 ];
+		int read;
+		while( (read = inputStream.read( buffer )) != -1 ) {
+			ostream.write( buffer, 0, read );
+		}
+		return ostream.toByteArray();
+	}
+
+	private static byte[] digest( byte[] bytes )
+	{
+		try {
+			return MessageDigest.getInstance( DIGEST_ALGORITHM ).digest( bytes );
+		} catch( NoSuchAlgorithmException e ) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException( e );
+		}
+	}
+
+	private static String toHex( byte[] bytes )
+	{
+		final StringBuilder builder = new StringBuilder( bytes.length * 2 );
+		for( byte b : bytes ) {
+			builder.append( Character.forDigit( (b >> 4) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+		}
+		return builder.toString();
+	}
+}